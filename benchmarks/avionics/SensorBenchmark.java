@@ -0,0 +1,73 @@
+package avionics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks the avionics hot paths: a single sensor update, and writing the
+ * latest snapshot to the JSON file, which replaced SensorSimulator.updateJsonFile().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SensorBenchmark {
+    private Sensor sensor;                  // Sensor updated by updateValue()
+    private SensorPersistence persistence;  // Writer whose write path is measured
+    private SensorSnapshot snapshot;        // Snapshot written by writeJson()
+    private File file;                      // File the snapshot is written to
+
+    /**
+     * Creates the sensors and a persistence writer whose background flushes never fire.
+     *
+     * @throws IOException if the temporary file cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SensorSimulator simulator = new SensorSimulator();
+        simulator.createSensors();
+        sensor = simulator.getSensors().get("altitude");
+        snapshot = simulator.getSensorBus().latest();
+
+        file = File.createTempFile("sensor-benchmark", ".json");
+        persistence = new SensorPersistence(file.getPath(), Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Stops the persistence writer and deletes its file.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        persistence.close();
+        file.delete();
+    }
+
+    /**
+     * Measures Sensor.updateValue().
+     *
+     * @return the new value, so the update cannot be eliminated
+     */
+    @Benchmark
+    public Integer updateValue() {
+        sensor.updateValue();
+        return sensor.getValue();
+    }
+
+    /**
+     * Measures converting a snapshot to JSON and replacing the sensor data file with it.
+     */
+    @Benchmark
+    public void writeJson() {
+        persistence.write(snapshot);
+    }
+}
@@ -0,0 +1,52 @@
+package benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * The BenchmarkRunner class runs every benchmark twice, once with assertions
+ * enabled and once with them disabled, since the project leans heavily on
+ * assertions and they can change which code the JIT keeps.
+ *
+ * Each run is profiled with the GC profiler and written as JSON to
+ * results/jmh-ea.json and results/jmh-da.json, so throughput (ops/s) and
+ * allocation rate (gc.alloc.rate.norm) can be compared across commits.
+ */
+public class BenchmarkRunner {
+    private static final String[] ASSERTION_FLAGS = { "-ea", "-da" };  // One run per flag
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args an optional regular expression selecting benchmarks, and an optional results directory
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        File resultsDir = new File(args.length > 1 ? args[1] : "results");
+        resultsDir.mkdirs();
+
+        for (String assertions : ASSERTION_FLAGS) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .forks(1)
+                    .warmupIterations(3)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(5)
+                    .measurementTime(TimeValue.seconds(1))
+                    .jvmArgsAppend(assertions, "-Djava.awt.headless=true")
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultsDir, "jmh" + assertions + ".json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package flightSystem;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks one movement step of a Plane, towards a waypoint and at random.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PlaneBenchmark {
+    private static final int MAP_WIDTH = 660;       // Width of the movement area
+    private static final int MAP_HEIGHT = 390;      // Height of the movement area
+
+    private final Point[] corners = {               // Waypoints the plane flies between
+        new Point(20, 20), new Point(MAP_WIDTH - 20, MAP_HEIGHT - 20),
+        new Point(MAP_WIDTH - 20, 20), new Point(20, MAP_HEIGHT - 20) };
+    private Plane plane;                            // Plane being moved
+    private int nextCorner = 0;                     // Next waypoint to add when the plane arrives
+
+    /**
+     * Creates the plane in the middle of the movement area.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        plane = new Plane();
+        plane.setPlaneX(MAP_WIDTH / 2);
+        plane.setPlaneY(MAP_HEIGHT / 2);
+    }
+
+    /**
+     * Measures Plane.moveToFirstPoint(), giving the plane a new waypoint whenever it arrives.
+     *
+     * @return the plane's x position, so the step cannot be eliminated
+     */
+    @Benchmark
+    public double moveToFirstPoint() {
+        if (plane.getWaypoints().isEmpty()) {
+            plane.addWaypoint(corners[nextCorner]);
+            nextCorner = (nextCorner + 1) % corners.length;
+        }
+        plane.moveToFirstPoint();
+        return plane.getPlaneX();
+    }
+
+    /**
+     * Measures Plane.randomMovement().
+     *
+     * @return the plane's x position, so the step cannot be eliminated
+     */
+    @Benchmark
+    public double randomMovement() {
+        plane.randomMovement(MAP_WIDTH, MAP_HEIGHT);
+        return plane.getPlaneX();
+    }
+}
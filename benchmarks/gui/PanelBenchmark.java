@@ -0,0 +1,185 @@
+package gui;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import avionics.SensorBus;
+import avionics.SensorSimulator;
+import avionics.SensorSnapshot;
+import flightSystem.SpatialGrid;
+
+/**
+ * Benchmarks the panel updates run on every timer tick or sensor change, and
+ * the map painted into an offscreen image. Panels are never shown, so these
+ * run with java.awt.headless=true.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PanelBenchmark {
+    private static final int MAP_WIDTH = 660;       // Width the map is painted at
+    private static final int MAP_HEIGHT = 390;      // Height the map is painted at
+    private static final int TRAFFIC = 10_000;      // Aircraft drawn by the traffic benchmarks
+
+    private SensorBus sensorBus;                    // Bus the panels read from
+    private SensorSnapshot snapshot;                // Snapshot republished before each data update
+    private SensorDataPanel sensorDataPanel;        // Panel measured by updateData()
+    private HazardPanel hazardPanel;                // Panel measured by checkSensors()
+    private ConsolePanel consolePanel;              // Panel measured by updateConsole()
+    private PlaneOnMapPanel planeOnMapPanel;        // Panel measured by paintMap()
+    private PlaneOnMapPanel zoomedMapPanel;         // Panel measured by paintZoomedMap()
+    private SpatialGrid<Integer> traffic;           // Positions of the traffic, moved before each frame
+    private PlaneOnMapPanel trafficMapPanel;        // Panel measured by paintTraffic()
+    private PlaneOnMapPanel zoomedTrafficMapPanel;  // Panel measured by paintZoomedTraffic()
+    private final Random random = new Random(1);    // Moves the traffic
+    private BufferedImage offscreen;                // Image the map is painted into
+    private Graphics2D graphics;                    // Graphics of the offscreen image
+
+    /**
+     * Creates the sensors, the panels and the offscreen image.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        SensorSimulator simulator = new SensorSimulator();
+        simulator.createSensors();
+        sensorBus = simulator.getSensorBus();
+        snapshot = sensorBus.latest();
+
+        sensorDataPanel = new SensorDataPanel(simulator);
+        hazardPanel = new HazardPanel(simulator);
+        consolePanel = new ConsolePanel(simulator);
+
+        planeOnMapPanel = new PlaneOnMapPanel();
+        planeOnMapPanel.setSize(MAP_WIDTH, MAP_HEIGHT);
+        planeOnMapPanel.addWaypoint(new Point(100, 100));
+        planeOnMapPanel.addWaypoint(new Point(500, 300));
+        zoomedMapPanel = new PlaneOnMapPanel();
+        zoomedMapPanel.setSize(MAP_WIDTH, MAP_HEIGHT);
+        zoomedMapPanel.zoomAt(MAP_WIDTH / 2, MAP_HEIGHT / 2, 8);
+        traffic = new SpatialGrid<>(16);
+        for (int i = 0; i < TRAFFIC; i++) {
+            traffic.put(i, random.nextDouble() * MAP_WIDTH, random.nextDouble() * MAP_HEIGHT);
+        }
+        trafficMapPanel = new PlaneOnMapPanel();
+        trafficMapPanel.setSize(MAP_WIDTH, MAP_HEIGHT);
+        trafficMapPanel.setTraffic(traffic);
+        zoomedTrafficMapPanel = new PlaneOnMapPanel();
+        zoomedTrafficMapPanel.setSize(MAP_WIDTH, MAP_HEIGHT);
+        zoomedTrafficMapPanel.zoomAt(MAP_WIDTH / 2, MAP_HEIGHT / 2, 4);
+        zoomedTrafficMapPanel.setTraffic(traffic);
+        offscreen = new BufferedImage(MAP_WIDTH, MAP_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        graphics = offscreen.createGraphics();
+    }
+
+    /**
+     * Releases the offscreen graphics.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    /**
+     * Measures SensorDataPanel.updateData() on a newly published snapshot, so
+     * the labels are set every time.
+     */
+    @Benchmark
+    public void updateData() {
+        sensorBus.publish(snapshot);
+        sensorDataPanel.updateData();
+    }
+
+    /**
+     * Measures HazardPanel.checkSensors().
+     *
+     * @return whether the system is safe, so the check cannot be eliminated
+     */
+    @Benchmark
+    public boolean checkSensors() {
+        hazardPanel.checkSensors();
+        return hazardPanel.isSystemSafe();
+    }
+
+    /**
+     * Measures ConsolePanel.updateConsole().
+     *
+     * @return whether a sensor is out of range, so the update cannot be eliminated
+     */
+    @Benchmark
+    public Boolean updateConsole() {
+        consolePanel.updateConsole();
+        return consolePanel.getSensorError();
+    }
+
+    /**
+     * Measures PlaneOnMapPanel.paintComponent() rendering the map, plane and
+     * waypoints into the offscreen image.
+     *
+     * @return the offscreen image, so the painting cannot be eliminated
+     */
+    @Benchmark
+    public BufferedImage paintMap() {
+        planeOnMapPanel.paintComponent(graphics);
+        return offscreen;
+    }
+
+    /**
+     * Measures PlaneOnMapPanel.paintComponent() zoomed in, with the map drawn
+     * from tiles, panning one pixel each time so the view keeps moving.
+     *
+     * @return the offscreen image, so the painting cannot be eliminated
+     */
+    @Benchmark
+    public BufferedImage paintZoomedMap() {
+        zoomedMapPanel.getViewport().pan(1, 0);
+        zoomedMapPanel.paintComponent(graphics);
+        return offscreen;
+    }
+
+    /**
+     * Moves a hundredth of the traffic a little, as a simulation step would.
+     */
+    private void moveTraffic() {
+        for (int i = 0; i < TRAFFIC / 100; i++) {
+            traffic.put(random.nextInt(TRAFFIC), random.nextDouble() * MAP_WIDTH, random.nextDouble() * MAP_HEIGHT);
+        }
+    }
+
+    /**
+     * Measures painting the map with 10,000 aircraft, zoomed out so they are clustered.
+     *
+     * @return the offscreen image, so the painting cannot be eliminated
+     */
+    @Benchmark
+    public BufferedImage paintTraffic() {
+        moveTraffic();
+        trafficMapPanel.paintComponent(graphics);
+        return offscreen;
+    }
+
+    /**
+     * Measures painting the map with 10,000 aircraft, zoomed in so the ones in
+     * view are drawn singly.
+     *
+     * @return the offscreen image, so the painting cannot be eliminated
+     */
+    @Benchmark
+    public BufferedImage paintZoomedTraffic() {
+        moveTraffic();
+        zoomedTrafficMapPanel.paintComponent(graphics);
+        return offscreen;
+    }
+}
@@ -0,0 +1,358 @@
+package avionics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The HazardEngine class evaluates hazard rules against sensor snapshots,
+ * re-evaluating only the rules whose inputs changed.
+ *
+ * Sensor rules declare the sensors they read. Derived rules read other rules,
+ * such as "any sensor fault" or "no fault at all", which makes the rules a
+ * dependency graph. Rules can only read rules added before them, so ids are
+ * already in dependency order: an evaluation marks the rules reading each
+ * changed sensor, then walks the marked ids upwards, marking the dependents
+ * of every rule whose state flips. The work done is proportional to the
+ * number of changed sensors and flipped rules, not to the number of rules.
+ */
+public class HazardEngine {
+
+    /**
+     * A Condition decides whether a sensor rule is active.
+     */
+    public interface Condition {
+
+        /**
+         * Tests the rule against a snapshot.
+         *
+         * @param snapshot the latest snapshot
+         * @param indexes  the snapshot index of each sensor the rule declared, or -1 if it is missing
+         * @return true if the hazard is present, false otherwise
+         */
+        boolean isActive(SensorSnapshot snapshot, int[] indexes);
+    }
+
+    private final List<Rule> rules = new ArrayList<>();             // Rules, in dependency order
+    private final Map<String, Integer> ruleIds = new HashMap<>();    // Rule ids by name
+    private final BitSet dirty = new BitSet();                       // Rules to re-evaluate
+    private SensorSnapshot previous;                                 // Last snapshot evaluated
+    private int[][] rulesBySensor = new int[0][];                    // Sensor rules reading each index of previous
+    private boolean resolved = false;                                // Whether rulesBySensor matches the rules
+    private long evaluations = 0;                                    // Rule evaluations since construction
+
+    /**
+     * Adds a rule that is active when a condition holds over some sensors.
+     *
+     * @param name      the rule name
+     * @param condition the condition
+     * @param sensors   the keys of the sensors the condition reads
+     * @return the rule id
+     */
+    public int addRule(String name, Condition condition, String... sensors) {
+        assert condition != null : "Condition cannot be null";
+        assert sensors.length > 0 : "A sensor rule must read at least one sensor";
+        return add(new Rule(name, sensors.clone(), new int[0], condition, false));
+    }
+
+    /**
+     * Adds a rule that is active when any of the given sensors is out of range.
+     *
+     * @param name    the rule name
+     * @param sensors the keys of the sensors
+     * @return the rule id
+     */
+    public int addRangeRule(String name, String... sensors) {
+        return addRule(name, (snapshot, indexes) -> {
+            for (int index : indexes) {
+                if (index >= 0 && !snapshot.isWithinRange(index)) {
+                    return true;
+                }
+            }
+            return false;
+        }, sensors);
+    }
+
+    /**
+     * Adds a derived rule that is active when any of the given rules is active.
+     *
+     * @param name   the rule name
+     * @param inputs the names of the rules it reads, which must already be added
+     * @return the rule id
+     */
+    public int addAnyOf(String name, String... inputs) {
+        return add(new Rule(name, new String[0], resolveRules(inputs), null, false));
+    }
+
+    /**
+     * Adds a derived rule that is active when none of the given rules is active.
+     *
+     * @param name   the rule name
+     * @param inputs the names of the rules it reads, which must already be added
+     * @return the rule id
+     */
+    public int addNoneOf(String name, String... inputs) {
+        return add(new Rule(name, new String[0], resolveRules(inputs), null, true));
+    }
+
+    /**
+     * Evaluates the rules against a snapshot, re-evaluating only the rules
+     * reading sensors whose value or range status changed since the last one.
+     *
+     * @param snapshot the latest snapshot
+     * @return true if any rule changed state, false otherwise
+     */
+    public boolean evaluate(SensorSnapshot snapshot) {
+        assert snapshot != null : "Snapshot cannot be null";
+        if (!markAllIfStale(snapshot)) {
+            for (int i = 0; i < rulesBySensor.length; i++) {
+                if (rulesBySensor[i].length > 0 && (previous.getValue(i) != snapshot.getValue(i)
+                        || previous.isTooLow(i) != snapshot.isTooLow(i)
+                        || previous.isTooHigh(i) != snapshot.isTooHigh(i))) {
+                    markSensor(i);
+                }
+            }
+        }
+        return propagate(snapshot);
+    }
+
+    /**
+     * Evaluates the rules against a change pushed by a SensorSubscription,
+     * re-evaluating only the rules reading the sensors it marks.
+     *
+     * @param change the change since the last notification
+     * @return true if any rule changed state, false otherwise
+     */
+    public boolean evaluate(SensorChange change) {
+        SensorSnapshot snapshot = change.getSnapshot();
+        if (!markAllIfStale(snapshot)) {
+            long mask = change.getValueMask() | change.getStatusMask();
+            while (mask != 0) {
+                markSensor(Long.numberOfTrailingZeros(mask));
+                mask &= mask - 1;
+            }
+        }
+        return propagate(snapshot);
+    }
+
+    /**
+     * Marks every rule for evaluation if this is the first snapshot, if the
+     * sensor layout changed, or if rules were added since the last evaluation.
+     *
+     * @param snapshot the latest snapshot
+     * @return true if every rule was marked, false otherwise
+     */
+    private boolean markAllIfStale(SensorSnapshot snapshot) {
+        if (resolved && previous != null && previous.hasSameLayout(snapshot)) {
+            return false;
+        }
+        resolve(snapshot);
+        dirty.set(0, rules.size());
+        return true;
+    }
+
+    /**
+     * Marks the rules reading a sensor for evaluation.
+     *
+     * @param index the sensor's index in the snapshot
+     */
+    private void markSensor(int index) {
+        if (index < rulesBySensor.length) {
+            for (int id : rulesBySensor[index]) {
+                dirty.set(id);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the marked rules in dependency order, marking the dependents of
+     * every rule whose state flips.
+     *
+     * @param snapshot the latest snapshot
+     * @return true if any rule changed state, false otherwise
+     */
+    private boolean propagate(SensorSnapshot snapshot) {
+        boolean changed = false;
+        for (int id = dirty.nextSetBit(0); id >= 0; id = dirty.nextSetBit(id + 1)) {
+            dirty.clear(id);
+            Rule rule = rules.get(id);
+            boolean active = rule.compute(snapshot);
+            evaluations++;
+            if (active != rule.active) {
+                rule.active = active;
+                changed = true;
+                for (int dependent : rule.dependents) {
+                    dirty.set(dependent); // Always a higher id, so reached later in this walk
+                }
+            }
+        }
+        previous = snapshot;
+        return changed;
+    }
+
+    /**
+     * Finds the snapshot index of every sensor rule's inputs, and the rules reading each index.
+     *
+     * @param snapshot the snapshot whose layout to use
+     */
+    private void resolve(SensorSnapshot snapshot) {
+        List<List<Integer>> readers = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            readers.add(new ArrayList<>());
+        }
+        for (int id = 0; id < rules.size(); id++) {
+            Rule rule = rules.get(id);
+            rule.indexes = new int[rule.sensors.length];
+            for (int i = 0; i < rule.sensors.length; i++) {
+                rule.indexes[i] = snapshot.indexOf(rule.sensors[i]);
+                if (rule.indexes[i] >= 0) {
+                    readers.get(rule.indexes[i]).add(id);
+                }
+            }
+        }
+        rulesBySensor = new int[snapshot.size()][];
+        for (int i = 0; i < rulesBySensor.length; i++) {
+            rulesBySensor[i] = readers.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        resolved = true;
+    }
+
+    /**
+     * Adds a rule and registers it as a dependent of its inputs.
+     *
+     * @param rule the rule
+     * @return the rule id
+     */
+    private int add(Rule rule) {
+        assert !ruleIds.containsKey(rule.name) : "Rule name already in use: " + rule.name;
+        int id = rules.size();
+        rules.add(rule);
+        ruleIds.put(rule.name, id);
+        for (int input : rule.inputs) {
+            Rule read = rules.get(input);
+            read.dependents = Arrays.copyOf(read.dependents, read.dependents.length + 1);
+            read.dependents[read.dependents.length - 1] = id;
+        }
+        rule.active = rule.condition == null && rule.compute(null); // Derived rules start from their inputs
+        resolved = false;
+        return id;
+    }
+
+    /**
+     * Converts rule names to ids.
+     *
+     * @param names the rule names
+     * @return the rule ids
+     */
+    private int[] resolveRules(String[] names) {
+        assert names.length > 0 : "A derived rule must read at least one rule";
+        int[] ids = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = getRuleId(names[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Retrieves a rule's id.
+     *
+     * @param name the rule name
+     * @return the rule id
+     */
+    public int getRuleId(String name) {
+        Integer id = ruleIds.get(name);
+        assert id != null : "No rule named " + name;
+        return id;
+    }
+
+    /**
+     * Checks whether a rule is active.
+     *
+     * @param id the rule id
+     * @return true if the hazard is present, false otherwise
+     */
+    public boolean isActive(int id) {
+        return rules.get(id).active;
+    }
+
+    /**
+     * Checks whether a rule is active.
+     *
+     * @param name the rule name
+     * @return true if the hazard is present, false otherwise
+     */
+    public boolean isActive(String name) {
+        return isActive(getRuleId(name));
+    }
+
+    /**
+     * Retrieves the number of rules.
+     *
+     * @return the rule count
+     */
+    public int getRuleCount() {
+        return rules.size();
+    }
+
+    /**
+     * Retrieves the number of rule evaluations since construction, to check
+     * that evaluation work follows the changes.
+     *
+     * @return the number of evaluations
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * A hazard rule: either a condition over sensors, or a combination of other rules.
+     */
+    private final class Rule {
+        private final String name;          // Rule name
+        private final String[] sensors;     // Keys of the sensors read, empty for derived rules
+        private final int[] inputs;         // Ids of the rules read, empty for sensor rules
+        private final Condition condition;  // Condition of a sensor rule, null for derived rules
+        private final boolean negated;      // Whether a derived rule is "none of" rather than "any of"
+        private int[] indexes = new int[0]; // Snapshot index of each sensor read
+        private int[] dependents = new int[0]; // Ids of the rules reading this one
+        private boolean active = false;     // Whether the hazard is present
+
+        /**
+         * Constructs a Rule.
+         *
+         * @param name      the rule name
+         * @param sensors   the keys of the sensors read
+         * @param inputs    the ids of the rules read
+         * @param condition the condition, or null for a derived rule
+         * @param negated   true for "none of", false for "any of"
+         */
+        Rule(String name, String[] sensors, int[] inputs, Condition condition, boolean negated) {
+            assert name != null && !name.isEmpty() : "Name cannot be empty";
+            this.name = name;
+            this.sensors = sensors;
+            this.inputs = inputs;
+            this.condition = condition;
+            this.negated = negated;
+        }
+
+        /**
+         * Works out whether the rule is active.
+         *
+         * @param snapshot the latest snapshot, unused by derived rules
+         * @return true if the hazard is present, false otherwise
+         */
+        boolean compute(SensorSnapshot snapshot) {
+            if (condition != null) {
+                return condition.isActive(snapshot, indexes);
+            }
+            boolean any = false;
+            for (int i = 0; i < inputs.length && !any; i++) {
+                any = rules.get(inputs[i]).active;
+            }
+            return any != negated;
+        }
+    }
+}
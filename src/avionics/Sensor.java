@@ -3,7 +3,9 @@ package avionics;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The Sensor class represents a sensor with a name, minimum and maximum values,
@@ -21,6 +23,8 @@ public class Sensor {
     private int variationAmount; // Variation amount to generate increment that affect value
     private String name; // The name of the sensor
     private final Random rand = new Random(); // Random number generator
+    private SensorHistory history; // Recent samples, or null if history is not kept
+    private volatile List<SensorListener> listeners; // Change listeners, or null until one is added
     
     /**
      * Constructs a Sensor object with the given name, maximum, and minimum values.
@@ -48,6 +52,8 @@ public class Sensor {
      * @param max The new maximum value.
      */
     public void setMinMax(int min, int max) {
+        int oldValue = objectValue;
+        int oldStatus = listeners == null ? 0 : rangeStatus();
         this.max = max;
         this.min = min;
         this.variationAmount = generateVariation();
@@ -55,6 +61,7 @@ public class Sensor {
         this.incrementCounter = generateIncrement();
         assert incrementCounter >= -variationAmount && incrementCounter <= variationAmount : "incrementCounter must be within range";
         assertTrue("incrementCounter must be within range", incrementCounter >= -variationAmount && incrementCounter <= variationAmount);
+        notifyIfChanged(oldValue, oldStatus);
     }
 
     /**
@@ -67,8 +74,10 @@ public class Sensor {
      */
     public void setBadMinMax(int min, int max) {
         assert min <= max : "Min must be less or equal to max";
+        int oldStatus = listeners == null ? 0 : rangeStatus();
         this.max = max;
         this.min = min;
+        notifyIfChanged(objectValue, oldStatus);
     }
 
     /**
@@ -93,11 +102,24 @@ public class Sensor {
         return min;
     }
 
+    /**
+     * Updates the value of the sensor based on the increment counter, recording
+     * the sample at the current time if history is kept.
+     */
+    public void updateValue() {
+        updateValue(System.currentTimeMillis());
+    }
+
     /**
      * Updates the value of the sensor based on the increment counter.
      * If the increment counter is zero, it regenerates a new increment value.
+     * If history is kept, the new value is recorded with the given timestamp.
+     * 
+     * @param timestamp The time of the update in milliseconds.
      */
-    public void updateValue() {
+    public void updateValue(long timestamp) {
+        int oldValue = objectValue;
+        int oldStatus = listeners == null ? 0 : rangeStatus();
         if (incrementCounter > 0) {
             objectValue -= 1;
             incrementCounter -= 1;
@@ -112,6 +134,86 @@ public class Sensor {
         }
         assertTrue("incrementCounter must be within range", incrementCounter >= -variationAmount && incrementCounter <= variationAmount);
         assert incrementCounter >= -variationAmount && incrementCounter <= variationAmount : "incrementCounter must be within range";
+        if (history != null) {
+            history.record(timestamp, objectValue);
+        }
+        notifyIfChanged(oldValue, oldStatus);
+    }
+
+    /**
+     * Adds a listener that is notified whenever this sensor's value or range
+     * status changes.
+     * 
+     * @param listener The listener to add.
+     */
+    public synchronized void addListener(SensorListener listener) {
+        assert listener != null : "Listener cannot be null";
+        if (listeners == null) {
+            listeners = new CopyOnWriteArrayList<>();
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously added listener.
+     * 
+     * @param listener The listener to remove.
+     */
+    public synchronized void removeListener(SensorListener listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Notifies the listeners if the value or range status differs from before a change.
+     * Does nothing, not even compare, if no listener has been added.
+     * 
+     * @param oldValue  The value before the change.
+     * @param oldStatus The range status before the change.
+     */
+    void notifyIfChanged(int oldValue, int oldStatus) {
+        List<SensorListener> current = listeners;
+        if (current == null) {
+            return;
+        }
+        boolean statusChanged = rangeStatus() != oldStatus;
+        if (statusChanged || getValue() != oldValue) {
+            for (SensorListener listener : current) {
+                listener.sensorChanged(this, statusChanged);
+            }
+        }
+    }
+
+    /**
+     * Classifies the current value against the range.
+     * 
+     * @return -1 if too low, 1 if too high, 0 if within range.
+     */
+    int rangeStatus() {
+        int value = getValue();
+        return value < getMin() ? -1 : value > getMax() ? 1 : 0;
+    }
+
+    /**
+     * Starts keeping a history of this sensor's values.
+     * Any existing history is replaced. The history's memory is allocated here
+     * and never grows.
+     * 
+     * @param capacity The maximum number of samples kept.
+     */
+    public void enableHistory(int capacity) {
+        assert capacity > 0 : "Capacity must be positive";
+        this.history = new SensorHistory(capacity);
+    }
+
+    /**
+     * Retrieves the history of this sensor's values.
+     * 
+     * @return The history, or null if history is not kept.
+     */
+    public SensorHistory getHistory() {
+        return history;
     }
 
     /**
@@ -0,0 +1,396 @@
+package avionics;
+
+import java.util.Arrays;
+
+/**
+ * The SensorBank class simulates a large number of sensors stored as parallel
+ * primitive arrays (structure of arrays) instead of one Sensor object each.
+ * updateAll() steps every sensor with the same semantics as
+ * Sensor.updateValue() in one tight loop over contiguous memory, with a single
+ * shared random number generator and no boxing.
+ * Existing callers that need a Sensor can obtain a view of any bank entry.
+ */
+public class SensorBank {
+    private String[] names;     // Sensor names
+    private int[] max;          // Maximum values
+    private int[] min;          // Minimum values
+    private int[] value;        // Current values
+    private int[] increment;    // Remaining steps before a new increment is generated
+    private int[] variation;    // Variation amount, 10% of each range
+    private Sensor[] views;     // Sensor views, created on demand
+    private int size = 0;       // Number of sensors in the bank
+    private long seed;          // State of the xorshift random number generator
+
+    /**
+     * Constructs an empty SensorBank.
+     *
+     * @param capacity the number of sensors to allocate space for up front
+     */
+    public SensorBank(int capacity) {
+        assert capacity > 0 : "Capacity must be positive";
+        names = new String[capacity];
+        max = new int[capacity];
+        min = new int[capacity];
+        value = new int[capacity];
+        increment = new int[capacity];
+        variation = new int[capacity];
+        views = new Sensor[capacity];
+        seed = System.nanoTime() | 1; // xorshift state must never be zero
+    }
+
+    /**
+     * Adds a sensor to the bank, initialised the same way as a new Sensor.
+     *
+     * @param name the name of the sensor
+     * @param max  the maximum value the sensor can report
+     * @param min  the minimum value the sensor can report
+     * @return the index of the new sensor
+     */
+    public int add(String name, int max, int min) {
+        assert name != null : "Name cannot be null";
+        assert max >= min : "Max must be greater or equal to min";
+        if (size == names.length) {
+            grow();
+        }
+        int index = size++;
+        names[index] = name;
+        this.max[index] = max;
+        this.min[index] = min;
+        variation[index] = generateVariation(index);
+        increment[index] = generateIncrement(variation[index]);
+        value[index] = generateValue(index);
+        return index;
+    }
+
+    /**
+     * Updates every sensor in the bank once.
+     * Each step has the same semantics as Sensor.updateValue().
+     */
+    public void updateAll() {
+        final int[] value = this.value;
+        final int[] increment = this.increment;
+        final int[] variation = this.variation;
+        final int[] min = this.min;
+        final int[] max = this.max;
+        for (int i = 0; i < size; i++) {
+            int inc = increment[i];
+            if (inc > 0) {
+                value[i]--;
+                increment[i] = inc - 1;
+            } else if (inc < 0) {
+                value[i]++;
+                increment[i] = inc + 1;
+            } else {
+                int v = value[i];
+                if (v < min[i] || v > max[i]) {
+                    value[i] = v + 1;
+                }
+                increment[i] = generateIncrement(variation[i]);
+            }
+        }
+    }
+
+    /**
+     * Updates a single sensor once, with the same semantics as Sensor.updateValue().
+     *
+     * @param index the index of the sensor
+     */
+    public void update(int index) {
+        checkIndex(index);
+        if (increment[index] > 0) {
+            value[index]--;
+            increment[index]--;
+        } else if (increment[index] < 0) {
+            value[index]++;
+            increment[index]++;
+        } else if (!isWithinRange(index)) {
+            value[index]++;
+            increment[index] = generateIncrement(variation[index]);
+        } else {
+            increment[index] = generateIncrement(variation[index]);
+        }
+        assert increment[index] >= -variation[index] && increment[index] <= variation[index] : "increment must be within range";
+    }
+
+    /**
+     * Sets the minimum and maximum values of a sensor and regenerates its value
+     * and increment, like Sensor.setMinMax().
+     *
+     * @param index the index of the sensor
+     * @param min   the new minimum value
+     * @param max   the new maximum value
+     */
+    public void setMinMax(int index, int min, int max) {
+        checkIndex(index);
+        this.max[index] = max;
+        this.min[index] = min;
+        variation[index] = generateVariation(index);
+        value[index] = generateValue(index);
+        increment[index] = generateIncrement(variation[index]);
+    }
+
+    /**
+     * Sets the minimum and maximum values of a sensor without regenerating its
+     * value, like Sensor.setBadMinMax().
+     *
+     * @param index the index of the sensor
+     * @param min   the new minimum value
+     * @param max   the new maximum value
+     */
+    public void setBadMinMax(int index, int min, int max) {
+        checkIndex(index);
+        assert min <= max : "Min must be less or equal to max";
+        this.max[index] = max;
+        this.min[index] = min;
+    }
+
+    /**
+     * Retrieves the number of sensors in the bank.
+     *
+     * @return the number of sensors
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the name of a sensor.
+     *
+     * @param index the index of the sensor
+     * @return the name
+     */
+    public String getName(int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    /**
+     * Retrieves the current value of a sensor.
+     *
+     * @param index the index of the sensor
+     * @return the value
+     */
+    public int getValue(int index) {
+        checkIndex(index);
+        return value[index];
+    }
+
+    /**
+     * Retrieves the minimum value of a sensor.
+     *
+     * @param index the index of the sensor
+     * @return the minimum
+     */
+    public int getMin(int index) {
+        checkIndex(index);
+        return min[index];
+    }
+
+    /**
+     * Retrieves the maximum value of a sensor.
+     *
+     * @param index the index of the sensor
+     * @return the maximum
+     */
+    public int getMax(int index) {
+        checkIndex(index);
+        return max[index];
+    }
+
+    /**
+     * Checks if a sensor's value is within its range.
+     *
+     * @param index the index of the sensor
+     * @return true if the value is within range, false otherwise
+     */
+    public boolean isWithinRange(int index) {
+        checkIndex(index);
+        return value[index] >= min[index] && value[index] <= max[index];
+    }
+
+    /**
+     * Checks if a sensor's value is above its maximum.
+     *
+     * @param index the index of the sensor
+     * @return true if the value is too high, false otherwise
+     */
+    public boolean isTooHigh(int index) {
+        checkIndex(index);
+        return value[index] > max[index];
+    }
+
+    /**
+     * Checks if a sensor's value is below its minimum.
+     *
+     * @param index the index of the sensor
+     * @return true if the value is too low, false otherwise
+     */
+    public boolean isTooLow(int index) {
+        checkIndex(index);
+        return value[index] < min[index];
+    }
+
+    /**
+     * Retrieves a Sensor view of a bank entry for callers that need a Sensor.
+     * The view reads and writes the bank's arrays, so changes through either
+     * are visible through both. Views are created once and cached.
+     *
+     * @param index the index of the sensor
+     * @return the Sensor view
+     */
+    public Sensor view(int index) {
+        checkIndex(index);
+        if (views[index] == null) {
+            views[index] = new BankSensor(index);
+        }
+        return views[index];
+    }
+
+    /**
+     * Doubles the capacity of every array.
+     */
+    private void grow() {
+        int capacity = names.length * 2;
+        names = Arrays.copyOf(names, capacity);
+        max = Arrays.copyOf(max, capacity);
+        min = Arrays.copyOf(min, capacity);
+        value = Arrays.copyOf(value, capacity);
+        increment = Arrays.copyOf(increment, capacity);
+        variation = Arrays.copyOf(variation, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+
+    /**
+     * Checks that an index refers to a sensor in the bank.
+     *
+     * @param index the index to check
+     */
+    private void checkIndex(int index) {
+        assert index >= 0 && index < size : "Sensor index out of range: " + index;
+    }
+
+    /**
+     * Advances the xorshift generator and returns its next 64 random bits.
+     *
+     * @return the random bits
+     */
+    private long nextLong() {
+        long x = seed;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        seed = x;
+        return x;
+    }
+
+    /**
+     * Generates a random int in [0, bound) by scaling the top 32 random bits.
+     * The bias of skipping rejection sampling is below 1 in 2^20 for the
+     * ranges used here.
+     *
+     * @param bound the exclusive upper bound
+     * @return the random int
+     */
+    private int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Generates a random increment within the given variation amount.
+     *
+     * @param variation the variation amount
+     * @return the increment
+     */
+    private int generateIncrement(int variation) {
+        return nextInt((variation * 2) + 1) - variation;
+    }
+
+    /**
+     * Generates a random value within a sensor's range.
+     *
+     * @param index the index of the sensor
+     * @return the value
+     */
+    private int generateValue(int index) {
+        return nextInt((max[index] - min[index]) + 1) + min[index];
+    }
+
+    /**
+     * Calculates a sensor's variation amount as 10% of its range.
+     *
+     * @param index the index of the sensor
+     * @return the variation amount
+     */
+    private int generateVariation(int index) {
+        return (int) ((max[index] - min[index]) * 0.10);
+    }
+
+    /**
+     * A Sensor that reads and writes one entry of the bank.
+     */
+    private class BankSensor extends Sensor {
+        private final int index; // Index of the entry in the bank
+
+        /**
+         * Constructs a view of the given bank entry.
+         *
+         * @param index the index of the entry
+         */
+        BankSensor(int index) {
+            super(names[index], max[index], min[index]);
+            this.index = index;
+        }
+
+        public void setMinMax(int min, int max) {
+            int oldValue = value[index];
+            int oldStatus = rangeStatus();
+            SensorBank.this.setMinMax(index, min, max);
+            notifyIfChanged(oldValue, oldStatus);
+        }
+
+        public void setBadMinMax(int min, int max) {
+            int oldValue = value[index];
+            int oldStatus = rangeStatus();
+            SensorBank.this.setBadMinMax(index, min, max);
+            notifyIfChanged(oldValue, oldStatus);
+        }
+
+        public Integer getMax() {
+            return SensorBank.this.getMax(index);
+        }
+
+        public Integer getMin() {
+            return SensorBank.this.getMin(index);
+        }
+
+        public void updateValue(long timestamp) {
+            int oldValue = value[index];
+            int oldStatus = rangeStatus();
+            update(index);
+            if (getHistory() != null) {
+                getHistory().record(timestamp, value[index]);
+            }
+            notifyIfChanged(oldValue, oldStatus);
+        }
+
+        public Integer getValue() {
+            return SensorBank.this.getValue(index);
+        }
+
+        public String toString() {
+            return "Name = " + getName() + ", Value = " + value[index];
+        }
+
+        public Boolean isWithinRange() {
+            return SensorBank.this.isWithinRange(index);
+        }
+
+        public Boolean isTooHigh() {
+            return SensorBank.this.isTooHigh(index);
+        }
+
+        public Boolean isTooLow() {
+            return SensorBank.this.isTooLow(index);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package avionics;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The SensorBus class is the in-memory publication channel between the sensor
+ * simulator and its readers.
+ * Each publication installs a new immutable SensorSnapshot through a single
+ * atomic reference, so readers never block, never touch the filesystem and
+ * never see a partially updated frame.
+ */
+public class SensorBus {
+    private final AtomicReference<SensorSnapshot> latest = new AtomicReference<>(); // Most recent snapshot
+
+    /**
+     * Captures the given sensors and publishes them as the next snapshot.
+     * Publishers are serialised so that versions are strictly increasing.
+     *
+     * @param keys      the sensor keys, indexed like sensors
+     * @param names     the sensor names, indexed like sensors
+     * @param sensors   the live sensors to copy
+     * @param timestamp the time of publication in milliseconds
+     * @return the published snapshot
+     */
+    public synchronized SensorSnapshot publish(String[] keys, String[] names, Sensor[] sensors, long timestamp) {
+        SensorSnapshot previous = latest.get();
+        long version = previous == null ? 1 : previous.getVersion() + 1;
+        SensorSnapshot snapshot = SensorSnapshot.capture(version, timestamp, keys, names, sensors);
+        latest.set(snapshot);
+        assert latest.get().getVersion() == version : "Published version must be the latest";
+        return snapshot;
+    }
+
+    /**
+     * Publishes a copy of an existing snapshot, such as one read back from a
+     * recording, as the next snapshot. The copy keeps the snapshot's timestamp
+     * but takes the next version, so readers see it as new even when a replay
+     * jumps backwards.
+     *
+     * @param recorded the snapshot to publish
+     * @return the published snapshot
+     */
+    public synchronized SensorSnapshot publish(SensorSnapshot recorded) {
+        assert recorded != null : "Snapshot cannot be null";
+        SensorSnapshot previous = latest.get();
+        long version = previous == null ? 1 : previous.getVersion() + 1;
+        SensorSnapshot snapshot = recorded.withVersion(version);
+        latest.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Retrieves the most recently published snapshot.
+     *
+     * @return the latest snapshot, or null if nothing has been published yet
+     */
+    public SensorSnapshot latest() {
+        return latest.get();
+    }
+
+    /**
+     * Retrieves the version of the most recently published snapshot.
+     *
+     * @return the latest version, or 0 if nothing has been published yet
+     */
+    public long getVersion() {
+        SensorSnapshot snapshot = latest.get();
+        return snapshot == null ? 0 : snapshot.getVersion();
+    }
+}
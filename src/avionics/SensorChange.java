@@ -0,0 +1,158 @@
+package avionics;
+
+/**
+ * The SensorChange class is an immutable description of what changed between
+ * two notifications of a SensorChangeListener: the latest snapshot, plus bit
+ * masks of the sensors whose value or range status changed, indexed like the
+ * snapshot. Changes that are not yet delivered are merged by OR-ing the masks
+ * and keeping the newer snapshot. Snapshots of more than MAX_SENSORS sensors
+ * are rejected, since their masks would wrap.
+ */
+public final class SensorChange {
+    public static final int MAX_SENSORS = 64;   // Sensors that fit in a mask
+
+    private final SensorSnapshot snapshot;      // Latest snapshot
+    private final long valueMask;               // Sensors whose value changed
+    private final long statusMask;              // Sensors that moved into or out of range
+
+    /**
+     * Constructs a SensorChange.
+     *
+     * @param snapshot   the latest snapshot
+     * @param valueMask  the sensors whose value changed
+     * @param statusMask the sensors whose range status changed
+     * @throws IllegalArgumentException if the snapshot has more than MAX_SENSORS sensors
+     */
+    public SensorChange(SensorSnapshot snapshot, long valueMask, long statusMask) {
+        assert snapshot != null : "Snapshot cannot be null";
+        checkSensorCount(snapshot.size());
+        this.snapshot = snapshot;
+        this.valueMask = valueMask;
+        this.statusMask = statusMask;
+    }
+
+    /**
+     * Compares two snapshots with the same layout.
+     *
+     * @param previous the earlier snapshot, or null if there was none
+     * @param current  the later snapshot
+     * @return the change, with every sensor marked if there was no earlier snapshot
+     * @throws IllegalArgumentException if the later snapshot has more than MAX_SENSORS sensors
+     */
+    public static SensorChange between(SensorSnapshot previous, SensorSnapshot current) {
+        int size = current.size();
+        checkSensorCount(size);
+        if (previous == null || previous.size() != size) {
+            long all = size == MAX_SENSORS ? -1L : (1L << size) - 1;
+            return new SensorChange(current, all, all);
+        }
+        long valueMask = 0;
+        long statusMask = 0;
+        for (int i = 0; i < size; i++) {
+            if (previous.getValue(i) != current.getValue(i)) {
+                valueMask |= 1L << i;
+            }
+            if (previous.isTooLow(i) != current.isTooLow(i) || previous.isTooHigh(i) != current.isTooHigh(i)) {
+                statusMask |= 1L << i;
+            }
+        }
+        return new SensorChange(current, valueMask, statusMask);
+    }
+
+    /**
+     * Checks that a number of sensors fits in a change mask.
+     *
+     * @param size the number of sensors
+     * @throws IllegalArgumentException if there are more than MAX_SENSORS sensors
+     */
+    public static void checkSensorCount(int size) {
+        if (size > MAX_SENSORS) {
+            throw new IllegalArgumentException(
+                    "Change masks hold at most " + MAX_SENSORS + " sensors, not " + size);
+        }
+    }
+
+    /**
+     * Merges a later change into this one.
+     *
+     * @param later the later change
+     * @return the merged change, holding the later snapshot
+     */
+    public SensorChange merge(SensorChange later) {
+        return new SensorChange(later.snapshot, valueMask | later.valueMask, statusMask | later.statusMask);
+    }
+
+    /**
+     * Retrieves the latest snapshot.
+     *
+     * @return the snapshot
+     */
+    public SensorSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Checks whether anything changed.
+     *
+     * @return true if any value or range status changed, false otherwise
+     */
+    public boolean isEmpty() {
+        return valueMask == 0 && statusMask == 0;
+    }
+
+    /**
+     * Checks whether any sensor's value changed.
+     *
+     * @return true if a value changed, false otherwise
+     */
+    public boolean hasValueChanges() {
+        return valueMask != 0;
+    }
+
+    /**
+     * Checks whether any sensor moved into or out of its range.
+     *
+     * @return true if a range status changed, false otherwise
+     */
+    public boolean hasStatusChanges() {
+        return statusMask != 0;
+    }
+
+    /**
+     * Checks whether a sensor's value changed.
+     *
+     * @param index the sensor index in the snapshot
+     * @return true if the value changed, false otherwise
+     */
+    public boolean isValueChanged(int index) {
+        return (valueMask & (1L << index)) != 0;
+    }
+
+    /**
+     * Checks whether a sensor moved into or out of its range.
+     *
+     * @param index the sensor index in the snapshot
+     * @return true if the range status changed, false otherwise
+     */
+    public boolean isStatusChanged(int index) {
+        return (statusMask & (1L << index)) != 0;
+    }
+
+    /**
+     * Retrieves the mask of sensors whose value changed.
+     *
+     * @return the value mask
+     */
+    public long getValueMask() {
+        return valueMask;
+    }
+
+    /**
+     * Retrieves the mask of sensors whose range status changed.
+     *
+     * @return the status mask
+     */
+    public long getStatusMask() {
+        return statusMask;
+    }
+}
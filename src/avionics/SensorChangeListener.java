@@ -0,0 +1,17 @@
+package avionics;
+
+/**
+ * A SensorChangeListener subscribes to a SensorSimulator and is notified only
+ * when at least one sensor's value or range status has changed.
+ * Notifications are delivered on the executor given when subscribing, and
+ * changes that arrive while a notification is pending are merged into it.
+ */
+public interface SensorChangeListener {
+
+    /**
+     * Called with every change since the previous notification.
+     *
+     * @param change the latest snapshot and which sensors changed
+     */
+    void sensorsChanged(SensorChange change);
+}
@@ -0,0 +1,95 @@
+package avionics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * The SensorFrameLayout class defines the fixed binary layout of the
+ * memory-mapped sensor frame shared between the SensorFrameWriter and
+ * SensorFrameReader.
+ *
+ * The region starts with a header holding a magic number, the slot count, a
+ * sequence counter, the snapshot version and its timestamp, followed by one
+ * slot per sensor holding its value, minimum and maximum. The sequence counter
+ * is odd while a frame is being written and even once it is complete.
+ */
+public final class SensorFrameLayout {
+    public static final int MAGIC = 0x53454E53;        // "SENS"
+    public static final int MAGIC_OFFSET = 0;           // int: magic number
+    public static final int SLOT_COUNT_OFFSET = 4;      // int: number of slots
+    public static final int SEQUENCE_OFFSET = 8;        // long: seqlock counter
+    public static final int VERSION_OFFSET = 16;        // long: snapshot version
+    public static final int TIMESTAMP_OFFSET = 24;      // long: snapshot timestamp
+    public static final int HEADER_SIZE = 32;           // Size of the header in bytes
+
+    public static final int VALUE_OFFSET = 0;           // int: sensor value, relative to the slot
+    public static final int MIN_OFFSET = 4;             // int: sensor minimum, relative to the slot
+    public static final int MAX_OFFSET = 8;             // int: sensor maximum, relative to the slot
+    public static final int SLOT_SIZE = 16;             // Size of a slot in bytes, padded for alignment
+
+    // Sensor keys in slot order; both processes agree on this without parsing anything
+    private static final String[] KEYS = { "airspeed", "altitude", "thrust", "pitch", "roll", "yaw" };
+
+    // Ordered access to the sequence counter, which plain ByteBuffer methods cannot provide
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * Prevents instantiation; this class only holds constants.
+     */
+    private SensorFrameLayout() {}
+
+    /**
+     * Retrieves the number of sensor slots in a frame.
+     *
+     * @return the number of slots
+     */
+    public static int getSlotCount() {
+        return KEYS.length;
+    }
+
+    /**
+     * Retrieves the sensor key stored in the given slot.
+     *
+     * @param slot the slot index
+     * @return the sensor key
+     */
+    public static String getKey(int slot) {
+        assert slot >= 0 && slot < KEYS.length : "Slot out of range";
+        return KEYS[slot];
+    }
+
+    /**
+     * Finds the slot holding the sensor with the given key.
+     *
+     * @param key the sensor key
+     * @return the slot index, or -1 if the key has no slot
+     */
+    public static int slotOf(String key) {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (KEYS[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the byte offset of the given slot.
+     *
+     * @param slot the slot index
+     * @return the offset from the start of the region
+     */
+    public static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * Retrieves the total size of the region in bytes.
+     *
+     * @return the region size
+     */
+    public static int getRegionSize() {
+        return slotOffset(KEYS.length);
+    }
+}
@@ -0,0 +1,138 @@
+package avionics;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The SensorFrameReader class reads sensor frames written by a
+ * SensorFrameWriter, possibly in another JVM.
+ * Reads copy straight out of the mapping into caller-supplied arrays, with no
+ * parsing and no allocation, and retry until they observe a complete frame.
+ * Retries are bounded, so a writer that died part way through a frame cannot
+ * hang the reader.
+ */
+public class SensorFrameReader implements AutoCloseable {
+    public static final int MAX_ATTEMPTS = 4096; // Tries at a consistent frame before giving up, well under a millisecond
+
+    private final FileChannel channel;        // Channel backing the mapping
+    private final MappedByteBuffer buffer;    // Mapped frame region
+    private long version = 0;                 // Version of the last frame read
+    private long timestamp = 0;               // Timestamp of the last frame read
+
+    /**
+     * Maps an existing frame file for reading.
+     *
+     * @param file the file written by a SensorFrameWriter
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public SensorFrameReader(File file) throws IOException {
+        assert file != null : "File cannot be null";
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, SensorFrameLayout.getRegionSize());
+        buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Checks if the writer has initialised the region.
+     *
+     * @return true if the header is valid, false otherwise
+     */
+    public boolean isReady() {
+        return buffer.getInt(SensorFrameLayout.MAGIC_OFFSET) == SensorFrameLayout.MAGIC
+                && buffer.getInt(SensorFrameLayout.SLOT_COUNT_OFFSET) == SensorFrameLayout.getSlotCount();
+    }
+
+    /**
+     * Checks if a frame newer than the last one read has been published.
+     * This is a single load and never blocks.
+     *
+     * @return true if a newer frame is available, false otherwise
+     */
+    public boolean hasNewFrame() {
+        long sequence = (long) SensorFrameLayout.LONGS.getAcquire(buffer, SensorFrameLayout.SEQUENCE_OFFSET);
+        return sequence != 0 && buffer.getLong(SensorFrameLayout.VERSION_OFFSET) != version;
+    }
+
+    /**
+     * Copies a consistent frame into the given arrays, indexed by slot.
+     * Retries while the writer is part way through a frame, up to MAX_ATTEMPTS
+     * times. When no frame is read the arrays may hold a partial copy, and the
+     * version and timestamp of the last frame read are kept.
+     *
+     * @param values the array receiving sensor values
+     * @param mins   the array receiving sensor minimums
+     * @param maxs   the array receiving sensor maximums
+     * @return true if a frame was read, false if nothing has been published yet or
+     *         the writer stayed part way through a frame
+     */
+    public boolean read(int[] values, int[] mins, int[] maxs) {
+        assert values.length >= SensorFrameLayout.getSlotCount() : "Values array is too small";
+        assert mins.length >= SensorFrameLayout.getSlotCount() : "Mins array is too small";
+        assert maxs.length >= SensorFrameLayout.getSlotCount() : "Maxs array is too small";
+        if (!isReady()) {
+            return false;
+        }
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long before = (long) SensorFrameLayout.LONGS.getAcquire(buffer, SensorFrameLayout.SEQUENCE_OFFSET);
+            if (before == 0) {
+                return false; // No frame written yet
+            }
+            if ((before & 1) != 0) {
+                Thread.onSpinWait(); // Writer is part way through a frame
+                continue;
+            }
+
+            long frameVersion = buffer.getLong(SensorFrameLayout.VERSION_OFFSET);
+            long frameTimestamp = buffer.getLong(SensorFrameLayout.TIMESTAMP_OFFSET);
+            for (int slot = 0; slot < SensorFrameLayout.getSlotCount(); slot++) {
+                int offset = SensorFrameLayout.slotOffset(slot);
+                values[slot] = buffer.getInt(offset + SensorFrameLayout.VALUE_OFFSET);
+                mins[slot] = buffer.getInt(offset + SensorFrameLayout.MIN_OFFSET);
+                maxs[slot] = buffer.getInt(offset + SensorFrameLayout.MAX_OFFSET);
+            }
+
+            // The frame is consistent only if no write started while it was being copied
+            VarHandle.loadLoadFence();
+            long after = (long) SensorFrameLayout.LONGS.getOpaque(buffer, SensorFrameLayout.SEQUENCE_OFFSET);
+            if (before == after) {
+                version = frameVersion;
+                timestamp = frameTimestamp;
+                return true;
+            }
+        }
+        return false; // The writer never finished the frame, e.g. it died while writing
+    }
+
+    /**
+     * Retrieves the version of the last frame read.
+     *
+     * @return the version, or 0 if no frame has been read
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Retrieves the timestamp of the last frame read.
+     *
+     * @return the timestamp in milliseconds, or 0 if no frame has been read
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Closes the channel backing the mapping.
+     *
+     * @throws IOException if the channel cannot be closed
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,126 @@
+package avionics;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The SensorFrameWriter class publishes snapshots into a memory-mapped file
+ * using the fixed SensorFrameLayout, for display processes running in another
+ * JVM.
+ * Publishing a frame is a handful of stores into the mapping with no system
+ * calls; consistency is guaranteed by a seqlock around each frame.
+ */
+public class SensorFrameWriter implements SensorSink, AutoCloseable {
+    private final FileChannel channel;        // Channel backing the mapping
+    private final MappedByteBuffer buffer;    // Mapped frame region
+    private final int[] snapshotIndex;        // Snapshot index for each slot, resolved on the first frame
+    private long sequence = 0;                // Current seqlock counter, always even between frames
+    private long lastVersion = 0;             // Version of the last frame written
+
+    /**
+     * Creates or opens the frame file and maps it for writing. An existing file
+     * is never truncated, since readers in other processes may still have it
+     * mapped; its header is reinitialised through the seqlock instead, and the
+     * sequence carries on from where the previous writer left it.
+     *
+     * @param file the file to map
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public SensorFrameWriter(File file) throws IOException {
+        assert file != null : "File cannot be null";
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SensorFrameLayout.getRegionSize());
+        buffer.order(ByteOrder.nativeOrder());
+
+        long previous = 0;
+        if (buffer.getInt(SensorFrameLayout.MAGIC_OFFSET) == SensorFrameLayout.MAGIC
+                && buffer.getInt(SensorFrameLayout.SLOT_COUNT_OFFSET) == SensorFrameLayout.getSlotCount()) {
+            previous = (long) SensorFrameLayout.LONGS.getAcquire(buffer, SensorFrameLayout.SEQUENCE_OFFSET);
+        }
+        sequence = (previous + 1) & ~1L; // A writer that died part way through a frame left it odd
+
+        // Odd sequence: header being reinitialised, so live readers retry
+        SensorFrameLayout.LONGS.setOpaque(buffer, SensorFrameLayout.SEQUENCE_OFFSET, sequence + 1);
+        VarHandle.storeStoreFence();
+        buffer.putInt(SensorFrameLayout.SLOT_COUNT_OFFSET, SensorFrameLayout.getSlotCount());
+        // The magic number is written last so that readers never see a half-initialised header
+        VarHandle.releaseFence();
+        buffer.putInt(SensorFrameLayout.MAGIC_OFFSET, SensorFrameLayout.MAGIC);
+
+        // A complete previous frame stays readable, while a torn one stays hidden until the first new frame
+        if ((previous & 1) == 0) {
+            if (previous != 0) {
+                sequence += 2;
+            }
+            SensorFrameLayout.LONGS.setRelease(buffer, SensorFrameLayout.SEQUENCE_OFFSET, sequence);
+        }
+
+        snapshotIndex = new int[SensorFrameLayout.getSlotCount()];
+        Arrays.fill(snapshotIndex, -1);
+    }
+
+    /**
+     * Writes the snapshot into the mapped frame.
+     * Snapshots older than the last one written are ignored, since tick groups
+     * may reach the sinks out of order.
+     *
+     * @param snapshot the published snapshot
+     */
+    public synchronized void accept(SensorSnapshot snapshot) {
+        assert snapshot != null : "Snapshot cannot be null";
+        if (snapshot.getVersion() <= lastVersion) {
+            return;
+        }
+        if (snapshotIndex[0] < 0) {
+            resolveSlots(snapshot);
+        }
+
+        // Odd sequence: frame in progress
+        SensorFrameLayout.LONGS.setOpaque(buffer, SensorFrameLayout.SEQUENCE_OFFSET, sequence + 1);
+        VarHandle.storeStoreFence();
+
+        buffer.putLong(SensorFrameLayout.VERSION_OFFSET, snapshot.getVersion());
+        buffer.putLong(SensorFrameLayout.TIMESTAMP_OFFSET, snapshot.getTimestamp());
+        for (int slot = 0; slot < snapshotIndex.length; slot++) {
+            int index = snapshotIndex[slot];
+            int offset = SensorFrameLayout.slotOffset(slot);
+            buffer.putInt(offset + SensorFrameLayout.VALUE_OFFSET, snapshot.getValue(index));
+            buffer.putInt(offset + SensorFrameLayout.MIN_OFFSET, snapshot.getMin(index));
+            buffer.putInt(offset + SensorFrameLayout.MAX_OFFSET, snapshot.getMax(index));
+        }
+
+        // Even sequence: frame complete and visible to readers
+        sequence += 2;
+        SensorFrameLayout.LONGS.setRelease(buffer, SensorFrameLayout.SEQUENCE_OFFSET, sequence);
+        lastVersion = snapshot.getVersion();
+        assert (sequence & 1) == 0 : "Sequence must be even between frames";
+    }
+
+    /**
+     * Maps each frame slot to the index of the same sensor in the snapshot.
+     *
+     * @param snapshot a snapshot with the simulator's sensor layout
+     */
+    private void resolveSlots(SensorSnapshot snapshot) {
+        for (int slot = 0; slot < snapshotIndex.length; slot++) {
+            snapshotIndex[slot] = snapshot.indexOf(SensorFrameLayout.getKey(slot));
+            assert snapshotIndex[slot] >= 0 : "Snapshot has no sensor for slot " + SensorFrameLayout.getKey(slot);
+        }
+    }
+
+    /**
+     * Closes the channel backing the mapping.
+     *
+     * @throws IOException if the channel cannot be closed
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+}
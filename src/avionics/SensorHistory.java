@@ -0,0 +1,229 @@
+package avionics;
+
+/**
+ * The SensorHistory class is a fixed-capacity ring buffer of timestamped
+ * sensor samples.
+ * Samples are stored in primitive arrays allocated once at construction, so
+ * recording never allocates and memory stays constant however long the flight.
+ * Once full, each new sample overwrites the oldest one.
+ * Queries copy into caller-supplied arrays or return primitives, so they do not
+ * allocate either. Methods are synchronized because samples are recorded on the
+ * simulator thread and usually queried from the GUI.
+ */
+public class SensorHistory {
+    private final long[] timestamps;  // Sample times in milliseconds, in ring order
+    private final int[] values;       // Sample values, in ring order
+    private int head = 0;             // Index the next sample is written to
+    private int size = 0;             // Number of samples currently held
+
+    /**
+     * Constructs a SensorHistory holding at most the given number of samples.
+     *
+     * @param capacity the maximum number of samples kept
+     */
+    public SensorHistory(int capacity) {
+        assert capacity > 0 : "Capacity must be positive";
+        this.timestamps = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Records a sample, overwriting the oldest one if the history is full.
+     * Timestamps are expected to be non-decreasing.
+     *
+     * @param timestamp the sample time in milliseconds
+     * @param value     the sample value
+     */
+    public synchronized void record(long timestamp, int value) {
+        assert size == 0 || timestamp >= timestamps[physical(size - 1)] : "Timestamps must not go backwards";
+        timestamps[head] = timestamp;
+        values[head] = value;
+        head = (head + 1) % values.length;
+        if (size < values.length) {
+            size++;
+        }
+        assert size <= values.length : "Size must not exceed capacity";
+    }
+
+    /**
+     * Retrieves the maximum number of samples kept.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Retrieves the number of samples currently held.
+     *
+     * @return the number of samples
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes every sample.
+     */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Retrieves the value of a sample counted back from the newest.
+     *
+     * @param age 0 for the newest sample, 1 for the one before, and so on
+     * @return the sample value
+     */
+    public synchronized int getValue(int age) {
+        assert age >= 0 && age < size : "Age out of range";
+        return values[physical(size - 1 - age)];
+    }
+
+    /**
+     * Retrieves the time of a sample counted back from the newest.
+     *
+     * @param age 0 for the newest sample, 1 for the one before, and so on
+     * @return the sample time in milliseconds
+     */
+    public synchronized long getTimestamp(int age) {
+        assert age >= 0 && age < size : "Age out of range";
+        return timestamps[physical(size - 1 - age)];
+    }
+
+    /**
+     * Copies the newest samples, oldest first, into the given arrays.
+     *
+     * @param n              the maximum number of samples to copy
+     * @param timestampsOut  the array receiving sample times
+     * @param valuesOut      the array receiving sample values
+     * @return the number of samples copied
+     */
+    public synchronized int lastN(int n, long[] timestampsOut, int[] valuesOut) {
+        assert n >= 0 : "n must be non-negative";
+        int count = Math.min(Math.min(n, size), Math.min(timestampsOut.length, valuesOut.length));
+        return copy(size - count, count, timestampsOut, valuesOut);
+    }
+
+    /**
+     * Copies the samples taken at or after the given time, oldest first, into
+     * the given arrays. If the arrays are too small, the newest samples that fit
+     * are copied.
+     *
+     * @param time           the start of the window in milliseconds
+     * @param timestampsOut  the array receiving sample times
+     * @param valuesOut      the array receiving sample values
+     * @return the number of samples copied
+     */
+    public synchronized int since(long time, long[] timestampsOut, int[] valuesOut) {
+        int count = Math.min(size - firstIndexAtOrAfter(time), Math.min(timestampsOut.length, valuesOut.length));
+        return copy(size - count, count, timestampsOut, valuesOut);
+    }
+
+    /**
+     * Counts the samples taken at or after the given time.
+     *
+     * @param time the start of the window in milliseconds
+     * @return the number of samples in the window
+     */
+    public synchronized int countSince(long time) {
+        return size - firstIndexAtOrAfter(time);
+    }
+
+    /**
+     * Finds the smallest value recorded at or after the given time.
+     *
+     * @param time the start of the window in milliseconds
+     * @return the minimum, or Integer.MAX_VALUE if the window is empty
+     */
+    public synchronized int minSince(long time) {
+        int min = Integer.MAX_VALUE;
+        for (int i = firstIndexAtOrAfter(time); i < size; i++) {
+            min = Math.min(min, values[physical(i)]);
+        }
+        return min;
+    }
+
+    /**
+     * Finds the largest value recorded at or after the given time.
+     *
+     * @param time the start of the window in milliseconds
+     * @return the maximum, or Integer.MIN_VALUE if the window is empty
+     */
+    public synchronized int maxSince(long time) {
+        int max = Integer.MIN_VALUE;
+        for (int i = firstIndexAtOrAfter(time); i < size; i++) {
+            max = Math.max(max, values[physical(i)]);
+        }
+        return max;
+    }
+
+    /**
+     * Calculates the mean of the values recorded at or after the given time.
+     *
+     * @param time the start of the window in milliseconds
+     * @return the mean, or NaN if the window is empty
+     */
+    public synchronized double meanSince(long time) {
+        int first = firstIndexAtOrAfter(time);
+        if (first == size) {
+            return Double.NaN;
+        }
+        long sum = 0; // A long cannot overflow for any realistic capacity of int samples
+        for (int i = first; i < size; i++) {
+            sum += values[physical(i)];
+        }
+        return (double) sum / (size - first);
+    }
+
+    /**
+     * Copies a run of samples, in logical order, into the given arrays.
+     *
+     * @param from           the logical index of the first sample (0 is the oldest held)
+     * @param count          the number of samples to copy
+     * @param timestampsOut  the array receiving sample times
+     * @param valuesOut      the array receiving sample values
+     * @return the number of samples copied
+     */
+    private int copy(int from, int count, long[] timestampsOut, int[] valuesOut) {
+        for (int i = 0; i < count; i++) {
+            int index = physical(from + i);
+            timestampsOut[i] = timestamps[index];
+            valuesOut[i] = values[index];
+        }
+        return count;
+    }
+
+    /**
+     * Binary searches for the oldest sample taken at or after the given time.
+     *
+     * @param time the time in milliseconds
+     * @return the logical index of that sample, or size if there is none
+     */
+    private int firstIndexAtOrAfter(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[physical(mid)] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Converts a logical index, where 0 is the oldest sample held, to an array index.
+     *
+     * @param logical the logical index
+     * @return the array index
+     */
+    private int physical(int logical) {
+        int start = size < values.length ? 0 : head;
+        return (start + logical) % values.length;
+    }
+}
@@ -0,0 +1,17 @@
+package avionics;
+
+/**
+ * A SensorListener is notified when a single Sensor's value or range status
+ * changes. Listeners are called synchronously on the thread that changed the
+ * sensor, so implementations must be quick.
+ */
+public interface SensorListener {
+
+    /**
+     * Called after the sensor's value or range status has changed.
+     *
+     * @param sensor        the sensor that changed
+     * @param statusChanged true if the sensor moved into or out of its range
+     */
+    void sensorChanged(Sensor sensor, boolean statusChanged);
+}
@@ -0,0 +1,214 @@
+package avionics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.gson.JsonObject;
+
+import monitoring.Histogram;
+import monitoring.MetricsRegistry;
+
+/**
+ * The SensorPersistence class writes sensor snapshots to a JSON file behind
+ * the simulator's back.
+ *
+ * Accepting a snapshot only swaps an atomic reference and bumps a counter, so
+ * the tick thread never waits on I/O. A single background writer collapses
+ * bursts into the latest snapshot and flushes it at most once per interval,
+ * or straight away once the dirty-count threshold is reached. Each flush goes
+ * to a temporary file that is then atomically renamed over the target, so
+ * readers never see a truncated file.
+ */
+public class SensorPersistence implements SensorSink, AutoCloseable {
+    private final Path target;                                              // File readers see
+    private final Path temp;                                                // File each flush is written to first
+    private final long minIntervalNanos;                                    // Minimum time between flushes
+    private final int dirtyThreshold;                                       // Updates that trigger an early flush
+    private final AtomicReference<SensorSnapshot> pending = new AtomicReference<>(); // Latest unwritten snapshot
+    private final AtomicInteger dirtyCount = new AtomicInteger();           // Updates since the last flush
+    private final Thread writer;                                            // The single background writer
+    private volatile boolean running = true;                                // Cleared by close()
+    private volatile long writeCount = 0;                                   // Number of flushes completed
+    private volatile long lastWriteNanos = 0;                               // Duration of the last flush
+    private volatile Histogram writeLatency;                                // Records flush durations, or null for none
+
+    /**
+     * Constructs a SensorPersistence and starts its writer thread.
+     *
+     * @param filePath          the path of the JSON file to write
+     * @param minIntervalMillis the minimum time between flushes in milliseconds
+     * @param dirtyThreshold    the number of updates that triggers a flush before the interval has passed
+     */
+    public SensorPersistence(String filePath, long minIntervalMillis, int dirtyThreshold) {
+        assert filePath != null : "File path cannot be null";
+        assert minIntervalMillis >= 0 : "Interval must be non-negative";
+        assert dirtyThreshold > 0 : "Dirty threshold must be positive";
+        this.target = new File(filePath).toPath();
+        this.temp = new File(filePath + ".tmp").toPath();
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+        this.dirtyThreshold = dirtyThreshold;
+
+        writer = new Thread(this::writeLoop, "SensorPersistence");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Records the snapshot as the latest state to persist. Never blocks.
+     * Older snapshots arriving late are ignored.
+     *
+     * @param snapshot the published snapshot
+     */
+    public void accept(SensorSnapshot snapshot) {
+        assert snapshot != null : "Snapshot cannot be null";
+        SensorSnapshot current;
+        do {
+            current = pending.get();
+            if (current != null && current.getVersion() >= snapshot.getVersion()) {
+                return;
+            }
+        } while (!pending.compareAndSet(current, snapshot));
+
+        // Wake the writer when it goes from idle to dirty, and again at the threshold
+        int dirty = dirtyCount.incrementAndGet();
+        if (dirty == 1 || dirty == dirtyThreshold) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Flushes the latest snapshot whenever the interval has passed or the
+     * dirty-count threshold has been reached, until closed. With nothing to
+     * write the writer parks until accept() wakes it, so it never spins, even
+     * with an interval of zero.
+     */
+    private void writeLoop() {
+        long lastFlush = System.nanoTime() - minIntervalNanos;
+        while (running) {
+            long wait = lastFlush + minIntervalNanos - System.nanoTime();
+            int dirty = dirtyCount.get();
+            if (dirty == 0) {
+                LockSupport.park(this); // Idle until the next update
+                continue;
+            }
+            if (wait > 0 && dirty < dirtyThreshold) {
+                // Sleep until the interval has passed, or until accept() hits the threshold
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            flush();
+            lastFlush = System.nanoTime();
+        }
+        flush();
+    }
+
+    /**
+     * Writes the latest snapshot, if any updates arrived since the last flush.
+     */
+    private void flush() {
+        if (dirtyCount.getAndSet(0) == 0) {
+            return;
+        }
+        SensorSnapshot snapshot = pending.get();
+        long started = System.nanoTime();
+        write(snapshot);
+        lastWriteNanos = System.nanoTime() - started;
+        writeCount++;
+        Histogram latency = writeLatency;
+        if (latency != null) {
+            latency.record(lastWriteNanos);
+        }
+    }
+
+    /**
+     * Writes a snapshot to the temporary file and renames it over the target.
+     * Package-private so the write path can be benchmarked on its own.
+     *
+     * @param snapshot the snapshot to write
+     */
+    void write(SensorSnapshot snapshot) {
+        try (FileWriter fileWriter = new FileWriter(temp.toFile())) {
+            fileWriter.write(toJson(snapshot).toString());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException fallback) {
+                fallback.printStackTrace();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Converts a snapshot to a JSON object keyed by sensor name.
+     *
+     * @param snapshot the snapshot to convert
+     * @return the JSON object
+     */
+    public static JsonObject toJson(SensorSnapshot snapshot) {
+        JsonObject jsonObject = new JsonObject();
+        for (int i = 0; i < snapshot.size(); i++) {
+            jsonObject.addProperty(snapshot.getName(i), snapshot.getValue(i));
+        }
+        assert jsonObject.size() == snapshot.size() : "Every sensor must be written";
+        return jsonObject;
+    }
+
+    /**
+     * Records how long each flush takes in the given registry, as persistence.writeNanos.
+     *
+     * @param metrics the registry to record in
+     */
+    public void setMetrics(MetricsRegistry metrics) {
+        assert metrics != null : "Metrics cannot be null";
+        writeLatency = metrics.histogram("persistence.writeNanos");
+    }
+
+    /**
+     * Retrieves the number of flushes completed.
+     *
+     * @return the number of flushes
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * Retrieves how long the last flush took.
+     *
+     * @return the duration in nanoseconds
+     */
+    public long getLastWriteNanos() {
+        return lastWriteNanos;
+    }
+
+    /**
+     * Stops the writer after a final flush of any pending snapshot.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,26 +1,93 @@
 package avionics;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.concurrent.*;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import java.util.*;
 
+import monitoring.Histogram;
+import monitoring.MetricsRegistry;
+import monitoring.SensorTickEvent;
+import simulation.SimulationClock;
+
 // This class simulates the sensors on the plane
 public class SensorSimulator implements Runnable {
-    private static final String FILE_PATH = "src/resources/data/sensor_data.json";   // Path to the JSON file that stores the sensor data
-    private static Map<String, Sensor> sensors = new HashMap<>();                       // Map to store the sensors
+    public static final String FILE_PATH = "src/resources/data/sensor_data.json";    // Path to the JSON file that stores the sensor data
+    private final Map<String, Sensor> sensors = new HashMap<>();                        // This aircraft's sensors
+    private final SensorBus sensorBus = new SensorBus();                                // Channel that readers take snapshots from
+    private final List<SensorSink> sinks = new CopyOnWriteArrayList<>();                // Optional outputs, e.g. the JSON file
+    private String[] sensorKeys = new String[0];                                        // Keys of the sensors, in publication order
+    private String[] sensorNames = new String[0];                                       // Names of the sensors, in publication order
+    private Sensor[] sensorArray = new Sensor[0];                                       // Sensors, in publication order
+    private int historyCapacity = 0;                                                    // Samples of history kept per sensor, 0 for none
+    private SimulationClock clock = SimulationClock.SYSTEM;                             // Time source for samples and snapshots
+
+    public static final long AIRSPEED_PERIOD = 1000;                                    // Milliseconds between airspeed updates
+    public static final long ALTITUDE_PERIOD = 500;                                     // Milliseconds between altitude and thrust updates
+    public static final long ATTITUDE_PERIOD = 500;                                     // Milliseconds between pitch, roll and yaw updates
+    public static final long WHEEL_TICK = 50;                                           // Milliseconds per timing wheel slot
+    public static final int WHEEL_SIZE = 512;                                           // Slots in the timing wheel
+    private final Map<String, Long> sensorPeriods = new HashMap<>();                    // Update period of each sensor
+    private final Map<String, String> sensorGroups = new HashMap<>();                   // Schedule group of each sensor, named in metrics
+    private TimingWheel wheel;                                                          // Schedules every sensor update
+    private MetricsRegistry metrics;                                                    // Registry tick metrics go to, or null for none
+    private int[] sensorGroupIndex;                                                     // Schedule group of each sensor, in publication order
+    private Histogram[] tickLateness;                                                   // Lateness of each schedule group, by group index
+    private Histogram[] tickDuration;                                                   // Time spent updating each schedule group, by group index
+    private long[] groupNanos;                                                          // Update time of each group on the current tick, -1 if not due
+    private Histogram tickPublish;                                                      // Time each tick spends publishing
+    private Histogram tickAllocation;                                                   // Bytes allocated by each tick
     
+    /**
+     * Constructs a SensorSimulator with its own set of sensors.
+     * The sensors exist straight away, but are not updated or published until
+     * run() or createSensors() is called.
+     */
+    public SensorSimulator() {
+        initialiseSensors();
+    }
+
     /**
      * Runs the sensor simulator.
      * 
-     * This method creates and initializes the sensors, creates a JSON file with default values if it doesn't exist,
-     * and schedules the updates for each sensor at fixed intervals using a scheduled executor service.
+     * This method creates and initializes the sensors, publishes their initial values,
+     * and starts a single scheduler thread that advances the timing wheel every WHEEL_TICK milliseconds.
      */
     public void run() {
+        createSensors();
+
+        // A single thread drives the timing wheel, which owns every sensor period
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        assert scheduler != null : "ScheduledExecutorService should not be null";
+
+        scheduler.scheduleAtFixedRate(() -> advanceTo(clock.currentTimeMillis()), 0, WHEEL_TICK, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates and initializes the sensors, publishes their initial values and
+     * schedules each sensor on a new timing wheel, without starting any threads.
+     * 
+     * Callers that drive the wheel themselves, such as a fast-time simulation,
+     * call this instead of run() and then call advanceTo().
+     */
+    public synchronized void createSensors() {
+        initialiseSensors();
+
+        // Schedule every sensor and publish the initial values
+        wheel = new TimingWheel(WHEEL_TICK, WHEEL_SIZE, clock.currentTimeMillis(), this::updateSensors);
+        for (int i = 0; i < sensorArray.length; i++) {
+            wheel.schedule(i, sensorPeriods.get(sensorKeys[i]));
+        }
+        publish();
+    }
+
+    /**
+     * Creates the sensors with fresh values and fixes their publication order,
+     * without scheduling or publishing them.
+     */
+    private void initialiseSensors() {
         // Create the sensors with their respective names, max and min values
+        sensors.clear();
+        sensorPeriods.clear();
+        sensorGroups.clear();
         sensors.put("thrust", new Sensor("Thrust", 140500, 130500));
         sensors.put("airspeed", new Sensor("Airspeed", 1000, 100));
         sensors.put("altitude", new Sensor("Altitude", 1000, 100));
@@ -28,41 +95,229 @@ public class SensorSimulator implements Runnable {
         sensors.put("roll", new Sensor("Roll", 180, -180));
         sensors.put("yaw", new Sensor("Yaw", 360, 0));
 
+        // Airspeed updates every second, altitude, thrust and attitude every 500 milliseconds
+        sensorPeriods.put("airspeed", AIRSPEED_PERIOD);
+        sensorPeriods.put("altitude", ALTITUDE_PERIOD);
+        sensorPeriods.put("thrust", ALTITUDE_PERIOD);
+        sensorPeriods.put("pitch", ATTITUDE_PERIOD);
+        sensorPeriods.put("roll", ATTITUDE_PERIOD);
+        sensorPeriods.put("yaw", ATTITUDE_PERIOD);
+
+        // The original three schedules, kept apart in metrics even where their periods match
+        sensorGroups.put("airspeed", "airspeed");
+        sensorGroups.put("altitude", "altitude");
+        sensorGroups.put("thrust", "altitude");
+        sensorGroups.put("pitch", "attitude");
+        sensorGroups.put("roll", "attitude");
+        sensorGroups.put("yaw", "attitude");
+
         assert sensors.isEmpty() == false : "Sensors must not be empty";
         assert sensors.size() == 6 : "There should be 6 sensors";
+
+        if (historyCapacity > 0) {
+            enableHistory(historyCapacity);
+        }
         
-        // Create the JSON file with default values if it doesn't exist
-        File jsonFile = new File(FILE_PATH);
-        assert jsonFile.exists() : "JSON file does not exist";
-        if (!jsonFile.exists()) {
-            createDefaultJsonFile();
+        // Fix the publication order
+        createSensorArrays();
+    }
+
+    /**
+     * Adds a sensor that updates at its own period.
+     * Must be called after run() or createSensors(); the sensor is published
+     * after the built-in sensors.
+     * 
+     * @param key          The key to store the sensor under.
+     * @param sensor       The sensor to add.
+     * @param periodMillis The time between updates in milliseconds.
+     * @throws IllegalStateException If a subscription exists and there would be
+     *                               more sensors than SensorChange.MAX_SENSORS.
+     */
+    public synchronized void addSensor(String key, Sensor sensor, long periodMillis) {
+        assert wheel != null : "Sensors must be created before adding more";
+        assert key != null && sensor != null : "Key and sensor must not be null";
+        assert !sensors.containsKey(key) : "Sensor key already in use: " + key;
+        assert periodMillis > 0 : "Period must be positive";
+        if (sensorArray.length >= SensorChange.MAX_SENSORS && hasSubscriptions()) {
+            throw new IllegalStateException("Subscribers track at most " + SensorChange.MAX_SENSORS + " sensors");
+        }
+        sensors.put(key, sensor);
+        sensorPeriods.put(key, periodMillis);
+        sensorGroups.put(key, key); // An added sensor is a schedule of its own
+        if (historyCapacity > 0) {
+            sensor.enableHistory(historyCapacity);
         }
 
-        // Create a scheduled executor service with 3 threads
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(3);
+        int index = sensorArray.length;
+        sensorKeys = Arrays.copyOf(sensorKeys, index + 1);
+        sensorNames = Arrays.copyOf(sensorNames, index + 1);
+        sensorArray = Arrays.copyOf(sensorArray, index + 1);
+        sensorKeys[index] = key;
+        sensorNames[index] = sensor.getName();
+        sensorArray[index] = sensor;
+        resolveMetrics();
+        wheel.schedule(index, periodMillis);
+    }
 
-        assert scheduler != null : "ScheduledExecutorService should not be null";
+    /**
+     * Processes every timing wheel tick due at or before the given time.
+     * Each tick updates all of its due sensors in one pass followed by one publication.
+     * 
+     * @param nowMillis The current time in milliseconds.
+     * @return The number of ticks processed.
+     */
+    public synchronized int advanceTo(long nowMillis) {
+        assert wheel != null : "Sensors must be created before the wheel is advanced";
+        return wheel.advanceTo(nowMillis);
+    }
+
+    /**
+     * Updates the sensors due on one timing wheel tick, then publishes them once.
+     * Each tick is a SensorTickEvent for Flight Recorder.
+     * 
+     * @param due      The indexes of the due sensors.
+     * @param count    The number of due sensors.
+     * @param tickTime The time the tick was due, in milliseconds.
+     */
+    private void updateSensors(int[] due, int count, long tickTime) {
+        SensorTickEvent event = new SensorTickEvent();
+        event.begin();
+        long latenessMillis = clock.currentTimeMillis() - tickTime;
+        if (tickLateness == null) {
+            for (int i = 0; i < count; i++) {
+                sensorArray[due[i]].updateValue(tickTime);
+            }
+            publish();
+        } else {
+            updateSensorsMetered(due, count, tickTime, latenessMillis);
+        }
+        event.end();
+
+        // Only build the event's payload when a recording wants it
+        if (event.shouldCommit()) {
+            StringJoiner names = new StringJoiner(", ");
+            for (int i = 0; i < count; i++) {
+                names.add(sensorNames[due[i]]);
+            }
+            event.sensors = names.toString();
+            event.sensorCount = count;
+            event.tickTime = tickTime;
+            event.lateness = latenessMillis;
+            event.commit();
+        }
+    }
+
+    /**
+     * Updates and publishes the sensors due on one tick, recording in the
+     * metrics registry each due schedule group's lateness and the time spent
+     * updating its own sensors, then the tick's publication time and allocation.
+     * 
+     * @param due            The indexes of the due sensors.
+     * @param count          The number of due sensors.
+     * @param tickTime       The time the tick was due, in milliseconds.
+     * @param latenessMillis How far the clock had passed the tick, in milliseconds.
+     */
+    private void updateSensorsMetered(int[] due, int count, long tickTime, long latenessMillis) {
+        int[] groups = sensorGroupIndex;
+        long[] nanos = groupNanos;
+        Arrays.fill(nanos, -1);
+        long allocated = MetricsRegistry.allocatedBytes();
+        for (int i = 0; i < count; i++) {
+            long started = System.nanoTime();
+            sensorArray[due[i]].updateValue(tickTime);
+            long elapsed = System.nanoTime() - started;
+            int group = groups[due[i]];
+            nanos[group] = Math.max(nanos[group], 0) + elapsed;
+        }
+        long started = System.nanoTime();
+        publish();
+        tickPublish.recordSince(started);
+        if (allocated >= 0) {
+            tickAllocation.record(MetricsRegistry.allocatedBytes() - allocated);
+        }
+
+        // Record once per schedule group due on this tick, not once per sensor
+        for (int group = 0; group < nanos.length; group++) {
+            if (nanos[group] >= 0) {
+                tickLateness[group].record(latenessMillis * 1_000_000L);
+                tickDuration[group].record(nanos[group]);
+            }
+        }
+    }
+
+    /**
+     * Records how late each schedule group's ticks are and how long its sensors
+     * take to update, and how long each tick's publication takes and how much it
+     * allocates, in the given registry. The airspeed, altitude (with thrust) and
+     * attitude schedules, and each added sensor, are recorded as
+     * sensor.tick.[group].latenessNanos and .durationNanos.
+     * 
+     * @param metrics The registry to record in, or null to stop recording.
+     */
+    public synchronized void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+        resolveMetrics();
+    }
 
-        // Airspeed sensor updates every second
-        scheduler.scheduleAtFixedRate(() -> {
-            sensors.get("airspeed").updateValue();
-            updateJsonFile();
-        }, 0, 1, TimeUnit.SECONDS);
+    /**
+     * Looks up the histograms of every schedule group, so ticks never touch the registry.
+     */
+    private void resolveMetrics() {
+        if (metrics == null) {
+            tickLateness = null;
+            return;
+        }
+        List<String> groupNames = new ArrayList<>();
+        int[] groupIndex = new int[sensorArray.length];
+        for (int i = 0; i < sensorArray.length; i++) {
+            String group = sensorGroups.get(sensorKeys[i]);
+            assert group != null : "Every sensor must have a schedule group";
+            if (!groupNames.contains(group)) {
+                groupNames.add(group);
+            }
+            groupIndex[i] = groupNames.indexOf(group);
+        }
+        Histogram[] lateness = new Histogram[groupNames.size()];
+        Histogram[] duration = new Histogram[groupNames.size()];
+        for (int group = 0; group < groupNames.size(); group++) {
+            String schedule = "sensor.tick." + groupNames.get(group) + ".";
+            lateness[group] = metrics.histogram(schedule + "latenessNanos");
+            duration[group] = metrics.histogram(schedule + "durationNanos");
+        }
+        tickPublish = metrics.histogram("sensor.tick.publishNanos");
+        tickAllocation = metrics.histogram("sensor.tick.allocatedBytes");
+        groupNanos = new long[groupNames.size()];
+        sensorGroupIndex = groupIndex;
+        tickDuration = duration;
+        tickLateness = lateness;
+    }
 
-        // Altitude sensor updates every 500 milliseconds
-        scheduler.scheduleAtFixedRate(() -> {
-            sensors.get("altitude").updateValue();
-            sensors.get("thrust").updateValue();
-            updateJsonFile();
-        }, 0, 500, TimeUnit.MILLISECONDS);
+    /**
+     * Returns the timing wheel that schedules the sensors, for overrun statistics.
+     * 
+     * @return The timing wheel, or null if the sensors have not been created.
+     */
+    public TimingWheel getTimingWheel() {
+        return wheel;
+    }
 
-        // Attitude sensor updates every 500 milliseconds
-        scheduler.scheduleAtFixedRate(() -> {
-            sensors.get("pitch").updateValue();
-            sensors.get("roll").updateValue();
-            sensors.get("yaw").updateValue();
-            updateJsonFile();
-        }, 0, 500, TimeUnit.MILLISECONDS);
+    /**
+     * Sets the clock used to timestamp sensor samples and snapshots.
+     * 
+     * @param clock The clock to use.
+     */
+    public void setClock(SimulationClock clock) {
+        assert clock != null : "Clock must not be null";
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the clock used to timestamp sensor samples and snapshots.
+     * 
+     * @return The clock.
+     */
+    public SimulationClock getClock() {
+        return clock;
     }
 
     /**
@@ -72,53 +327,140 @@ public class SensorSimulator implements Runnable {
      */
     public Map<String, Sensor> getSensors() {
         assert sensors.isEmpty() == false : "Sensors must not be empty";
-        assert sensors.size() == 6 : "Sensors must contain 6 elements";
+        assert sensors.size() >= 6 : "Sensors must contain at least 6 elements";
         return sensors;
     }
 
     /**
-     * Updates the JSON file with the current sensor data.
-     * This method is called every time a sensor value is updated.
+     * Makes every sensor keep a history of its values, including sensors
+     * created by later calls to run() or createSensors().
+     * 
+     * @param capacity The maximum number of samples kept per sensor.
+     */
+    public void enableHistory(int capacity) {
+        assert capacity > 0 : "Capacity must be positive";
+        historyCapacity = capacity;
+        for (Sensor sensor : sensors.values()) {
+            sensor.enableHistory(capacity);
+        }
+    }
+
+    /**
+     * Returns the bus that sensor snapshots are published on.
+     * 
+     * @return The sensor bus.
+     */
+    public SensorBus getSensorBus() {
+        assert sensorBus != null : "Sensor bus must not be null";
+        return sensorBus;
+    }
+
+    /**
+     * Adds a sink that receives every published snapshot.
+     * 
+     * @param sink The sink to add.
      */
-    private synchronized void updateJsonFile() {
-        assert sensors.size() == 6 : "Sensors must contain 6 elements";
-        try (FileReader reader = new FileReader(FILE_PATH)) {
-            JsonObject jsonObject = JsonParser.parseReader(reader).getAsJsonObject();
+    public void addSink(SensorSink sink) {
+        assert sink != null : "Sink must not be null";
+        sinks.add(sink);
+    }
 
-            List<Sensor> sensorList = new ArrayList<>(sensors.values());
-            assert sensorList.size() == 6 : "Sensor list must contain 6 elements";
-            for (int i = 0; i < sensorList.size(); i++) {
-                jsonObject.addProperty(sensorList.get(i).getName(), sensorList.get(i).getValue());
+    /**
+     * Subscribes a listener to sensor changes. The listener is only notified
+     * when a value or range status changes, on the given executor, with changes
+     * that arrive before it runs merged into one notification. If anything has
+     * been published already, the first notification reports every sensor.
+     * 
+     * @param listener The listener to notify.
+     * @param executor The executor to notify it on, e.g. SwingUtilities::invokeLater.
+     * @return The subscription, which can be cancelled.
+     * @throws IllegalStateException If there are more sensors than SensorChange.MAX_SENSORS.
+     */
+    public SensorSubscription subscribe(SensorChangeListener listener, Executor executor) {
+        SensorSubscription subscription = new SensorSubscription(this, listener, executor);
+        synchronized (this) { // Checked together with addSensor()
+            if (sensorArray.length > SensorChange.MAX_SENSORS) {
+                throw new IllegalStateException("Subscribers track at most " + SensorChange.MAX_SENSORS
+                        + " sensors, not " + sensorArray.length);
             }
+            sinks.add(subscription);
+        }
+        SensorSnapshot latest = sensorBus.latest();
+        if (latest != null) {
+            subscription.accept(latest);
+        }
+        return subscription;
+    }
 
-            try (FileWriter writer = new FileWriter(FILE_PATH)) {
-                writer.write(jsonObject.toString());
+    /**
+     * Checks whether any sink is a subscription, whose change masks limit the number of sensors.
+     * 
+     * @return True if a subscription exists, false otherwise.
+     */
+    private boolean hasSubscriptions() {
+        for (SensorSink sink : sinks) {
+            if (sink instanceof SensorSubscription) {
+                return true;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        return false;
     }
 
     /**
-     * Creates the JSON file with default sensor values.
-     * This method is called when the JSON file does not exist.
+     * Removes a previously added sink.
+     * 
+     * @param sink The sink to remove.
      */
-    private void createDefaultJsonFile() {
-        assert sensors.size() == 6 : "Sensors must contain 6 elements";
-        JsonObject jsonObject = new JsonObject();
-        assert jsonObject != null : "JSON object must not be null";
+    public void removeSink(SensorSink sink) {
+        sinks.remove(sink);
+    }
 
-        List<Sensor> sensorList = new ArrayList<>(sensors.values());
-        assert sensorList.size() == 6 : "Sensor list must contain 6 elements";
+    /**
+     * Publishes the current sensor values as a new snapshot and passes it to every sink.
+     * This method is called every time a group of sensor values is updated.
+     * 
+     * @return The published snapshot.
+     */
+    public SensorSnapshot publish() {
+        assert sensorArray.length == sensors.size() : "Sensor arrays must match the sensor map";
+        SensorSnapshot snapshot = sensorBus.publish(sensorKeys, sensorNames, sensorArray, clock.currentTimeMillis());
+        for (SensorSink sink : sinks) {
+            sink.accept(snapshot);
+        }
+        return snapshot;
+    }
 
-        for (int i = 0; i < sensorList.size(); i++) {
-            jsonObject.addProperty(sensorList.get(i).getName(), sensorList.get(i).getValue());
+    /**
+     * Publishes a recorded snapshot in place of the live sensors, through the
+     * same bus and sinks, so every reader behaves as it did when it was recorded.
+     * 
+     * @param recorded The snapshot to publish.
+     * @return The published snapshot, with the next version number.
+     */
+    public SensorSnapshot publish(SensorSnapshot recorded) {
+        SensorSnapshot snapshot = sensorBus.publish(recorded);
+        for (SensorSink sink : sinks) {
+            sink.accept(snapshot);
         }
+        return snapshot;
+    }
 
-        try (FileWriter writer = new FileWriter(FILE_PATH)) {
-            writer.write(jsonObject.toString());
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Copies the sensor map into arrays in a fixed order, so that every snapshot
+     * uses the same layout.
+     */
+    private void createSensorArrays() {
+        assert sensors.size() == sensorPeriods.size() : "Every sensor must have a period";
+        List<String> keys = new ArrayList<>(sensors.keySet());
+        Collections.sort(keys);
+        sensorKeys = keys.toArray(new String[0]);
+        sensorNames = new String[sensorKeys.length];
+        sensorArray = new Sensor[sensorKeys.length];
+        for (int i = 0; i < sensorKeys.length; i++) {
+            sensorArray[i] = sensors.get(sensorKeys[i]);
+            sensorNames[i] = sensorArray[i].getName();
         }
+        assert sensorArray.length == sensors.size() : "Sensor array must contain every sensor";
+        resolveMetrics();
     }
-}
\ No newline at end of file
+}
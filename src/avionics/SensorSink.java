@@ -0,0 +1,16 @@
+package avionics;
+
+/**
+ * A SensorSink receives every snapshot published by the SensorSimulator.
+ * Sinks are called on the simulator's tick thread, so implementations must be
+ * quick or hand the snapshot off to another thread.
+ */
+public interface SensorSink {
+
+    /**
+     * Accepts a newly published snapshot.
+     *
+     * @param snapshot the published snapshot
+     */
+    void accept(SensorSnapshot snapshot);
+}
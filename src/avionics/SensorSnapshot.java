@@ -0,0 +1,249 @@
+package avionics;
+
+import java.util.Arrays;
+
+/**
+ * The SensorSnapshot class is an immutable, versioned copy of every sensor's
+ * value and range at a single instant.
+ * Snapshots are created by the SensorBus on each publication, so readers always
+ * see a complete frame even while the simulator is updating the live sensors.
+ */
+public final class SensorSnapshot {
+    private final long version;     // Monotonic publication number, starting at 1
+    private final long timestamp;   // Time of publication in milliseconds
+    private final String[] keys;    // Map keys of the sensors (e.g. "airspeed"), shared between snapshots
+    private final String[] names;   // Display names of the sensors (e.g. "Airspeed"), shared between snapshots
+    private final int[] values;     // Sensor values, indexed like keys
+    private final int[] mins;       // Sensor minimums, indexed like keys
+    private final int[] maxs;       // Sensor maximums, indexed like keys
+
+    /**
+     * Constructs a SensorSnapshot from already copied arrays.
+     * The key and name arrays are never modified and may be shared between
+     * snapshots; the value arrays must not be modified after construction.
+     *
+     * @param version   the publication number
+     * @param timestamp the time of publication in milliseconds
+     * @param keys      the sensor keys
+     * @param names     the sensor names
+     * @param values    the sensor values
+     * @param mins      the sensor minimums
+     * @param maxs      the sensor maximums
+     */
+    public SensorSnapshot(long version, long timestamp, String[] keys, String[] names,
+            int[] values, int[] mins, int[] maxs) {
+        assert keys != null && names != null : "Keys and names cannot be null";
+        assert keys.length == names.length && keys.length == values.length
+                && keys.length == mins.length && keys.length == maxs.length : "All arrays must be the same length";
+        this.version = version;
+        this.timestamp = timestamp;
+        this.keys = keys;
+        this.names = names;
+        this.values = values;
+        this.mins = mins;
+        this.maxs = maxs;
+    }
+
+    /**
+     * Captures the current state of the given sensors into a new snapshot.
+     *
+     * @param version   the publication number
+     * @param timestamp the time of publication in milliseconds
+     * @param keys      the sensor keys, indexed like sensors
+     * @param names     the sensor names, indexed like sensors
+     * @param sensors   the live sensors to copy
+     * @return the new snapshot
+     */
+    public static SensorSnapshot capture(long version, long timestamp, String[] keys, String[] names,
+            Sensor[] sensors) {
+        assert sensors != null && sensors.length == keys.length : "Sensors must match keys";
+        int[] values = new int[sensors.length];
+        int[] mins = new int[sensors.length];
+        int[] maxs = new int[sensors.length];
+        for (int i = 0; i < sensors.length; i++) {
+            values[i] = sensors[i].getValue();
+            mins[i] = sensors[i].getMin();
+            maxs[i] = sensors[i].getMax();
+        }
+        return new SensorSnapshot(version, timestamp, keys, names, values, mins, maxs);
+    }
+
+    /**
+     * Creates a copy of this snapshot with a different version. The arrays are
+     * shared, since neither snapshot ever modifies them.
+     *
+     * @param version the new publication number
+     * @return the copy
+     */
+    public SensorSnapshot withVersion(long version) {
+        return new SensorSnapshot(version, timestamp, keys, names, values, mins, maxs);
+    }
+
+    /**
+     * Checks whether another snapshot has the same sensors in the same order,
+     * so that indexes into one are valid in the other.
+     *
+     * @param other the snapshot to compare with
+     * @return true if the keys match, false otherwise
+     */
+    public boolean hasSameLayout(SensorSnapshot other) {
+        return keys == other.keys || Arrays.equals(keys, other.keys);
+    }
+
+    /**
+     * Retrieves the publication number of this snapshot.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Retrieves the time at which this snapshot was published.
+     *
+     * @return the timestamp in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Retrieves the number of sensors in this snapshot.
+     *
+     * @return the number of sensors
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Finds the index of the sensor with the given key.
+     * Sensor sets are small, so a linear scan is cheaper than hashing.
+     *
+     * @param key the sensor key (e.g. "airspeed")
+     * @return the index, or -1 if the key is not present
+     */
+    public int indexOf(String key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the key of the sensor at the given index.
+     *
+     * @param index the sensor index
+     * @return the sensor key
+     */
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Retrieves the name of the sensor at the given index.
+     *
+     * @param index the sensor index
+     * @return the sensor name
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Retrieves the value of the sensor at the given index.
+     *
+     * @param index the sensor index
+     * @return the sensor value
+     */
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Retrieves the value of the sensor with the given key.
+     *
+     * @param key the sensor key
+     * @return the sensor value
+     */
+    public int getValue(String key) {
+        int index = indexOf(key);
+        assert index >= 0 : "Unknown sensor: " + key;
+        return values[index];
+    }
+
+    /**
+     * Retrieves the minimum of the sensor at the given index.
+     *
+     * @param index the sensor index
+     * @return the sensor minimum
+     */
+    public int getMin(int index) {
+        return mins[index];
+    }
+
+    /**
+     * Retrieves the maximum of the sensor at the given index.
+     *
+     * @param index the sensor index
+     * @return the sensor maximum
+     */
+    public int getMax(int index) {
+        return maxs[index];
+    }
+
+    /**
+     * Checks if the sensor at the given index was within range.
+     *
+     * @param index the sensor index
+     * @return true if the value was within range, false otherwise
+     */
+    public boolean isWithinRange(int index) {
+        return values[index] >= mins[index] && values[index] <= maxs[index];
+    }
+
+    /**
+     * Checks if the sensor with the given key was within range.
+     *
+     * @param key the sensor key
+     * @return true if the value was within range, false otherwise
+     */
+    public boolean isWithinRange(String key) {
+        int index = indexOf(key);
+        assert index >= 0 : "Unknown sensor: " + key;
+        return isWithinRange(index);
+    }
+
+    /**
+     * Checks if the sensor at the given index was too high.
+     *
+     * @param index the sensor index
+     * @return true if the value was above the maximum, false otherwise
+     */
+    public boolean isTooHigh(int index) {
+        return values[index] > maxs[index];
+    }
+
+    /**
+     * Checks if the sensor at the given index was too low.
+     *
+     * @param index the sensor index
+     * @return true if the value was below the minimum, false otherwise
+     */
+    public boolean isTooLow(int index) {
+        return values[index] < mins[index];
+    }
+
+    /**
+     * Returns a string representation of the snapshot.
+     *
+     * @return a string representation of the snapshot
+     */
+    public String toString() {
+        return "Version = " + version + ", Names = " + Arrays.toString(names) + ", Values = "
+                + Arrays.toString(values);
+    }
+}
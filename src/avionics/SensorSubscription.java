@@ -0,0 +1,99 @@
+package avionics;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The SensorSubscription class connects a SensorChangeListener to a
+ * SensorSimulator's published snapshots.
+ *
+ * Each snapshot is compared with the previous one, and snapshots that change
+ * nothing are dropped on the publishing thread. Changes are merged into a
+ * single pending change held in an atomic reference, and a delivery is only
+ * handed to the executor when there was nothing pending, so however fast the
+ * simulator publishes, the listener runs at most once per executor turn.
+ */
+public final class SensorSubscription implements SensorSink {
+    private final SensorSimulator simulator;                                    // Simulator publishing the snapshots
+    private final SensorChangeListener listener;                                // Receives the merged changes
+    private final Executor executor;                                            // Thread the listener runs on
+    private final AtomicReference<SensorChange> pending = new AtomicReference<>(); // Changes not yet delivered
+    private SensorSnapshot previous;                                            // Last snapshot compared
+    private volatile boolean cancelled = false;                                 // Set once cancelled
+    private volatile long deliveries = 0;                                       // Times the listener has run
+
+    /**
+     * Constructs a SensorSubscription. Use SensorSimulator.subscribe() to create one.
+     *
+     * @param simulator the simulator publishing the snapshots
+     * @param listener  the listener to notify
+     * @param executor  the executor to notify the listener on
+     */
+    SensorSubscription(SensorSimulator simulator, SensorChangeListener listener, Executor executor) {
+        assert simulator != null && listener != null && executor != null : "Arguments cannot be null";
+        this.simulator = simulator;
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    /**
+     * Compares the snapshot with the previous one and queues any change for delivery.
+     * Snapshots older than the previous one are ignored.
+     *
+     * @param snapshot the published snapshot
+     */
+    public void accept(SensorSnapshot snapshot) {
+        SensorChange change;
+        synchronized (this) {
+            if (cancelled || (previous != null && snapshot.getVersion() <= previous.getVersion())) {
+                return;
+            }
+            change = SensorChange.between(previous, snapshot);
+            previous = snapshot;
+        }
+        if (change.isEmpty()) {
+            return;
+        }
+
+        SensorChange current;
+        SensorChange merged;
+        do {
+            current = pending.get();
+            merged = current == null ? change : current.merge(change);
+        } while (!pending.compareAndSet(current, merged));
+
+        // Only the change that found nothing pending schedules a delivery; later ones ride along with it
+        if (current == null) {
+            executor.execute(this::deliver);
+        }
+    }
+
+    /**
+     * Takes every pending change and passes it to the listener.
+     */
+    private void deliver() {
+        SensorChange change = pending.getAndSet(null);
+        if (change != null && !cancelled) {
+            deliveries++;
+            listener.sensorsChanged(change);
+        }
+    }
+
+    /**
+     * Retrieves the number of times the listener has been notified.
+     *
+     * @return the number of deliveries
+     */
+    public long getDeliveries() {
+        return deliveries;
+    }
+
+    /**
+     * Stops notifying the listener. Pending changes are discarded.
+     */
+    public void cancel() {
+        cancelled = true;
+        simulator.removeSink(this);
+        pending.set(null);
+    }
+}
@@ -0,0 +1,276 @@
+package avionics;
+
+import java.util.Arrays;
+
+/**
+ * The TimingWheel class is a single-threaded hashed timing wheel for periodic
+ * tasks with arbitrary periods.
+ *
+ * Time is divided into ticks of a fixed length. Each task lives in the slot of
+ * the tick it is next due on, with a count of full wheel rotations still to
+ * wait, so scheduling is O(1) and each tick only visits the tasks in one slot.
+ * Every task due on the same tick is passed to the handler in a single batch.
+ * Tasks are identified by an int id chosen by the caller, and all bookkeeping
+ * is kept in primitive arrays so ticking does not allocate.
+ *
+ * Lateness and overruns are recorded per slot. A tick overruns when it is
+ * processed a full tick or more after it was due, or when its handler takes
+ * longer than a tick.
+ */
+public class TimingWheel {
+    /**
+     * Receives the tasks due on a tick.
+     */
+    public interface TickHandler {
+
+        /**
+         * Handles every task due on one tick.
+         *
+         * @param due      the ids of the due tasks; only the first count entries are valid
+         * @param count    the number of due tasks
+         * @param tickTime the time the tick was due, in milliseconds
+         */
+        void onTick(int[] due, int count, long tickTime);
+    }
+
+    private static final int NONE = -1;         // End of a slot list
+
+    private final long tickMillis;              // Length of a tick in milliseconds
+    private final int mask;                     // Wheel size minus one, for slot lookup
+    private final long startMillis;             // Time of tick 0
+    private final TickHandler handler;          // Receives each batch of due tasks
+    private final int[] slotHeads;              // First entry in each slot
+    private final long[] slotOverruns;          // Overruns counted per slot
+
+    private int[] taskIds = new int[16];        // Caller's id for each entry
+    private long[] periodTicks = new long[16];  // Period of each entry in ticks
+    private long[] rounds = new long[16];       // Rotations each entry must still wait
+    private int[] next = new int[16];           // Next entry in the same slot
+    private int entryCount = 0;                 // Number of entries in use
+
+    private int[] due = new int[16];            // Ids due on the current tick, reused every tick
+    private int[] dueEntries = new int[16];     // Entries due on the current tick, reused every tick
+    private long nextTick = 0;                  // Index of the next tick to process
+    private long totalOverruns = 0;             // Overruns over all slots
+    private long maxLatenessMillis = 0;         // Worst lateness seen
+    private long ticksProcessed = 0;            // Number of ticks processed
+
+    /**
+     * Constructs a TimingWheel.
+     *
+     * @param tickMillis  the length of a tick in milliseconds
+     * @param wheelSize   the number of slots, a power of two
+     * @param startMillis the time of the first tick in milliseconds
+     * @param handler     the handler that receives each batch of due tasks
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis, TickHandler handler) {
+        assert tickMillis > 0 : "Tick length must be positive";
+        assert wheelSize > 0 && (wheelSize & (wheelSize - 1)) == 0 : "Wheel size must be a power of two";
+        assert handler != null : "Handler cannot be null";
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.startMillis = startMillis;
+        this.handler = handler;
+        this.slotHeads = new int[wheelSize];
+        this.slotOverruns = new long[wheelSize];
+        Arrays.fill(slotHeads, NONE);
+    }
+
+    /**
+     * Schedules a periodic task, first due on the next tick processed.
+     *
+     * @param taskId       the caller's id for the task
+     * @param periodMillis the period in milliseconds, rounded to whole ticks
+     */
+    public void schedule(int taskId, long periodMillis) {
+        schedule(taskId, periodMillis, 0);
+    }
+
+    /**
+     * Schedules a periodic task.
+     *
+     * @param taskId             the caller's id for the task
+     * @param periodMillis       the period in milliseconds, rounded to whole ticks
+     * @param initialDelayMillis the delay before the first run, rounded to whole ticks
+     */
+    public void schedule(int taskId, long periodMillis, long initialDelayMillis) {
+        assert periodMillis > 0 : "Period must be positive";
+        assert initialDelayMillis >= 0 : "Delay must be non-negative";
+        if (entryCount == taskIds.length) {
+            grow();
+        }
+        int entry = entryCount++;
+        taskIds[entry] = taskId;
+        periodTicks[entry] = Math.max(1, Math.round((double) periodMillis / tickMillis));
+        insert(entry, nextTick + Math.round((double) initialDelayMillis / tickMillis));
+    }
+
+    /**
+     * Processes every tick due at or before the given time, in order.
+     *
+     * @param nowMillis the current time in milliseconds
+     * @return the number of ticks processed
+     */
+    public int advanceTo(long nowMillis) {
+        int processed = 0;
+        while (tickTime(nextTick) <= nowMillis) {
+            processTick(nowMillis);
+            processed++;
+        }
+        return processed;
+    }
+
+    /**
+     * Processes the next tick: collects every due task in its slot, passes them
+     * to the handler as one batch and reschedules them one period later.
+     *
+     * @param nowMillis the current time in milliseconds, used for lateness
+     */
+    private void processTick(long nowMillis) {
+        long tick = nextTick;
+        int slot = (int) (tick & mask);
+        long tickTime = tickTime(tick);
+        long lateness = nowMillis - tickTime;
+
+        // Split the slot into entries due now and entries waiting for a later rotation
+        int count = 0;
+        int waiting = NONE;
+        int entry = slotHeads[slot];
+        while (entry != NONE) {
+            int following = next[entry];
+            if (rounds[entry] == 0) {
+                if (count == due.length) {
+                    due = Arrays.copyOf(due, count * 2);
+                    dueEntries = Arrays.copyOf(dueEntries, count * 2);
+                }
+                due[count] = taskIds[entry];
+                dueEntries[count] = entry;
+                count++;
+            } else {
+                rounds[entry]--;
+                next[entry] = waiting;
+                waiting = entry;
+            }
+            entry = following;
+        }
+        slotHeads[slot] = waiting;
+        nextTick = tick + 1;
+        ticksProcessed++;
+
+        long started = System.nanoTime();
+        if (count > 0) {
+            handler.onTick(due, count, tickTime);
+        }
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+
+        for (int i = 0; i < count; i++) {
+            insert(dueEntries[i], tick + periodTicks[dueEntries[i]]);
+        }
+
+        maxLatenessMillis = Math.max(maxLatenessMillis, lateness);
+        if (lateness >= tickMillis || durationMillis > tickMillis) {
+            slotOverruns[slot]++;
+            totalOverruns++;
+        }
+    }
+
+    /**
+     * Places an entry in the slot of the tick it is due on.
+     *
+     * @param entry   the entry to place
+     * @param dueTick the tick the entry is due on, not before the next tick
+     */
+    private void insert(int entry, long dueTick) {
+        assert dueTick >= nextTick : "Entries cannot be due in the past";
+        int slot = (int) (dueTick & mask);
+        rounds[entry] = (dueTick - nextTick) / slotHeads.length;
+        next[entry] = slotHeads[slot];
+        slotHeads[slot] = entry;
+    }
+
+    /**
+     * Doubles the capacity of the entry arrays.
+     */
+    private void grow() {
+        int capacity = taskIds.length * 2;
+        taskIds = Arrays.copyOf(taskIds, capacity);
+        periodTicks = Arrays.copyOf(periodTicks, capacity);
+        rounds = Arrays.copyOf(rounds, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+
+    /**
+     * Calculates the time a tick is due.
+     *
+     * @param tick the tick index
+     * @return the time in milliseconds
+     */
+    private long tickTime(long tick) {
+        return startMillis + tick * tickMillis;
+    }
+
+    /**
+     * Retrieves the length of a tick.
+     *
+     * @return the tick length in milliseconds
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Retrieves the number of slots in the wheel.
+     *
+     * @return the wheel size
+     */
+    public int getWheelSize() {
+        return slotHeads.length;
+    }
+
+    /**
+     * Retrieves the number of scheduled tasks.
+     *
+     * @return the number of tasks
+     */
+    public int getTaskCount() {
+        return entryCount;
+    }
+
+    /**
+     * Retrieves the number of ticks processed so far.
+     *
+     * @return the number of ticks
+     */
+    public long getTicksProcessed() {
+        return ticksProcessed;
+    }
+
+    /**
+     * Retrieves the number of overruns recorded for a slot.
+     *
+     * @param slot the slot index
+     * @return the number of overruns
+     */
+    public long getSlotOverruns(int slot) {
+        assert slot >= 0 && slot < slotOverruns.length : "Slot out of range";
+        return slotOverruns[slot];
+    }
+
+    /**
+     * Retrieves the number of overruns recorded over all slots.
+     *
+     * @return the number of overruns
+     */
+    public long getTotalOverruns() {
+        return totalOverruns;
+    }
+
+    /**
+     * Retrieves the worst lateness seen when processing a tick.
+     *
+     * @return the lateness in milliseconds
+     */
+    public long getMaxLatenessMillis() {
+        return maxLatenessMillis;
+    }
+}
@@ -0,0 +1,351 @@
+package avionics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The TrendEstimator class fits a straight line to the recent values of every
+ * sensor, and raises a predicted exceedance caution for any sensor whose line
+ * will cross its current minimum or maximum within the warning horizon.
+ *
+ * Each sensor keeps a sliding window of samples in a ring buffer along with
+ * running sums of t, v, t*t and t*v, so adding a sample and dropping the
+ * oldest is O(1) and refitting the line is a few multiplications. The sums are
+ * exact longs over times relative to a per-sensor origin, which is moved
+ * forward once the window has drifted far from it, so precision never decays.
+ * Every array is allocated when the sensor layout is first seen, so ticks
+ * allocate nothing.
+ *
+ * Samples are added on the simulator's tick thread. Cautions and times to limit
+ * are published through atomic arrays, so the GUI can read them on any thread.
+ */
+public class TrendEstimator implements SensorSink {
+    public static final int DEFAULT_WINDOW = 32;                // Samples fitted per sensor
+    public static final int DEFAULT_MIN_SAMPLES = 8;            // Samples needed before predicting
+    public static final long DEFAULT_HORIZON_MILLIS = 10_000;   // How far ahead exceedances are predicted
+    public static final long NO_EXCEEDANCE = Long.MAX_VALUE;    // Time to limit of a sensor that is not heading out of range
+    private static final long REBASE_MILLIS = 60 * 60 * 1000;   // Time from the origin at which it is moved forward
+
+    private final int window;               // Samples fitted per sensor
+    private final int minSamples;           // Samples needed before predicting
+    private final long horizonMillis;       // How far ahead exceedances are predicted
+
+    private String[] keys = new String[0];  // Sensor layout the arrays were sized for
+    private long[] times = new long[0];     // Sample times relative to the origin, window per sensor
+    private int[] values = new int[0];      // Sample values, window per sensor
+    private int[] head = new int[0];        // Ring position of each sensor's oldest sample
+    private int[] count = new int[0];       // Samples held per sensor
+    private long[] origin = new long[0];    // Time each sensor's relative times count from
+    private long[] sumT = new long[0];      // Sum of relative times per sensor
+    private long[] sumV = new long[0];      // Sum of values per sensor
+    private long[] sumTT = new long[0];     // Sum of squared relative times per sensor
+    private long[] sumTV = new long[0];     // Sum of relative time times value per sensor
+    private long lastTimestamp = Long.MIN_VALUE; // Time of the last snapshot sampled
+    private long lastVersion = Long.MIN_VALUE;   // Version of the last snapshot seen
+
+    private volatile AtomicLongArray timeToLimit = new AtomicLongArray(0); // Predicted milliseconds to a limit per sensor
+    private volatile AtomicLongArray cautions = new AtomicLongArray(0);    // Caution bit per sensor, 64 per word
+    private volatile long cautionChanges = 0;                              // Incremented whenever a caution is raised or cleared
+
+    /**
+     * Constructs a TrendEstimator with the default window and horizon.
+     */
+    public TrendEstimator() {
+        this(DEFAULT_WINDOW, DEFAULT_MIN_SAMPLES, DEFAULT_HORIZON_MILLIS);
+    }
+
+    /**
+     * Constructs a TrendEstimator.
+     *
+     * @param window        the number of recent samples fitted per sensor
+     * @param minSamples    the number of samples needed before predicting
+     * @param horizonMillis how far ahead exceedances raise a caution, in milliseconds
+     */
+    public TrendEstimator(int window, int minSamples, long horizonMillis) {
+        assert window >= 2 && minSamples >= 2 && minSamples <= window : "Window must hold at least minSamples >= 2";
+        assert horizonMillis > 0 : "Horizon must be positive";
+        this.window = window;
+        this.minSamples = minSamples;
+        this.horizonMillis = horizonMillis;
+    }
+
+    /**
+     * Samples every sensor in a published snapshot and updates its prediction.
+     * Snapshots are ordered by version, so ones arriving out of order are
+     * ignored. A newer snapshot whose time is earlier than the last one, as when
+     * a replay starts or seeks backwards, starts every window afresh.
+     *
+     * @param snapshot the published snapshot
+     */
+    public void accept(SensorSnapshot snapshot) {
+        long now = snapshot.getTimestamp();
+        if (!sameLayout(snapshot)) {
+            resize(snapshot);
+        } else if (snapshot.getVersion() <= lastVersion) {
+            return;
+        } else if (now < lastTimestamp) {
+            clearWindows();
+        } else if (now == lastTimestamp) {
+            lastVersion = snapshot.getVersion();
+            return; // No time has passed to fit a slope over
+        }
+        lastVersion = snapshot.getVersion();
+        lastTimestamp = now;
+
+        boolean changed = false;
+        for (int i = 0; i < keys.length; i++) {
+            addSample(i, now, snapshot.getValue(i));
+            long limit = predictTimeToLimit(i, now, snapshot.getMin(i), snapshot.getMax(i));
+            timeToLimit.lazySet(i, limit);
+
+            // A caution is only a prediction: a sensor already out of range is a fault, not a caution
+            boolean caution = limit <= horizonMillis && snapshot.isWithinRange(i);
+            changed |= setCaution(i, caution);
+        }
+        if (changed) {
+            cautionChanges++;
+        }
+    }
+
+    /**
+     * Adds a sample to a sensor's window, dropping the oldest if it is full.
+     *
+     * @param sensor    the sensor index
+     * @param timestamp the sample time in milliseconds
+     * @param value     the sample value
+     */
+    private void addSample(int sensor, long timestamp, int value) {
+        int base = sensor * window;
+        if (count[sensor] == 0) {
+            origin[sensor] = timestamp;
+        } else if (timestamp - origin[sensor] > REBASE_MILLIS) {
+            rebase(sensor, times[base + head[sensor]] + origin[sensor]);
+        }
+
+        if (count[sensor] == window) {
+            int oldest = base + head[sensor];
+            long t = times[oldest];
+            long v = values[oldest];
+            sumT[sensor] -= t;
+            sumV[sensor] -= v;
+            sumTT[sensor] -= t * t;
+            sumTV[sensor] -= t * v;
+            head[sensor] = (head[sensor] + 1) % window;
+            count[sensor]--;
+        }
+
+        long t = timestamp - origin[sensor];
+        int slot = base + (head[sensor] + count[sensor]) % window;
+        times[slot] = t;
+        values[slot] = value;
+        count[sensor]++;
+        sumT[sensor] += t;
+        sumV[sensor] += value;
+        sumTT[sensor] += t * t;
+        sumTV[sensor] += t * value;
+    }
+
+    /**
+     * Moves a sensor's origin forward and recomputes its sums from the window.
+     * Runs about once an hour per sensor, so the sums stay small.
+     *
+     * @param sensor    the sensor index
+     * @param newOrigin the new origin in milliseconds
+     */
+    private void rebase(int sensor, long newOrigin) {
+        int base = sensor * window;
+        long shift = newOrigin - origin[sensor];
+        origin[sensor] = newOrigin;
+        sumT[sensor] = 0;
+        sumTT[sensor] = 0;
+        sumTV[sensor] = 0;
+        for (int k = 0; k < count[sensor]; k++) {
+            int slot = base + (head[sensor] + k) % window;
+            long t = times[slot] - shift;
+            times[slot] = t;
+            sumT[sensor] += t;
+            sumTT[sensor] += t * t;
+            sumTV[sensor] += t * values[slot];
+        }
+    }
+
+    /**
+     * Fits the line through a sensor's window and works out when it reaches a limit.
+     *
+     * @param sensor    the sensor index
+     * @param timestamp the current time in milliseconds
+     * @param min       the sensor's current minimum
+     * @param max       the sensor's current maximum
+     * @return the milliseconds until the line crosses a limit, 0 if it already has, or NO_EXCEEDANCE
+     */
+    private long predictTimeToLimit(int sensor, long timestamp, int min, int max) {
+        long n = count[sensor];
+        if (n < minSamples) {
+            return NO_EXCEEDANCE;
+        }
+        long denominator = n * sumTT[sensor] - sumT[sensor] * sumT[sensor];
+        if (denominator == 0) {
+            return NO_EXCEEDANCE;
+        }
+        double slope = (double) (n * sumTV[sensor] - sumT[sensor] * sumV[sensor]) / denominator; // Per millisecond
+        double meanT = (double) sumT[sensor] / n;
+        double meanV = (double) sumV[sensor] / n;
+        double fitted = meanV + slope * (timestamp - origin[sensor] - meanT);
+
+        if (fitted >= max || fitted <= min) {
+            return 0;
+        }
+        if (slope > 0) {
+            return (long) Math.ceil((max - fitted) / slope);
+        }
+        if (slope < 0) {
+            return (long) Math.ceil((fitted - min) / -slope);
+        }
+        return NO_EXCEEDANCE;
+    }
+
+    /**
+     * Raises or clears a sensor's caution bit.
+     *
+     * @param sensor  the sensor index
+     * @param caution true to raise the caution, false to clear it
+     * @return true if the bit changed, false otherwise
+     */
+    private boolean setCaution(int sensor, boolean caution) {
+        int word = sensor >>> 6;
+        long bit = 1L << sensor;
+        long current = cautions.get(word);
+        long updated = caution ? current | bit : current & ~bit;
+        if (updated == current) {
+            return false;
+        }
+        cautions.set(word, updated);
+        return true;
+    }
+
+    /**
+     * Checks whether the snapshot has the sensors the arrays were sized for.
+     *
+     * @param snapshot the snapshot
+     * @return true if the layout matches, false otherwise
+     */
+    private boolean sameLayout(SensorSnapshot snapshot) {
+        if (snapshot.size() != keys.length) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (!keys[i].equals(snapshot.getKey(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sizes every array for a new sensor layout, discarding all samples.
+     *
+     * @param snapshot a snapshot with the new layout
+     */
+    private void resize(SensorSnapshot snapshot) {
+        int sensors = snapshot.size();
+        keys = new String[sensors];
+        for (int i = 0; i < sensors; i++) {
+            keys[i] = snapshot.getKey(i);
+        }
+        times = new long[sensors * window];
+        values = new int[sensors * window];
+        head = new int[sensors];
+        count = new int[sensors];
+        origin = new long[sensors];
+        sumT = new long[sensors];
+        sumV = new long[sensors];
+        sumTT = new long[sensors];
+        sumTV = new long[sensors];
+        AtomicLongArray limits = new AtomicLongArray(sensors);
+        for (int i = 0; i < sensors; i++) {
+            limits.set(i, NO_EXCEEDANCE);
+        }
+        timeToLimit = limits;
+        cautions = new AtomicLongArray((sensors + 63) >>> 6);
+        lastTimestamp = Long.MIN_VALUE;
+        lastVersion = Long.MIN_VALUE;
+        cautionChanges++;
+    }
+
+    /**
+     * Empties every sensor's window and clears its prediction, for when time
+     * jumps backwards and the samples held no longer precede the next one.
+     */
+    private void clearWindows() {
+        Arrays.fill(head, 0);
+        Arrays.fill(count, 0);
+        Arrays.fill(sumT, 0);
+        Arrays.fill(sumV, 0);
+        Arrays.fill(sumTT, 0);
+        Arrays.fill(sumTV, 0);
+        boolean changed = false;
+        for (int i = 0; i < keys.length; i++) {
+            timeToLimit.lazySet(i, NO_EXCEEDANCE);
+            changed |= setCaution(i, false);
+        }
+        if (changed) {
+            cautionChanges++;
+        }
+    }
+
+    /**
+     * Checks whether a sensor is predicted to leave its range within the horizon.
+     *
+     * @param index the sensor's index in the snapshot
+     * @return true if a caution is raised, false otherwise
+     */
+    public boolean isCaution(int index) {
+        AtomicLongArray words = cautions;
+        return (index >>> 6) < words.length() && (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Checks whether any sensor is predicted to leave its range within the horizon.
+     *
+     * @return true if any caution is raised, false otherwise
+     */
+    public boolean hasCautions() {
+        AtomicLongArray words = cautions;
+        for (int i = 0; i < words.length(); i++) {
+            if (words.get(i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the predicted time until a sensor leaves its range.
+     *
+     * @param index the sensor's index in the snapshot
+     * @return the milliseconds to the limit, 0 if the fitted line is already past it, or NO_EXCEEDANCE
+     */
+    public long getTimeToLimit(int index) {
+        AtomicLongArray limits = timeToLimit;
+        return index < limits.length() ? limits.get(index) : NO_EXCEEDANCE;
+    }
+
+    /**
+     * Retrieves a counter that changes whenever any caution is raised or
+     * cleared, so readers can tell cheaply whether anything needs redrawing.
+     *
+     * @return the number of caution changes so far
+     */
+    public long getCautionChanges() {
+        return cautionChanges;
+    }
+
+    /**
+     * Retrieves how far ahead exceedances raise a caution.
+     *
+     * @return the horizon in milliseconds
+     */
+    public long getHorizonMillis() {
+        return horizonMillis;
+    }
+}
@@ -1,6 +1,10 @@
 package flightSystem;
 
 public class Autopilot {
+    public static final int LOWEST_SPEED = 40;          // Lowest minimum speed that can be submitted
+    public static final int HIGHEST_SPEED = 453;        // Highest maximum speed that can be submitted
+    public static final int LOWEST_ALTITUDE = 1000;     // Lowest minimum altitude that can be submitted
+    public static final int HIGHEST_ALTITUDE = 37000;   // Highest maximum altitude that can be submitted
 
     private boolean engaged = false; //engaged indicator
     private boolean disabled = true; //disengaged indicator
@@ -39,6 +43,16 @@ public class Autopilot {
         assert !submit && engaged : "Submit should set submit false and engaged true";
     }
     
+    /**
+     * Checks whether the minimum and maximum speed and altitude can be submitted.
+     *
+     * @return true if every limit is within the aircraft's envelope, false otherwise
+     */
+    public boolean isWithinLimits() {
+        return minSpeed >= LOWEST_SPEED && maxSpeed <= HIGHEST_SPEED
+                && minAltitude >= LOWEST_ALTITUDE && maxAltitude <= HIGHEST_ALTITUDE;
+    }
+
     /**
      * Sets the autopilot to bad data state.
      * This method sets the bad data indicator to true and other indicators to false.
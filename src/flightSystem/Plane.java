@@ -2,18 +2,12 @@ package flightSystem;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Point;
-import java.awt.geom.AffineTransform;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
-import javax.swing.ImageIcon;
-
-import gui.ManagementPanel;
-
 /**
  * The Plane class represents an aircraft in the flight system. It handles the plane's
  * properties, movement, waypoints, and rendering itself.
@@ -33,22 +27,20 @@ public class Plane {
     private Point destination;
     private boolean atDestination;
 
-    private Image planeImage;
+    private PlaneSpriteAtlas sprites; // Shared pre-rotated sprites, loaded on first use so planes can exist without AWT
 
     private double planeImageAngle;
 
     private static final int PLANE_WIDTH = 30;
-    private static final int PLANE_HEIGHT = 30;
 
     private final Random random = new Random();
-    private ManagementPanel managementPanel;
+    private PlaneListener listener;
 
     /**
      * Constructor to initialize the Plane with default values.
      */
     public Plane() {
         initializePlane();
-        loadImage();
     }
 
     /**
@@ -69,11 +61,15 @@ public class Plane {
     }
 
     /**
-     * Loads the plane image.
+     * Loads the plane sprites, unless they are already loaded.
+     * Called on first use rather than on construction, so headless simulations
+     * never initialise AWT.
      */
     private void loadImage() {
-        planeImage = new ImageIcon("src/resources/images/boeing747.png").getImage().getScaledInstance(
-                PLANE_WIDTH, PLANE_HEIGHT, Image.SCALE_SMOOTH);
+        if (sprites != null) {
+            return;
+        }
+        sprites = PlaneSpriteAtlas.getShared(PLANE_WIDTH);
     }
 
     /**
@@ -81,35 +77,81 @@ public class Plane {
      * @param g the graphics context
      */
     public void draw(Graphics g) {
-        managementPanel.checkAndStopTimer();
-        if (planeImage == null) {
-            drawFallback(g);
+        draw(g, planeX, planeY);
+    }
+
+    /**
+     * Draws the plane at a position other than its own, such as its position
+     * on a zoomed or panned map.
+     * @param g the graphics context
+     * @param x the x position to draw the plane at
+     * @param y the y position to draw the plane at
+     */
+    public void draw(Graphics g, double x, double y) {
+        notifyListener();
+        draw(g, x, y, planeImageAngle);
+    }
+
+    /**
+     * Draws the plane at a given position and heading, such as those of a
+     * PlaneState, without reading the plane's own state.
+     * @param g the graphics context
+     * @param x the x position to draw the plane at
+     * @param y the y position to draw the plane at
+     * @param angle the heading to draw the plane at, in radians
+     */
+    public void draw(Graphics g, double x, double y, double angle) {
+        loadImage();
+        if (sprites == null) {
+            drawFallback(g, x, y);
         } else {
-            drawPlaneImage(g);
+            drawPlaneImage(g, x, y, angle);
         }
     }
 
     /**
      * Draws a fallback rectangle when the plane image is not available.
      * @param g the graphics context
+     * @param x the x position to draw the plane at
+     * @param y the y position to draw the plane at
      */
-    private void drawFallback(Graphics g) {
+    private void drawFallback(Graphics g, double x, double y) {
         g.setColor(Color.RED);
-        g.fillRect((int) planeX, (int) planeY, 10, 10); 
+        g.fillRect((int) x, (int) y, 10, 10); 
     }
 
     /**
-     * Draws the plane image.
+     * Draws the plane image, pre-rotated to the nearest heading in the atlas.
      * @param g the graphics context
+     * @param x the x position to draw the plane at
+     * @param y the y position to draw the plane at
+     * @param angle the heading to draw the plane at, in radians
      */
-    private void drawPlaneImage(Graphics g) {
-        Graphics2D g2d = (Graphics2D) g.create();
-        AffineTransform tx = new AffineTransform();
-        tx.translate(planeX, planeY);
-        tx.rotate(planeImageAngle + Math.PI / 2);
-        g2d.setTransform(tx);
-        g2d.drawImage(planeImage, -PLANE_WIDTH / 2, -PLANE_HEIGHT / 2, null);
-        g2d.dispose();
+    private void drawPlaneImage(Graphics g, double x, double y, double angle) {
+        sprites.draw(g, x, y, angle);
+    }
+
+    /**
+     * Advances the plane by one movement step: towards its waypoints if it has
+     * any, otherwise randomly within the given bounds.
+     * @param maxWidth the maximum width of the movement area
+     * @param maxHeight the maximum height of the movement area
+     */
+    public void step(int maxWidth, int maxHeight) {
+        if (!waypoints.isEmpty()) {
+            moveToFirstPoint();
+        } else {
+            randomMovement(maxWidth, maxHeight);
+        }
+    }
+
+    /**
+     * Takes an immutable snapshot of the plane's position and heading.
+     * @param step the number of physics steps taken so far
+     * @return the snapshot
+     */
+    public PlaneState getState(long step) {
+        return new PlaneState(step, planeX, planeY, planeImageAngle, atDestination);
     }
 
     /**
@@ -144,7 +186,7 @@ public class Plane {
             planeY += (speedFactor * airSpeed * dy / distance);
         } else {
             atDestination = true;
-            managementPanel.checkAndStopTimer();
+            notifyListener();
         }
     }
 
@@ -182,7 +224,7 @@ public class Plane {
             if (!waypoints.isEmpty()) {
                 destination = waypoints.get(0);
                 atDestination = false;
-                managementPanel.checkAndStopTimer();
+                notifyListener();
             }
         }
     }
@@ -264,11 +306,20 @@ public class Plane {
     }
 
     /**
-     * Sets the management panel for the plane.
-     * @param managementPanel the management panel
+     * Sets the listener told about the plane's navigation changes.
+     * @param listener the listener, or null for none
+     */
+    public void setListener(PlaneListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Tells the listener, if there is one, that the navigation state may have changed.
      */
-    public void setManagementPanel(ManagementPanel managementPanel) {
-        this.managementPanel = managementPanel;
+    private void notifyListener() {
+        if (listener != null) {
+            listener.navigationChanged(this);
+        }
     }
 
     // GETTERS AND SETTERS
@@ -344,8 +395,9 @@ public class Plane {
     }
 
     public Image getPlaneImage() {
-        assert planeImage != null : "PlaneImage should not be null in getPlaneImage()";
-        return planeImage;
+        loadImage();
+        assert sprites != null : "PlaneImage should not be null in getPlaneImage()";
+        return sprites.getSprite();
     }
 
     public double getPlaneImageAngle() {
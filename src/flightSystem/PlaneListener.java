@@ -0,0 +1,17 @@
+package flightSystem;
+
+/**
+ * A PlaneListener is told when a Plane's navigation state may have changed:
+ * when it reaches its destination, when it heads for a new waypoint, and
+ * whenever it is drawn. This lets the GUI or a headless host react to the
+ * plane without the plane depending on either.
+ */
+public interface PlaneListener {
+
+    /**
+     * Called after the plane's destination or arrival state may have changed.
+     *
+     * @param plane the plane
+     */
+    void navigationChanged(Plane plane);
+}
@@ -0,0 +1,201 @@
+package flightSystem;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The PlaneSpriteAtlas class holds the plane sprite pre-rendered at a fixed
+ * number of headings, laid out in a grid on one sheet.
+ *
+ * The sprite is scaled and rotated once per heading when the atlas is built,
+ * so drawing a plane is a single untransformed copy of the cell nearest its
+ * heading. One atlas is shared by every plane.
+ */
+public class PlaneSpriteAtlas {
+    public static final String IMAGE_PATH = "src/resources/images/boeing747.png"; // Sprite drawn for every plane
+    public static final String HEADINGS_PROPERTY = "plane.sprite.headings";       // Property overriding the default heading count
+    public static final int DEFAULT_HEADINGS = 360;                               // Headings pre-rendered, one per degree
+
+    private static PlaneSpriteAtlas shared = null;  // Atlas used by every plane, built on first use
+    private static boolean sharedLoaded = false;    // Set once loading the shared atlas has been tried
+
+    private final BufferedImage sheet;  // Every rotated sprite, in a grid of cells
+    private final BufferedImage sprite; // The sprite scaled, unrotated
+    private final int headings;         // Number of pre-rendered headings
+    private final int cellSize;         // Width and height of a cell, enough for any rotation
+    private final int columns;          // Cells per row of the sheet
+
+    /**
+     * Constructs an atlas, scaling and rotating the source into every heading.
+     *
+     * @param source   the sprite image, pointing up
+     * @param size     the width and height to draw the sprite at
+     * @param headings the number of headings to pre-render
+     */
+    public PlaneSpriteAtlas(BufferedImage source, int size, int headings) {
+        assert source != null : "Source image cannot be null";
+        assert size > 0 && headings > 0 : "Size and headings must be positive";
+        this.headings = headings;
+        this.cellSize = (int) Math.ceil(size * Math.sqrt(2));
+        this.columns = (int) Math.ceil(Math.sqrt(headings));
+        int rows = (headings + columns - 1) / columns;
+
+        sprite = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        setQuality(g);
+        g.drawImage(source, 0, 0, size, size, null);
+        g.dispose();
+
+        sheet = new BufferedImage(columns * cellSize, rows * cellSize, BufferedImage.TYPE_INT_ARGB);
+        g = sheet.createGraphics();
+        setQuality(g);
+        for (int i = 0; i < headings; i++) {
+            Graphics2D cell = (Graphics2D) g.create();
+            cell.clipRect(cellX(i), cellY(i), cellSize, cellSize);
+            cell.translate(cellX(i) + cellSize / 2.0, cellY(i) + cellSize / 2.0);
+            cell.rotate(getHeading(i) + Math.PI / 2); // The sprite points up, heading 0 points right
+            cell.drawImage(sprite, -size / 2, -size / 2, null);
+            cell.dispose();
+        }
+        g.dispose();
+    }
+
+    /**
+     * Sets the rendering hints used while building the atlas.
+     *
+     * @param g the graphics context
+     */
+    private static void setQuality(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    }
+
+    /**
+     * Retrieves the atlas shared by every plane, loading it on first use. The
+     * number of headings comes from the plane.sprite.headings property.
+     *
+     * @param size the width and height to draw the sprite at
+     * @return the shared atlas, or null if the sprite image cannot be loaded
+     */
+    public static synchronized PlaneSpriteAtlas getShared(int size) {
+        if (!sharedLoaded) {
+            sharedLoaded = true;
+            int headings = Integer.getInteger(HEADINGS_PROPERTY, DEFAULT_HEADINGS);
+            try {
+                BufferedImage source = ImageIO.read(new File(IMAGE_PATH));
+                if (source != null) {
+                    shared = new PlaneSpriteAtlas(source, size, headings);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        assert shared == null || shared.sprite.getWidth() == size : "Shared atlas was built at another size";
+        return shared;
+    }
+
+    /**
+     * Finds the pre-rendered heading nearest an angle.
+     *
+     * @param angle the heading in radians, any value
+     * @return the index of the nearest heading
+     */
+    public int indexOf(double angle) {
+        double turns = angle / (2 * Math.PI);
+        turns -= Math.floor(turns);
+        int index = (int) Math.round(turns * headings);
+        return index == headings ? 0 : index;
+    }
+
+    /**
+     * Retrieves the angle an index was rendered at.
+     *
+     * @param index the index of the heading
+     * @return the heading in radians
+     */
+    public double getHeading(int index) {
+        assert index >= 0 && index < headings : "Heading index out of range";
+        return index * 2 * Math.PI / headings;
+    }
+
+    /**
+     * Draws the sprite centred on a point, at the pre-rendered heading nearest
+     * the given angle, as one unscaled copy from the sheet.
+     *
+     * @param g     the graphics context
+     * @param x     the x position of the centre
+     * @param y     the y position of the centre
+     * @param angle the heading in radians
+     */
+    public void draw(Graphics g, double x, double y, double angle) {
+        int index = indexOf(angle);
+        int sx = cellX(index);
+        int sy = cellY(index);
+        int dx = (int) Math.round(x) - cellSize / 2;
+        int dy = (int) Math.round(y) - cellSize / 2;
+        g.drawImage(sheet, dx, dy, dx + cellSize, dy + cellSize, sx, sy, sx + cellSize, sy + cellSize, null);
+    }
+
+    /**
+     * Retrieves the x position of a cell on the sheet.
+     *
+     * @param index the index of the heading
+     * @return the left edge of the cell
+     */
+    private int cellX(int index) {
+        return (index % columns) * cellSize;
+    }
+
+    /**
+     * Retrieves the y position of a cell on the sheet.
+     *
+     * @param index the index of the heading
+     * @return the top edge of the cell
+     */
+    private int cellY(int index) {
+        return (index / columns) * cellSize;
+    }
+
+    /**
+     * Retrieves the sprite scaled but not rotated.
+     *
+     * @return the scaled sprite
+     */
+    public BufferedImage getSprite() {
+        return sprite;
+    }
+
+    /**
+     * Retrieves the sheet every heading is rendered on.
+     *
+     * @return the sheet
+     */
+    public BufferedImage getSheet() {
+        return sheet;
+    }
+
+    /**
+     * Retrieves the number of pre-rendered headings.
+     *
+     * @return the number of headings
+     */
+    public int getHeadings() {
+        return headings;
+    }
+
+    /**
+     * Retrieves the width and height of one cell of the sheet.
+     *
+     * @return the cell size in pixels
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+}
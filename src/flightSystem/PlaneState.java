@@ -0,0 +1,76 @@
+package flightSystem;
+
+/**
+ * The PlaneState class is an immutable snapshot of a plane's position and
+ * heading after a physics step, so it can be read on another thread, such as
+ * the event dispatch thread, while the plane keeps moving.
+ */
+public final class PlaneState {
+    private final long step;                // Physics steps taken when the snapshot was made
+    private final double x;                 // X position
+    private final double y;                 // Y position
+    private final double angle;             // Heading in radians, 0 pointing right
+    private final boolean atDestination;    // Whether the plane had reached its destination
+
+    /**
+     * Constructs a PlaneState.
+     *
+     * @param step          the physics steps taken when the snapshot was made
+     * @param x             the x position
+     * @param y             the y position
+     * @param angle         the heading in radians
+     * @param atDestination whether the plane had reached its destination
+     */
+    public PlaneState(long step, double x, double y, double angle, boolean atDestination) {
+        this.step = step;
+        this.x = x;
+        this.y = y;
+        this.angle = angle;
+        this.atDestination = atDestination;
+    }
+
+    /**
+     * Retrieves the number of physics steps taken when the snapshot was made.
+     *
+     * @return the step number
+     */
+    public long getStep() {
+        return step;
+    }
+
+    /**
+     * Retrieves the x position.
+     *
+     * @return the x position
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Retrieves the y position.
+     *
+     * @return the y position
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Retrieves the heading.
+     *
+     * @return the heading in radians, 0 pointing right
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * Checks whether the plane had reached its destination.
+     *
+     * @return true if it was at its destination, false otherwise
+     */
+    public boolean isAtDestination() {
+        return atDestination;
+    }
+}
@@ -0,0 +1,492 @@
+package flightSystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The SpatialGrid class indexes objects by position in a uniform grid of
+ * square cells, so finding the objects near a point or inside a rectangle
+ * only looks at the cells that overlap it.
+ *
+ * Cells are created as objects enter them and dropped when they empty, so
+ * the grid is unbounded and costs memory only where there are objects.
+ * Moving an object is O(1): it only changes cell when it crosses a cell
+ * boundary, and then it is swapped out of the old cell's array.
+ *
+ * Each cell also keeps the count and the sum of the positions of its objects,
+ * updated as they move, so clusters of objects can be found from the
+ * occupied cells without visiting the objects.
+ *
+ * The grid is not thread-safe; it is updated and queried on one thread.
+ *
+ * @param <T> the type of the indexed objects, compared by equals()
+ */
+public class SpatialGrid<T> {
+    private final double cellSize;                              // Width and height of a cell
+    private final Map<Long, Cell<T>> cells = new HashMap<>();   // Occupied cells by packed position
+    private final Map<T, Entry<T>> entries = new HashMap<>();   // Where each object is
+
+    /**
+     * Constructs an empty SpatialGrid.
+     *
+     * @param cellSize the width and height of a cell, about the size of a typical query
+     */
+    public SpatialGrid(double cellSize) {
+        assert cellSize > 0 : "Cell size must be positive";
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds an object, or moves it if it is already indexed.
+     *
+     * @param item the object
+     * @param x    its x position
+     * @param y    its y position
+     */
+    public void put(T item, double x, double y) {
+        assert item != null : "Item cannot be null";
+        long key = key(cell(x), cell(y));
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            entry = new Entry<>(item);
+            entries.put(item, entry);
+        } else if (entry.cell.key != key) {
+            detach(entry);
+        } else {
+            entry.cell.sumX += x - entry.x;
+            entry.cell.sumY += y - entry.y;
+        }
+        entry.x = x;
+        entry.y = y;
+        if (entry.cell == null) {
+            Cell<T> cell = cells.get(key);
+            if (cell == null) {
+                cell = new Cell<>(key);
+                cells.put(key, cell);
+            }
+            cell.add(entry);
+        }
+    }
+
+    /**
+     * Removes an object.
+     *
+     * @param item the object
+     * @return true if it was indexed, false otherwise
+     */
+    public boolean remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        detach(entry);
+        return true;
+    }
+
+    /**
+     * Removes every object.
+     */
+    public void clear() {
+        cells.clear();
+        entries.clear();
+    }
+
+    /**
+     * Takes an entry out of its cell, dropping the cell if it empties.
+     *
+     * @param entry the entry
+     */
+    private void detach(Entry<T> entry) {
+        Cell<T> cell = entry.cell;
+        cell.remove(entry);
+        if (cell.size == 0) {
+            cells.remove(cell.key);
+        }
+    }
+
+    /**
+     * Passes every object inside a rectangle, edges included, to an action.
+     *
+     * @param minX   the left edge
+     * @param minY   the top edge
+     * @param maxX   the right edge
+     * @param maxY   the bottom edge
+     * @param action the action to run for each object
+     */
+    public void forEachInRect(double minX, double minY, double maxX, double maxY, Consumer<? super T> action) {
+        forEachEntryInRect(minX, minY, maxX, maxY, entry -> action.accept(entry.item));
+    }
+
+    /**
+     * Passes every entry inside a rectangle, edges included, to an action.
+     *
+     * @param minX   the left edge
+     * @param minY   the top edge
+     * @param maxX   the right edge
+     * @param maxY   the bottom edge
+     * @param action the action to run for each entry
+     */
+    private void forEachEntryInRect(double minX, double minY, double maxX, double maxY,
+            Consumer<Entry<T>> action) {
+        long firstX = cell(minX);
+        long firstY = cell(minY);
+        long lastX = cell(maxX);
+        long lastY = cell(maxY);
+
+        // A rectangle covering more cells than are occupied is cheaper to answer from the occupied ones
+        if ((lastX - firstX + 1) * (lastY - firstY + 1) > cells.size()) {
+            for (Cell<T> cell : cells.values()) {
+                cell.forEachInRect(minX, minY, maxX, maxY, action);
+            }
+            return;
+        }
+        for (long cy = firstY; cy <= lastY; cy++) {
+            for (long cx = firstX; cx <= lastX; cx++) {
+                Cell<T> cell = cells.get(key(cx, cy));
+                if (cell != null) {
+                    cell.forEachInRect(minX, minY, maxX, maxY, action);
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes the position of every object inside a rectangle, edges included,
+     * to a visitor, without looking the objects up.
+     *
+     * @param minX    the left edge
+     * @param minY    the top edge
+     * @param maxX    the right edge
+     * @param maxY    the bottom edge
+     * @param visitor the visitor to pass each position to
+     */
+    public void forEachPointInRect(double minX, double minY, double maxX, double maxY, PointVisitor visitor) {
+        forEachEntryInRect(minX, minY, maxX, maxY, entry -> visitor.visit(entry.x, entry.y));
+    }
+
+    /**
+     * Passes every occupied cell overlapping a rectangle to a visitor, with the
+     * number of objects in the cell and the sum of their positions. Objects in
+     * a cell that only partly overlaps the rectangle are all counted.
+     *
+     * @param minX    the left edge
+     * @param minY    the top edge
+     * @param maxX    the right edge
+     * @param maxY    the bottom edge
+     * @param visitor the visitor to pass each cell to
+     */
+    public void forEachCellInRect(double minX, double minY, double maxX, double maxY, CellVisitor visitor) {
+        long firstX = cell(minX);
+        long firstY = cell(minY);
+        long lastX = cell(maxX);
+        long lastY = cell(maxY);
+        if ((lastX - firstX + 1) * (lastY - firstY + 1) > cells.size()) {
+            for (Cell<T> cell : cells.values()) {
+                long cx = cell.key >> 32;
+                long cy = (int) cell.key;
+                if (cx >= firstX && cx <= lastX && cy >= firstY && cy <= lastY) {
+                    visitor.visit(cx, cy, cell.size, cell.sumX, cell.sumY);
+                }
+            }
+            return;
+        }
+        for (long cy = firstY; cy <= lastY; cy++) {
+            for (long cx = firstX; cx <= lastX; cx++) {
+                Cell<T> cell = cells.get(key(cx, cy));
+                if (cell != null) {
+                    visitor.visit(cx, cy, cell.size, cell.sumX, cell.sumY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds every object inside a rectangle, edges included.
+     *
+     * @param minX the left edge
+     * @param minY the top edge
+     * @param maxX the right edge
+     * @param maxY the bottom edge
+     * @return the objects, in no particular order
+     */
+    public List<T> queryRect(double minX, double minY, double maxX, double maxY) {
+        List<T> found = new ArrayList<>();
+        forEachInRect(minX, minY, maxX, maxY, found::add);
+        return found;
+    }
+
+    /**
+     * Finds every object within a distance of a point.
+     *
+     * @param x      the x position of the point
+     * @param y      the y position of the point
+     * @param radius the distance
+     * @return the objects, in no particular order
+     */
+    public List<T> queryRadius(double x, double y, double radius) {
+        assert radius >= 0 : "Radius must be non-negative";
+        List<T> found = new ArrayList<>();
+        double radiusSquared = radius * radius;
+        forEachEntryInRect(x - radius, y - radius, x + radius, y + radius, entry -> {
+            if (entry.distanceSquared(x, y) <= radiusSquared) {
+                found.add(entry.item);
+            }
+        });
+        return found;
+    }
+
+    /**
+     * Finds the object nearest a point, searching outwards ring by ring of
+     * cells until no closer object can remain.
+     *
+     * @param x           the x position of the point
+     * @param y           the y position of the point
+     * @param maxDistance the furthest an object may be, or Double.POSITIVE_INFINITY
+     * @return the nearest object, or null if none is within maxDistance
+     */
+    public T nearest(double x, double y, double maxDistance) {
+        long centreX = cell(x);
+        long centreY = cell(y);
+        Entry<T> best = null;
+        double bestSquared = maxDistance * maxDistance;
+
+        for (long ring = 0; ; ring++) {
+            // Every cell in this ring or beyond is at least this far from the point
+            double reach = Math.max(0, ring - 1) * cellSize;
+            if (reach * reach > bestSquared) {
+                break;
+            }
+            long ringCells = (2 * ring + 1) * (2 * ring + 1);
+            if (ringCells > 4L * cells.size()) {
+                // The rings have outgrown the occupied cells, so scan those instead
+                for (Cell<T> cell : cells.values()) {
+                    for (int i = 0; i < cell.size; i++) {
+                        double squared = cell.entries[i].distanceSquared(x, y);
+                        if (squared <= bestSquared) {
+                            best = cell.entries[i];
+                            bestSquared = squared;
+                        }
+                    }
+                }
+                break;
+            }
+            for (long cy = centreY - ring; cy <= centreY + ring; cy++) {
+                boolean edgeRow = cy == centreY - ring || cy == centreY + ring;
+                long step = edgeRow ? 1 : 2 * ring; // Rows between the top and bottom only have their two ends in the ring
+                for (long cx = centreX - ring; cx <= centreX + ring; cx += Math.max(1, step)) {
+                    Cell<T> cell = cells.get(key(cx, cy));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size; i++) {
+                        double squared = cell.entries[i].distanceSquared(x, y);
+                        if (squared <= bestSquared) {
+                            best = cell.entries[i];
+                            bestSquared = squared;
+                        }
+                    }
+                }
+            }
+        }
+        return best == null ? null : best.item;
+    }
+
+    /**
+     * Checks whether an object is indexed.
+     *
+     * @param item the object
+     * @return true if it is indexed, false otherwise
+     */
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    /**
+     * Retrieves the number of indexed objects.
+     *
+     * @return the number of objects
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Retrieves the number of cells holding at least one object.
+     *
+     * @return the number of occupied cells
+     */
+    public int getOccupiedCells() {
+        return cells.size();
+    }
+
+    /**
+     * Retrieves the width and height of a cell.
+     *
+     * @return the cell size
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Finds the cell a coordinate falls in.
+     *
+     * @param coordinate the x or y position
+     * @return the cell's column or row
+     */
+    private long cell(double coordinate) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Packs a cell's column and row into a map key.
+     *
+     * @param cx the column
+     * @param cy the row
+     * @return the key
+     */
+    private static long key(long cx, long cy) {
+        return (cx << 32) | (cy & 0xffffffffL);
+    }
+
+    /**
+     * Receives the position of an object.
+     */
+    public interface PointVisitor {
+        /**
+         * Receives one position.
+         *
+         * @param x the x position
+         * @param y the y position
+         */
+        void visit(double x, double y);
+    }
+
+    /**
+     * Receives an occupied cell and the objects in it.
+     */
+    public interface CellVisitor {
+        /**
+         * Receives one cell.
+         *
+         * @param column the cell's column
+         * @param row    the cell's row
+         * @param count  the number of objects in the cell
+         * @param sumX   the sum of their x positions
+         * @param sumY   the sum of their y positions
+         */
+        void visit(long column, long row, int count, double sumX, double sumY);
+    }
+
+    /**
+     * Where one indexed object is.
+     *
+     * @param <T> the type of the indexed object
+     */
+    private static final class Entry<T> {
+        private final T item;   // The object
+        private double x;       // Its x position
+        private double y;       // Its y position
+        private Cell<T> cell;   // Cell holding it
+        private int index;      // Its position in the cell's array
+
+        /**
+         * Constructs an Entry not yet in a cell.
+         *
+         * @param item the object
+         */
+        Entry(T item) {
+            this.item = item;
+        }
+
+        /**
+         * Measures the squared distance to a point.
+         *
+         * @param px the x position of the point
+         * @param py the y position of the point
+         * @return the squared distance
+         */
+        double distanceSquared(double px, double py) {
+            double dx = x - px;
+            double dy = y - py;
+            return dx * dx + dy * dy;
+        }
+    }
+
+    /**
+     * The entries in one cell, in an array that is compacted on removal.
+     *
+     * @param <T> the type of the indexed objects
+     */
+    private static final class Cell<T> {
+        private final long key;         // Packed position of the cell
+        @SuppressWarnings("unchecked")
+        private Entry<T>[] entries = (Entry<T>[]) new Entry<?>[4]; // Entries, the first size in use
+        private int size = 0;           // Entries in use
+        private double sumX = 0;        // Sum of the entries' x positions
+        private double sumY = 0;        // Sum of the entries' y positions
+
+        /**
+         * Constructs an empty Cell.
+         *
+         * @param key the packed position of the cell
+         */
+        Cell(long key) {
+            this.key = key;
+        }
+
+        /**
+         * Adds an entry to the cell.
+         *
+         * @param entry the entry
+         */
+        void add(Entry<T> entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entry.cell = this;
+            entry.index = size;
+            entries[size++] = entry;
+            sumX += entry.x;
+            sumY += entry.y;
+        }
+
+        /**
+         * Removes an entry by moving the last entry into its place.
+         *
+         * @param entry the entry
+         */
+        void remove(Entry<T> entry) {
+            assert entries[entry.index] == entry : "Entry is not where it claims to be";
+            Entry<T> last = entries[--size];
+            entries[entry.index] = last;
+            last.index = entry.index;
+            entries[size] = null;
+            entry.cell = null;
+            sumX -= entry.x;
+            sumY -= entry.y;
+        }
+
+        /**
+         * Passes every entry inside a rectangle to an action.
+         *
+         * @param minX   the left edge
+         * @param minY   the top edge
+         * @param maxX   the right edge
+         * @param maxY   the bottom edge
+         * @param action the action to run for each entry
+         */
+        void forEachInRect(double minX, double minY, double maxX, double maxY, Consumer<Entry<T>> action) {
+            for (int i = 0; i < size; i++) {
+                Entry<T> entry = entries[i];
+                if (entry.x >= minX && entry.x <= maxX && entry.y >= minY && entry.y <= maxY) {
+                    action.accept(entry);
+                }
+            }
+        }
+    }
+}
@@ -2,7 +2,6 @@ package gui;
 
 import flightSystem.Autopilot;
 
-import javax.swing.JPanel;
 import javax.swing.border.LineBorder;
 import javax.swing.JButton;
 import javax.swing.JLabel;
@@ -18,7 +17,7 @@ import java.awt.Color;
 
 import avionics.SensorSimulator;
 
-public class AutopilotPanel extends JPanel {
+public class AutopilotPanel extends MeteredPanel {
 
     private SensorSimulator sensorSimulator; //sensor simulator object
 
@@ -339,10 +338,8 @@ public class AutopilotPanel extends JPanel {
             autopilot.setMinAltitude(((Number) minAltitudeInput.getValue()).intValue()); //set min altitude
             autopilot.setMaxAltitude(((Number) maxAltitudeInput.getValue()).intValue()); //set max altitude
 
-            if (autopilot.getMinSpeed() < 40 || autopilot.getMaxSpeed() > 453 
-            || autopilot.getMinAltitude() < 1000 || autopilot.getMaxAltitude() > 37000) { //check if min/max values are out of range
-                assertFalse("Min and Max Out of Range", autopilot.getMinSpeed() < 40 
-                || autopilot.getMaxSpeed() > 453 || autopilot.getMinAltitude() < 1000 || autopilot.getMaxAltitude() > 37000); //assert if min/max values are out of range
+            if (!autopilot.isWithinLimits()) { //check if min/max values are out of range
+                assertFalse("Min and Max Out of Range", !autopilot.isWithinLimits()); //assert if min/max values are out of range
             } else {
                 System.out.println("HERE");
                 sensorSimulator.getSensors().get("altitude").setMinMax(autopilot.getMinAltitude(), autopilot.getMaxAltitude()); //set min/max altitude
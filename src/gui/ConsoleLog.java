@@ -0,0 +1,87 @@
+package gui;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * The ConsoleLog class stores the most recent console records in a
+ * fixed-capacity ring buffer, and serves them to a JList as its model.
+ *
+ * Appending is O(1): once the buffer is full the oldest record is overwritten,
+ * so memory stays flat however long the flight. The list only asks for the
+ * rows it is showing, so only visible records are ever formatted. Like any
+ * Swing model, the log must only be used on the event dispatch thread.
+ */
+public class ConsoleLog extends AbstractListModel<ConsoleRecord> {
+    private final ConsoleRecord[] records;  // Ring buffer of records
+    private int head = 0;                   // Index of the oldest record
+    private int size = 0;                   // Records held
+    private long appended = 0;              // Records appended since construction
+
+    /**
+     * Constructs an empty ConsoleLog.
+     *
+     * @param capacity the number of records kept
+     */
+    public ConsoleLog(int capacity) {
+        assert capacity > 0 : "Capacity must be positive";
+        records = new ConsoleRecord[capacity];
+    }
+
+    /**
+     * Appends a record, dropping the oldest one if the log is full.
+     *
+     * @param record the record to append
+     */
+    public void append(ConsoleRecord record) {
+        assert record != null : "Record cannot be null";
+        appended++;
+        if (size < records.length) {
+            records[(head + size) % records.length] = record;
+            size++;
+            fireIntervalAdded(this, size - 1, size - 1);
+            return;
+        }
+        records[head] = record;
+        head = (head + 1) % records.length;
+        fireIntervalRemoved(this, 0, 0);
+        fireIntervalAdded(this, size - 1, size - 1);
+    }
+
+    /**
+     * Retrieves the number of records held.
+     *
+     * @return the number of records
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieves a record, oldest first.
+     *
+     * @param index the position of the record, from 0 for the oldest
+     * @return the record
+     */
+    public ConsoleRecord getElementAt(int index) {
+        assert index >= 0 && index < size : "Index out of range";
+        return records[(head + index) % records.length];
+    }
+
+    /**
+     * Retrieves the number of records kept before the oldest are dropped.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return records.length;
+    }
+
+    /**
+     * Retrieves the number of records appended, including dropped ones.
+     *
+     * @return the number of records appended
+     */
+    public long getAppended() {
+        return appended;
+    }
+}
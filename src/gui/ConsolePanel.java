@@ -5,27 +5,35 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
 import javax.swing.JLabel;
-import javax.swing.JPanel;
+import javax.swing.JList;
 import javax.swing.JScrollPane;
-import javax.swing.JTextArea;
 import javax.swing.border.LineBorder;
 
-import avionics.Sensor;
+import avionics.SensorBus;
 import avionics.SensorSimulator;
+import avionics.SensorSnapshot;
+import avionics.TrendEstimator;
+import gui.ConsoleRecord.Severity;
+import monitoring.ConsoleAppendEvent;
+import telemetry.EventJournal;
 
-public class ConsolePanel extends JPanel {
-    private Map<String, Sensor> sensors;
-    private Map<Sensor, Boolean> isSensorPrinted = new HashMap<Sensor, Boolean>();
+public class ConsolePanel extends MeteredPanel {
+    public static final int LOG_CAPACITY = 10_000; // Most recent records kept in the console
+
+    private SensorBus sensorBus;
+    private Map<String, Boolean> isSensorPrinted = new HashMap<String, Boolean>();
     ArrayList<String> sensorNames = new ArrayList<>();
-    private JTextArea logTextArea = null;
+    private final ConsoleLog log = new ConsoleLog(LOG_CAPACITY);
+    private JList<ConsoleRecord> logList = null;
     private Boolean sensorError = false;
+    private EventJournal journal = null; // Durable copy of the log, if one is set
+    private TrendEstimator trendEstimator = null; // Predicts sensors about to leave their range, if one is set
+    private Map<String, Boolean> isCautionPrinted = new HashMap<String, Boolean>();
 
     /*
      * Constructor for ConsolePanel.
@@ -41,17 +49,17 @@ public class ConsolePanel extends JPanel {
         setBackground(Color.BLACK);
         setBorder(new LineBorder(Color.GRAY, 5));
         GridBagConstraints gbc = new GridBagConstraints();
-        sensors = sensorSimulator.getSensors();
+        sensorBus = sensorSimulator.getSensorBus();
 
-        assert sensors != null : "sensors is null"; 
+        assert sensorBus != null : "sensorBus is null"; 
 
         // Put sensors in isSensorsPrinted with false value
-        isSensorPrinted.put(sensors.get("airspeed"), false);
-        isSensorPrinted.put(sensors.get("altitude"), false);
-        isSensorPrinted.put(sensors.get("pitch"), false);
-        isSensorPrinted.put(sensors.get("roll"), false);
-        isSensorPrinted.put(sensors.get("yaw"), false);
-        isSensorPrinted.put(sensors.get("thrust"), false);
+        isSensorPrinted.put("airspeed", false);
+        isSensorPrinted.put("altitude", false);
+        isSensorPrinted.put("pitch", false);
+        isSensorPrinted.put("roll", false);
+        isSensorPrinted.put("yaw", false);
+        isSensorPrinted.put("thrust", false);
 
         // Add sensor names into list
         sensorNames.add("airspeed");
@@ -63,8 +71,8 @@ public class ConsolePanel extends JPanel {
 
         // Create contents of ConsolePanel
         createHeader();
-        logTextArea = createTextBox(gbc);
-        createScrollBox(gbc, logTextArea);
+        logList = createLogList();
+        createScrollBox(gbc, logList);
     }
 
     /*
@@ -84,21 +92,23 @@ public class ConsolePanel extends JPanel {
     }
 
     /*
-     * This method is responisble for creating the textbox where
-     * the logs will be displayed.
+     * This method is responsible for creating the list where the
+     * logs will be displayed. Every row has the prototype's height,
+     * so the list only lays out and formats the rows in view.
      * 
-     * @return The JTextArea for where the logs will be displayed
+     * @return The JList for where the logs will be displayed
      */
-    private JTextArea createTextBox(GridBagConstraints gbc) {
-        JTextArea logTextArea = new JTextArea();
-        logTextArea.setEditable(true);
-        logTextArea.setBackground(Color.BLACK);
-        logTextArea.setForeground(Color.GREEN);
-        logTextArea.setFont(new Font("Arial", Font.PLAIN, 15));
+    private JList<ConsoleRecord> createLogList() {
+        JList<ConsoleRecord> logList = new JList<>(log);
+        logList.setBackground(Color.BLACK);
+        logList.setForeground(Color.GREEN);
+        logList.setFont(new Font("Arial", Font.PLAIN, 15));
+        logList.setPrototypeCellValue(new ConsoleRecord(0, "airspeed", Severity.WARNING,
+                "Fault found in Airspeed sensor --> Sensor detecting value higher than max"));
 
-        assert logTextArea != null : "logTextArea is null";
+        assert logList != null : "logList is null";
 
-        return logTextArea;
+        return logList;
     }
 
     /*
@@ -107,12 +117,12 @@ public class ConsolePanel extends JPanel {
      * 
      * @param gbc The styling of the scroll pane.
      * 
-     * @param logTextArea The JTextArea for displayed in scroll pane.
+     * @param logList The JList displayed in the scroll pane.
      * 
-     * @return The JScrollPane for scrolling through the text box.
+     * @return The JScrollPane for scrolling through the logs.
      */
-    private void createScrollBox(GridBagConstraints gbc, JTextArea logTextArea) {
-        JScrollPane scrollPane = new JScrollPane(logTextArea);
+    private void createScrollBox(GridBagConstraints gbc, JList<ConsoleRecord> logList) {
+        JScrollPane scrollPane = new JScrollPane(logList);
         scrollPane.setPreferredSize(new Dimension(960, 200));
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
 
@@ -123,67 +133,100 @@ public class ConsolePanel extends JPanel {
         gbc.fill = GridBagConstraints.BOTH;
 
         assert scrollPane != null : "scrollPane is null";
-        assert logTextArea != null : "parameter logTextArea is null";
+        assert logList != null : "parameter logList is null";
 
         add(scrollPane, gbc);
     }
 
     /*
      * This method is responsible for printing logs to the
-     * logTextArea.
+     * console. The record is stored as it is and only formatted
+     * if its row is shown. The view follows new records unless
+     * the user has scrolled up.
      *
-     * @param log The log being printed to console.
-     * @param logTextArea The JTextArea where you will print the log to.
+     * @param timestamp The time of the log in milliseconds.
+     * @param sensor The key of the sensor the log is about.
+     * @param severity How serious the log is.
+     * @param message The log being printed to console.
      */
-    private void printToConsole(String log, JTextArea logTextArea) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
-        String dateTime = dateFormat.format(new Date());
-
-        assert dateFormat != null : "dateFormat is null";
-        assert logTextArea != null :  "parameter logTextArea is null";
-
-        logTextArea.append(dateTime + " - " + log + "\n");
-        logTextArea.setCaretPosition(logTextArea.getDocument().getLength());
+    private void printToConsole(long timestamp, String sensor, Severity severity, String message) {
+        assert message != null : "parameter message is null";
+
+        ConsoleAppendEvent event = new ConsoleAppendEvent();
+        event.begin();
+        int lastVisible = logList.getLastVisibleIndex();
+        boolean following = lastVisible < 0 || lastVisible >= log.getSize() - 1;
+        log.append(new ConsoleRecord(timestamp, sensor, severity, message));
+        if (following) {
+            logList.ensureIndexIsVisible(log.getSize() - 1);
+        }
+        if (journal != null) {
+            journal.log(timestamp, "console", sensor, severity.name(), message);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.message = message;
+            event.recordCount = log.getSize();
+            event.commit();
+        }
     }
 
     /*
      * This method is responsible for continously checking
      * if there is a sensor faul and updating the console
-     * if there is one detected.
+     * if there is one detected. Sensor values are read from
+     * the latest snapshot on the sensor bus.
      */
     public void updateConsole() {
+        SensorSnapshot snapshot = sensorBus.latest();
+        if (snapshot == null) {
+            return; // Nothing has been published yet
+        }
+
         for (int i = 0; i < sensorNames.size(); i++) {
-            Sensor currentSensor = sensors.get(sensorNames.get(i));
-            String sensorFault = "Fault found in " + currentSensor.getName() + " sensor";
-            String rangeFault = " --> Sensor is exceeding range";
+            String key = sensorNames.get(i);
+            int index = snapshot.indexOf(key);
+            assert index >= 0: "null sensor";
 
-            assert currentSensor != null: "null sensor";
+            String sensorFault = "Fault found in " + snapshot.getName(index) + " sensor";
+            String rangeFault = " --> Sensor is exceeding range";
 
-            boolean isPrinted = isSensorPrinted.getOrDefault(currentSensor, false);
+            boolean isPrinted = isSensorPrinted.getOrDefault(key, false);
 
             if (!isPrinted) {
-                if (currentSensor.isTooLow()) {
+                if (snapshot.isTooLow(index)) {
                     rangeFault = " --> Sensor detecting value lower than min";
-                    isSensorPrinted.put(currentSensor, true);
-                    printToConsole(sensorFault + rangeFault, logTextArea);
-                } else if (currentSensor.isTooHigh()) {
+                    isSensorPrinted.put(key, true);
+                    printToConsole(snapshot.getTimestamp(), key, Severity.WARNING, sensorFault + rangeFault);
+                } else if (snapshot.isTooHigh(index)) {
                     rangeFault = " --> Sensor detecting value higher than max";
-                    isSensorPrinted.put(currentSensor, true);
-                    printToConsole(sensorFault + rangeFault, logTextArea);
+                    isSensorPrinted.put(key, true);
+                    printToConsole(snapshot.getTimestamp(), key, Severity.WARNING, sensorFault + rangeFault);
                 }
-            } else if (currentSensor.isWithinRange() && isPrinted) {
-                isSensorPrinted.put(currentSensor, false);
-                String msg = currentSensor.getName() + " is now within range";
-                printToConsole(msg, logTextArea);
+            } else if (snapshot.isWithinRange(index) && isPrinted) {
+                isSensorPrinted.put(key, false);
+                String msg = snapshot.getName(index) + " is now within range";
+                printToConsole(snapshot.getTimestamp(), key, Severity.INFO, msg);
+            }
+
+            // Cautions are printed once when raised, and re-armed when they clear
+            if (trendEstimator != null) {
+                boolean caution = trendEstimator.isCaution(index);
+                if (caution && !isCautionPrinted.getOrDefault(key, false)) {
+                    long seconds = (trendEstimator.getTimeToLimit(index) + 999) / 1000;
+                    String msg = snapshot.getName(index) + " predicted to exceed range in " + seconds + "s";
+                    printToConsole(snapshot.getTimestamp(), key, Severity.CAUTION, msg);
+                }
+                isCautionPrinted.put(key, caution);
             }
         }
 
         for (int i = 0; i < sensorNames.size(); i++) {
-            Sensor currentSensor = sensors.get(sensorNames.get(i));
+            int index = snapshot.indexOf(sensorNames.get(i));
 
-            assert currentSensor != null: "null sensor";
+            assert index >= 0: "null sensor";
 
-            if (!currentSensor.isWithinRange()) {
+            if (!snapshot.isWithinRange(index)) {
                 sensorError = true;
                 break;
             }
@@ -192,6 +235,35 @@ public class ConsolePanel extends JPanel {
         }
     }
 
+    /*
+     * Setter for the journal that keeps a durable copy of every
+     * log. The journal never blocks the console.
+     * 
+     * @param journal The journal, or null for none.
+     */
+    public void setJournal(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    /*
+     * Setter for the estimator whose cautions are printed to
+     * the console before a sensor leaves its range.
+     * 
+     * @param trendEstimator The trend estimator, or null for none.
+     */
+    public void setTrendEstimator(TrendEstimator trendEstimator) {
+        this.trendEstimator = trendEstimator;
+    }
+
+    /*
+     * Getter for the console log. Used for testing.
+     * 
+     * @return ConsoleLog the records in the console.
+     */
+    public ConsoleLog getLog() {
+        return log;
+    }
+
     /*
      * Getter for sensor names.
      * 
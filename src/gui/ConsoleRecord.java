@@ -0,0 +1,89 @@
+package gui;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The ConsoleRecord class is one immutable line of the console log. Records
+ * keep their fields separately and are only formatted when they are displayed.
+ */
+public final class ConsoleRecord {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault()); // Thread-safe, shared by every record
+
+    /**
+     * How serious a console record is.
+     */
+    public enum Severity {
+        INFO,       // A sensor returned to its range
+        CAUTION,    // A sensor is predicted to leave its range soon
+        WARNING     // A sensor left its range
+    }
+
+    private final long timestamp;       // Time of the record in milliseconds
+    private final String sensor;        // Key of the sensor the record is about
+    private final Severity severity;    // How serious the record is
+    private final String message;       // Text shown after the time
+
+    /**
+     * Constructs a ConsoleRecord.
+     *
+     * @param timestamp the time of the record in milliseconds
+     * @param sensor    the key of the sensor the record is about
+     * @param severity  how serious the record is
+     * @param message   the text shown after the time
+     */
+    public ConsoleRecord(long timestamp, String sensor, Severity severity, String message) {
+        assert severity != null && message != null : "Severity and message cannot be null";
+        this.timestamp = timestamp;
+        this.sensor = sensor;
+        this.severity = severity;
+        this.message = message;
+    }
+
+    /**
+     * Retrieves the time of the record.
+     *
+     * @return the time in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Retrieves the key of the sensor the record is about.
+     *
+     * @return the sensor key
+     */
+    public String getSensor() {
+        return sensor;
+    }
+
+    /**
+     * Retrieves how serious the record is.
+     *
+     * @return the severity
+     */
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    /**
+     * Retrieves the text shown after the time.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Formats the record as a console line.
+     *
+     * @return the time followed by the message
+     */
+    public String toString() {
+        return TIME_FORMAT.format(Instant.ofEpochMilli(timestamp)) + " - " + message;
+    }
+}
@@ -8,15 +8,21 @@ import java.awt.GridBagConstraints;
 import java.awt.Color;
 import java.awt.Dimension;
 
+import avionics.HazardEngine;
 import avionics.Sensor;
+import avionics.SensorChange;
 import avionics.SensorSimulator;
+import avionics.SensorSnapshot;
+import avionics.TrendEstimator;
+import monitoring.HazardCheckEvent;
+import telemetry.EventJournal;
 
 /**
  * The HazardPanel class represents a GUI component that displays the status of various 
  * sensor conditions. It uses color-coded lights to indicate 
  * the status of each condition.
  */
-public class HazardPanel extends JPanel {
+public class HazardPanel extends MeteredPanel {
 
     // boolean variables for conditions
     private boolean systemSafe = true;
@@ -24,12 +30,26 @@ public class HazardPanel extends JPanel {
     private boolean airspeedFault = false;
     private boolean altitudeFault = false;
     private boolean attitudeFault = false;
+    private boolean predictedExceedance = false;
 
     public SensorSimulator sensorSimulator;
     public Map<String, Sensor> sensors;
 
     private Map<String, JPanel> conditionLights;
 
+    // Hazard rules, re-evaluated only when the sensors they read change
+    private final HazardEngine hazardEngine = new HazardEngine();
+    private final int airspeedRule = hazardEngine.addRangeRule("airspeedFault", "airspeed");
+    private final int altitudeRule = hazardEngine.addRangeRule("altitudeFault", "altitude");
+    private final int attitudeRule = hazardEngine.addRangeRule("attitudeFault", "pitch", "roll", "yaw");
+    private final int sensorFaultRule = hazardEngine.addAnyOf("sensorFault", "airspeedFault", "altitudeFault",
+            "attitudeFault");
+    private final int systemSafeRule = hazardEngine.addNoneOf("systemSafe", "sensorFault");
+    private long lastVersion = 0; // Version of the last snapshot evaluated
+    private SensorSnapshot pushed = null; // Last snapshot evaluated from a pushed change, or null if changes are not pushed
+    private EventJournal journal = null; // Durable record of condition changes, if one is set
+    private TrendEstimator trendEstimator = null; // Predicts sensors about to leave their range, if one is set
+
     /**
      * Constructs a HazardPanel with a specified SensorSimulator.
      *
@@ -55,6 +75,7 @@ public class HazardPanel extends JPanel {
         JLabel airspeedFaultLabel = new JLabel("        Airspeed Fault:");
         JLabel altitudeFaultLabel = new JLabel("        Altitude Fault:");
         JLabel attitudeFaultLabel = new JLabel("        Attitude Fault:");
+        JLabel predictedExceedanceLabel = new JLabel("        Predicted Exceedance:");
 
         // Add the condition labels to panel
         constraints.gridy = 0;
@@ -67,6 +88,8 @@ public class HazardPanel extends JPanel {
         add(altitudeFaultLabel, constraints);
         constraints.gridy = 4;
         add(attitudeFaultLabel, constraints);
+        constraints.gridy = 5;
+        add(predictedExceedanceLabel, constraints);
 
         // Create lights for each condition
         addConditionLight("systemSafe", 0, constraints);
@@ -74,6 +97,7 @@ public class HazardPanel extends JPanel {
         addConditionLight("airspeedFault", 2, constraints);
         addConditionLight("altitudeFault", 3, constraints);
         addConditionLight("attitudeFault", 4, constraints);
+        addConditionLight("predictedExceedance", 5, constraints);
     }
 
     /**
@@ -118,35 +142,132 @@ public class HazardPanel extends JPanel {
         updateConditionColor("airspeedFault", airspeedFault ? Color.RED : Color.GRAY);
         updateConditionColor("altitudeFault", altitudeFault ? Color.RED : Color.GRAY);
         updateConditionColor("attitudeFault", attitudeFault ? Color.RED : Color.GRAY);
+        updateConditionColor("predictedExceedance", predictedExceedance ? Color.ORANGE : Color.GRAY);
         
         repaint();
     }
 
+    /**
+     * Evaluates the hazard rules against a change pushed by a sensor
+     * subscription. Only the rules reading the sensors the change marks are
+     * re-evaluated, so the cost follows the number of changes rather than the
+     * number of sensors. Every pushed change must be passed here, including
+     * value-only ones, so the rules see every sensor that changed; call
+     * update() to refresh the lights.
+     *
+     * @param change the change since the last notification
+     */
+    public void showChange(SensorChange change) {
+        assert change != null : "Change cannot be null";
+        SensorSnapshot snapshot = change.getSnapshot();
+        if (snapshot.getVersion() > lastVersion) {
+            hazardEngine.evaluate(change);
+            lastVersion = snapshot.getVersion();
+            pushed = snapshot;
+        }
+    }
+
     /**
      * Checks the status of each sensor and updates conditions accordingly.
+     * Once changes are pushed through showChange(), the conditions follow the
+     * last pushed snapshot; otherwise the latest snapshot on the bus is compared
+     * with the previous one.
      */
     public void checkSensors(){
-        Sensor airspeed = sensors.get("airspeed");
-        Sensor altitude = sensors.get("altitude");
-        Sensor pitch = sensors.get("pitch");
-        Sensor roll = sensors.get("roll");
-        Sensor yaw = sensors.get("yaw");
-
-        //conditions where attitude fault could occur
-        attitudeFault = !pitch.isWithinRange() || !roll.isWithinRange() || !yaw.isWithinRange();
-        altitudeFault = !altitude.isWithinRange();
-        airspeedFault = !airspeed.isWithinRange();
-
-        sensorFault = attitudeFault || altitudeFault || airspeedFault;
-        systemSafe = !sensorFault;
+        SensorSnapshot snapshot = pushed != null ? pushed : sensorSimulator.getSensorBus().latest();
+        if (snapshot == null) {
+            return; // Nothing has been published yet
+        }
+        HazardCheckEvent event = new HazardCheckEvent();
+        event.begin();
+
+        // Only rules reading sensors that changed since the last snapshot are re-evaluated
+        if (snapshot.getVersion() != lastVersion) {
+            hazardEngine.evaluate(snapshot);
+            lastVersion = snapshot.getVersion();
+        }
+
+        if (journal != null) {
+            long time = snapshot.getTimestamp();
+            journalChange(time, "attitudeFault", attitudeFault, hazardEngine.isActive(attitudeRule));
+            journalChange(time, "altitudeFault", altitudeFault, hazardEngine.isActive(altitudeRule));
+            journalChange(time, "airspeedFault", airspeedFault, hazardEngine.isActive(airspeedRule));
+            journalChange(time, "sensorFault", sensorFault, hazardEngine.isActive(sensorFaultRule));
+            journalChange(time, "systemSafe", !systemSafe, !hazardEngine.isActive(systemSafeRule));
+        }
+
+        // A caution, not a fault: it leaves systemSafe alone
+        boolean predicted = trendEstimator != null && trendEstimator.hasCautions();
+        if (journal != null && predicted != predictedExceedance) {
+            journal.log(snapshot.getTimestamp(), "hazard", "predictedExceedance", predicted ? "CAUTION" : "INFO",
+                    "predictedExceedance " + (predicted ? "raised" : "cleared"));
+        }
+        predictedExceedance = predicted;
+
+        attitudeFault = hazardEngine.isActive(attitudeRule);
+        altitudeFault = hazardEngine.isActive(altitudeRule);
+        airspeedFault = hazardEngine.isActive(airspeedRule);
+        sensorFault = hazardEngine.isActive(sensorFaultRule);
+        systemSafe = hazardEngine.isActive(systemSafeRule);
 
         // assertions
-        assert attitudeFault == (!pitch.isWithinRange() || !roll.isWithinRange() || !yaw.isWithinRange()) : "Attitude fault logic error";
-        assert altitudeFault == !altitude.isWithinRange() : "Altitude fault logic error";
-        assert airspeedFault == !airspeed.isWithinRange() : "Airspeed fault logic error";
+        assert attitudeFault == (!snapshot.isWithinRange("pitch") || !snapshot.isWithinRange("roll")
+                || !snapshot.isWithinRange("yaw")) : "Attitude fault logic error";
+        assert altitudeFault == !snapshot.isWithinRange("altitude") : "Altitude fault logic error";
+        assert airspeedFault == !snapshot.isWithinRange("airspeed") : "Airspeed fault logic error";
         assert sensorFault == (attitudeFault || altitudeFault || airspeedFault) : "Sensor fault logic error";
         assert systemSafe == !sensorFault : "System safe logic error";
 
+        event.end();
+        if (event.shouldCommit()) {
+            event.faultMask = (airspeedFault ? HazardCheckEvent.AIRSPEED_FAULT : 0)
+                    | (altitudeFault ? HazardCheckEvent.ALTITUDE_FAULT : 0)
+                    | (attitudeFault ? HazardCheckEvent.ATTITUDE_FAULT : 0);
+            event.commit();
+        }
+
+    }
+
+    /**
+     * Writes a condition change to the journal.
+     *
+     * @param timestamp the time of the snapshot that caused the change
+     * @param condition the name of the condition
+     * @param wasUnsafe whether the condition was unsafe before
+     * @param isUnsafe  whether the condition is unsafe now
+     */
+    private void journalChange(long timestamp, String condition, boolean wasUnsafe, boolean isUnsafe) {
+        if (wasUnsafe != isUnsafe) {
+            journal.log(timestamp, "hazard", condition, isUnsafe ? "WARNING" : "INFO",
+                    condition + (isUnsafe ? " raised" : " cleared"));
+        }
+    }
+
+    /**
+     * Sets the journal that keeps a durable record of every condition change.
+     *
+     * @param journal the journal, or null for none
+     */
+    public void setJournal(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets the estimator whose cautions light the predicted exceedance light.
+     *
+     * @param trendEstimator the trend estimator, or null for none
+     */
+    public void setTrendEstimator(TrendEstimator trendEstimator) {
+        this.trendEstimator = trendEstimator;
+    }
+
+    /**
+     * Retrieves the hazard engine, so more rules can be added alongside the built-in ones.
+     *
+     * @return the hazard engine
+     */
+    public HazardEngine getHazardEngine() {
+        return hazardEngine;
     }
 
     /**
@@ -199,6 +320,15 @@ public class HazardPanel extends JPanel {
         return attitudeFault;
     }
 
+    /**
+     * Checks if any sensor is predicted to leave its range soon.
+     *
+     * @return true if an exceedance is predicted, false otherwise
+     */
+    public boolean isPredictedExceedance() {
+        return predictedExceedance;
+    }
+
     /**
      * Gets the condition lights map.
      *
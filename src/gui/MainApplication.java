@@ -3,6 +3,8 @@ package gui;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
 
 import javax.swing.BorderFactory;
 import javax.swing.JFrame;
@@ -11,7 +13,17 @@ import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import javax.swing.border.Border;
 
+import avionics.SensorChange;
+import avionics.SensorFrameWriter;
+import avionics.SensorPersistence;
 import avionics.SensorSimulator;
+import avionics.TrendEstimator;
+import monitoring.Histogram;
+import monitoring.MetricsRegistry;
+import simulation.PhysicsLoop;
+import telemetry.EventJournal;
+import telemetry.TelemetryRecorder;
+import telemetry.TelemetryReplay;
 
 /**
  * The main application class that initializes and manages the GUI components.
@@ -24,7 +36,20 @@ public class MainApplication extends JFrame {
     private static final int FRAME_WIDTH_RATIO = FRAME_WIDTH / 100;
     private static final int FRAME_HEIGHT_RATIO = FRAME_HEIGHT / 100;
 
-    private static final int UPDATE_PERIOD = 40; // Milliseconds between updates
+    private static final int UPDATE_PERIOD = 40; // Milliseconds between map updates
+    private static final long JSON_WRITE_INTERVAL = 1000; // Maximum milliseconds between sensor_data.json writes
+    private static final int JSON_DIRTY_THRESHOLD = 50; // Updates that trigger a sensor_data.json write early
+    private static final String FRAME_FILE_PROPERTY = "sensor.frame.file"; // Property naming the shared frame file
+    private static final String TELEMETRY_DIR_PROPERTY = "telemetry.dir"; // Property naming the flight recorder directory
+    private static final String REPLAY_DIR_PROPERTY = "telemetry.replay"; // Property naming a recording to replay
+    private static final String REPLAY_SPEED_PROPERTY = "telemetry.replay.speed"; // Replay speed multiplier, or "max"
+    private static final String REPLAY_START_PROPERTY = "telemetry.replay.start"; // Recorded time to start the replay at
+    private static final String JOURNAL_DIR_PROPERTY = "journal.dir"; // Property naming the event journal directory
+    private static final String JOURNAL_SYNC_PROPERTY = "journal.sync"; // Journal sync policy: interval, batch or fsync
+    private static final String JOURNAL_FLUSH_PROPERTY = "journal.flush"; // Longest milliseconds a journal entry stays buffered
+    private static final long JOURNAL_FILE_BYTES = 4 * 1024 * 1024; // Size a journal file is rotated at
+    private static final int JOURNAL_FILES = 8; // Journal files kept
+    private static final int JOURNAL_CAPACITY = 10_000; // Journal entries queued before new ones are dropped
 
     private PlaneOnMapPanel planeOnMapPanel;
     private SensorDataPanel sensorDataPanel;
@@ -33,6 +58,16 @@ public class MainApplication extends JFrame {
     private ConsolePanel consolePanel;
     private HazardPanel hazardPanel;
     private static SensorSimulator sensorSimulator = new SensorSimulator();
+    private static EventJournal journal = null; // Durable record of console and hazard events, if requested
+    private static TrendEstimator trendEstimator = new TrendEstimator(); // Predicts sensors about to leave their range
+    private long lastCautionChanges = 0; // Caution changes already shown on the console and hazard panels
+
+    // Time the event dispatch thread spends in each update, exposed over JMX
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private final Histogram updateTime = metrics.histogram("gui.MainApplication.updateNanos"); // Repainting the map
+    private final Histogram dataUpdateTime = metrics.histogram("gui.SensorDataPanel.updateNanos");
+    private final Histogram consoleUpdateTime = metrics.histogram("gui.ConsolePanel.updateNanos");
+    private final Histogram hazardUpdateTime = metrics.histogram("gui.HazardPanel.updateNanos");
 
     /**
      * Constructs the main application frame.
@@ -47,7 +82,7 @@ public class MainApplication extends JFrame {
      */
     private void initGUI() {        
         planeOnMapPanel = new PlaneOnMapPanel();
-        sensorDataPanel = new SensorDataPanel();
+        sensorDataPanel = new SensorDataPanel(sensorSimulator);
         managementPanel = new ManagementPanel(sensorSimulator, planeOnMapPanel);
         autopilotPanel = new AutopilotPanel(sensorSimulator);
         consolePanel = new ConsolePanel(sensorSimulator);
@@ -56,6 +91,14 @@ public class MainApplication extends JFrame {
         assert planeOnMapPanel != null && sensorDataPanel != null && managementPanel != null && autopilotPanel != null
                 && consolePanel != null && hazardPanel != null : "GUI components are not initialized";
 
+        if (journal != null) {
+            consolePanel.setJournal(journal);
+            hazardPanel.setJournal(journal);
+        }
+        consolePanel.setTrendEstimator(trendEstimator);
+        hazardPanel.setTrendEstimator(trendEstimator);
+        managementPanel.setClock(sensorSimulator.getClock()); // Flight time follows the simulator's clock
+
         setTitle("Main Application with Controls");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(FRAME_WIDTH, FRAME_HEIGHT);
@@ -68,28 +111,67 @@ public class MainApplication extends JFrame {
     }
 
     /**
-     * Starts the timer for updating the data panels at regular intervals.
+     * Starts the physics loop that moves the plane on its own thread, the timer
+     * that repaints the map, and subscribes the sensor panels to sensor
+     * changes, which are pushed to them on the event dispatch thread.
      */
     private void startTimer() {
+        PhysicsLoop physicsLoop = new PhysicsLoop(planeOnMapPanel.getPlane(), planeOnMapPanel.getWidth(),
+                planeOnMapPanel.getHeight());
+        planeOnMapPanel.setPhysicsLoop(physicsLoop);
+        physicsLoop.start();
+
         Timer timer = new Timer(UPDATE_PERIOD, this::update);
         assert timer != null : "Timer is not initialized";
         timer.start();
+
+        sensorSimulator.subscribe(this::sensorsChanged, SwingUtilities::invokeLater);
     }
 
     /**
-     * Updates the data panels.
+     * Repaints the map with the plane's latest position.
      * 
      * @param e the action event
      */
     private void update(ActionEvent e) {
+        long started = System.nanoTime();
         planeOnMapPanel.update(e);
         assert planeOnMapPanel != null : "Plane on map panel is not initialized";
-        sensorDataPanel.updateData();
+        updateTime.recordSince(started);
+    }
+
+    /**
+     * Updates the sensor panels with the changes since the last notification.
+     * Values only affect the data panel; the console and hazard lights only
+     * change when a sensor moves into or out of its range, or a predicted
+     * exceedance is raised or cleared.
+     * 
+     * @param change the latest snapshot and which sensors changed
+     */
+    private void sensorsChanged(SensorChange change) {
         assert sensorDataPanel != null : "Sensor data panel is not initialized";
-        consolePanel.updateConsole();
         assert consolePanel != null : "Console panel is not initialized";
-        hazardPanel.update();
         assert hazardPanel != null : "Hazard panel is not initialized";
+        if (change.hasValueChanges()) {
+            long started = System.nanoTime();
+            sensorDataPanel.showChange(change);
+            dataUpdateTime.recordSince(started);
+        }
+        long started = System.nanoTime();
+        hazardPanel.showChange(change); // Re-evaluates only the hazard rules reading the changed sensors
+        hazardUpdateTime.recordSince(started);
+
+        long cautionChanges = trendEstimator.getCautionChanges();
+        if (change.hasStatusChanges() || cautionChanges != lastCautionChanges) {
+            lastCautionChanges = cautionChanges;
+            started = System.nanoTime();
+            consolePanel.updateConsole();
+            consoleUpdateTime.recordSince(started);
+
+            started = System.nanoTime();
+            hazardPanel.update();
+            hazardUpdateTime.recordSince(started);
+        }
     }
 
     /**
@@ -159,8 +241,61 @@ public class MainApplication extends JFrame {
      */
     public static void main(String[] args) {
         ClassLoader.getSystemClassLoader().setDefaultAssertionStatus(true);
+
+        // Keep sensor_data.json available for external consumers, written behind the sensor tick
+        SensorPersistence persistence = new SensorPersistence(SensorSimulator.FILE_PATH, JSON_WRITE_INTERVAL,
+                JSON_DIRTY_THRESHOLD);
+        persistence.setMetrics(MetricsRegistry.getDefault());
+        sensorSimulator.addSink(persistence);
+
+        // Fit trends before the panels are notified, so their cautions are current
+        sensorSimulator.addSink(trendEstimator);
+
+        // Expose tick lateness, duration and allocation over JMX
+        sensorSimulator.setMetrics(MetricsRegistry.getDefault());
+
+        // Publish binary frames for displays running in other processes, if requested
+        String frameFile = System.getProperty(FRAME_FILE_PROPERTY);
+        if (frameFile != null) {
+            try {
+                sensorSimulator.addSink(new SensorFrameWriter(new File(frameFile)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Replay a recorded flight instead of simulating one, if requested
+        String replayDir = System.getProperty(REPLAY_DIR_PROPERTY);
+        Runnable source = sensorSimulator;
+        if (replayDir != null) {
+            sensorSimulator.createSensors();
+            source = () -> replay(new File(replayDir));
+        }
+
+        // Record every snapshot for post-flight analysis, if requested
+        String telemetryDir = System.getProperty(TELEMETRY_DIR_PROPERTY);
+        if (telemetryDir != null && replayDir == null) {
+            TelemetryRecorder recorder = new TelemetryRecorder(new File(telemetryDir));
+            sensorSimulator.addSink(recorder);
+            Runtime.getRuntime().addShutdownHook(new Thread(recorder::close));
+        }
         
-        Thread sensorSimulatorThread = new Thread(sensorSimulator);
+        // Keep console and hazard events on disk, if requested
+        String journalDir = System.getProperty(JOURNAL_DIR_PROPERTY);
+        if (journalDir != null) {
+            try {
+                EventJournal.SyncPolicy policy = EventJournal.SyncPolicy.valueOf(
+                        System.getProperty(JOURNAL_SYNC_PROPERTY, "batch").toUpperCase());
+                long flushMillis = Long.parseLong(System.getProperty(JOURNAL_FLUSH_PROPERTY, "1000"));
+                journal = new EventJournal(new File(journalDir), JOURNAL_FILE_BYTES, JOURNAL_FILES, JOURNAL_CAPACITY,
+                        policy, flushMillis);
+                Runtime.getRuntime().addShutdownHook(new Thread(journal::close));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        Thread sensorSimulatorThread = new Thread(source);
         sensorSimulatorThread.start();
 
         SwingUtilities.invokeLater(() -> {
@@ -174,4 +309,24 @@ public class MainApplication extends JFrame {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Plays a recorded flight through the sensor simulator's bus and sinks, at
+     * the speed and from the start time given by the replay properties.
+     *
+     * @param directory the directory holding the recording
+     */
+    private static void replay(File directory) {
+        String speed = System.getProperty(REPLAY_SPEED_PROPERTY, "1");
+        String start = System.getProperty(REPLAY_START_PROPERTY);
+        try (TelemetryReplay replay = new TelemetryReplay(directory, sensorSimulator)) {
+            replay.setSpeedMultiplier(speed.equals("max") ? TelemetryReplay.UNTHROTTLED : Double.parseDouble(speed));
+            if (start != null) {
+                replay.seek(Long.parseLong(start));
+            }
+            replay.play();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
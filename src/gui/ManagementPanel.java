@@ -9,20 +9,22 @@ import javax.swing.JButton;
 import javax.swing.JFormattedTextField;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
-import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import javax.swing.border.LineBorder;
 
 import flightSystem.Plane;
+import flightSystem.PlaneListener;
 import flightSystem.Waypoint;
 import avionics.SensorSimulator;
+import simulation.FlightTimer;
+import simulation.SimulationClock;
 
-public class ManagementPanel extends JPanel {
+public class ManagementPanel extends MeteredPanel implements PlaneListener {
     private SensorSimulator sensorSimulator;
     private PlaneOnMapPanel planeOnMapPanel;
     private Plane plane;
     public Timer timer;
-    private long startTime;
     private JLabel timerLabel;
     private JLabel waypointsLabel;
     private int maxAirspeed;
@@ -30,6 +32,7 @@ public class ManagementPanel extends JPanel {
     private int maxAltitude;
     private int minAltitude;
     public long elapsedTime;
+    private FlightTimer flightTimer = new FlightTimer(SimulationClock.SYSTEM); // Measures elapsed flight time on the simulation clock
     private JFormattedTextField maxAirspeedTextField;
     private JFormattedTextField minAirspeedTextField;
     private JFormattedTextField maxAltitudeTextField;
@@ -53,7 +56,7 @@ public class ManagementPanel extends JPanel {
         this.planeOnMapPanel = POMPan; // Set the planeOnMapPanel object
         this.plane = planeOnMapPanel.getPlane(); // Get the plane from the planeOnMapPanel
         assert this.plane != null : "Plane object cannot be null";
-        plane.setManagementPanel(this); // Add this line to set the management panel in the plane
+        plane.setListener(this); // Stop the flight timer when the plane's navigation changes
         s.getSensors(); // Get sensors from Sensor Simulator class
         setLayout(null);
 
@@ -204,14 +207,14 @@ public class ManagementPanel extends JPanel {
      *                  selected.
      */
     private void startTimer() {
-        startTime = System.currentTimeMillis();
-        assert startTime > 0 : "Start time must be initialised before starting the timer";
+        flightTimer.start();
+        elapsedTime = 0;
 
         timer = new Timer(1000, new ActionListener() {
             public void actionPerformed(ActionEvent e) {
 
                 // The elapsed time is the time passed since the start time
-                long elapsedTime = System.currentTimeMillis() - startTime;
+                updateElapsedTime();
 
                 // Display the time passed in hours to be more accurate of an actual flight
                 timerLabel.setText("Elapsed time: " + elapsedTime / 333 + " hours");
@@ -220,6 +223,29 @@ public class ManagementPanel extends JPanel {
         timer.start();
     }
 
+    /**
+     * Recalculates the elapsed flight time from the simulation clock.
+     * 
+     * Does nothing unless the flight timer is running, so the final time is kept
+     * once the plane reaches its destination.
+     */
+    public void updateElapsedTime() {
+        if (timer != null && timer.isRunning()) {
+            elapsedTime = flightTimer.update();
+        }
+    }
+
+    /**
+     * Sets the clock used to measure the elapsed flight time, for example a
+     * virtual clock when the simulation runs faster than real time.
+     * 
+     * @param clock the simulation clock
+     */
+    public void setClock(SimulationClock clock) {
+        assert clock != null : "Clock cannot be null";
+        flightTimer.setClock(clock);
+    }
+
     /**
      * Action listener for the airspeed and altitude value submit button, the clear
      * waypoint button, and the submit waypoint button.
@@ -261,18 +287,20 @@ public class ManagementPanel extends JPanel {
         submitButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 assert plane != null : "Plane object must be initialised before submitting flight path";
-                if (!plane.isAtDestination() && (plane.getWaypoints().size() == 2 || plane.getWaypoints().size() == 0
-                        || plane.getWaypoints().size() == 1)) {
-                    // Do not start the timer if the plane is not at destination, or does not have
-                    // both waypoints specified
-                    return;
+                synchronized (plane) { // The physics loop may be stepping the plane
+                    if (!plane.isAtDestination() && (plane.getWaypoints().size() == 2
+                            || plane.getWaypoints().size() == 0 || plane.getWaypoints().size() == 1)) {
+                        // Do not start the timer if the plane is not at destination, or does not have
+                        // both waypoints specified
+                        return;
+                    }
+
+                    // If the submit button has been pressed, and none of the conditions above are
+                    // met, move the plane to the next waypoint,
+                    // start the timer, and update the latitude and longitude values of the selected
+                    // waypoint
+                    plane.proceedToNextWaypoint();
                 }
-
-                // If the submit button has been pressed, and none of the conditions above are
-                // met, move the plane to the next waypoint,
-                // start the timer, and update the latitude and longitude values of the selected
-                // waypoint
-                plane.proceedToNextWaypoint();
                 startTimer();
                 updateWaypointsLabel();
             }
@@ -285,7 +313,9 @@ public class ManagementPanel extends JPanel {
                 // If two waypoints are selected, and the user presses the clear button, clear
                 // these
                 if (planeOnMapPanel.getWaypoints().size() == 2) {
-                    plane.clearWaypoints();
+                    synchronized (plane) {
+                        plane.clearWaypoints();
+                    }
                     planeOnMapPanel.getWaypoints().clear();
                     stopTimer();
                     timerLabel.setText("Elapsed time: 0 hours");
@@ -304,12 +334,30 @@ public class ManagementPanel extends JPanel {
      */
     public void checkAndStopTimer() {
         assert plane != null : "Plane object must be initialised before checking and stopping timer";
-        if (plane.isAtDestination() || plane.getWaypoints().size() == 0) {
+        boolean finished;
+        synchronized (plane) { // The physics loop may be stepping the plane
+            finished = plane.isAtDestination() || plane.getWaypoints().size() == 0;
+        }
+        if (finished) {
             // Stops timer when plane reaches destination
             stopTimer();
         }
     }
 
+    /**
+     * Checks whether the flight timer should stop whenever the plane's navigation changes.
+     * Changes made on the physics loop's thread are checked on the event dispatch thread.
+     *
+     * @param plane the plane
+     */
+    public void navigationChanged(Plane plane) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            checkAndStopTimer();
+        } else {
+            SwingUtilities.invokeLater(this::checkAndStopTimer);
+        }
+    }
+
     /**
      * Stops the timer if the conditions in the checkAndStopTimer method are met.
      * 
@@ -324,8 +372,9 @@ public class ManagementPanel extends JPanel {
         if (timer != null && timer.isRunning()) {
             assert timer != null : "Timer must be initialised before stopping";
             // Stops the timer if it is currently running
+            updateElapsedTime();
+            flightTimer.stop();
             timer.stop();
-            long elapsedTime = System.currentTimeMillis() - startTime;
             timerLabel.setText("Final time: " + elapsedTime / 333 + " hours");
         }
     }
@@ -346,8 +395,8 @@ public class ManagementPanel extends JPanel {
         for (Waypoint waypoint : waypoints) {
             // Convert the x and y coordinates in the waypoint list to latitude and
             // longitude
-            double latitude = convertToLatitude(waypoint.getPoint().y, planeOnMapPanel.getHeight());
-            double longitude = convertToLongitude(waypoint.getPoint().x, planeOnMapPanel.getWidth());
+            double latitude = planeOnMapPanel.getViewport().toLatitude(waypoint.getPoint().y);
+            double longitude = planeOnMapPanel.getViewport().toLongitude(waypoint.getPoint().x);
 
             labelTextBuilder.append(String.format("Latitude: %.6f, Longitude: %.6f<br>", latitude, longitude));
         }
@@ -355,47 +404,6 @@ public class ManagementPanel extends JPanel {
         waypointsLabel.setText(labelTextBuilder.toString()); // Update the label with the constructed string
     }
 
-    /**
-     * Converts the y coordinate value to latitude.
-     * 
-     * Takes into account the max and minimum latitude of 90 and -90 respectively.
-     * 
-     * @param y         the y coordinate value to be converted
-     * @param mapHeight the height of the map
-     * @param latMin    the minimum latitude value
-     * @param latMax    the maximum latitude value
-     * 
-     * @return the latitude value corresponding to the given y coordinate
-     */
-    private double convertToLatitude(int y, int mapHeight) {
-        assert mapHeight > 0 : "Map height must be greater than zero";
-
-        double latMin = -90.0; // Minimum latitude
-        double latMax = 90.0; // Maximum latitude
-        return latMax - ((double) y / mapHeight) * (latMax - latMin);
-    }
-
-    /**
-     * Converts the x coordinate value to longitude.
-     * 
-     * Takes into account the max and minimum longitude of 180 and -180
-     * respectively.
-     * 
-     * @param x         the x coordinate value to be converted
-     * @param mapHeight the height of the map
-     * @param lonMin    the minimum longitude value
-     * @param lonMax    the maximum longitude value
-     * 
-     * @return the longitude value corresponding to the given x coordinate
-     */
-    private double convertToLongitude(int x, int mapWidth) {
-        assert mapWidth > 0 : "Map width must be greater than zero";
-
-        double lonMin = -180.0; // Minimum longitude
-        double lonMax = 180.0; // Maximum longitude
-        return lonMin + ((double) x / mapWidth) * (lonMax - lonMin);
-    }
-
     /**
      * Gets the elapsed time since the timer started.
      * 
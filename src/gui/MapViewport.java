@@ -0,0 +1,178 @@
+package gui;
+
+/**
+ * The MapViewport class maps between world coordinates, in which planes and
+ * waypoints live, and screen coordinates on the map panel.
+ *
+ * The world is the map at zoom 1, the size of the panel, so at zoom 1 the two
+ * coordinate systems are the same. Zooming in shows part of the world,
+ * starting at an offset that is kept within the map.
+ */
+public class MapViewport {
+    public static final double MIN_ZOOM = 1;    // Whole map in view
+    public static final double MAX_ZOOM = 64;   // Deepest zoom allowed
+
+    private int width = 0;          // Width of the world and of the view
+    private int height = 0;         // Height of the world and of the view
+    private double zoom = 1;        // Screen pixels per world unit
+    private double offsetX = 0;     // World x at the left edge of the view
+    private double offsetY = 0;     // World y at the top edge of the view
+
+    /**
+     * Sets the size of the panel, which is also the size of the world.
+     *
+     * @param width  the panel width
+     * @param height the panel height
+     */
+    public void setSize(int width, int height) {
+        if (width != this.width || height != this.height) {
+            this.width = width;
+            this.height = height;
+            clamp();
+        }
+    }
+
+    /**
+     * Zooms by a factor, keeping the world point under a screen position still.
+     *
+     * @param screenX the x position to zoom about
+     * @param screenY the y position to zoom about
+     * @param factor  the zoom multiplier, above 1 to zoom in
+     */
+    public void zoomAt(double screenX, double screenY, double factor) {
+        assert factor > 0 : "Zoom factor must be positive";
+        double worldX = toWorldX(screenX);
+        double worldY = toWorldY(screenY);
+        zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+        offsetX = worldX - screenX / zoom;
+        offsetY = worldY - screenY / zoom;
+        clamp();
+    }
+
+    /**
+     * Moves the view by a distance on screen, as when dragging the map.
+     *
+     * @param screenDx the screen distance dragged to the right
+     * @param screenDy the screen distance dragged down
+     */
+    public void pan(double screenDx, double screenDy) {
+        offsetX -= screenDx / zoom;
+        offsetY -= screenDy / zoom;
+        clamp();
+    }
+
+    /**
+     * Keeps the view within the map.
+     */
+    private void clamp() {
+        offsetX = Math.max(0, Math.min(width - width / zoom, offsetX));
+        offsetY = Math.max(0, Math.min(height - height / zoom, offsetY));
+    }
+
+    /**
+     * Converts a world x position to a screen x position.
+     *
+     * @param worldX the world x position
+     * @return the screen x position
+     */
+    public double toScreenX(double worldX) {
+        return (worldX - offsetX) * zoom;
+    }
+
+    /**
+     * Converts a world y position to a screen y position.
+     *
+     * @param worldY the world y position
+     * @return the screen y position
+     */
+    public double toScreenY(double worldY) {
+        return (worldY - offsetY) * zoom;
+    }
+
+    /**
+     * Converts a screen x position to a world x position.
+     *
+     * @param screenX the screen x position
+     * @return the world x position
+     */
+    public double toWorldX(double screenX) {
+        return screenX / zoom + offsetX;
+    }
+
+    /**
+     * Converts a screen y position to a world y position.
+     *
+     * @param screenY the screen y position
+     * @return the world y position
+     */
+    public double toWorldY(double screenY) {
+        return screenY / zoom + offsetY;
+    }
+
+    /**
+     * Converts a world y position to latitude. The map spans 90 to -90 from top to bottom.
+     *
+     * @param worldY the world y position
+     * @return the latitude in degrees
+     */
+    public double toLatitude(double worldY) {
+        assert height > 0 : "Map height must be greater than zero";
+        return 90.0 - worldY / height * 180.0;
+    }
+
+    /**
+     * Converts a world x position to longitude. The map spans -180 to 180 from left to right.
+     *
+     * @param worldX the world x position
+     * @return the longitude in degrees
+     */
+    public double toLongitude(double worldX) {
+        assert width > 0 : "Map width must be greater than zero";
+        return -180.0 + worldX / width * 360.0;
+    }
+
+    /**
+     * Retrieves the zoom.
+     *
+     * @return screen pixels per world unit, 1 when the whole map is in view
+     */
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Retrieves the world x position at the left edge of the view.
+     *
+     * @return the x offset
+     */
+    public double getOffsetX() {
+        return offsetX;
+    }
+
+    /**
+     * Retrieves the world y position at the top edge of the view.
+     *
+     * @return the y offset
+     */
+    public double getOffsetY() {
+        return offsetY;
+    }
+
+    /**
+     * Retrieves the width of the world and the view.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Retrieves the height of the world and the view.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,28 @@
+package gui;
+
+import java.awt.Graphics;
+
+import javax.swing.JPanel;
+
+import monitoring.Histogram;
+import monitoring.MetricsRegistry;
+
+/**
+ * A JPanel that records how long each paint takes, children included, in the
+ * default metrics registry under gui.[panel class].paintNanos.
+ */
+public class MeteredPanel extends JPanel {
+    private final Histogram paintTime = MetricsRegistry.getDefault()
+            .histogram("gui." + getClass().getSimpleName() + ".paintNanos"); // Paint durations of this panel class
+
+    /**
+     * Paints the panel and records how long it took.
+     *
+     * @param g the Graphics object to paint on
+     */
+    public void paint(Graphics g) {
+        long started = System.nanoTime();
+        super.paint(g);
+        paintTime.recordSince(started);
+    }
+}
@@ -1,10 +1,15 @@
 package gui;
 
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -12,20 +17,39 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.imageio.ImageIO;
-import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.ToolTipManager;
 
 import flightSystem.Plane;
+import flightSystem.PlaneState;
+import flightSystem.SpatialGrid;
 import flightSystem.Waypoint;
+import monitoring.MapRepaintEvent;
+import simulation.PhysicsLoop;
 
 /**
  * PlaneOnMapPanel is a JPanel that displays a plane on a map with waypoints.
  * It handles mouse clicks to add waypoints and key presses to control the plane.
+ * The mouse wheel zooms the map and dragging with the right button pans it.
  */
-public class PlaneOnMapPanel extends JPanel {
+public class PlaneOnMapPanel extends MeteredPanel {
     private static final long serialVersionUID = 1L;
+    private static final double ZOOM_STEP = 1.25; // Zoom factor per mouse wheel notch
+    private static final double INDEX_CELL_SIZE = 64; // World size of a waypoint index cell
+    private static final int WAYPOINT_RADIUS = 5; // Screen radius a waypoint is drawn and hit with
     private Plane plane;
     private List<Waypoint> waypoints;
     public BufferedImage backgroundImage;
+    private BufferedImage scaledBackground = null; // Background scaled to the panel, reused until the size or image changes
+    private BufferedImage scaledFrom = null;       // Background image the scaled copy was made from
+    private long backgroundScales = 0;             // Times the background has been rescaled
+    private final MapViewport viewport = new MapViewport(); // Zoom and pan of the map
+    private TiledMap tiledMap = null;              // Tiles of the background, made on first zoom
+    private Point dragFrom = null;                 // Last position of a right button drag
+    private final SpatialGrid<Waypoint> waypointIndex = new SpatialGrid<>(INDEX_CELL_SIZE); // Waypoints by position
+    private final TrafficLayer trafficLayer = new TrafficLayer(); // Draws traffic and waypoints as stamps
+    private SpatialGrid<?> traffic = null;         // Other aircraft to draw, if set
+    private PhysicsLoop physicsLoop = null;        // Moves the plane on its own thread, if set
 
     /**
      * Constructs a new PlaneOnMapPanel.
@@ -38,6 +62,7 @@ public class PlaneOnMapPanel extends JPanel {
         assert waypoints != null : "Waypoints is null";
         loadBackgroundImage();
         initializeListeners();
+        ToolTipManager.sharedInstance().registerComponent(this);
         setFocusable(true);
         requestFocusInWindow();
     }
@@ -57,31 +82,157 @@ public class PlaneOnMapPanel extends JPanel {
      * Initializes mouse and keyboard listeners.
      */
     private void initializeListeners() {
-        addMouseListener(new MouseAdapter() {
+        MouseAdapter adapter = new MouseAdapter() {
             public void mousePressed(MouseEvent e) {
                 assert e != null : "MouseEvent is null";
-                handleMousePress(e);
+                if (SwingUtilities.isRightMouseButton(e)) {
+                    dragFrom = e.getPoint();
+                } else {
+                    handleMousePress(e);
+                }
             }
-        });
+
+            public void mouseDragged(MouseEvent e) {
+                if (dragFrom != null && SwingUtilities.isRightMouseButton(e)) {
+                    viewport.pan(e.getX() - dragFrom.x, e.getY() - dragFrom.y);
+                    dragFrom = e.getPoint();
+                    repaint();
+                }
+            }
+
+            public void mouseReleased(MouseEvent e) {
+                dragFrom = null;
+            }
+
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoomAt(e.getX(), e.getY(), Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
+            }
+        };
+        addMouseListener(adapter);
+        addMouseMotionListener(adapter);
+        addMouseWheelListener(adapter);
     }
 
     protected void paintComponent(Graphics g) {
         assert g != null : "Graphics object is null";
+        MapRepaintEvent event = new MapRepaintEvent();
+        event.begin();
         super.paintComponent(g);
-        drawBackgroundImage(g);
+        viewport.setSize(getWidth(), getHeight());
+        if (viewport.getZoom() == MapViewport.MIN_ZOOM) {
+            drawBackgroundImage(g);
+        } else {
+            drawTiles(g);
+        }
         drawPlaneAndWaypoints(g);
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = getWidth();
+            event.height = getHeight();
+            event.waypointCount = waypoints.size();
+            event.commit();
+        }
     }
 
     /**
-     * Draws the background image.
+     * Draws the background image. The image is scaled once per panel size,
+     * so each frame is a single unscaled copy.
      * @param g the Graphics object to draw on
      */
     private void drawBackgroundImage(Graphics g) {
         assert g != null : "Graphics object is null";
         assert backgroundImage != null : "Background image is null";
-        if (backgroundImage != null) {
-            g.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), this);
+        BufferedImage scaled = getScaledBackground();
+        if (scaled != null) {
+            g.drawImage(scaled, 0, 0, null);
+        }
+    }
+
+    /**
+     * Draws the visible part of the zoomed background from map tiles.
+     * @param g the Graphics object to draw on
+     */
+    private void drawTiles(Graphics g) {
+        TiledMap map = getTiledMap();
+        if (map != null) {
+            map.draw(g, viewport);
+        }
+    }
+
+    /**
+     * Gets the tiles of the background image, making them again if the
+     * background image has been replaced.
+     * @return the tiled map, or null if there is no background image
+     */
+    public TiledMap getTiledMap() {
+        if (backgroundImage == null) {
+            return null;
+        }
+        if (tiledMap == null || tiledMap.getSource() != backgroundImage) {
+            if (tiledMap != null) {
+                tiledMap.close();
+            }
+            tiledMap = new TiledMap(backgroundImage, getGraphicsConfiguration());
+            tiledMap.setOnTileCut(this::repaint);
+        }
+        return tiledMap;
+    }
+
+    /**
+     * Gets the background image scaled to the panel, rescaling it only if the
+     * panel has been resized or the background image replaced since last time.
+     * @return the scaled background, or null if there is no image or the panel has no area
+     */
+    public BufferedImage getScaledBackground() {
+        int width = getWidth();
+        int height = getHeight();
+        if (backgroundImage == null || width <= 0 || height <= 0) {
+            return null;
         }
+        if (scaledBackground == null || scaledFrom != backgroundImage || scaledBackground.getWidth() != width
+                || scaledBackground.getHeight() != height) {
+            scaledBackground = scaleBackground(width, height);
+            scaledFrom = backgroundImage;
+            backgroundScales++;
+        }
+        return scaledBackground;
+    }
+
+    /**
+     * Scales the background image into an image laid out like the screen, so
+     * drawing it needs no conversion.
+     * @param width the width to scale to
+     * @param height the height to scale to
+     * @return the scaled background
+     */
+    private BufferedImage scaleBackground(int width, int height) {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        BufferedImage scaled = configuration != null
+                ? configuration.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(backgroundImage, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+
+    /**
+     * Replaces the background image. The scaled copy is remade on the next paint.
+     * @param backgroundImage the new background image
+     */
+    public void setBackgroundImage(BufferedImage backgroundImage) {
+        assert backgroundImage != null : "Background image is null";
+        this.backgroundImage = backgroundImage;
+        repaint();
+    }
+
+    /**
+     * Gets the number of times the background has been rescaled. Used for testing.
+     * @return the number of rescales
+     */
+    public long getBackgroundScales() {
+        return backgroundScales;
     }
 
     /**
@@ -90,20 +241,90 @@ public class PlaneOnMapPanel extends JPanel {
      */
     private void drawPlaneAndWaypoints(Graphics g) {
         assert g != null : "Graphics object is null";
-        plane.draw(g);
+        if (traffic != null) {
+            trafficLayer.drawTraffic(g, viewport, traffic);
+        }
+        if (physicsLoop != null) {
+            // Drawn from the latest published state, so painting never waits for a step
+            PlaneState state = physicsLoop.getState();
+            plane.draw(g, viewport.toScreenX(state.getX()), viewport.toScreenY(state.getY()), state.getAngle());
+        } else {
+            plane.draw(g, viewport.toScreenX(plane.getPlaneX()), viewport.toScreenY(plane.getPlaneY()));
+        }
         assert waypoints != null : "Waypoints is null";
-        for (Waypoint waypoint : waypoints) {
-            waypoint.draw(g);
+
+        // Only waypoints in view are drawn, each as one stamp
+        syncWaypointIndex();
+        trafficLayer.drawWaypoints(g, viewport, waypointIndex);
+    }
+
+    /**
+     * Sets the other aircraft to draw under the plane. The index is read on
+     * the event dispatch thread, so it must only be updated there.
+     * @param traffic the positions of the other aircraft in world coordinates, or null for none
+     */
+    public void setTraffic(SpatialGrid<?> traffic) {
+        this.traffic = traffic;
+        repaint();
+    }
+
+    /**
+     * Gets the layer that draws traffic and waypoints.
+     * @return the traffic layer
+     */
+    public TrafficLayer getTrafficLayer() {
+        return trafficLayer;
+    }
+
+    /**
+     * Rebuilds the waypoint index if the waypoint list was changed directly,
+     * as when the management panel clears it.
+     */
+    private void syncWaypointIndex() {
+        if (waypointIndex.size() != waypoints.size()) {
+            waypointIndex.clear();
+            for (Waypoint waypoint : waypoints) {
+                waypointIndex.put(waypoint, waypoint.getPoint().x, waypoint.getPoint().y);
+            }
         }
     }
 
+    /**
+     * Finds the waypoint drawn under a point on the screen.
+     * @param screenPoint the point on the screen
+     * @return the nearest waypoint whose marker covers the point, or null if there is none
+     */
+    public Waypoint getWaypointAt(Point screenPoint) {
+        assert screenPoint != null : "Point is null";
+        syncWaypointIndex();
+        viewport.setSize(getWidth(), getHeight());
+        return waypointIndex.nearest(viewport.toWorldX(screenPoint.x), viewport.toWorldY(screenPoint.y),
+                WAYPOINT_RADIUS / viewport.getZoom());
+    }
+
+    /**
+     * Shows the latitude and longitude of the waypoint under the mouse.
+     * @param e the MouseEvent giving the mouse position
+     * @return the tooltip text, or null if the mouse is not over a waypoint
+     */
+    public String getToolTipText(MouseEvent e) {
+        Waypoint waypoint = getWaypointAt(e.getPoint());
+        if (waypoint == null) {
+            return null;
+        }
+        return String.format("Latitude: %.6f, Longitude: %.6f", viewport.toLatitude(waypoint.getPoint().y),
+                viewport.toLongitude(waypoint.getPoint().x));
+    }
+
     /**
      * Handles mouse press events to add waypoints.
      * @param e the MouseEvent that occurred
      */
     public void handleMousePress(MouseEvent e) {
         assert e != null : "MouseEvent is null";
-        Point clickPoint = e.getPoint();
+        viewport.setSize(getWidth(), getHeight());
+        Point clickPoint = new Point((int) Math.round(viewport.toWorldX(e.getX())),
+                (int) Math.round(viewport.toWorldY(e.getY())));
         assert waypoints != null : "Waypoints is null";
         if (waypoints.size() < 2) {
             addWaypoint(clickPoint);
@@ -117,8 +338,13 @@ public class PlaneOnMapPanel extends JPanel {
     public void addWaypoint(Point point) {
         assert point != null : "Point is null";
         assert waypoints != null : "Waypoints is null";
-        waypoints.add(new Waypoint(point));
-        plane.addWaypoint(point);
+        Waypoint waypoint = new Waypoint(point);
+        syncWaypointIndex();
+        waypoints.add(waypoint);
+        waypointIndex.put(waypoint, point.x, point.y);
+        synchronized (plane) {
+            plane.addWaypoint(point); // The physics loop may be stepping the plane
+        }
         repaint();
     }
 
@@ -129,7 +355,9 @@ public class PlaneOnMapPanel extends JPanel {
     public void update(ActionEvent e) {
         assert e != null : "ActionEvent is null";
         assert waypoints != null : "Waypoints is null";
-        if (waypoints != null && !waypoints.isEmpty()) {
+        if (physicsLoop != null) {
+            physicsLoop.setBounds(getWidth(), getHeight()); // The loop moves the plane; this only repaints
+        } else if (waypoints != null && !waypoints.isEmpty()) {
             plane.moveToFirstPoint();
         } else {
             plane.randomMovement(getWidth(), getHeight());
@@ -137,6 +365,38 @@ public class PlaneOnMapPanel extends JPanel {
         repaint();
     }
 
+    /**
+     * Sets the loop that moves the plane on its own thread on a fixed timestep.
+     * Once set, update() only repaints and the plane is drawn from the loop's
+     * latest state.
+     * @param physicsLoop the physics loop moving this panel's plane, or null to move it in update()
+     */
+    public void setPhysicsLoop(PhysicsLoop physicsLoop) {
+        assert physicsLoop == null || physicsLoop.getPlane() == plane : "Physics loop moves another plane";
+        this.physicsLoop = physicsLoop;
+    }
+
+    /**
+     * Zooms the map, keeping the point under a screen position still.
+     * @param screenX the x position to zoom about
+     * @param screenY the y position to zoom about
+     * @param factor the zoom multiplier, above 1 to zoom in
+     */
+    public void zoomAt(int screenX, int screenY, double factor) {
+        viewport.setSize(getWidth(), getHeight());
+        viewport.zoomAt(screenX, screenY, factor);
+        repaint();
+    }
+
+    /**
+     * Gets the viewport mapping the plane's world coordinates to the screen.
+     * @return the viewport
+     */
+    public MapViewport getViewport() {
+        viewport.setSize(getWidth(), getHeight());
+        return viewport;
+    }
+
     /**
      * Gets the plane.
      * @return the plane
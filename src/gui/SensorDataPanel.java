@@ -1,20 +1,19 @@
 package gui;
 
-import javax.swing.JPanel;
 import javax.swing.JLabel;
 
 import java.awt.Font;
 import java.awt.GridBagLayout;
 import java.awt.GridBagConstraints;
-import java.io.FileReader;
-import java.io.IOException;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.google.gson.JsonSyntaxException;
+import avionics.SensorBus;
+import avionics.SensorChange;
+import avionics.SensorFrameLayout;
+import avionics.SensorFrameReader;
+import avionics.SensorSimulator;
+import avionics.SensorSnapshot;
 
-public class SensorDataPanel extends JPanel {
+public class SensorDataPanel extends MeteredPanel {
 
     // Labels for displaying sensor data
     private JLabel airspeedLabel;
@@ -24,15 +23,53 @@ public class SensorDataPanel extends JPanel {
     private JLabel yawLabel;
     private JLabel thrustLabel;
 
-    // Path to the JSON file containing sensor data
-    private static final String FILE_PATH = "src/resources/data/sensor_data.json";
+    // Bus the sensor snapshots are read from, when the simulator runs in this process
+    private SensorBus sensorBus;
+    // Mapped frame the sensor data is read from, when the simulator runs in another process
+    private SensorFrameReader frameReader;
+    // Version of the snapshot currently displayed
+    private long lastVersion = 0;
+
+    // Slot of each sensor in the mapped frame
+    private static final int AIRSPEED_SLOT = SensorFrameLayout.slotOf("airspeed");
+    private static final int ALTITUDE_SLOT = SensorFrameLayout.slotOf("altitude");
+    private static final int THRUST_SLOT = SensorFrameLayout.slotOf("thrust");
+    private static final int PITCH_SLOT = SensorFrameLayout.slotOf("pitch");
+    private static final int ROLL_SLOT = SensorFrameLayout.slotOf("roll");
+    private static final int YAW_SLOT = SensorFrameLayout.slotOf("yaw");
+
+    // Frame buffers, reused on every read
+    private final int[] frameValues = new int[SensorFrameLayout.getSlotCount()];
+    private final int[] frameMins = new int[SensorFrameLayout.getSlotCount()];
+    private final int[] frameMaxs = new int[SensorFrameLayout.getSlotCount()];
     
     /**
      * A panel that displays sensor data.
      * Initializes the panel displaying updating airspeed, altitude, pitch, roll, yaw, and thrust values.
      * 
+     * @param sensorSimulator the sensor simulator whose snapshots are displayed
+     */
+    public SensorDataPanel(SensorSimulator sensorSimulator) {
+        this();
+        assert sensorSimulator != null : "sensorSimulator is null";
+        this.sensorBus = sensorSimulator.getSensorBus();
+    }
+
+    /**
+     * A panel that displays sensor data published by a simulator in another process.
+     * 
+     * @param frameReader the reader for the simulator's memory-mapped frame
+     */
+    public SensorDataPanel(SensorFrameReader frameReader) {
+        this();
+        assert frameReader != null : "frameReader is null";
+        this.frameReader = frameReader;
+    }
+
+    /**
+     * Creates the labels and layout shared by both data sources.
      */
-    public SensorDataPanel() {
+    private SensorDataPanel() {
         setLayout(new GridBagLayout()); // Set layout manager
 
         // Initialise labels with default text
@@ -68,48 +105,101 @@ public class SensorDataPanel extends JPanel {
         add(yawLabel, constraints);
     }
 
-    
+
     /**
      * Updates the sensor data displayed in the GUI.
-     * Reads the sensor data from a JSON file and updates the corresponding labels.
+     * Reads the latest snapshot from the sensor bus, or the latest frame from the
+     * memory-mapped channel, and updates the corresponding labels.
+     * Nothing is done if no new data has been published since the last update.
      */
     public void updateData() {
-        try (FileReader reader = new FileReader(FILE_PATH)) {
-            // Parse the JSON data from the file
-            JsonElement jsonElement = JsonParser.parseReader(reader);
-
-            // Check if the JSON data is valid (happens when json is being written to the file from sensor simulator and is being read by this method at the same time)
-            if (jsonElement == null || !jsonElement.isJsonObject()) {
-                //System.err.println("Invalid or null JSON data");
-                return; // Exit the method if JSON data is invalid
-            }
+        if (frameReader != null) {
+            updateFromFrame();
+            return;
+        }
+
+        SensorSnapshot snapshot = sensorBus.latest();
+
+        // Nothing has been published yet, or the labels already show this snapshot
+        if (snapshot == null || snapshot.getVersion() == lastVersion) {
+            return;
+        }
+
+        setLabels(snapshot.getValue("airspeed"), snapshot.getValue("altitude"), snapshot.getValue("thrust"),
+                snapshot.getValue("pitch"), snapshot.getValue("roll"), snapshot.getValue("yaw"));
+        lastVersion = snapshot.getVersion();
+        assert lastVersion > 0 : "Published versions start at 1";
+    }
 
-            // Get the JSON object from the parsed data
-            JsonObject jsonObject = jsonElement.getAsJsonObject();
-
-            // Update the labels with the new sensor data if jsonObject is not null
-            if (jsonObject != null) {
-                airspeedLabel.setText("Airspeed (knots): " + jsonObject.get("Airspeed").getAsInt());
-                altitudeLabel.setText("Altitude (feet AMSL): " + jsonObject.get("Altitude").getAsInt());
-                thrustLabel.setText("Engine Thrust (IBF): " + jsonObject.get("Thrust").getAsInt());
-                pitchLabel.setText("Pitch (degrees): " + jsonObject.get("Pitch").getAsInt());
-                rollLabel.setText("Roll (degrees): " + jsonObject.get("Roll").getAsInt());
-                yawLabel.setText("Yaw (degrees): " + jsonObject.get("Yaw").getAsInt());
-                assert jsonObject.get("Airspeed") != null : "Airspeed is null";
-                assert jsonObject.get("Altitude") != null : "Altitude is null";
-                assert jsonObject.get("Thrust") != null : "Thrust is null";
-                assert jsonObject.get("Pitch") != null : "Pitch is null";
-                assert jsonObject.get("Roll") != null : "Roll is null";
-                assert jsonObject.get("Yaw") != null : "Yaw is null";
+    /**
+     * Updates only the labels of the sensors whose value changed.
+     * Called with the changes pushed by a SensorSimulator subscription, so no
+     * work is done on ticks where nothing changed.
+     * 
+     * @param change the latest snapshot and which sensors changed
+     */
+    public void showChange(SensorChange change) {
+        SensorSnapshot snapshot = change.getSnapshot();
+        if (snapshot.getVersion() <= lastVersion) {
+            return; // The labels already show this snapshot or a newer one
+        }
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (change.isValueChanged(i)) {
+                setLabel(snapshot.getKey(i), snapshot.getValue(i));
             }
+        }
+        lastVersion = snapshot.getVersion();
+    }
+
+    /**
+     * Reads the latest frame from the memory-mapped channel and updates the labels.
+     * The frame is copied into reused arrays, so polling allocates nothing.
+     */
+    private void updateFromFrame() {
+        // Nothing has been published yet, or the labels already show this frame
+        if (!frameReader.hasNewFrame() || !frameReader.read(frameValues, frameMins, frameMaxs)) {
+            return;
+        }
 
-        } catch (JsonSyntaxException e) {
-            // Handle JSON syntax errors
-            //System.err.println("Failed to parse JSON data");
-            e.printStackTrace();
-        } catch (IOException e) {
-            // Handle IO exceptions
-            e.printStackTrace();
+        setLabels(frameValues[AIRSPEED_SLOT], frameValues[ALTITUDE_SLOT], frameValues[THRUST_SLOT],
+                frameValues[PITCH_SLOT], frameValues[ROLL_SLOT], frameValues[YAW_SLOT]);
+        lastVersion = frameReader.getVersion();
+    }
+
+    /**
+     * Sets the text of the label for one sensor. Sensors without a label are ignored.
+     * 
+     * @param key   the sensor key
+     * @param value the sensor value
+     */
+    private void setLabel(String key, int value) {
+        switch (key) {
+            case "airspeed": airspeedLabel.setText("Airspeed (knots): " + value); break;
+            case "altitude": altitudeLabel.setText("Altitude (feet AMSL): " + value); break;
+            case "thrust": thrustLabel.setText("Engine Thrust (IBF): " + value); break;
+            case "pitch": pitchLabel.setText("Pitch (degrees): " + value); break;
+            case "roll": rollLabel.setText("Roll (degrees): " + value); break;
+            case "yaw": yawLabel.setText("Yaw (degrees): " + value); break;
+            default: break;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Sets the text of every label.
+     * 
+     * @param airspeed the airspeed in knots
+     * @param altitude the altitude in feet AMSL
+     * @param thrust   the engine thrust in IBF
+     * @param pitch    the pitch in degrees
+     * @param roll     the roll in degrees
+     * @param yaw      the yaw in degrees
+     */
+    private void setLabels(int airspeed, int altitude, int thrust, int pitch, int roll, int yaw) {
+        airspeedLabel.setText("Airspeed (knots): " + airspeed);
+        altitudeLabel.setText("Altitude (feet AMSL): " + altitude);
+        thrustLabel.setText("Engine Thrust (IBF): " + thrust);
+        pitchLabel.setText("Pitch (degrees): " + pitch);
+        rollLabel.setText("Roll (degrees): " + roll);
+        yawLabel.setText("Yaw (degrees): " + yaw);
+    }
+}
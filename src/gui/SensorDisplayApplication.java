@@ -0,0 +1,72 @@
+package gui;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.BorderFactory;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import avionics.SensorFrameReader;
+
+/**
+ * A stand-alone sensor display that runs in its own process and reads sensor
+ * data from the memory-mapped frame published by MainApplication.
+ * Start MainApplication with -Dsensor.frame.file=PATH and pass the same PATH
+ * to this application.
+ */
+public class SensorDisplayApplication extends JFrame {
+
+    private static final int FRAME_WIDTH = 16 * 14;
+    private static final int FRAME_HEIGHT = 9 * 45;
+
+    private static final int UPDATE_PERIOD = 40; // Milliseconds between polls of the frame
+
+    private SensorDataPanel sensorDataPanel;
+
+    /**
+     * Constructs the display frame.
+     * 
+     * @param frameReader the reader for the simulator's memory-mapped frame
+     */
+    public SensorDisplayApplication(SensorFrameReader frameReader) {
+        assert frameReader != null : "Frame reader is not initialized";
+        sensorDataPanel = new SensorDataPanel(frameReader);
+        sensorDataPanel.setBackground(Color.WHITE);
+        sensorDataPanel.setBorder(BorderFactory.createLineBorder(Color.BLACK, 1));
+
+        setTitle("Sensor Data");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(FRAME_WIDTH, FRAME_HEIGHT);
+        setLocationRelativeTo(null);
+        add(sensorDataPanel);
+
+        Timer timer = new Timer(UPDATE_PERIOD, e -> sensorDataPanel.updateData());
+        assert timer != null : "Timer is not initialized";
+        timer.start();
+    }
+
+    /**
+     * The entry point of the display.
+     * 
+     * @param args the path of the frame file written by the simulator
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: SensorDisplayApplication <frame file>");
+            return;
+        }
+
+        try {
+            SensorFrameReader frameReader = new SensorFrameReader(new File(args[0]));
+            SwingUtilities.invokeLater(() -> {
+                SensorDisplayApplication frame = new SensorDisplayApplication(frameReader);
+                frame.setVisible(true);
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package gui;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The TiledMap class draws map imagery of any size at any zoom, from a pyramid
+ * of fixed-size tiles cut from the source image on first use.
+ *
+ * Level 0 fits the whole image in one tile, and each level doubles the
+ * resolution until the last level is the source itself. A frame draws the
+ * tiles of the coarsest level at least as sharp as the screen, so the work
+ * per frame depends on the panel size and never on the image size.
+ *
+ * Tiles are cut on a background thread and kept, as images laid out like the
+ * screen, in a least-recently-used cache bounded in bytes. A tile not cut yet
+ * is drawn from the nearest cached coarser tile, and the tiles around the
+ * view are cut ahead of time, so panning never waits for a tile. The single
+ * level 0 tile is kept outside the cache, so there is always a coarser tile
+ * to fall back on.
+ */
+public class TiledMap implements AutoCloseable {
+    public static final int TILE_SIZE = 256;                        // Width and height of a full tile
+    public static final long DEFAULT_CAPACITY_BYTES = 64L << 20;    // Bytes of tiles cached by default
+    private static final int STALE_FRAMES = 2;                      // Frames after which an uncut request is dropped
+
+    private final BufferedImage source;                     // Full resolution imagery
+    private final GraphicsConfiguration configuration;      // Screen the tiles are laid out for, or null
+    private final int maxLevel;                             // Level cut at source resolution
+    private final int maxTiles;                             // Tiles the cache holds
+    private final Map<Long, BufferedImage> tiles;           // Cut tiles below level 0, least recently used first
+    private volatile BufferedImage root = null;             // The level 0 tile, never evicted
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet(); // Tiles queued for cutting
+    private final ExecutorService cutter;                   // Thread tiles are cut on
+    private volatile Runnable onTileCut = null;             // Run after each tile is cut, if set
+    private volatile long frame = 0;                        // Frames drawn, to recognise stale requests
+    private volatile long tilesCut = 0;                     // Tiles cut since construction
+
+    /**
+     * Constructs a TiledMap with the default cache size.
+     *
+     * @param source        the map imagery
+     * @param configuration the screen the map is drawn on, or null if unknown
+     */
+    public TiledMap(BufferedImage source, GraphicsConfiguration configuration) {
+        this(source, configuration, DEFAULT_CAPACITY_BYTES);
+    }
+
+    /**
+     * Constructs a TiledMap and starts cutting its coarsest tile.
+     *
+     * @param source        the map imagery
+     * @param configuration the screen the map is drawn on, or null if unknown
+     * @param capacityBytes the bytes of tiles to keep cached
+     */
+    public TiledMap(BufferedImage source, GraphicsConfiguration configuration, long capacityBytes) {
+        assert source != null : "Source image cannot be null";
+        this.source = source;
+        this.configuration = configuration;
+
+        int levels = 0;
+        while ((TILE_SIZE << levels) < Math.max(source.getWidth(), source.getHeight())) {
+            levels++;
+        }
+        this.maxLevel = levels;
+
+        this.maxTiles = (int) Math.max(4, capacityBytes / (TILE_SIZE * TILE_SIZE * 4L));
+        this.tiles = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                return size() > maxTiles;
+            }
+        };
+
+        cutter = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "TiledMap");
+            thread.setDaemon(true);
+            return thread;
+        });
+        request(0, 0, 0);
+    }
+
+    /**
+     * Draws the part of the map in view.
+     *
+     * @param g        the graphics context
+     * @param viewport the viewport the map is seen through
+     */
+    public void draw(Graphics g, MapViewport viewport) {
+        long current = ++frame;
+        double zoom = viewport.getZoom();
+        double screenWidth = viewport.getWidth() * zoom;    // Width of the whole map on screen
+        double screenHeight = viewport.getHeight() * zoom;  // Height of the whole map on screen
+
+        // The coarsest level with at least one image pixel per screen pixel
+        int level = 0;
+        while (level < maxLevel && (levelWidth(level) < screenWidth || levelHeight(level) < screenHeight)) {
+            level++;
+        }
+        double scaleX = screenWidth / levelWidth(level);    // Screen pixels per level pixel
+        double scaleY = screenHeight / levelHeight(level);
+        double left = viewport.getOffsetX() * zoom;          // Map position at the view's left edge, in screen pixels
+        double top = viewport.getOffsetY() * zoom;
+
+        int columns = columns(level);
+        int rows = rows(level);
+        int firstColumn = Math.max(0, (int) (left / scaleX / TILE_SIZE));
+        int firstRow = Math.max(0, (int) (top / scaleY / TILE_SIZE));
+        int lastColumn = Math.min(columns - 1, (int) ((left + viewport.getWidth()) / scaleX / TILE_SIZE));
+        int lastRow = Math.min(rows - 1, (int) ((top + viewport.getHeight()) / scaleY / TILE_SIZE));
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                // Both edges come from the same rounding, so neighbouring tiles never leave a seam
+                int x1 = (int) Math.round(column * TILE_SIZE * scaleX - left);
+                int y1 = (int) Math.round(row * TILE_SIZE * scaleY - top);
+                int x2 = (int) Math.round(Math.min(levelWidth(level), (column + 1) * TILE_SIZE) * scaleX - left);
+                int y2 = (int) Math.round(Math.min(levelHeight(level), (row + 1) * TILE_SIZE) * scaleY - top);
+                drawTile(g, level, column, row, x1, y1, x2, y2, current);
+            }
+        }
+
+        // Cut the ring of tiles around the view before a pan reaches them
+        for (int row = firstRow - 1; row <= lastRow + 1; row++) {
+            for (int column = firstColumn - 1; column <= lastColumn + 1; column++) {
+                boolean inside = row >= firstRow && row <= lastRow && column >= firstColumn && column <= lastColumn;
+                if (!inside && row >= 0 && row < rows && column >= 0 && column < columns
+                        && peek(level, column, row) == null) {
+                    request(level, column, row, current);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws one tile into a screen rectangle, or the matching part of the
+     * nearest cached coarser tile if it has not been cut yet.
+     *
+     * @param g       the graphics context
+     * @param level   the tile's level
+     * @param column  the tile's column
+     * @param row     the tile's row
+     * @param x1      the left edge on screen
+     * @param y1      the top edge on screen
+     * @param x2      the right edge on screen
+     * @param y2      the bottom edge on screen
+     * @param current the frame being drawn
+     */
+    private void drawTile(Graphics g, int level, int column, int row, int x1, int y1, int x2, int y2,
+            long current) {
+        BufferedImage tile = peek(level, column, row);
+        if (tile != null) {
+            g.drawImage(tile, x1, y1, x2, y2, 0, 0, tile.getWidth(), tile.getHeight(), null);
+            return;
+        }
+        request(level, column, row, current);
+
+        for (int up = 1; up <= level; up++) {
+            BufferedImage ancestor = peek(level - up, column >> up, row >> up);
+            if (ancestor != null) {
+                // The tile covers a 1/2^up part of its ancestor in each direction
+                int span = TILE_SIZE >> up;
+                int sx = (column & ((1 << up) - 1)) * span;
+                int sy = (row & ((1 << up) - 1)) * span;
+                int tileWidth = Math.min(levelWidth(level), (column + 1) * TILE_SIZE) - column * TILE_SIZE;
+                int tileHeight = Math.min(levelHeight(level), (row + 1) * TILE_SIZE) - row * TILE_SIZE;
+                int sw = Math.max(1, (int) Math.ceil(tileWidth / (double) (1 << up)));
+                int sh = Math.max(1, (int) Math.ceil(tileHeight / (double) (1 << up)));
+                g.drawImage(ancestor, x1, y1, x2, y2, sx, sy, Math.min(ancestor.getWidth(), sx + sw),
+                        Math.min(ancestor.getHeight(), sy + sh), null);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Looks up a cut tile, marking it recently used.
+     *
+     * @param level  the tile's level
+     * @param column the tile's column
+     * @param row    the tile's row
+     * @return the tile, or null if it is not cached
+     */
+    public BufferedImage peek(int level, int column, int row) {
+        if (level == 0) {
+            return root;
+        }
+        synchronized (tiles) {
+            return tiles.get(key(level, column, row));
+        }
+    }
+
+    /**
+     * Queues a tile for cutting on the background thread, unless it is cached or already queued.
+     *
+     * @param level  the tile's level
+     * @param column the tile's column
+     * @param row    the tile's row
+     */
+    public void request(int level, int column, int row) {
+        request(level, column, row, frame);
+    }
+
+    /**
+     * Queues a tile for cutting, remembering the frame that wanted it.
+     *
+     * @param level     the tile's level
+     * @param column    the tile's column
+     * @param row       the tile's row
+     * @param requested the frame that wanted the tile
+     */
+    private void request(int level, int column, int row, long requested) {
+        Long key = key(level, column, row);
+        if (!pending.add(key)) {
+            return;
+        }
+        try {
+            cutter.execute(() -> {
+                // Requests the view has moved away from are dropped, so they can be made again later;
+                // the level 0 tile is the fallback for every other, so it is always cut
+                if ((level == 0 || frame - requested <= STALE_FRAMES) && peek(level, column, row) == null) {
+                    BufferedImage tile = cut(level, column, row);
+                    if (level == 0) {
+                        root = tile;
+                    } else {
+                        synchronized (tiles) {
+                            tiles.put(key, tile);
+                        }
+                    }
+                    tilesCut++;
+                    Runnable callback = onTileCut;
+                    if (callback != null) {
+                        callback.run();
+                    }
+                }
+                pending.remove(key);
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key); // Closed
+        }
+    }
+
+    /**
+     * Cuts a tile out of the source and scales it down to its level.
+     *
+     * @param level  the tile's level
+     * @param column the tile's column
+     * @param row    the tile's row
+     * @return the tile, at most TILE_SIZE on each side
+     */
+    private BufferedImage cut(int level, int column, int row) {
+        int shift = maxLevel - level;
+        long span = (long) TILE_SIZE << shift; // Source pixels covered by a full tile
+        int sx = (int) (column * span);
+        int sy = (int) (row * span);
+        int sw = (int) Math.min(span, source.getWidth() - sx);
+        int sh = (int) Math.min(span, source.getHeight() - sy);
+        int width = Math.max(1, (int) Math.ceil(sw / (double) (1L << shift)));
+        int height = Math.max(1, (int) Math.ceil(sh / (double) (1L << shift)));
+
+        BufferedImage tile = configuration != null
+                ? configuration.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = tile.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(source, 0, 0, width, height, sx, sy, sx + sw, sy + sh, null);
+        g.dispose();
+        return tile;
+    }
+
+    /**
+     * Packs a tile's position into a cache key.
+     *
+     * @param level  the tile's level
+     * @param column the tile's column
+     * @param row    the tile's row
+     * @return the key
+     */
+    private static Long key(int level, int column, int row) {
+        return ((long) level << 48) | ((long) column << 24) | row;
+    }
+
+    /**
+     * Retrieves the width of the whole map at a level.
+     *
+     * @param level the level
+     * @return the width in level pixels
+     */
+    private int levelWidth(int level) {
+        return (int) Math.ceil(source.getWidth() / (double) (1L << (maxLevel - level)));
+    }
+
+    /**
+     * Retrieves the height of the whole map at a level.
+     *
+     * @param level the level
+     * @return the height in level pixels
+     */
+    private int levelHeight(int level) {
+        return (int) Math.ceil(source.getHeight() / (double) (1L << (maxLevel - level)));
+    }
+
+    /**
+     * Retrieves the number of tile columns at a level.
+     *
+     * @param level the level
+     * @return the number of columns
+     */
+    public int columns(int level) {
+        return (levelWidth(level) + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    /**
+     * Retrieves the number of tile rows at a level.
+     *
+     * @param level the level
+     * @return the number of rows
+     */
+    public int rows(int level) {
+        return (levelHeight(level) + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    /**
+     * Sets code to run on the cutting thread after each tile is cut, such as a repaint.
+     *
+     * @param onTileCut the callback, or null for none
+     */
+    public void setOnTileCut(Runnable onTileCut) {
+        this.onTileCut = onTileCut;
+    }
+
+    /**
+     * Retrieves the imagery the tiles are cut from.
+     *
+     * @return the source image
+     */
+    public BufferedImage getSource() {
+        return source;
+    }
+
+    /**
+     * Retrieves the level cut at source resolution.
+     *
+     * @return the deepest level
+     */
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * Retrieves the number of tiles the cache holds.
+     *
+     * @return the cache capacity in tiles
+     */
+    public int getMaxTiles() {
+        return maxTiles;
+    }
+
+    /**
+     * Retrieves the number of tiles in the least-recently-used cache, which
+     * excludes the level 0 tile.
+     *
+     * @return the number of tiles
+     */
+    public int getCachedTiles() {
+        synchronized (tiles) {
+            return tiles.size();
+        }
+    }
+
+    /**
+     * Retrieves the number of tiles cut since construction, including ones since evicted.
+     *
+     * @return the number of tiles cut
+     */
+    public long getTilesCut() {
+        return tilesCut;
+    }
+
+    /**
+     * Stops cutting tiles. Queued tiles are discarded.
+     */
+    public void close() {
+        cutter.shutdownNow();
+    }
+}
@@ -0,0 +1,251 @@
+package gui;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import flightSystem.SpatialGrid;
+
+/**
+ * The TrafficLayer class draws dense traffic over the map from a spatial
+ * index of aircraft positions.
+ *
+ * Every symbol style is rendered once into a small stamp image, so each
+ * symbol is a single image copy with no colour or stroke changes between
+ * them. Only objects inside the viewport are visited.
+ *
+ * When the index cells are no wider on screen than CLUSTER_PIXELS, aircraft
+ * are drawn as clusters instead: neighbouring cells are merged into bins at
+ * least CLUSTER_PIXELS wide and each bin is one marker at the mean position
+ * of its aircraft, sized by their number. The counts and position sums come
+ * from the index cells, which keep them up to date as aircraft move, so a
+ * clustered frame costs one step per occupied cell, not per aircraft.
+ */
+public class TrafficLayer {
+    public static final int CLUSTER_PIXELS = 40;        // Smallest on-screen width of a cluster bin
+    private static final int AIRCRAFT_SIZE = 6;         // Width of an aircraft symbol
+    private static final int WAYPOINT_SIZE = 10;        // Width of a waypoint symbol
+    private static final int MAX_CLUSTER_RADIUS = 20;   // Radius of the largest cluster marker
+    private static final Color AIRCRAFT_COLOR = new Color(255, 200, 0);
+    private static final Color CLUSTER_COLOR = new Color(255, 140, 0, 200);
+    private static final Font CLUSTER_FONT = new Font("Arial", Font.BOLD, 10);
+
+    private final BufferedImage aircraftStamp = createStamp(AIRCRAFT_SIZE, AIRCRAFT_COLOR, Color.BLACK);
+    private final BufferedImage waypointStamp = createStamp(WAYPOINT_SIZE, Color.RED, Color.BLACK);
+    private final Map<Integer, BufferedImage> clusterStamps = new HashMap<>(); // Cluster markers by radius
+
+    private final Map<Long, Bin> bins = new HashMap<>();    // Bins of the frame being drawn
+    private final List<Bin> binPool = new ArrayList<>();    // Bins reused from frame to frame
+    private int stamped = 0;        // Stamps copied by the current drawStamps() call
+    private int lastSymbols = 0;    // Stamps copied in the last frame
+    private int lastClusters = 0;   // Cluster markers in the last frame
+    private int lastAircraft = 0;   // Aircraft represented in the last frame
+
+    /**
+     * Draws the aircraft in view, clustered if the view is zoomed out far enough.
+     *
+     * @param g        the graphics context
+     * @param viewport the viewport the map is seen through
+     * @param traffic  the aircraft positions, in world coordinates
+     */
+    public void drawTraffic(Graphics g, MapViewport viewport, SpatialGrid<?> traffic) {
+        assert g != null && viewport != null && traffic != null : "Arguments cannot be null";
+        lastSymbols = 0;
+        lastClusters = 0;
+        lastAircraft = 0;
+        double cellPixels = traffic.getCellSize() * viewport.getZoom();
+        if (cellPixels <= CLUSTER_PIXELS) {
+            drawClusters(g, viewport, traffic, Math.max(1, (int) (CLUSTER_PIXELS / cellPixels)));
+        } else {
+            lastSymbols = drawStamps(g, viewport, traffic, aircraftStamp);
+            lastAircraft = lastSymbols;
+        }
+    }
+
+    /**
+     * Draws waypoint markers in view.
+     *
+     * @param g         the graphics context
+     * @param viewport  the viewport the map is seen through
+     * @param waypoints the waypoint positions, in world coordinates
+     */
+    public void drawWaypoints(Graphics g, MapViewport viewport, SpatialGrid<?> waypoints) {
+        drawStamps(g, viewport, waypoints, waypointStamp);
+    }
+
+    /**
+     * Copies a stamp centred on every position in view.
+     *
+     * @param g        the graphics context
+     * @param viewport the viewport the map is seen through
+     * @param grid     the positions, in world coordinates
+     * @param stamp    the stamp to copy
+     * @return the number of stamps copied
+     */
+    private int drawStamps(Graphics g, MapViewport viewport, SpatialGrid<?> grid, BufferedImage stamp) {
+        int half = stamp.getWidth() / 2;
+        double margin = half / viewport.getZoom(); // Symbols partly in view are drawn too
+        stamped = 0;
+        grid.forEachPointInRect(viewport.toWorldX(0) - margin, viewport.toWorldY(0) - margin,
+                viewport.toWorldX(viewport.getWidth()) + margin, viewport.toWorldY(viewport.getHeight()) + margin,
+                (x, y) -> {
+                    g.drawImage(stamp, (int) Math.round(viewport.toScreenX(x)) - half,
+                            (int) Math.round(viewport.toScreenY(y)) - half, null);
+                    stamped++;
+                });
+        return stamped;
+    }
+
+    /**
+     * Merges the index cells in view into bins and draws one marker per bin.
+     *
+     * @param g        the graphics context
+     * @param viewport the viewport the map is seen through
+     * @param traffic  the aircraft positions, in world coordinates
+     * @param factor   the number of cells across a bin
+     */
+    private void drawClusters(Graphics g, MapViewport viewport, SpatialGrid<?> traffic, int factor) {
+        bins.clear();
+        double cellSize = traffic.getCellSize();
+        double margin = cellSize * factor;
+        traffic.forEachCellInRect(viewport.toWorldX(0) - margin, viewport.toWorldY(0) - margin,
+                viewport.toWorldX(viewport.getWidth()) + margin, viewport.toWorldY(viewport.getHeight()) + margin,
+                (column, row, count, sumX, sumY) -> {
+                    long key = (Math.floorDiv(column, factor) << 32) | (Math.floorDiv(row, factor) & 0xffffffffL);
+                    Bin bin = bins.get(key);
+                    if (bin == null) {
+                        bin = nextBin();
+                        bins.put(key, bin);
+                    }
+                    bin.count += count;
+                    bin.sumX += sumX;
+                    bin.sumY += sumY;
+                });
+
+        for (Bin bin : bins.values()) {
+            double screenX = viewport.toScreenX(bin.sumX / bin.count);
+            double screenY = viewport.toScreenY(bin.sumY / bin.count);
+            if (screenX < -MAX_CLUSTER_RADIUS || screenY < -MAX_CLUSTER_RADIUS
+                    || screenX > viewport.getWidth() + MAX_CLUSTER_RADIUS
+                    || screenY > viewport.getHeight() + MAX_CLUSTER_RADIUS) {
+                continue; // Bins overlapping the view can still centre far outside it
+            }
+            lastAircraft += bin.count;
+            if (bin.count == 1) {
+                int half = AIRCRAFT_SIZE / 2;
+                g.drawImage(aircraftStamp, (int) Math.round(screenX) - half, (int) Math.round(screenY) - half, null);
+                lastSymbols++;
+            } else {
+                drawCluster(g, (int) Math.round(screenX), (int) Math.round(screenY), bin.count);
+                lastClusters++;
+            }
+        }
+    }
+
+    /**
+     * Takes a cleared bin from the pool, growing the pool if every bin is in use.
+     *
+     * @return the bin
+     */
+    private Bin nextBin() {
+        int index = bins.size();
+        if (index == binPool.size()) {
+            binPool.add(new Bin());
+        }
+        Bin bin = binPool.get(index);
+        bin.count = 0;
+        bin.sumX = 0;
+        bin.sumY = 0;
+        return bin;
+    }
+
+    /**
+     * Draws one cluster marker with its aircraft count.
+     *
+     * @param g     the graphics context
+     * @param x     the x position of the centre on screen
+     * @param y     the y position of the centre on screen
+     * @param count the number of aircraft in the cluster
+     */
+    private void drawCluster(Graphics g, int x, int y, int count) {
+        int radius = Math.min(MAX_CLUSTER_RADIUS, 5 + 2 * (31 - Integer.numberOfLeadingZeros(count)));
+        BufferedImage stamp = clusterStamps.get(radius);
+        if (stamp == null) {
+            stamp = createStamp(radius * 2, CLUSTER_COLOR, Color.WHITE);
+            clusterStamps.put(radius, stamp);
+        }
+        g.drawImage(stamp, x - radius, y - radius, null);
+
+        String label = count < 1000 ? Integer.toString(count) : (count / 1000) + "k";
+        g.setFont(CLUSTER_FONT);
+        g.setColor(Color.BLACK);
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(label, x - metrics.stringWidth(label) / 2, y + metrics.getAscent() / 2 - 1);
+    }
+
+    /**
+     * Renders a filled, outlined circle into a stamp.
+     *
+     * @param size    the width and height of the circle
+     * @param fill    the fill colour
+     * @param outline the outline colour
+     * @return the stamp
+     */
+    private static BufferedImage createStamp(int size, Color fill, Color outline) {
+        BufferedImage stamp = new BufferedImage(size + 1, size + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = stamp.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(fill);
+        g.fillOval(0, 0, size, size);
+        g.setColor(outline);
+        g.setStroke(new BasicStroke(1));
+        g.drawOval(0, 0, size, size);
+        g.dispose();
+        return stamp;
+    }
+
+    /**
+     * Retrieves the number of stamps copied in the last frame.
+     *
+     * @return the number of single symbols drawn
+     */
+    public int getLastSymbols() {
+        return lastSymbols;
+    }
+
+    /**
+     * Retrieves the number of cluster markers drawn in the last frame.
+     *
+     * @return the number of clusters
+     */
+    public int getLastClusters() {
+        return lastClusters;
+    }
+
+    /**
+     * Retrieves the number of aircraft shown in the last frame, singly or in clusters.
+     *
+     * @return the number of aircraft
+     */
+    public int getLastAircraft() {
+        return lastAircraft;
+    }
+
+    /**
+     * The aircraft of the index cells merged into one cluster.
+     */
+    private static final class Bin {
+        private int count;      // Aircraft in the bin
+        private double sumX;    // Sum of their x positions
+        private double sumY;    // Sum of their y positions
+    }
+}
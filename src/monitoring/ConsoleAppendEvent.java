@@ -0,0 +1,25 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one line appended to the console panel's log.
+ */
+@Name("avionics.ConsoleAppend")
+@Label("Console Append")
+@Category({ "Avionics", "GUI" })
+@Description("One line appended to the console log")
+@StackTrace(false)
+public class ConsoleAppendEvent extends jdk.jfr.Event {
+
+    @Label("Message")
+    public String message;
+
+    @Label("Record Count")
+    @Description("Records held by the console after the append")
+    public int recordCount;
+}
@@ -0,0 +1,35 @@
+package monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Counter class is a lock-free count that any number of threads can
+ * increment without contending on a single memory location.
+ */
+public class Counter implements CounterMXBean {
+    private final LongAdder count = new LongAdder(); // Striped running count
+
+    /**
+     * Adds one to the count.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds to the count.
+     *
+     * @param amount the amount to add
+     */
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public void reset() {
+        count.reset();
+    }
+}
@@ -0,0 +1,19 @@
+package monitoring;
+
+/**
+ * The management interface of a Counter, as seen from JConsole or any JMX client.
+ */
+public interface CounterMXBean {
+
+    /**
+     * Retrieves the current count.
+     *
+     * @return the count
+     */
+    long getCount();
+
+    /**
+     * Sets the count back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,26 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one hazard evaluation, carrying the faults found
+ * as a bit mask of the *_FAULT constants.
+ */
+@Name("avionics.HazardCheck")
+@Label("Hazard Check")
+@Category({ "Avionics", "Hazards" })
+@Description("One evaluation of the hazard conditions against the latest sensor snapshot")
+@StackTrace(false)
+public class HazardCheckEvent extends jdk.jfr.Event {
+    public static final int AIRSPEED_FAULT = 1;     // Airspeed out of range
+    public static final int ALTITUDE_FAULT = 2;     // Altitude out of range
+    public static final int ATTITUDE_FAULT = 4;     // Pitch, roll or yaw out of range
+
+    @Label("Fault Mask")
+    @Description("1 = airspeed, 2 = altitude, 4 = attitude; 0 when the system is safe")
+    public int faultMask;
+}
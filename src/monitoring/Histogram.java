@@ -0,0 +1,109 @@
+package monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Histogram class records the distribution of non-negative long values,
+ * such as durations in nanoseconds or allocations in bytes, without locking.
+ *
+ * Values are counted in power-of-two buckets: bucket 0 holds 0, and bucket b
+ * holds values from 2^(b-1) up to 2^b - 1. Recording a value is a few atomic
+ * increments, and percentiles are reported as the upper bound of the bucket
+ * they fall in, so they are accurate to within a factor of two.
+ */
+public class Histogram implements HistogramMXBean {
+    private static final int BUCKETS = 64;                                  // One per bit length of a non-negative long
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);   // Values recorded per bucket
+    private final LongAdder count = new LongAdder();                        // Values recorded
+    private final LongAdder total = new LongAdder();                        // Sum of the values recorded
+    private final AtomicLong max = new AtomicLong();                        // Largest value recorded
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+        count.increment();
+        total.add(value);
+
+        // Only contend on the maximum when the value might beat it
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Records the time since a start time taken from System.nanoTime().
+     *
+     * @param startNanos the start time
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Retrieves an upper bound on a percentile.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the upper bound of the bucket holding the percentile, or 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        assert percentile >= 0 && percentile <= 100 : "Percentile must be between 0 and 100";
+        long recorded = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            recorded += counts[i];
+        }
+        long rank = (long) Math.ceil(recorded * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return Math.min((1L << i) - 1, max.get()); // Wraps to Long.MAX_VALUE for the top bucket
+            }
+        }
+        return 0;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getMedian() {
+        return getPercentile(50);
+    }
+
+    public long getPercentile99() {
+        return getPercentile(99);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+}
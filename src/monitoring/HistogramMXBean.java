@@ -0,0 +1,55 @@
+package monitoring;
+
+/**
+ * The management interface of a Histogram, as seen from JConsole or any JMX client.
+ * Values are in the unit named by the histogram, usually nanoseconds or bytes.
+ */
+public interface HistogramMXBean {
+
+    /**
+     * Retrieves the number of values recorded.
+     *
+     * @return the count
+     */
+    long getCount();
+
+    /**
+     * Retrieves the sum of the values recorded.
+     *
+     * @return the total
+     */
+    long getTotal();
+
+    /**
+     * Retrieves the mean of the values recorded.
+     *
+     * @return the mean, or 0 if nothing has been recorded
+     */
+    double getMean();
+
+    /**
+     * Retrieves the largest value recorded.
+     *
+     * @return the maximum, or 0 if nothing has been recorded
+     */
+    long getMax();
+
+    /**
+     * Retrieves an upper bound on the median.
+     *
+     * @return the 50th percentile
+     */
+    long getMedian();
+
+    /**
+     * Retrieves an upper bound on the 99th percentile.
+     *
+     * @return the 99th percentile
+     */
+    long getPercentile99();
+
+    /**
+     * Clears every value recorded so far.
+     */
+    void reset();
+}
@@ -0,0 +1,27 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one repaint of the plane on the map.
+ */
+@Name("avionics.MapRepaint")
+@Label("Map Repaint")
+@Category({ "Avionics", "GUI" })
+@Description("One paint of the map background, plane and waypoints")
+@StackTrace(false)
+public class MapRepaintEvent extends jdk.jfr.Event {
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Waypoints")
+    public int waypointCount;
+}
@@ -0,0 +1,149 @@
+package monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The MetricsRegistry class holds named histograms and counters, creating each
+ * on first use. The default registry also exposes every metric it creates as
+ * an MBean on the platform MBean server, under DOMAIN:type=Histogram,name=...
+ * or DOMAIN:type=Counter,name=..., so it can be read from JConsole.
+ *
+ * Components look their metrics up once and keep them, so recording never
+ * touches the registry itself.
+ */
+public class MetricsRegistry {
+    public static final String DOMAIN = "avionics";                             // JMX domain of the registered metrics
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry(true);   // Registry exposed over JMX
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean(); // Null if unsupported
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>(); // Histograms by name
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();     // Counters by name
+    private final boolean exposed;                                               // Whether metrics are registered as MBeans
+
+    /**
+     * Constructs a registry whose metrics are not exposed over JMX, for tests
+     * and for components that keep their metrics private.
+     */
+    public MetricsRegistry() {
+        this(false);
+    }
+
+    /**
+     * Constructs a registry.
+     *
+     * @param exposed true to register every metric as an MBean
+     */
+    private MetricsRegistry(boolean exposed) {
+        this.exposed = exposed;
+    }
+
+    /**
+     * Retrieves the registry that is exposed over JMX.
+     *
+     * @return the default registry
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Retrieves a histogram, creating it if it does not exist.
+     *
+     * @param name the name of the histogram, ending in its unit, e.g. "persistence.writeNanos"
+     * @return the histogram
+     */
+    public Histogram histogram(String name) {
+        assert name != null && !name.isEmpty() : "Name cannot be empty";
+        return histograms.computeIfAbsent(name, key -> register("Histogram", key, new Histogram()));
+    }
+
+    /**
+     * Retrieves a counter, creating it if it does not exist.
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public Counter counter(String name) {
+        assert name != null && !name.isEmpty() : "Name cannot be empty";
+        return counters.computeIfAbsent(name, key -> register("Counter", key, new Counter()));
+    }
+
+    /**
+     * Retrieves every histogram created so far.
+     *
+     * @return the histograms by name
+     */
+    public Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     * Retrieves every counter created so far.
+     *
+     * @return the counters by name
+     */
+    public Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    /**
+     * Registers a metric as an MBean, if this registry is exposed.
+     *
+     * @param type   the MBean type
+     * @param name   the metric name
+     * @param metric the metric
+     * @return the metric
+     */
+    private <T> T register(String type, String name, T metric) {
+        if (!exposed) {
+            return metric;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metric, objectName);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+        return metric;
+    }
+
+    /**
+     * Retrieves the number of bytes the current thread has allocated so far.
+     * Take the difference of two calls to measure the allocation in between.
+     *
+     * @return the bytes allocated, or -1 if the JVM cannot measure it
+     */
+    public static long allocatedBytes() {
+        return ALLOCATION_BEAN == null ? -1 : ALLOCATION_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Finds the thread bean that measures allocation, and enables the measurement.
+     *
+     * @return the bean, or null if the JVM cannot measure allocation per thread
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        if (!allocationBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        return allocationBean;
+    }
+}
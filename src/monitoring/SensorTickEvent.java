@@ -0,0 +1,38 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+
+/**
+ * A Flight Recorder event for one SensorSimulator tick: the sensors updated
+ * together, and how long updating and publishing them took.
+ */
+@Name("avionics.SensorTick")
+@Label("Sensor Tick")
+@Category({ "Avionics", "Sensors" })
+@Description("Sensors updated and published together on one timing wheel tick")
+@StackTrace(false)
+public class SensorTickEvent extends jdk.jfr.Event {
+
+    @Label("Sensors")
+    @Description("Names of the sensors updated on the tick")
+    public String sensors;
+
+    @Label("Sensor Count")
+    public int sensorCount;
+
+    @Label("Tick Time")
+    @Description("Simulation time the tick was due")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    public long tickTime;
+
+    @Label("Lateness")
+    @Description("How far simulation time had passed the tick when it ran")
+    @Timespan(Timespan.MILLISECONDS)
+    public long lateness;
+}
@@ -0,0 +1,114 @@
+package simulation;
+
+import avionics.SensorSimulator;
+import flightSystem.Autopilot;
+import flightSystem.Plane;
+
+/**
+ * The Aircraft class bundles everything one simulated aircraft owns: its own
+ * sensor set, its Plane kinematics and its Autopilot.
+ * Nothing is shared between aircraft except the read-only simulation clock, so
+ * different aircraft can be stepped on different threads at the same time.
+ */
+public class Aircraft {
+    private final int id;                           // Position of the aircraft in its fleet
+    private final SensorSimulator sensorSimulator;  // This aircraft's sensors
+    private final Plane plane;                      // This aircraft's kinematics
+    private final Autopilot autopilot;              // This aircraft's autopilot
+
+    /**
+     * Constructs an Aircraft whose sensors are timestamped by the given clock.
+     *
+     * @param id     the position of the aircraft in its fleet
+     * @param clock  the simulation clock
+     * @param startX the starting x position
+     * @param startY the starting y position
+     */
+    public Aircraft(int id, SimulationClock clock, double startX, double startY) {
+        assert clock != null : "Clock cannot be null";
+        this.id = id;
+        this.sensorSimulator = new SensorSimulator();
+        this.plane = new Plane();
+        this.autopilot = new Autopilot();
+
+        sensorSimulator.setClock(clock);
+        sensorSimulator.createSensors();
+        plane.setPlaneX(startX);
+        plane.setPlaneY(startY);
+    }
+
+    /**
+     * Advances the aircraft to the given time: updates every sensor that is due,
+     * then moves the plane one step.
+     *
+     * @param nowMillis the simulation time in milliseconds
+     * @param maxWidth  the width of the movement area
+     * @param maxHeight the height of the movement area
+     */
+    public void step(long nowMillis, int maxWidth, int maxHeight) {
+        sensorSimulator.advanceTo(nowMillis);
+        plane.step(maxWidth, maxHeight);
+    }
+
+    /**
+     * Submits speed and altitude limits to this aircraft's autopilot, applying
+     * them to this aircraft's own airspeed and altitude sensors.
+     *
+     * @param minSpeed    the minimum speed
+     * @param maxSpeed    the maximum speed
+     * @param minAltitude the minimum altitude
+     * @param maxAltitude the maximum altitude
+     * @return true if the limits were accepted and the autopilot engaged, false if they were out of range
+     */
+    public synchronized boolean submitAutopilot(int minSpeed, int maxSpeed, int minAltitude, int maxAltitude) {
+        autopilot.setMinSpeed(minSpeed);
+        autopilot.setMaxSpeed(maxSpeed);
+        autopilot.setMinAltitude(minAltitude);
+        autopilot.setMaxAltitude(maxAltitude);
+        if (!autopilot.isWithinLimits()) {
+            return false;
+        }
+        synchronized (sensorSimulator) { // The fleet may be stepping these sensors
+            sensorSimulator.getSensors().get("altitude").setMinMax(minAltitude, maxAltitude);
+            sensorSimulator.getSensors().get("airspeed").setMinMax(minSpeed, maxSpeed);
+        }
+        autopilot.submit();
+        return true;
+    }
+
+    /**
+     * Retrieves the position of the aircraft in its fleet.
+     *
+     * @return the id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Retrieves the aircraft's sensors.
+     *
+     * @return the sensor simulator
+     */
+    public SensorSimulator getSensorSimulator() {
+        return sensorSimulator;
+    }
+
+    /**
+     * Retrieves the aircraft's kinematics.
+     *
+     * @return the plane
+     */
+    public Plane getPlane() {
+        return plane;
+    }
+
+    /**
+     * Retrieves the aircraft's autopilot.
+     *
+     * @return the autopilot
+     */
+    public Autopilot getAutopilot() {
+        return autopilot;
+    }
+}
@@ -0,0 +1,181 @@
+package simulation;
+
+import avionics.SensorSimulator;
+import avionics.SensorSnapshot;
+import flightSystem.Plane;
+
+/**
+ * The FastTimeSimulation class runs the sensors and the plane on a virtual
+ * clock, without Swing timers or scheduler threads.
+ * Sensors update at their real periods through the simulator's timing wheel,
+ * which is advanced on the virtual clock, and the plane moves every
+ * PLANE_STEP_PERIOD of simulated time, so a long-haul flight can be simulated
+ * headless in seconds or watched at any speed multiplier.
+ * Elapsed flight time is measured on the virtual clock by the same FlightTimer
+ * the management panel uses, from the start of the run until the plane reaches
+ * its destination.
+ */
+public class FastTimeSimulation {
+    public static final long PLANE_STEP_PERIOD = 40;    // Milliseconds of simulated time between plane movements
+    public static final int MAP_WIDTH = 660;            // Default width of the movement area
+    public static final int MAP_HEIGHT = 390;           // Default height of the movement area
+
+    private final VirtualClock clock;                   // Simulated time
+    private final SimulationRunner runner;              // Runs the periodic tasks against the clock
+    private final SensorSimulator sensorSimulator;      // The plane's sensors
+    private final Plane plane;                          // The simulated plane
+    private final FlightTimer flightTimer;              // Elapsed flight time on the virtual clock
+    private final int mapWidth;                         // Width of the movement area
+    private final int mapHeight;                        // Height of the movement area
+
+    /**
+     * Constructs a FastTimeSimulation over the default movement area.
+     *
+     * @param startMillis the simulated time the flight starts at
+     */
+    public FastTimeSimulation(long startMillis) {
+        this(startMillis, new SensorSimulator(), new Plane(), MAP_WIDTH, MAP_HEIGHT);
+    }
+
+    /**
+     * Constructs a FastTimeSimulation for the given sensors and plane.
+     * Sensor updates are scheduled before plane movement, so a plane step always
+     * sees the sensor values published at the same simulated time.
+     *
+     * @param startMillis     the simulated time the flight starts at
+     * @param sensorSimulator the sensors to update
+     * @param plane           the plane to move
+     * @param mapWidth        the width of the movement area
+     * @param mapHeight       the height of the movement area
+     */
+    public FastTimeSimulation(long startMillis, SensorSimulator sensorSimulator, Plane plane, int mapWidth,
+            int mapHeight) {
+        assert sensorSimulator != null : "SensorSimulator cannot be null";
+        assert plane != null : "Plane cannot be null";
+        this.clock = new VirtualClock(startMillis);
+        this.runner = new SimulationRunner(clock);
+        this.sensorSimulator = sensorSimulator;
+        this.plane = plane;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+
+        this.flightTimer = new FlightTimer(clock);
+
+        sensorSimulator.setClock(clock);
+        sensorSimulator.createSensors();
+
+        runner.schedule(SensorSimulator.WHEEL_TICK, () -> sensorSimulator.advanceTo(clock.currentTimeMillis()));
+        runner.schedule(PLANE_STEP_PERIOD, this::stepPlane);
+        flightTimer.start();
+    }
+
+    /**
+     * Moves the plane one step, and stops the flight timer once it reaches its destination.
+     */
+    private void stepPlane() {
+        plane.step(mapWidth, mapHeight);
+        if (flightTimer.isRunning() && plane.isAtDestination()) {
+            flightTimer.stop();
+        }
+    }
+
+    /**
+     * Runs the simulation for the given amount of simulated time.
+     *
+     * @param durationMillis the simulated time to run for in milliseconds
+     * @return the number of task runs executed
+     */
+    public long runFor(long durationMillis) {
+        return runner.runFor(durationMillis);
+    }
+
+    /**
+     * Sets how fast simulated time passes relative to wall time.
+     *
+     * @param speedMultiplier 1 for real time, or SimulationRunner.UNTHROTTLED
+     */
+    public void setSpeedMultiplier(double speedMultiplier) {
+        runner.setSpeedMultiplier(speedMultiplier);
+    }
+
+    /**
+     * Retrieves the virtual clock, for components that measure simulated time.
+     *
+     * @return the clock
+     */
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Retrieves the elapsed flight time: the simulated time since the start of
+     * the run, or until the plane reached its destination if it has.
+     *
+     * @return the elapsed flight time in milliseconds
+     */
+    public long getElapsedFlightTime() {
+        return flightTimer.update();
+    }
+
+    /**
+     * Retrieves the flight timer, which measures flight time on the virtual clock.
+     *
+     * @return the flight timer
+     */
+    public FlightTimer getFlightTimer() {
+        return flightTimer;
+    }
+
+    /**
+     * Retrieves the runner, so callers can schedule additional tasks. Tasks
+     * scheduled here run after the sensors and plane at the same simulated time.
+     *
+     * @return the runner
+     */
+    public SimulationRunner getRunner() {
+        return runner;
+    }
+
+    /**
+     * Retrieves the simulated sensors.
+     *
+     * @return the sensor simulator
+     */
+    public SensorSimulator getSensorSimulator() {
+        return sensorSimulator;
+    }
+
+    /**
+     * Retrieves the simulated plane.
+     *
+     * @return the plane
+     */
+    public Plane getPlane() {
+        return plane;
+    }
+
+    /**
+     * Runs a headless fast-time flight and prints a summary.
+     *
+     * @param args the flight length in hours (default 10) and the speed
+     *             multiplier (default unthrottled)
+     */
+    public static void main(String[] args) {
+        double hours = args.length > 0 ? Double.parseDouble(args[0]) : 10;
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : SimulationRunner.UNTHROTTLED;
+
+        FastTimeSimulation simulation = new FastTimeSimulation(0);
+        simulation.setSpeedMultiplier(speed);
+
+        long wallStart = System.nanoTime();
+        long runs = simulation.runFor((long) (hours * 3_600_000));
+        long wallMillis = (System.nanoTime() - wallStart) / 1_000_000;
+
+        SensorSnapshot snapshot = simulation.getSensorSimulator().getSensorBus().latest();
+        System.out.println("Simulated " + hours + " hours in " + wallMillis + " ms (" + runs + " task runs)");
+        System.out.printf("Elapsed flight time: %.2f hours%n", simulation.getElapsedFlightTime() / 3_600_000.0);
+        System.out.println("Final sensors: " + snapshot);
+        System.out.printf("Final plane position: (%.1f, %.1f)%n", simulation.getPlane().getPlaneX(),
+                simulation.getPlane().getPlaneY());
+    }
+}
@@ -0,0 +1,239 @@
+package simulation;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import flightSystem.SpatialGrid;
+
+/**
+ * The FleetSimulation class steps thousands of independent aircraft on a
+ * virtual clock, spreading each step across cores with a ForkJoinPool.
+ *
+ * Every step advances the clock by STEP_PERIOD, then splits the fleet into
+ * contiguous ranges that are stepped in parallel. Aircraft share no mutable
+ * state, so ranges need no locking, and the step only returns once every
+ * aircraft has reached the new time.
+ */
+public class FleetSimulation {
+    public static final long STEP_PERIOD = FastTimeSimulation.PLANE_STEP_PERIOD; // Simulated milliseconds per step
+    private static final int MIN_BATCH = 16;                                    // Fewest aircraft worth a task of their own
+
+    private final Aircraft[] fleet;             // Every aircraft, in id order
+    private final VirtualClock clock;           // Simulated time shared by the fleet
+    private final ForkJoinPool pool;            // Threads the fleet is stepped on
+    private final int batchSize;                // Aircraft stepped sequentially by one task
+    private final int mapWidth;                 // Width of the movement area
+    private final int mapHeight;                // Height of the movement area
+    private long aircraftSteps = 0;             // Aircraft steps over all runs
+    private long lastRunNanos = 0;              // Wall time of the last run
+    private long lastRunSteps = 0;              // Aircraft steps in the last run
+    private SpatialGrid<Aircraft> spatialIndex = null; // Aircraft by position, if enabled
+
+    /**
+     * Constructs a fleet stepped on the common pool, over the default movement area.
+     *
+     * @param size        the number of aircraft
+     * @param startMillis the simulated time the fleet starts at
+     */
+    public FleetSimulation(int size, long startMillis) {
+        this(size, startMillis, ForkJoinPool.commonPool(), FastTimeSimulation.MAP_WIDTH,
+                FastTimeSimulation.MAP_HEIGHT);
+    }
+
+    /**
+     * Constructs a fleet of aircraft at random positions in the movement area.
+     *
+     * @param size        the number of aircraft
+     * @param startMillis the simulated time the fleet starts at
+     * @param pool        the pool to step the fleet on
+     * @param mapWidth    the width of the movement area
+     * @param mapHeight   the height of the movement area
+     */
+    public FleetSimulation(int size, long startMillis, ForkJoinPool pool, int mapWidth, int mapHeight) {
+        assert size > 0 : "Fleet must have at least one aircraft";
+        assert pool != null : "Pool cannot be null";
+        this.clock = new VirtualClock(startMillis);
+        this.pool = pool;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+
+        // Several tasks per worker, so threads that finish early can steal from slower ones
+        this.batchSize = Math.max(MIN_BATCH, size / (pool.getParallelism() * 8));
+
+        Random random = new Random(size);
+        fleet = new Aircraft[size];
+        for (int i = 0; i < size; i++) {
+            fleet[i] = new Aircraft(i, clock, random.nextInt(mapWidth), random.nextInt(mapHeight));
+        }
+    }
+
+    /**
+     * Advances the clock by one step and steps every aircraft to the new time.
+     */
+    public void step() {
+        clock.advanceBy(STEP_PERIOD);
+        pool.invoke(new StepTask(0, fleet.length, clock.currentTimeMillis()));
+        aircraftSteps += fleet.length;
+        if (spatialIndex != null) {
+            updateSpatialIndex();
+        }
+    }
+
+    /**
+     * Starts keeping a spatial index of the fleet, updated after every step.
+     *
+     * @param cellSize the width and height of an index cell
+     * @return the index, holding every aircraft at its current position
+     */
+    public SpatialGrid<Aircraft> enableSpatialIndex(double cellSize) {
+        spatialIndex = new SpatialGrid<>(cellSize);
+        updateSpatialIndex();
+        return spatialIndex;
+    }
+
+    /**
+     * Moves every aircraft in the index to its current position. Most
+     * aircraft stay in their cell, so this is a few field writes each.
+     */
+    private void updateSpatialIndex() {
+        for (Aircraft aircraft : fleet) {
+            spatialIndex.put(aircraft, aircraft.getPlane().getPlaneX(), aircraft.getPlane().getPlaneY());
+        }
+    }
+
+    /**
+     * Retrieves the spatial index of the fleet.
+     *
+     * @return the index, or null if it has not been enabled
+     */
+    public SpatialGrid<Aircraft> getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * Steps the fleet for the given amount of simulated time, as fast as possible.
+     *
+     * @param durationMillis the simulated time to run for in milliseconds
+     * @return the number of aircraft steps executed
+     */
+    public long runFor(long durationMillis) {
+        assert durationMillis >= 0 : "Duration must be non-negative";
+        long steps = durationMillis / STEP_PERIOD;
+        long started = System.nanoTime();
+        for (long i = 0; i < steps; i++) {
+            step();
+        }
+        lastRunNanos = System.nanoTime() - started;
+        lastRunSteps = steps * fleet.length;
+        return lastRunSteps;
+    }
+
+    /**
+     * Retrieves the throughput of the last run.
+     *
+     * @return aircraft steps per wall-clock second, or 0 before the first run
+     */
+    public double getAircraftStepsPerSecond() {
+        return lastRunNanos == 0 ? 0 : lastRunSteps * 1e9 / lastRunNanos;
+    }
+
+    /**
+     * Retrieves the number of aircraft steps over all runs.
+     *
+     * @return the number of aircraft steps
+     */
+    public long getAircraftSteps() {
+        return aircraftSteps;
+    }
+
+    /**
+     * Retrieves the number of aircraft in the fleet.
+     *
+     * @return the fleet size
+     */
+    public int size() {
+        return fleet.length;
+    }
+
+    /**
+     * Retrieves an aircraft.
+     *
+     * @param id the aircraft's position in the fleet
+     * @return the aircraft
+     */
+    public Aircraft getAircraft(int id) {
+        assert id >= 0 && id < fleet.length : "Aircraft id out of range";
+        return fleet[id];
+    }
+
+    /**
+     * Retrieves the clock shared by the fleet.
+     *
+     * @return the virtual clock
+     */
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Steps a contiguous range of the fleet, splitting it in half until the
+     * halves are small enough to step sequentially.
+     */
+    private class StepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;         // First aircraft in the range
+        private final int to;           // One past the last aircraft in the range
+        private final long nowMillis;   // Time to step the aircraft to
+
+        /**
+         * Constructs a StepTask.
+         *
+         * @param from      the first aircraft in the range
+         * @param to        one past the last aircraft in the range
+         * @param nowMillis the time to step the aircraft to
+         */
+        StepTask(int from, int to, long nowMillis) {
+            this.from = from;
+            this.to = to;
+            this.nowMillis = nowMillis;
+        }
+
+        protected void compute() {
+            if (to - from <= batchSize) {
+                for (int i = from; i < to; i++) {
+                    fleet[i].step(nowMillis, mapWidth, mapHeight);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new StepTask(from, middle, nowMillis), new StepTask(middle, to, nowMillis));
+        }
+    }
+
+    /**
+     * Measures fleet throughput at increasing parallelism and prints the speed-up.
+     *
+     * @param args the fleet size (default 2000) and the simulated seconds per run (default 60)
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 60;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        double baseline = 0;
+        for (int parallelism = 1; parallelism <= cores; parallelism = parallelism == cores ? cores + 1
+                : Math.min(cores, parallelism * 2)) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            FleetSimulation fleet = new FleetSimulation(size, 0, pool, FastTimeSimulation.MAP_WIDTH,
+                    FastTimeSimulation.MAP_HEIGHT);
+            fleet.runFor(5_000); // Warm up
+            fleet.runFor(seconds * 1000);
+            double rate = fleet.getAircraftStepsPerSecond();
+            baseline = parallelism == 1 ? rate : baseline;
+            System.out.printf("%2d threads: %,.0f aircraft-steps/s (%.2fx)%n", parallelism, rate, rate / baseline);
+            pool.shutdown();
+        }
+    }
+}
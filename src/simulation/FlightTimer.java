@@ -0,0 +1,95 @@
+package simulation;
+
+/**
+ * The FlightTimer class measures elapsed flight time on a SimulationClock.
+ * The management panel uses it on the simulator's clock, and a fast-time
+ * simulation on its virtual clock, so both report elapsed time the same way.
+ * Once stopped, the final elapsed time is kept until the timer is started again.
+ */
+public class FlightTimer {
+    private SimulationClock clock;      // Time source the flight is measured on
+    private long startTime = 0;         // Clock time the flight started at
+    private long elapsedTime = 0;       // Elapsed time at the last update
+    private boolean running = false;    // Set while the flight is being timed
+
+    /**
+     * Constructs a stopped FlightTimer.
+     *
+     * @param clock the clock to measure the flight on
+     */
+    public FlightTimer(SimulationClock clock) {
+        assert clock != null : "Clock cannot be null";
+        this.clock = clock;
+    }
+
+    /**
+     * Starts timing a flight from the clock's current time.
+     */
+    public void start() {
+        startTime = clock.currentTimeMillis();
+        elapsedTime = 0;
+        running = true;
+    }
+
+    /**
+     * Recalculates the elapsed time from the clock. Does nothing unless the
+     * timer is running, so the final time is kept once the flight ends.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long update() {
+        if (running) {
+            elapsedTime = clock.currentTimeMillis() - startTime;
+            assert elapsedTime >= 0 : "Elapsed time should be non-negative";
+        }
+        return elapsedTime;
+    }
+
+    /**
+     * Stops timing, keeping the elapsed time at this moment as the final time.
+     *
+     * @return the final elapsed time in milliseconds
+     */
+    public long stop() {
+        update();
+        running = false;
+        return elapsedTime;
+    }
+
+    /**
+     * Checks whether a flight is being timed.
+     *
+     * @return true if the timer is running, false otherwise
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Retrieves the elapsed time at the last update.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Sets the clock the flight is measured on. Call before the flight starts.
+     *
+     * @param clock the simulation clock
+     */
+    public void setClock(SimulationClock clock) {
+        assert clock != null : "Clock cannot be null";
+        this.clock = clock;
+    }
+
+    /**
+     * Retrieves the clock the flight is measured on.
+     *
+     * @return the simulation clock
+     */
+    public SimulationClock getClock() {
+        return clock;
+    }
+}
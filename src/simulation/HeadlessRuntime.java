@@ -0,0 +1,236 @@
+package simulation;
+
+import java.awt.Point;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import avionics.SensorSimulator;
+import avionics.SensorSnapshot;
+import flightSystem.Autopilot;
+import flightSystem.Plane;
+
+/**
+ * The HeadlessRuntime class runs the sensors, the plane's navigation and the
+ * autopilot on a plain scheduler, without Swing and without initialising AWT,
+ * so the simulation can run on a server or in a test harness.
+ *
+ * A single scheduler thread advances the sensor timing wheel every WHEEL_TICK
+ * and moves the plane every PLANE_STEP_PERIOD, just as the GUI's timers would,
+ * and reports everything to a SimulationListener. The plane is confined to
+ * that thread, so commands such as new waypoints are queued onto it.
+ */
+public class HeadlessRuntime implements AutoCloseable {
+    public static final long PLANE_STEP_PERIOD = FastTimeSimulation.PLANE_STEP_PERIOD; // Milliseconds between plane movements
+
+    private final SensorSimulator sensorSimulator = new SensorSimulator();  // The plane's sensors
+    private final Plane plane = new Plane();                                // The plane's kinematics
+    private final Autopilot autopilot = new Autopilot();                    // The plane's autopilot
+    private final SimulationListener listener;                              // Receives the simulation state
+    private final int mapWidth;                                             // Width of the movement area
+    private final int mapHeight;                                            // Height of the movement area
+    private ScheduledExecutorService scheduler;                             // Runs the simulation, once started
+    private volatile long planeSteps = 0;                                   // Plane movements since start
+
+    /**
+     * Constructs a HeadlessRuntime over the default movement area.
+     *
+     * @param listener the listener to report the simulation state to
+     */
+    public HeadlessRuntime(SimulationListener listener) {
+        this(listener, FastTimeSimulation.MAP_WIDTH, FastTimeSimulation.MAP_HEIGHT);
+    }
+
+    /**
+     * Constructs a HeadlessRuntime. Nothing runs until start() is called.
+     *
+     * @param listener  the listener to report the simulation state to
+     * @param mapWidth  the width of the movement area
+     * @param mapHeight the height of the movement area
+     */
+    public HeadlessRuntime(SimulationListener listener, int mapWidth, int mapHeight) {
+        assert listener != null : "Listener cannot be null";
+        assert mapWidth > 0 && mapHeight > 0 : "Movement area must not be empty";
+        this.listener = listener;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+    }
+
+    /**
+     * Creates the sensors, publishes their initial values and starts the scheduler thread.
+     */
+    public synchronized void start() {
+        assert scheduler == null : "Runtime has already been started";
+        SimulationClock clock = sensorSimulator.getClock();
+        sensorSimulator.addSink(listener::sensorsPublished);
+        plane.setListener(p -> listener.navigationChanged(clock.currentTimeMillis(), p));
+        sensorSimulator.createSensors();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "HeadlessRuntime");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> sensorSimulator.advanceTo(clock.currentTimeMillis()), 0,
+                SensorSimulator.WHEEL_TICK, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> stepPlane(clock.currentTimeMillis()), 0, PLANE_STEP_PERIOD,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Moves the plane one step and reports it.
+     *
+     * @param nowMillis the simulation time in milliseconds
+     */
+    private void stepPlane(long nowMillis) {
+        plane.step(mapWidth, mapHeight);
+        planeSteps++;
+        listener.planeStepped(nowMillis, plane);
+    }
+
+    /**
+     * Queues a waypoint for the plane to fly to.
+     *
+     * @param x the x position of the waypoint
+     * @param y the y position of the waypoint
+     */
+    public synchronized void addWaypoint(int x, int y) {
+        assert scheduler != null : "Runtime must be started before adding waypoints";
+        scheduler.execute(() -> plane.addWaypoint(new Point(x, y)));
+    }
+
+    /**
+     * Submits speed and altitude limits to the autopilot, applying them to the
+     * airspeed and altitude sensors as the autopilot panel does.
+     *
+     * @param minSpeed    the minimum speed
+     * @param maxSpeed    the maximum speed
+     * @param minAltitude the minimum altitude
+     * @param maxAltitude the maximum altitude
+     * @return true if the limits were accepted and the autopilot engaged, false if they were out of range
+     */
+    public synchronized boolean submitAutopilot(int minSpeed, int maxSpeed, int minAltitude, int maxAltitude) {
+        setLimits(minSpeed, maxSpeed, minAltitude, maxAltitude);
+        if (!autopilot.isWithinLimits()) {
+            return false;
+        }
+        synchronized (sensorSimulator) {
+            sensorSimulator.getSensors().get("altitude").setMinMax(minAltitude, maxAltitude);
+            sensorSimulator.getSensors().get("airspeed").setMinMax(minSpeed, maxSpeed);
+        }
+        autopilot.submit();
+        return true;
+    }
+
+    /**
+     * Submits limits as bad data, putting the autopilot into its fault state
+     * as the autopilot panel's fault button does.
+     *
+     * @param minSpeed    the minimum speed
+     * @param maxSpeed    the maximum speed
+     * @param minAltitude the minimum altitude
+     * @param maxAltitude the maximum altitude
+     */
+    public synchronized void submitBadData(int minSpeed, int maxSpeed, int minAltitude, int maxAltitude) {
+        setLimits(minSpeed, maxSpeed, minAltitude, maxAltitude);
+        synchronized (sensorSimulator) {
+            sensorSimulator.getSensors().get("altitude").setBadMinMax(minAltitude, maxAltitude);
+            sensorSimulator.getSensors().get("airspeed").setBadMinMax(minSpeed, maxSpeed);
+        }
+        autopilot.badData();
+    }
+
+    /**
+     * Stores speed and altitude limits in the autopilot.
+     *
+     * @param minSpeed    the minimum speed
+     * @param maxSpeed    the maximum speed
+     * @param minAltitude the minimum altitude
+     * @param maxAltitude the maximum altitude
+     */
+    private void setLimits(int minSpeed, int maxSpeed, int minAltitude, int maxAltitude) {
+        autopilot.setMinSpeed(minSpeed);
+        autopilot.setMaxSpeed(maxSpeed);
+        autopilot.setMinAltitude(minAltitude);
+        autopilot.setMaxAltitude(maxAltitude);
+    }
+
+    /**
+     * Retrieves the runtime's sensors.
+     *
+     * @return the sensor simulator
+     */
+    public SensorSimulator getSensorSimulator() {
+        return sensorSimulator;
+    }
+
+    /**
+     * Retrieves the runtime's autopilot.
+     *
+     * @return the autopilot
+     */
+    public synchronized Autopilot getAutopilot() {
+        return autopilot;
+    }
+
+    /**
+     * Retrieves the number of times the plane has moved since start.
+     *
+     * @return the number of plane steps
+     */
+    public long getPlaneSteps() {
+        return planeSteps;
+    }
+
+    /**
+     * Stops the scheduler thread and waits for the step in progress to finish.
+     */
+    public synchronized void close() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the simulation headless for a while, printing the plane's position once a second.
+     *
+     * @param args the wall-clock seconds to run for (default 10)
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 10;
+
+        HeadlessRuntime runtime = new HeadlessRuntime(new SimulationListener() {
+            private long publications = 0;  // Snapshots published so far
+            private long lastPrinted = 0;   // Simulation time of the last printed line
+
+            public void sensorsPublished(SensorSnapshot snapshot) {
+                publications++;
+            }
+
+            public void planeStepped(long timeMillis, Plane plane) {
+                if (timeMillis - lastPrinted >= 1000) {
+                    lastPrinted = timeMillis;
+                    System.out.printf("x=%.0f y=%.0f, %d sensor publications%n", plane.getPlaneX(),
+                            plane.getPlaneY(), publications);
+                }
+            }
+
+            public void navigationChanged(long timeMillis, Plane plane) {
+                if (plane.isAtDestination()) {
+                    System.out.println("Destination reached");
+                }
+            }
+        });
+        runtime.start();
+        runtime.submitAutopilot(200, 400, 20000, 30000);
+        Thread.sleep(seconds * 1000);
+        runtime.close();
+    }
+}
@@ -0,0 +1,180 @@
+package simulation;
+
+import java.util.concurrent.locks.LockSupport;
+
+import flightSystem.Plane;
+import flightSystem.PlaneState;
+
+/**
+ * The PhysicsLoop class moves a plane on its own thread, one fixed step of
+ * STEP_PERIOD at a time, however late the thread wakes.
+ *
+ * Elapsed wall time is added to an accumulator, and a step is taken for
+ * every whole STEP_PERIOD in it, so the plane covers the same distance per
+ * second whether the thread wakes on time or late. After a long stall at
+ * most MAX_CATCH_UP_STEPS are taken at once and the rest of the backlog is
+ * dropped, so the loop never spirals trying to catch up.
+ *
+ * Each step runs while holding the plane's monitor, so code on other threads
+ * that changes the plane, such as adding waypoints, synchronizes on the plane
+ * too. After each step an immutable PlaneState is published for renderers,
+ * which read it without locking.
+ */
+public class PhysicsLoop implements AutoCloseable {
+    public static final long STEP_PERIOD = FastTimeSimulation.PLANE_STEP_PERIOD;   // Milliseconds per physics step
+    public static final int MAX_CATCH_UP_STEPS = 25;                                // Most steps taken in one wake
+    private static final long STEP_NANOS = STEP_PERIOD * 1_000_000L;                // Nanoseconds per physics step
+
+    private final Plane plane;                  // Plane being moved
+    private final Thread thread;                // Thread the steps run on
+    private volatile int width;                 // Width of the movement area
+    private volatile int height;                // Height of the movement area
+    private volatile PlaneState state;          // State after the latest step
+    private volatile boolean running = false;   // Cleared to stop the thread
+    private long lag = 0;                       // Elapsed nanoseconds not yet stepped
+    private volatile long steps = 0;            // Steps taken
+    private volatile long droppedSteps = 0;     // Steps dropped after stalls
+
+    /**
+     * Constructs a PhysicsLoop. Call start() to begin moving the plane.
+     *
+     * @param plane  the plane to move
+     * @param width  the width of the movement area
+     * @param height the height of the movement area
+     */
+    public PhysicsLoop(Plane plane, int width, int height) {
+        assert plane != null : "Plane cannot be null";
+        this.plane = plane;
+        this.width = width;
+        this.height = height;
+        synchronized (plane) {
+            this.state = plane.getState(0);
+        }
+        thread = new Thread(this::run, "PhysicsLoop");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts stepping the plane.
+     */
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Steps the plane until closed, sleeping until each step is due.
+     */
+    private void run() {
+        long previous = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            advance(now - previous);
+            previous = now;
+            LockSupport.parkNanos(this, STEP_NANOS - lag);
+        }
+    }
+
+    /**
+     * Adds elapsed time to the accumulator and takes a step for every whole
+     * period in it, up to MAX_CATCH_UP_STEPS. Called by the loop's thread;
+     * tests may call it directly on a loop that has not been started.
+     *
+     * @param elapsedNanos the wall time elapsed since the last call
+     * @return the number of steps taken
+     */
+    public int advance(long elapsedNanos) {
+        assert elapsedNanos >= 0 : "Elapsed time must be non-negative";
+        lag += elapsedNanos;
+        int taken = 0;
+        while (lag >= STEP_NANOS) {
+            if (taken == MAX_CATCH_UP_STEPS) {
+                droppedSteps += lag / STEP_NANOS;
+                lag %= STEP_NANOS;
+                break;
+            }
+            step();
+            lag -= STEP_NANOS;
+            taken++;
+        }
+        return taken;
+    }
+
+    /**
+     * Moves the plane one step and publishes its new state.
+     */
+    private void step() {
+        int maxWidth = width;
+        int maxHeight = height;
+        if (maxWidth <= 0 || maxHeight <= 0) {
+            return; // Nowhere to move until the map has a size
+        }
+        synchronized (plane) {
+            plane.step(maxWidth, maxHeight);
+            steps++;
+            state = plane.getState(steps);
+        }
+    }
+
+    /**
+     * Sets the size of the movement area, such as when the map is resized.
+     *
+     * @param width  the width of the movement area
+     * @param height the height of the movement area
+     */
+    public void setBounds(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Retrieves the plane's state after the latest step.
+     *
+     * @return the state
+     */
+    public PlaneState getState() {
+        return state;
+    }
+
+    /**
+     * Retrieves the plane being moved.
+     *
+     * @return the plane
+     */
+    public Plane getPlane() {
+        return plane;
+    }
+
+    /**
+     * Retrieves the number of steps taken.
+     *
+     * @return the number of steps
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * Retrieves the number of steps dropped because the loop fell too far behind.
+     *
+     * @return the number of dropped steps
+     */
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+
+    /**
+     * Stops stepping the plane and waits for the thread to finish.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (thread.isAlive() && Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package simulation;
+
+/**
+ * A SimulationClock supplies the current simulation time.
+ * Components that timestamp or measure simulated events read the time from a
+ * clock instead of System.currentTimeMillis(), so the same code can run in
+ * real time or under a VirtualClock at any speed.
+ */
+public interface SimulationClock {
+
+    /**
+     * The wall clock, used when the simulation runs in real time.
+     */
+    SimulationClock SYSTEM = System::currentTimeMillis;
+
+    /**
+     * Retrieves the current simulation time.
+     *
+     * @return the time in milliseconds
+     */
+    long currentTimeMillis();
+}
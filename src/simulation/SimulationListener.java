@@ -0,0 +1,36 @@
+package simulation;
+
+import avionics.SensorSnapshot;
+import flightSystem.Plane;
+
+/**
+ * A SimulationListener receives the state of a HeadlessRuntime as it runs.
+ * Every method is called on the runtime's scheduler thread, so implementations
+ * must be quick, and must copy anything they want to keep from the Plane
+ * rather than hold on to it.
+ */
+public interface SimulationListener {
+
+    /**
+     * Called after the sensors are published.
+     *
+     * @param snapshot the published snapshot
+     */
+    void sensorsPublished(SensorSnapshot snapshot);
+
+    /**
+     * Called after the plane moves one step.
+     *
+     * @param timeMillis the simulation time of the step in milliseconds
+     * @param plane      the plane, valid only for the duration of the call
+     */
+    void planeStepped(long timeMillis, Plane plane);
+
+    /**
+     * Called when the plane's destination or arrival state may have changed.
+     *
+     * @param timeMillis the simulation time of the change in milliseconds
+     * @param plane      the plane, valid only for the duration of the call
+     */
+    void navigationChanged(long timeMillis, Plane plane);
+}
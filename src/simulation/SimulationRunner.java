@@ -0,0 +1,189 @@
+package simulation;
+
+import java.util.PriorityQueue;
+
+/**
+ * The SimulationRunner class runs periodic simulation tasks against a
+ * VirtualClock instead of wall-clock timers.
+ * Tasks due at the same simulated time run in the order they were scheduled,
+ * so sensor updates, plane movement and anything that reads them always happen
+ * in the same relative order. The runner can go as fast as the CPU allows, or
+ * be throttled to any multiple of real time.
+ */
+public class SimulationRunner {
+    public static final double UNTHROTTLED = Double.POSITIVE_INFINITY; // Speed multiplier for running flat out
+
+    private final VirtualClock clock;                                        // Clock advanced by the runner
+    private final PriorityQueue<ScheduledTask> queue = new PriorityQueue<>(); // Tasks ordered by next run time
+    private long nextOrder = 0;                                              // Registration order of the next task
+    private double speedMultiplier = UNTHROTTLED;                            // Simulated time per unit of wall time
+    private volatile boolean stopped = false;                                // Set to end a run early
+
+    /**
+     * Constructs a SimulationRunner that advances the given clock.
+     *
+     * @param clock the virtual clock to advance
+     */
+    public SimulationRunner(VirtualClock clock) {
+        assert clock != null : "Clock cannot be null";
+        this.clock = clock;
+    }
+
+    /**
+     * Schedules a task to run now and then every period of simulated time.
+     *
+     * @param periodMillis the period in milliseconds
+     * @param task         the task to run
+     */
+    public void schedule(long periodMillis, Runnable task) {
+        schedule(0, periodMillis, task);
+    }
+
+    /**
+     * Schedules a task to run after a delay and then every period of simulated time.
+     *
+     * @param initialDelayMillis the delay before the first run in milliseconds
+     * @param periodMillis       the period in milliseconds
+     * @param task               the task to run
+     */
+    public void schedule(long initialDelayMillis, long periodMillis, Runnable task) {
+        assert initialDelayMillis >= 0 : "Delay must be non-negative";
+        assert periodMillis > 0 : "Period must be positive";
+        assert task != null : "Task cannot be null";
+        queue.add(new ScheduledTask(clock.currentTimeMillis() + initialDelayMillis, nextOrder++, periodMillis, task));
+    }
+
+    /**
+     * Sets how fast simulated time passes relative to wall time.
+     *
+     * @param speedMultiplier 1 for real time, 10 for ten times faster, or UNTHROTTLED
+     */
+    public void setSpeedMultiplier(double speedMultiplier) {
+        assert speedMultiplier > 0 : "Speed multiplier must be positive";
+        this.speedMultiplier = speedMultiplier;
+    }
+
+    /**
+     * Retrieves how fast simulated time passes relative to wall time.
+     *
+     * @return the speed multiplier
+     */
+    public double getSpeedMultiplier() {
+        return speedMultiplier;
+    }
+
+    /**
+     * Retrieves the clock advanced by this runner.
+     *
+     * @return the virtual clock
+     */
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Runs every task due within the given amount of simulated time, then
+     * leaves the clock at the end of that time.
+     *
+     * @param durationMillis the simulated time to run for in milliseconds
+     * @return the number of task runs executed
+     */
+    public long runFor(long durationMillis) {
+        assert durationMillis >= 0 : "Duration must be non-negative";
+        return runUntil(clock.currentTimeMillis() + durationMillis);
+    }
+
+    /**
+     * Runs every task due up to and including the given simulated time, then
+     * leaves the clock at that time.
+     *
+     * @param endMillis the simulated time to stop at in milliseconds
+     * @return the number of task runs executed
+     */
+    public long runUntil(long endMillis) {
+        assert endMillis >= clock.currentTimeMillis() : "End time must not be in the past";
+        stopped = false;
+        long simStart = clock.currentTimeMillis();
+        long wallStart = System.nanoTime();
+        long runs = 0;
+
+        while (!stopped && !queue.isEmpty() && queue.peek().nextTime <= endMillis) {
+            ScheduledTask next = queue.poll();
+            throttle(simStart, wallStart, next.nextTime);
+            clock.advanceTo(next.nextTime);
+            next.task.run();
+            runs++;
+            next.nextTime += next.period;
+            queue.add(next);
+        }
+
+        if (!stopped) {
+            throttle(simStart, wallStart, endMillis);
+            clock.advanceTo(endMillis);
+        }
+        return runs;
+    }
+
+    /**
+     * Ends the current run after the task in progress.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Sleeps until wall time has caught up with the given simulated time at the
+     * current speed multiplier.
+     *
+     * @param simStart  the simulated time the run started at
+     * @param wallStart the wall time the run started at, from System.nanoTime()
+     * @param simTarget the simulated time about to be reached
+     */
+    private void throttle(long simStart, long wallStart, long simTarget) {
+        if (Double.isInfinite(speedMultiplier)) {
+            return;
+        }
+        long wallTarget = wallStart + (long) ((simTarget - simStart) * 1_000_000L / speedMultiplier);
+        long remaining = wallTarget - System.nanoTime();
+        if (remaining > 0) {
+            try {
+                Thread.sleep(remaining / 1_000_000L, (int) (remaining % 1_000_000L));
+            } catch (InterruptedException e) {
+                stopped = true;
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * A periodic task and the simulated time it next runs at.
+     */
+    private static class ScheduledTask implements Comparable<ScheduledTask> {
+        private long nextTime;          // Simulated time of the next run
+        private final long order;       // Registration order, to break ties
+        private final long period;      // Period in milliseconds
+        private final Runnable task;    // The task to run
+
+        /**
+         * Constructs a ScheduledTask.
+         *
+         * @param nextTime the simulated time of the first run
+         * @param order    the registration order
+         * @param period   the period in milliseconds
+         * @param task     the task to run
+         */
+        ScheduledTask(long nextTime, long order, long period, Runnable task) {
+            this.nextTime = nextTime;
+            this.order = order;
+            this.period = period;
+            this.task = task;
+        }
+
+        public int compareTo(ScheduledTask other) {
+            if (nextTime != other.nextTime) {
+                return Long.compare(nextTime, other.nextTime);
+            }
+            return Long.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package simulation;
+
+/**
+ * The VirtualClock class is a SimulationClock that only moves when it is
+ * advanced, so simulated time is independent of wall-clock time.
+ */
+public class VirtualClock implements SimulationClock {
+    private volatile long now; // Current simulation time in milliseconds
+
+    /**
+     * Constructs a VirtualClock starting at the given time.
+     *
+     * @param startMillis the initial time in milliseconds
+     */
+    public VirtualClock(long startMillis) {
+        this.now = startMillis;
+    }
+
+    /**
+     * Retrieves the current simulation time.
+     *
+     * @return the time in milliseconds
+     */
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    /**
+     * Moves the clock forward to the given time.
+     *
+     * @param timeMillis the new time in milliseconds, not earlier than the current time
+     */
+    public void advanceTo(long timeMillis) {
+        assert timeMillis >= now : "Virtual time cannot go backwards";
+        now = timeMillis;
+    }
+
+    /**
+     * Moves the clock forward by the given amount.
+     *
+     * @param millis the number of milliseconds to advance
+     */
+    public void advanceBy(long millis) {
+        assert millis >= 0 : "Virtual time cannot go backwards";
+        now += millis;
+    }
+}
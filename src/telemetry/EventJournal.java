@@ -0,0 +1,339 @@
+package telemetry;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.gson.JsonObject;
+
+/**
+ * The EventJournal class keeps a durable record of console and hazard events
+ * as JSON lines in rotating, size-capped files.
+ *
+ * Producers only offer an entry to a lock-free queue and never block: when
+ * the queue already holds its capacity the entry is dropped and counted. A
+ * single writer thread drains the queue in batches, starting a new file once
+ * the current one reaches its size cap and deleting the oldest beyond the
+ * file limit. When data reaches the disk is set by the SyncPolicy.
+ */
+public class EventJournal implements AutoCloseable {
+    public static final String FILE_PREFIX = "journal-";    // Start of every journal file name
+    public static final String FILE_SUFFIX = ".jsonl";      // End of every journal file name
+    private static final int BUFFER_SIZE = 64 * 1024;       // Bytes buffered before reaching the OS
+
+    /**
+     * When the writer pushes written entries to the OS and to the disk.
+     */
+    public enum SyncPolicy {
+        INTERVAL,   // Flush to the OS once per flush interval, fsync only on rotation and close
+        BATCH,      // Flush to the OS after every batch
+        FSYNC       // Flush and fsync after every batch
+    }
+
+    private final File directory;                                   // Directory holding the journal files
+    private final long maxFileBytes;                                // Size a file is rotated at
+    private final int maxFiles;                                     // Files kept, oldest deleted first
+    private final int capacity;                                     // Entries queued before new ones are dropped
+    private final SyncPolicy syncPolicy;                            // When entries reach the OS and the disk
+    private final long flushIntervalNanos;                          // Longest time a written entry stays buffered
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>(); // Entries not yet written
+    private final AtomicInteger queued = new AtomicInteger();       // Entries in the queue
+    private final AtomicLong dropped = new AtomicLong();            // Entries dropped because the queue was full
+    private final Thread writer;                                    // The single writer
+    private volatile boolean running = true;                        // Cleared by close()
+    private volatile boolean sleeping = false;                      // Set while the writer waits for entries
+    private volatile long written = 0;                              // Entries written since construction
+    private FileOutputStream file;                                  // Current journal file
+    private BufferedOutputStream out;                               // Buffered writes to the current file
+    private long fileBytes = 0;                                     // Bytes in the current file
+    private int fileNumber;                                         // Number of the current file
+
+    /**
+     * Constructs an EventJournal and starts its writer thread. Numbering
+     * continues after any journal files already in the directory.
+     *
+     * @param directory           the directory to write journal files in
+     * @param maxFileBytes        the size a file is rotated at
+     * @param maxFiles            the number of files kept
+     * @param capacity            the number of entries queued before new ones are dropped
+     * @param syncPolicy          when entries reach the OS and the disk
+     * @param flushIntervalMillis the longest time a written entry stays buffered in milliseconds
+     * @throws IOException if the directory cannot be created or the first file cannot be opened
+     */
+    public EventJournal(File directory, long maxFileBytes, int maxFiles, int capacity, SyncPolicy syncPolicy,
+            long flushIntervalMillis) throws IOException {
+        assert directory != null && syncPolicy != null : "Directory and policy cannot be null";
+        assert maxFileBytes > 0 && maxFiles > 0 && capacity > 0 : "Limits must be positive";
+        assert flushIntervalMillis > 0 : "Flush interval must be positive";
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.capacity = capacity;
+        this.syncPolicy = syncPolicy;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create journal directory " + directory);
+        }
+        int[] existing = listFiles(directory);
+        fileNumber = existing.length == 0 ? 0 : existing[existing.length - 1];
+        openFile(fileNumber + 1);
+
+        writer = new Thread(this::writeLoop, "EventJournal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues an event for the journal. Never blocks.
+     *
+     * @param timestamp the time of the event in milliseconds
+     * @param source    what produced the event, e.g. "console" or "hazard"
+     * @param subject   what the event is about, e.g. a sensor key or hazard name
+     * @param severity  how serious the event is, e.g. "INFO" or "WARNING"
+     * @param message   the event text
+     * @return true if the event was queued, false if it was dropped because the queue was full or the journal closed
+     */
+    public boolean log(long timestamp, String source, String subject, String severity, String message) {
+        if (!running || queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        Entry entry = new Entry(timestamp, source, subject, severity, message);
+        queue.offer(entry);
+
+        // close() may have let the writer finish after the check above; take the entry back unless it was written
+        if (!running && queue.remove(entry)) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * Writes queued entries in batches, flushing as the sync policy requires, until closed.
+     */
+    private void writeLoop() {
+        long lastFlush = System.nanoTime();
+        boolean unflushed = false;
+        while (running || !queue.isEmpty()) {
+            int batch = drain();
+            if (batch > 0) {
+                unflushed = true;
+                if (syncPolicy != SyncPolicy.INTERVAL) {
+                    flush(syncPolicy == SyncPolicy.FSYNC);
+                    unflushed = false;
+                    lastFlush = System.nanoTime();
+                    continue;
+                }
+            }
+
+            // Checked after every batch too, so a steady stream of entries cannot hold back the flush
+            long wait = lastFlush + flushIntervalNanos - System.nanoTime();
+            if (unflushed && wait <= 0) {
+                flush(false);
+                unflushed = false;
+                lastFlush = System.nanoTime();
+                continue;
+            }
+            if (batch > 0) {
+                continue; // More entries may have arrived while these were written
+            }
+
+            // Sleep until an entry arrives or a buffered entry is due out
+            sleeping = true;
+            if (queue.isEmpty() && running) {
+                LockSupport.parkNanos(this, unflushed ? wait : flushIntervalNanos);
+            }
+            sleeping = false;
+        }
+        flush(true);
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes every entry currently queued.
+     *
+     * @return the number of entries written
+     */
+    private int drain() {
+        int count = 0;
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            queued.decrementAndGet();
+            write(entry);
+            count++;
+        }
+        written += count;
+        return count;
+    }
+
+    /**
+     * Writes one entry as a JSON line, rotating first if it would overflow the current file.
+     *
+     * @param entry the entry to write
+     */
+    private void write(Entry entry) {
+        JsonObject json = new JsonObject();
+        json.addProperty("timestamp", entry.timestamp);
+        json.addProperty("source", entry.source);
+        json.addProperty("subject", entry.subject);
+        json.addProperty("severity", entry.severity);
+        json.addProperty("message", entry.message);
+        byte[] line = (json.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+
+        try {
+            if (fileBytes > 0 && fileBytes + line.length > maxFileBytes) {
+                flush(true);
+                out.close();
+                openFile(fileNumber + 1);
+            }
+            out.write(line);
+            fileBytes += line.length;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Pushes buffered entries to the OS, and optionally to the disk.
+     *
+     * @param sync true to fsync the file as well
+     */
+    private void flush(boolean sync) {
+        try {
+            out.flush();
+            if (sync) {
+                file.getChannel().force(false);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Opens a new journal file and deletes the oldest files beyond the limit.
+     *
+     * @param number the number of the new file
+     * @throws IOException if the file cannot be opened
+     */
+    private void openFile(int number) throws IOException {
+        fileNumber = number;
+        file = new FileOutputStream(journalFile(directory, number));
+        out = new BufferedOutputStream(file, BUFFER_SIZE);
+        fileBytes = 0;
+
+        int[] numbers = listFiles(directory);
+        for (int i = 0; i < numbers.length - maxFiles; i++) {
+            journalFile(directory, numbers[i]).delete();
+        }
+    }
+
+    /**
+     * Retrieves a journal file.
+     *
+     * @param directory the journal directory
+     * @param number    the file number
+     * @return the file
+     */
+    public static File journalFile(File directory, int number) {
+        return new File(directory, String.format("%s%08d%s", FILE_PREFIX, number, FILE_SUFFIX));
+    }
+
+    /**
+     * Lists the numbers of the journal files in a directory.
+     *
+     * @param directory the journal directory
+     * @return the file numbers, in ascending order
+     */
+    public static int[] listFiles(File directory) {
+        String[] names = directory.list((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        if (names == null) {
+            return new int[0];
+        }
+        int[] numbers = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            numbers[i] = Integer.parseInt(names[i].substring(FILE_PREFIX.length(),
+                    names[i].length() - FILE_SUFFIX.length()));
+        }
+        Arrays.sort(numbers);
+        return numbers;
+    }
+
+    /**
+     * Retrieves the number of entries written to the files so far.
+     *
+     * @return the number of entries written
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Retrieves the number of entries dropped because the queue was full.
+     *
+     * @return the number of entries dropped
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops accepting entries, writes everything queued, fsyncs and closes the
+     * current file, and waits for the writer to finish.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One event waiting to be written.
+     */
+    private static final class Entry {
+        private final long timestamp;   // Time of the event in milliseconds
+        private final String source;    // What produced the event
+        private final String subject;   // What the event is about
+        private final String severity;  // How serious the event is
+        private final String message;   // The event text
+
+        /**
+         * Constructs an Entry.
+         *
+         * @param timestamp the time of the event in milliseconds
+         * @param source    what produced the event
+         * @param subject   what the event is about
+         * @param severity  how serious the event is
+         * @param message   the event text
+         */
+        Entry(long timestamp, String source, String subject, String severity, String message) {
+            this.timestamp = timestamp;
+            this.source = source;
+            this.subject = subject;
+            this.severity = severity;
+            this.message = message;
+        }
+    }
+}
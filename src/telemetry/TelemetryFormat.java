@@ -0,0 +1,171 @@
+package telemetry;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The TelemetryFormat class defines the on-disk format shared by the
+ * TelemetryRecorder and TelemetryReader.
+ *
+ * A recording is a directory of numbered segment files. Each segment starts
+ * with a header naming its sensors, followed by a stream of frames, one per
+ * published snapshot. A keyframe stores the sequence number, timestamp and
+ * every value and range in full. A delta frame stores the sequence gap, the
+ * delta-of-delta of the timestamp, a bit mask of the sensors whose value
+ * changed and one of the sensors whose range changed, then only the changed
+ * deltas. All integers are zigzag varints, so a typical frame of six sensors
+ * takes a handful of bytes.
+ *
+ * Every segment starts with a keyframe, and further keyframes are written at a
+ * fixed interval. Each keyframe is listed in the segment's sidecar index as a
+ * fixed-size record of timestamp, sequence and file offset, so a reader can
+ * binary search for a time without decoding the segment.
+ */
+public final class TelemetryFormat {
+    public static final int MAGIC = 0x544C4D31;          // "TLM1"
+    public static final int MAX_SENSORS = 64;            // Sensors that fit in a change mask
+    public static final byte KEYFRAME = 1;               // Frame tag: every field in full
+    public static final byte DELTA = 2;                  // Frame tag: changes since the previous frame
+    public static final int INDEX_ENTRY_SIZE = 24;       // long timestamp, long sequence, long offset
+    public static final int MAX_VARINT_SIZE = 10;        // Longest encoding of a 64-bit varint
+
+    private static final String SEGMENT_PREFIX = "telemetry-";
+    private static final String SEGMENT_SUFFIX = ".tlm";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * Prevents instantiation; this class only holds constants and helpers.
+     */
+    private TelemetryFormat() {}
+
+    /**
+     * Calculates the largest number of bytes a frame can take.
+     *
+     * @param sensorCount the number of sensors in the frame
+     * @return the size in bytes
+     */
+    public static int maxFrameSize(int sensorCount) {
+        return 1 + MAX_VARINT_SIZE * (4 + sensorCount * 3);
+    }
+
+    /**
+     * Writes a non-negative long as an unsigned varint.
+     *
+     * @param buffer the buffer to write to
+     * @param value  the value to write
+     */
+    public static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param buffer the buffer to read from
+     * @return the value
+     */
+    public static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Writes a signed long as a zigzag varint, so small negative values stay small.
+     *
+     * @param buffer the buffer to write to
+     * @param value  the value to write
+     */
+    public static void putSignedVarLong(ByteBuffer buffer, long value) {
+        putVarLong(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Reads a zigzag varint.
+     *
+     * @param buffer the buffer to read from
+     * @return the value
+     */
+    public static long getSignedVarLong(ByteBuffer buffer) {
+        long raw = getVarLong(buffer);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * Writes a string as a varint length followed by its UTF-8 bytes.
+     *
+     * @param buffer the buffer to write to
+     * @param value  the string to write
+     */
+    public static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads a string written by putString.
+     *
+     * @param buffer the buffer to read from
+     * @return the string
+     */
+    public static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[(int) getVarLong(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Retrieves the segment file with the given number.
+     *
+     * @param directory the recording directory
+     * @param number    the segment number
+     * @return the segment file
+     */
+    public static File segmentFile(File directory, int number) {
+        return new File(directory, String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Retrieves the sidecar index file of a segment.
+     *
+     * @param segment the segment file
+     * @return the index file
+     */
+    public static File indexFile(File segment) {
+        String name = segment.getName();
+        return new File(segment.getParentFile(), name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    /**
+     * Lists the segment numbers in a recording directory in ascending order.
+     *
+     * @param directory the recording directory
+     * @return the segment numbers, empty if there are none
+     */
+    public static int[] listSegments(File directory) {
+        String[] names = directory.list((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (names == null) {
+            return new int[0];
+        }
+        int[] numbers = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            numbers[i] = Integer.parseInt(names[i].substring(SEGMENT_PREFIX.length(),
+                    names[i].length() - SEGMENT_SUFFIX.length()));
+        }
+        Arrays.sort(numbers);
+        return numbers;
+    }
+}
@@ -0,0 +1,139 @@
+package telemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * The TelemetryIndex class holds the keyframe index of a whole recording in
+ * memory, merged from the sidecar index of every segment.
+ * With one entry per KEYFRAME_INTERVAL frames, a twelve-hour recording needs
+ * only a few hundred entries, and finding the keyframe before any time is a
+ * binary search. Timestamps are assumed to increase through the recording.
+ */
+final class TelemetryIndex {
+    private final long[] timestamps;        // Keyframe timestamps in ascending order
+    private final long[] offsets;           // Keyframe offsets within their segment
+    private final int[] segmentPositions;   // Position of each keyframe's segment in the segment list
+    private final int[] firstEntries;       // First entry of each segment, or -1 if it has none
+
+    /**
+     * Constructs a TelemetryIndex from already merged arrays.
+     *
+     * @param timestamps       the keyframe timestamps
+     * @param offsets          the keyframe offsets
+     * @param segmentPositions the segment position of each keyframe
+     * @param firstEntries     the first entry of each segment
+     */
+    private TelemetryIndex(long[] timestamps, long[] offsets, int[] segmentPositions, int[] firstEntries) {
+        this.timestamps = timestamps;
+        this.offsets = offsets;
+        this.segmentPositions = segmentPositions;
+        this.firstEntries = firstEntries;
+    }
+
+    /**
+     * Reads and merges the sidecar index of every segment.
+     *
+     * @param directory the recording directory
+     * @param segments  the segment numbers in ascending order
+     * @return the merged index
+     * @throws IOException if an index file cannot be read
+     */
+    static TelemetryIndex load(File directory, int[] segments) throws IOException {
+        ByteBuffer[] files = new ByteBuffer[segments.length];
+        int total = 0;
+        for (int i = 0; i < segments.length; i++) {
+            File index = TelemetryFormat.indexFile(TelemetryFormat.segmentFile(directory, segments[i]));
+            files[i] = ByteBuffer.wrap(index.exists() ? Files.readAllBytes(index.toPath()) : new byte[0]);
+            total += files[i].remaining() / TelemetryFormat.INDEX_ENTRY_SIZE;
+        }
+
+        long[] timestamps = new long[total];
+        long[] offsets = new long[total];
+        int[] segmentPositions = new int[total];
+        int[] firstEntries = new int[segments.length];
+        int entry = 0;
+        for (int i = 0; i < segments.length; i++) {
+            firstEntries[i] = files[i].remaining() >= TelemetryFormat.INDEX_ENTRY_SIZE ? entry : -1;
+            while (files[i].remaining() >= TelemetryFormat.INDEX_ENTRY_SIZE) {
+                timestamps[entry] = files[i].getLong();
+                files[i].getLong(); // Sequence number, not needed for seeking by time
+                offsets[entry] = files[i].getLong();
+                segmentPositions[entry] = i;
+                entry++;
+            }
+        }
+        return new TelemetryIndex(timestamps, offsets, segmentPositions, firstEntries);
+    }
+
+    /**
+     * Finds the last keyframe at or before a time.
+     *
+     * @param timestamp the time in milliseconds
+     * @return the entry, or -1 if every keyframe is later
+     */
+    int floor(long timestamp) {
+        int low = 0;
+        int high = timestamps.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Retrieves the number of keyframes in the index.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return timestamps.length;
+    }
+
+    /**
+     * Retrieves the timestamp of a keyframe.
+     *
+     * @param entry the entry
+     * @return the timestamp in milliseconds
+     */
+    long getTimestamp(int entry) {
+        return timestamps[entry];
+    }
+
+    /**
+     * Retrieves the offset of a keyframe within its segment.
+     *
+     * @param entry the entry
+     * @return the offset in bytes
+     */
+    long getOffset(int entry) {
+        return offsets[entry];
+    }
+
+    /**
+     * Retrieves the position of a keyframe's segment in the segment list.
+     *
+     * @param entry the entry
+     * @return the segment position
+     */
+    int getSegmentPosition(int entry) {
+        return segmentPositions[entry];
+    }
+
+    /**
+     * Retrieves the first keyframe of a segment.
+     *
+     * @param segmentPosition the position of the segment in the segment list
+     * @return the entry, or -1 if the segment has no keyframes
+     */
+    int firstEntryOf(int segmentPosition) {
+        return firstEntries[segmentPosition];
+    }
+}
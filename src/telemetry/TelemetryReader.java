@@ -0,0 +1,306 @@
+package telemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import avionics.SensorSnapshot;
+
+/**
+ * The TelemetryReader class decodes a recording written by the
+ * TelemetryRecorder, one frame at a time, across all of its segments.
+ * Each segment is memory-mapped while it is being read. Seeking uses the
+ * keyframe index, so it decodes at most one keyframe interval of frames
+ * however long the recording is.
+ */
+public class TelemetryReader implements AutoCloseable {
+    private final File directory;           // Directory holding the segments
+    private final int[] segments;           // Segment numbers in ascending order
+    private int segmentIndex = -1;          // Position of the current segment in segments
+    private ByteBuffer data;                // Mapped contents of the current segment
+    private TelemetryIndex index;           // Keyframe index, loaded on first use
+
+    private String[] keys = new String[0];  // Sensor keys of the current segment
+    private String[] names = new String[0]; // Sensor names of the current segment
+    private int[] values = new int[0];      // Values in the current frame
+    private int[] mins = new int[0];        // Minimums in the current frame
+    private int[] maxs = new int[0];        // Maximums in the current frame
+    private long sequence = 0;              // Sequence number of the current frame
+    private long timestamp = 0;             // Timestamp of the current frame
+    private long lastDelta = 0;             // Timestamp delta of the current frame
+
+    /**
+     * Opens a recording for reading, positioned before its first frame.
+     *
+     * @param directory the directory holding the segments
+     */
+    public TelemetryReader(File directory) {
+        assert directory != null : "Directory cannot be null";
+        this.directory = directory;
+        this.segments = TelemetryFormat.listSegments(directory);
+    }
+
+    /**
+     * Decodes the next frame, moving on to the next segment when the current
+     * one is exhausted.
+     *
+     * @return true if a frame was decoded, false at the end of the recording
+     * @throws IOException if a segment cannot be read or is not a telemetry segment
+     */
+    public boolean next() throws IOException {
+        while (data == null || !data.hasRemaining()) {
+            if (segmentIndex + 1 >= segments.length) {
+                return false;
+            }
+            openSegment(segmentIndex + 1);
+        }
+
+        byte tag = data.get();
+        if (tag == TelemetryFormat.KEYFRAME) {
+            readKeyframe();
+        } else if (tag == TelemetryFormat.DELTA) {
+            readDelta();
+        } else {
+            throw new IOException("Corrupt telemetry frame in segment " + segments[segmentIndex]);
+        }
+        return true;
+    }
+
+    /**
+     * Peeks at the timestamp of the next frame without decoding it.
+     *
+     * @return the timestamp in milliseconds, or Long.MAX_VALUE at the end of the recording
+     * @throws IOException if the index cannot be read
+     */
+    public long peekTimestamp() throws IOException {
+        if (data != null && data.hasRemaining()) {
+            int start = data.position();
+            long next;
+            if (data.get() == TelemetryFormat.KEYFRAME) {
+                TelemetryFormat.getVarLong(data);
+                next = TelemetryFormat.getSignedVarLong(data);
+            } else {
+                TelemetryFormat.getVarLong(data);
+                next = timestamp + lastDelta + TelemetryFormat.getSignedVarLong(data);
+            }
+            data.position(start);
+            return next;
+        }
+
+        // Every segment starts with an indexed keyframe, so the index knows when the next one starts
+        for (int position = segmentIndex + 1; position < segments.length; position++) {
+            int entry = getIndex().firstEntryOf(position);
+            if (entry >= 0) {
+                return getIndex().getTimestamp(entry);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Moves to the last frame at or before a time, making it the current frame.
+     * Finds the nearest earlier keyframe in the index, then decodes forward from it.
+     *
+     * @param target the time to seek to in milliseconds
+     * @return true if a frame was found, false if the recording starts later,
+     *         in which case the reader is positioned before its first frame
+     * @throws IOException if a segment or the index cannot be read
+     */
+    public boolean seek(long target) throws IOException {
+        int entry = getIndex().floor(target);
+        if (entry < 0) {
+            rewind();
+            return false;
+        }
+        openSegment(getIndex().getSegmentPosition(entry));
+        data.position((int) getIndex().getOffset(entry));
+        next();
+        while (peekTimestamp() <= target) {
+            next();
+        }
+        assert timestamp <= target : "Seek must not pass the target";
+        return true;
+    }
+
+    /**
+     * Moves back to before the first frame of the recording.
+     */
+    public void rewind() {
+        data = null;
+        segmentIndex = -1;
+        sequence = 0;
+    }
+
+    /**
+     * Retrieves the keyframe index, loading it on first use.
+     *
+     * @return the index
+     * @throws IOException if an index file cannot be read
+     */
+    private TelemetryIndex getIndex() throws IOException {
+        if (index == null) {
+            index = TelemetryIndex.load(directory, segments);
+        }
+        return index;
+    }
+
+    /**
+     * Maps a segment and decodes its header, leaving it positioned at its first frame.
+     *
+     * @param position the position of the segment in the segment list
+     * @throws IOException if the segment cannot be read or is not a telemetry segment
+     */
+    private void openSegment(int position) throws IOException {
+        File segment = TelemetryFormat.segmentFile(directory, segments[position]);
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        segmentIndex = position;
+
+        if (data.remaining() < 4 || data.getInt() != TelemetryFormat.MAGIC) {
+            throw new IOException("Not a telemetry segment: " + segment);
+        }
+        int size = (int) TelemetryFormat.getVarLong(data);
+        keys = new String[size];
+        names = new String[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = TelemetryFormat.getString(data);
+            names[i] = TelemetryFormat.getString(data);
+        }
+        values = new int[size];
+        mins = new int[size];
+        maxs = new int[size];
+    }
+
+    /**
+     * Decodes a keyframe.
+     */
+    private void readKeyframe() {
+        sequence = TelemetryFormat.getVarLong(data);
+        timestamp = TelemetryFormat.getSignedVarLong(data);
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = (int) TelemetryFormat.getSignedVarLong(data);
+            mins[i] = (int) TelemetryFormat.getSignedVarLong(data);
+            maxs[i] = (int) TelemetryFormat.getSignedVarLong(data);
+        }
+        lastDelta = 0;
+    }
+
+    /**
+     * Decodes a delta frame against the current frame.
+     */
+    private void readDelta() {
+        sequence += TelemetryFormat.getVarLong(data) + 1;
+        lastDelta += TelemetryFormat.getSignedVarLong(data);
+        timestamp += lastDelta;
+        long changed = TelemetryFormat.getVarLong(data);
+        long rangeChanged = TelemetryFormat.getVarLong(data);
+        for (int i = 0; i < keys.length; i++) {
+            if ((changed & (1L << i)) != 0) {
+                values[i] += (int) TelemetryFormat.getSignedVarLong(data);
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if ((rangeChanged & (1L << i)) != 0) {
+                mins[i] += (int) TelemetryFormat.getSignedVarLong(data);
+                maxs[i] += (int) TelemetryFormat.getSignedVarLong(data);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the directory holding the recording.
+     *
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Retrieves the sequence number of the current frame.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Retrieves the timestamp of the current frame.
+     *
+     * @return the timestamp in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Retrieves the number of sensors in the current frame.
+     *
+     * @return the number of sensors
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Retrieves the key of a sensor in the current frame.
+     *
+     * @param index the sensor index
+     * @return the key
+     */
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Retrieves the value of a sensor in the current frame.
+     *
+     * @param index the sensor index
+     * @return the value
+     */
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Retrieves the minimum of a sensor in the current frame.
+     *
+     * @param index the sensor index
+     * @return the minimum
+     */
+    public int getMin(int index) {
+        return mins[index];
+    }
+
+    /**
+     * Retrieves the maximum of a sensor in the current frame.
+     *
+     * @param index the sensor index
+     * @return the maximum
+     */
+    public int getMax(int index) {
+        return maxs[index];
+    }
+
+    /**
+     * Copies the current frame into a snapshot, versioned by its sequence number.
+     *
+     * @return the snapshot
+     */
+    public SensorSnapshot toSnapshot() {
+        assert sequence > 0 : "No frame has been read";
+        return new SensorSnapshot(sequence, timestamp, keys, names, values.clone(), mins.clone(), maxs.clone());
+    }
+
+    /**
+     * Releases the current segment mapping.
+     */
+    public void close() {
+        data = null;
+        segmentIndex = segments.length;
+    }
+}
@@ -0,0 +1,364 @@
+package telemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import avionics.SensorSink;
+import avionics.SensorSnapshot;
+
+/**
+ * The TelemetryRecorder class is a flight recorder that appends every
+ * published snapshot to segmented, append-only logs in the TelemetryFormat.
+ *
+ * Frames are encoded into a preallocated direct buffer and only written to the
+ * segment file when the buffer fills up, when the oldest buffered frame has
+ * waited for the flush interval, or when the recorder is flushed, so recording
+ * a frame is normally a few dozen byte stores with no system calls, and a crash
+ * loses at most about one flush interval of flight.
+ * A new segment is started when the current one would grow past its size
+ * limit, or when the set of sensors changes.
+ */
+public class TelemetryRecorder implements SensorSink, AutoCloseable {
+    public static final int BUFFER_SIZE = 64 * 1024;                  // Size of the frame buffer in bytes
+    public static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024; // Default segment size limit in bytes
+    public static final int KEYFRAME_INTERVAL = 256;                  // Frames between keyframes
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;           // Default flush interval in milliseconds
+
+    private static final int INDEX_BUFFER_SIZE = TelemetryFormat.INDEX_ENTRY_SIZE * 256; // Size of the index buffer
+
+    private final File directory;                       // Directory holding the segments
+    private final long segmentSizeLimit;                // Size a segment may not grow past
+    private final long flushIntervalNanos;              // Longest time a recorded frame stays buffered
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);            // Pending frame bytes
+    private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(INDEX_BUFFER_SIZE); // Pending index entries
+
+    private FileChannel segmentChannel;                 // Current segment, or null before the first frame
+    private FileChannel indexChannel;                   // Sidecar index of the current segment
+    private int segmentNumber;                          // Number of the current segment
+    private long segmentPosition = 0;                   // Bytes already written to the current segment
+    private String[] keys = new String[0];              // Sensor keys of the current segment
+    private int[] values;                               // Values in the previous frame
+    private int[] mins;                                 // Minimums in the previous frame
+    private int[] maxs;                                 // Maximums in the previous frame
+    private long lastSequence = 0;                      // Sequence number of the previous frame
+    private long lastTimestamp = 0;                     // Timestamp of the previous frame
+    private long lastDelta = 0;                         // Timestamp delta of the previous frame
+    private int framesSinceKeyframe = 0;                // Frames written since the last keyframe
+    private long framesWritten = 0;                     // Frames recorded over all segments
+    private long bytesWritten = 0;                      // Bytes encoded over all segments
+    private boolean framesBuffered = false;             // Set while frames are waiting in the buffer
+    private long oldestBufferedNanos = 0;               // Time the oldest buffered frame was recorded
+    private boolean closed = false;                     // Set once the recorder is closed
+
+    /**
+     * Constructs a TelemetryRecorder with the default segment size.
+     *
+     * @param directory the directory to write segments to, created if missing
+     */
+    public TelemetryRecorder(File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Constructs a TelemetryRecorder. Recording continues after any segments
+     * already in the directory.
+     *
+     * @param directory        the directory to write segments to, created if missing
+     * @param segmentSizeLimit the size in bytes a segment may not grow past
+     */
+    public TelemetryRecorder(File directory, long segmentSizeLimit) {
+        this(directory, segmentSizeLimit, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Constructs a TelemetryRecorder. Recording continues after any segments
+     * already in the directory.
+     *
+     * @param directory           the directory to write segments to, created if missing
+     * @param segmentSizeLimit    the size in bytes a segment may not grow past
+     * @param flushIntervalMillis the longest time a recorded frame stays buffered in milliseconds
+     */
+    public TelemetryRecorder(File directory, long segmentSizeLimit, long flushIntervalMillis) {
+        assert directory != null : "Directory cannot be null";
+        assert segmentSizeLimit >= 1024 : "Segment size limit is too small";
+        assert flushIntervalMillis >= 0 : "Flush interval cannot be negative";
+        directory.mkdirs();
+        this.directory = directory;
+        this.segmentSizeLimit = segmentSizeLimit;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        int[] existing = TelemetryFormat.listSegments(directory);
+        this.segmentNumber = existing.length == 0 ? 0 : existing[existing.length - 1];
+    }
+
+    /**
+     * Appends the snapshot as the next frame, writing the buffer out once its
+     * oldest frame has waited for the flush interval.
+     * Snapshots older than the last one recorded are ignored.
+     *
+     * @param snapshot the published snapshot
+     */
+    public synchronized void accept(SensorSnapshot snapshot) {
+        assert snapshot != null : "Snapshot cannot be null";
+        assert snapshot.size() <= TelemetryFormat.MAX_SENSORS : "Too many sensors to record";
+        if (closed || snapshot.getVersion() <= lastSequence) {
+            return;
+        }
+
+        try {
+            int maxFrameSize = TelemetryFormat.maxFrameSize(snapshot.size());
+            if (segmentChannel == null || !hasSameSensors(snapshot)
+                    || segmentPosition + buffer.position() + maxFrameSize > segmentSizeLimit) {
+                startSegment(snapshot);
+            } else if (buffer.remaining() < maxFrameSize || (framesSinceKeyframe >= KEYFRAME_INTERVAL
+                    && indexBuffer.remaining() < TelemetryFormat.INDEX_ENTRY_SIZE)) {
+                flushBuffers();
+            }
+
+            long now = System.nanoTime();
+            if (!framesBuffered) {
+                framesBuffered = true;
+                oldestBufferedNanos = now;
+            }
+            int start = buffer.position();
+            if (framesSinceKeyframe >= KEYFRAME_INTERVAL) {
+                writeKeyframe(snapshot);
+            } else {
+                writeDelta(snapshot);
+            }
+            bytesWritten += buffer.position() - start;
+            framesWritten++;
+            if (now - oldestBufferedNanos >= flushIntervalNanos) {
+                flushBuffers();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Checks whether a snapshot has the same sensors as the current segment.
+     *
+     * @param snapshot the snapshot to check
+     * @return true if the keys match in order, false otherwise
+     */
+    private boolean hasSameSensors(SensorSnapshot snapshot) {
+        if (snapshot.size() != keys.length) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (!keys[i].equals(snapshot.getKey(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes the current segment and starts the next one with a header for the
+     * snapshot's sensors. The next frame written will be a keyframe.
+     *
+     * @param snapshot the snapshot about to be recorded
+     * @throws IOException if the segment cannot be created
+     */
+    private void startSegment(SensorSnapshot snapshot) throws IOException {
+        closeSegment();
+        segmentNumber++;
+        File segment = TelemetryFormat.segmentFile(directory, segmentNumber);
+        segmentChannel = FileChannel.open(segment.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        indexChannel = FileChannel.open(TelemetryFormat.indexFile(segment).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segmentPosition = 0;
+
+        int size = snapshot.size();
+        keys = new String[size];
+        values = new int[size];
+        mins = new int[size];
+        maxs = new int[size];
+
+        int start = buffer.position();
+        buffer.putInt(TelemetryFormat.MAGIC);
+        TelemetryFormat.putVarLong(buffer, size);
+        for (int i = 0; i < size; i++) {
+            keys[i] = snapshot.getKey(i);
+            TelemetryFormat.putString(buffer, keys[i]);
+            TelemetryFormat.putString(buffer, snapshot.getName(i));
+        }
+        bytesWritten += buffer.position() - start;
+        framesSinceKeyframe = KEYFRAME_INTERVAL;
+    }
+
+    /**
+     * Encodes a keyframe holding every field in full, and lists it in the index.
+     *
+     * @param snapshot the snapshot to encode
+     */
+    private void writeKeyframe(SensorSnapshot snapshot) {
+        indexBuffer.putLong(snapshot.getTimestamp());
+        indexBuffer.putLong(snapshot.getVersion());
+        indexBuffer.putLong(segmentPosition + buffer.position());
+
+        buffer.put(TelemetryFormat.KEYFRAME);
+        TelemetryFormat.putVarLong(buffer, snapshot.getVersion());
+        TelemetryFormat.putSignedVarLong(buffer, snapshot.getTimestamp());
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = snapshot.getValue(i);
+            mins[i] = snapshot.getMin(i);
+            maxs[i] = snapshot.getMax(i);
+            TelemetryFormat.putSignedVarLong(buffer, values[i]);
+            TelemetryFormat.putSignedVarLong(buffer, mins[i]);
+            TelemetryFormat.putSignedVarLong(buffer, maxs[i]);
+        }
+        lastSequence = snapshot.getVersion();
+        lastTimestamp = snapshot.getTimestamp();
+        lastDelta = 0;
+        framesSinceKeyframe = 0;
+    }
+
+    /**
+     * Encodes a delta frame holding only what changed since the previous frame.
+     *
+     * @param snapshot the snapshot to encode
+     */
+    private void writeDelta(SensorSnapshot snapshot) {
+        long changed = 0;
+        long rangeChanged = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (snapshot.getValue(i) != values[i]) {
+                changed |= 1L << i;
+            }
+            if (snapshot.getMin(i) != mins[i] || snapshot.getMax(i) != maxs[i]) {
+                rangeChanged |= 1L << i;
+            }
+        }
+
+        long delta = snapshot.getTimestamp() - lastTimestamp;
+        buffer.put(TelemetryFormat.DELTA);
+        TelemetryFormat.putVarLong(buffer, snapshot.getVersion() - lastSequence - 1);
+        TelemetryFormat.putSignedVarLong(buffer, delta - lastDelta);
+        TelemetryFormat.putVarLong(buffer, changed);
+        TelemetryFormat.putVarLong(buffer, rangeChanged);
+        for (int i = 0; i < keys.length; i++) {
+            if ((changed & (1L << i)) != 0) {
+                TelemetryFormat.putSignedVarLong(buffer, (long) snapshot.getValue(i) - values[i]);
+                values[i] = snapshot.getValue(i);
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if ((rangeChanged & (1L << i)) != 0) {
+                TelemetryFormat.putSignedVarLong(buffer, (long) snapshot.getMin(i) - mins[i]);
+                TelemetryFormat.putSignedVarLong(buffer, (long) snapshot.getMax(i) - maxs[i]);
+                mins[i] = snapshot.getMin(i);
+                maxs[i] = snapshot.getMax(i);
+            }
+        }
+        lastSequence = snapshot.getVersion();
+        lastTimestamp = snapshot.getTimestamp();
+        lastDelta = delta;
+        framesSinceKeyframe++;
+    }
+
+    /**
+     * Writes the buffered frames, then the buffered index entries, so the index
+     * never refers to data that is not yet on disk.
+     *
+     * @throws IOException if the segment or index cannot be written
+     */
+    private void flushBuffers() throws IOException {
+        if (segmentChannel == null) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmentPosition += segmentChannel.write(buffer);
+        }
+        buffer.clear();
+
+        indexBuffer.flip();
+        while (indexBuffer.hasRemaining()) {
+            indexChannel.write(indexBuffer);
+        }
+        indexBuffer.clear();
+        framesBuffered = false;
+    }
+
+    /**
+     * Writes the buffered frames and index entries, reporting any failure.
+     */
+    private void flushBuffersQuietly() {
+        try {
+            flushBuffers();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Flushes and closes the current segment and its index, if one is open.
+     *
+     * @throws IOException if the segment cannot be written or closed
+     */
+    private void closeSegment() throws IOException {
+        if (segmentChannel == null) {
+            return;
+        }
+        flushBuffers();
+        segmentChannel.close();
+        indexChannel.close();
+        segmentChannel = null;
+        indexChannel = null;
+    }
+
+    /**
+     * Writes every buffered frame to disk, so readers can see them.
+     */
+    public synchronized void flush() {
+        flushBuffersQuietly();
+    }
+
+    /**
+     * Retrieves the number of frames recorded.
+     *
+     * @return the number of frames
+     */
+    public synchronized long getFramesWritten() {
+        return framesWritten;
+    }
+
+    /**
+     * Retrieves the number of bytes encoded, including segment headers.
+     *
+     * @return the number of bytes
+     */
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Retrieves the number of the segment currently being written.
+     *
+     * @return the segment number, or 0 before the first frame
+     */
+    public synchronized int getSegmentNumber() {
+        return segmentNumber;
+    }
+
+    /**
+     * Flushes and closes the recorder. Later snapshots are ignored.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            closeSegment();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package telemetry;
+
+import java.io.File;
+import java.io.IOException;
+
+import avionics.SensorSimulator;
+import simulation.SimulationClock;
+import simulation.SimulationRunner;
+
+/**
+ * The TelemetryReplay class plays a recorded flight back through a
+ * SensorSimulator's bus and sinks, so every panel and sink sees the recorded
+ * snapshots exactly as it would see live ones.
+ *
+ * Playback runs at any multiple of real time or unthrottled, and can seek to
+ * any time in the recording through the keyframe index. The replay is also the
+ * clock of the recorded flight, for components that should follow replay time.
+ */
+public class TelemetryReplay implements SimulationClock, AutoCloseable {
+    public static final double UNTHROTTLED = SimulationRunner.UNTHROTTLED; // Speed multiplier for running flat out
+
+    private final TelemetryReader reader;       // Reads the recording
+    private final SensorSimulator target;       // Publishes the recorded snapshots
+    private double speedMultiplier = 1;         // Recorded time per unit of wall time
+    private volatile long now;                  // Current replay time in milliseconds
+    private volatile boolean stopped = false;   // Set to end playback early
+    private long framesPublished = 0;           // Frames published since construction
+
+    /**
+     * Opens a recording for replay, positioned at its start.
+     *
+     * @param directory the directory holding the recording
+     * @param target    the simulator whose bus and sinks receive the recorded snapshots
+     * @throws IOException if the recording cannot be read
+     */
+    public TelemetryReplay(File directory, SensorSimulator target) throws IOException {
+        assert target != null : "Target cannot be null";
+        this.reader = new TelemetryReader(directory);
+        this.target = target;
+        long first = reader.peekTimestamp();
+        this.now = first == Long.MAX_VALUE ? 0 : first;
+    }
+
+    /**
+     * Jumps to a time in the recording and publishes the frame in effect at that time.
+     *
+     * @param timestamp the time to seek to in milliseconds
+     * @return true if a frame was published, false if the recording starts later
+     * @throws IOException if the recording cannot be read
+     */
+    public synchronized boolean seek(long timestamp) throws IOException {
+        boolean found = reader.seek(timestamp);
+        now = timestamp;
+        if (found) {
+            publishCurrent();
+        }
+        return found;
+    }
+
+    /**
+     * Plays the recording to its end.
+     *
+     * @return the number of frames published
+     * @throws IOException if the recording cannot be read
+     */
+    public long play() throws IOException {
+        return playUntil(Long.MAX_VALUE);
+    }
+
+    /**
+     * Plays the given amount of recorded time from the current replay time.
+     *
+     * @param durationMillis the recorded time to play in milliseconds
+     * @return the number of frames published
+     * @throws IOException if the recording cannot be read
+     */
+    public long playFor(long durationMillis) throws IOException {
+        assert durationMillis >= 0 : "Duration must be non-negative";
+        return playUntil(now + durationMillis);
+    }
+
+    /**
+     * Publishes every frame up to and including the given time, pacing them to
+     * the speed multiplier, then leaves the replay time there.
+     *
+     * @param endMillis the recorded time to stop at, or Long.MAX_VALUE for the end of the recording
+     * @return the number of frames published
+     * @throws IOException if the recording cannot be read
+     */
+    public synchronized long playUntil(long endMillis) throws IOException {
+        stopped = false;
+        long simStart = now;
+        long wallStart = System.nanoTime();
+        long published = 0;
+
+        long next;
+        while (!stopped && (next = reader.peekTimestamp()) <= endMillis && next != Long.MAX_VALUE) {
+            throttle(simStart, wallStart, next);
+            if (stopped || !reader.next()) {
+                break;
+            }
+            now = Math.max(now, next);
+            publishCurrent();
+            published++;
+        }
+
+        if (!stopped && endMillis != Long.MAX_VALUE) {
+            throttle(simStart, wallStart, endMillis);
+            now = Math.max(now, endMillis);
+        }
+        return published;
+    }
+
+    /**
+     * Publishes the reader's current frame through the target simulator.
+     */
+    private void publishCurrent() {
+        target.publish(reader.toSnapshot());
+        framesPublished++;
+    }
+
+    /**
+     * Sleeps until wall time has caught up with the given recorded time at the
+     * current speed multiplier.
+     *
+     * @param simStart  the recorded time playback started at
+     * @param wallStart the wall time playback started at, from System.nanoTime()
+     * @param simTarget the recorded time about to be reached
+     */
+    private void throttle(long simStart, long wallStart, long simTarget) {
+        if (Double.isInfinite(speedMultiplier)) {
+            return;
+        }
+        long wallTarget = wallStart + (long) ((simTarget - simStart) * 1_000_000L / speedMultiplier);
+        long remaining = wallTarget - System.nanoTime();
+        if (remaining > 0) {
+            try {
+                Thread.sleep(remaining / 1_000_000L, (int) (remaining % 1_000_000L));
+            } catch (InterruptedException e) {
+                stopped = true;
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Ends playback after the frame in progress.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Sets how fast recorded time passes relative to wall time.
+     *
+     * @param speedMultiplier 1 for real time, 10 or 1000 for faster, or UNTHROTTLED
+     */
+    public void setSpeedMultiplier(double speedMultiplier) {
+        assert speedMultiplier > 0 : "Speed multiplier must be positive";
+        this.speedMultiplier = speedMultiplier;
+    }
+
+    /**
+     * Retrieves how fast recorded time passes relative to wall time.
+     *
+     * @return the speed multiplier
+     */
+    public double getSpeedMultiplier() {
+        return speedMultiplier;
+    }
+
+    /**
+     * Retrieves the current replay time.
+     *
+     * @return the recorded time in milliseconds
+     */
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    /**
+     * Retrieves the number of frames published since the replay was opened.
+     *
+     * @return the number of frames
+     */
+    public synchronized long getFramesPublished() {
+        return framesPublished;
+    }
+
+    /**
+     * Releases the recording.
+     */
+    public synchronized void close() {
+        reader.close();
+    }
+}
@@ -12,6 +12,12 @@ import org.junit.runners.Suite;
     TestSensorData.class,
     TestFlightManagement.class,
     TestHazards.class,
-    TestConsolePanel.class
+    TestConsolePanel.class,
+    TestSensorHistory.class,
+    TestSensorBank.class,
+    TestSimulationRunner.class,
+    TestTimingWheel.class,
+    TestTelemetry.class,
+    TestMetrics.class
 })
 public class TestAll {} // This class remains empty, don't put things here.
@@ -8,7 +8,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import avionics.SensorSimulator;
+import gui.ConsoleLog;
 import gui.ConsolePanel;
+import gui.ConsoleRecord;
 
 public class TestConsolePanel {
 
@@ -46,4 +48,31 @@ public class TestConsolePanel {
 
         assertTrue(consolePanel.getSensorError() == false);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLogDropsOldestWhenFull() {
+        ConsoleLog log = new ConsoleLog(3);
+        for (int i = 0; i < 5; i++) {
+            log.append(new ConsoleRecord(i, "yaw", ConsoleRecord.Severity.INFO, "record " + i));
+        }
+
+        assertEquals(3, log.getSize());
+        assertEquals(5, log.getAppended());
+        assertEquals("record 2", log.getElementAt(0).getMessage());
+        assertEquals("record 4", log.getElementAt(2).getMessage());
+    }
+
+    @Test
+    public void testOutOfRangeLogged() {
+        sensorSimulator.createSensors();
+        sensorSimulator.getSensors().get("pitch").setBadMinMax(1000, 2000);
+        sensorSimulator.publish();
+        consolePanel.updateConsole();
+
+        ConsoleLog log = consolePanel.getLog();
+        assertEquals(1, log.getSize());
+        assertEquals("pitch", log.getElementAt(0).getSensor());
+        assertEquals(ConsoleRecord.Severity.WARNING, log.getElementAt(0).getSeverity());
+        assertTrue(log.getElementAt(0).toString().endsWith("Sensor detecting value lower than min"));
+    }
+}
@@ -1,7 +1,10 @@
 package tests;
 
 import gui.HazardPanel;
+import avionics.HazardEngine;
 import avionics.SensorSimulator;
+import avionics.SensorSnapshot;
+import avionics.TrendEstimator;
 
 import org.junit.Test;
 import org.junit.Before;
@@ -166,4 +169,193 @@ public class TestHazards {
         assertFalse(hazardPanel.isSensorFault()); 
     }
 
-}
\ No newline at end of file
+    // Builds a snapshot of sensors s0, s1, ... with the given values, each ranged 0 to 100
+    private static SensorSnapshot snapshot(long version, int... values) {
+        String[] keys = new String[values.length];
+        int[] mins = new int[values.length];
+        int[] maxs = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            keys[i] = "s" + i;
+            maxs[i] = 100;
+        }
+        return new SensorSnapshot(version, version, keys, keys, values.clone(), mins, maxs);
+    }
+
+    // Builds a snapshot like snapshot(), with its timestamp set apart from its version
+    private static SensorSnapshot timedSnapshot(long version, long timestamp, int... values) {
+        String[] keys = new String[values.length];
+        int[] maxs = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            keys[i] = "s" + i;
+            maxs[i] = 100;
+        }
+        return new SensorSnapshot(version, timestamp, keys, keys, values.clone(), new int[values.length], maxs);
+    }
+
+    // Tests that only rules reading changed sensors, and the rules derived from flipped ones, are re-evaluated
+    @Test
+    public void testEngineEvaluatesOnlyChangedRules() {
+        HazardEngine engine = new HazardEngine();
+        int sensors = 40;
+        String[] names = new String[sensors];
+        for (int i = 0; i < sensors; i++) {
+            names[i] = "fault" + i;
+            engine.addRangeRule(names[i], "s" + i);
+        }
+        engine.addAnyOf("sensorFault", names);
+        engine.addNoneOf("systemSafe", "sensorFault");
+
+        int[] values = new int[sensors];
+        engine.evaluate(snapshot(1, values));
+        assertEquals(sensors + 2, engine.getEvaluations());
+        assertTrue(engine.isActive("systemSafe"));
+
+        // A value change within range re-evaluates one rule and flips nothing
+        values[7] = 50;
+        assertFalse(engine.evaluate(snapshot(2, values)));
+        assertEquals(sensors + 3, engine.getEvaluations());
+
+        // Going out of range flips the rule and both derived rules
+        values[7] = 500;
+        assertTrue(engine.evaluate(snapshot(3, values)));
+        assertEquals(sensors + 6, engine.getEvaluations());
+        assertTrue(engine.isActive("fault7"));
+        assertTrue(engine.isActive("sensorFault"));
+        assertFalse(engine.isActive("systemSafe"));
+    }
+
+    // Tests a rule that reads more than one sensor
+    @Test
+    public void testEngineCrossSensorRule() {
+        HazardEngine engine = new HazardEngine();
+        engine.addRule("stallRisk", (snapshot, indexes) -> snapshot.getValue(indexes[0]) < 20
+                && snapshot.getValue(indexes[1]) > 60, "s0", "s1");
+
+        engine.evaluate(snapshot(1, 10, 50));
+        assertFalse(engine.isActive("stallRisk"));
+        engine.evaluate(snapshot(2, 10, 70));
+        assertTrue(engine.isActive("stallRisk"));
+        engine.evaluate(snapshot(3, 30, 70));
+        assertFalse(engine.isActive("stallRisk"));
+    }
+
+    // Tests that the panel's lights follow the engine's rules
+    @Test
+    public void testCheckSensorsUsesEngine() {
+        sensorSimulator.createSensors();
+        sensorSimulator.getSensors().get("roll").setBadMinMax(1000, 2000);
+        sensorSimulator.publish();
+        hazardPanel.checkSensors();
+
+        assertTrue(hazardPanel.isAttitudeFault());
+        assertTrue(hazardPanel.isSensorFault());
+        assertFalse(hazardPanel.isSystemSafe());
+    }
+
+    // Tests that pushed changes only re-evaluate the rules reading the sensors they mark
+    @Test
+    public void testShowChangeEvaluatesOnlyChangedSensors() {
+        sensorSimulator.createSensors();
+        sensorSimulator.subscribe(hazardPanel::showChange, Runnable::run);
+        sensorSimulator.publish();
+        HazardEngine engine = hazardPanel.getHazardEngine();
+        long initial = engine.getEvaluations();
+        assertEquals(engine.getRuleCount(), initial); // The first change marks every rule
+
+        sensorSimulator.getSensors().get("roll").setBadMinMax(1000, 2000);
+        sensorSimulator.publish();
+        hazardPanel.update();
+        assertTrue(hazardPanel.isAttitudeFault());
+        assertFalse(hazardPanel.isAirspeedFault());
+        assertFalse(hazardPanel.isSystemSafe());
+        // The attitude rule, then sensorFault and systemSafe as the fault propagates
+        assertEquals(initial + 3, engine.getEvaluations());
+
+        sensorSimulator.publish(); // Nothing changed, so nothing is pushed or evaluated
+        hazardPanel.update();
+        assertEquals(initial + 3, engine.getEvaluations());
+    }
+
+    // Tests that a steady climb towards a limit raises a caution before the limit is reached
+    @Test
+    public void testTrendEstimatorPredictsExceedance() {
+        TrendEstimator estimator = new TrendEstimator(16, 4, 100);
+        for (int t = 1; t <= 10; t++) {
+            estimator.accept(snapshot(t, 10 + t, 50));
+        }
+        assertEquals(80, estimator.getTimeToLimit(0)); // 20 now, rising 1 per millisecond to 100
+        assertTrue(estimator.isCaution(0));
+        assertFalse(estimator.isCaution(1));
+        assertEquals(TrendEstimator.NO_EXCEEDANCE, estimator.getTimeToLimit(1));
+        assertTrue(estimator.hasCautions());
+
+        // Levelling off clears the caution once the window forgets the climb
+        long changes = estimator.getCautionChanges();
+        for (int t = 11; t <= 40; t++) {
+            estimator.accept(snapshot(t, 20, 50));
+        }
+        assertFalse(estimator.isCaution(0));
+        assertFalse(estimator.hasCautions());
+        assertTrue(estimator.getCautionChanges() > changes);
+    }
+
+    // Tests that a sensor already out of range, or too far from a limit, is not a caution
+    @Test
+    public void testTrendEstimatorIgnoresFaultsAndDistantLimits() {
+        TrendEstimator estimator = new TrendEstimator(16, 4, 100);
+        for (int t = 1; t <= 10; t++) {
+            estimator.accept(snapshot(t * 1000, 100 + t, 90 - t));
+        }
+        assertEquals(0, estimator.getTimeToLimit(0));
+        assertFalse(estimator.isCaution(0)); // Already a fault
+        assertTrue(estimator.getTimeToLimit(1) > 100);
+        assertFalse(estimator.isCaution(1)); // Falling, but beyond the horizon
+
+        // Stale snapshots are ignored
+        long limit = estimator.getTimeToLimit(1);
+        estimator.accept(snapshot(5000, 0, 0));
+        assertEquals(limit, estimator.getTimeToLimit(1));
+    }
+
+    // Tests that a replay or backwards seek, newer snapshots with older times, restarts the trends
+    @Test
+    public void testTrendEstimatorFollowsTimeGoingBackwards() {
+        TrendEstimator estimator = new TrendEstimator(16, 4, 100);
+        estimator.accept(timedSnapshot(1, 1_000_000, 50)); // Live snapshot published before the replay starts
+        long version = 1;
+        for (int t = 1; t <= 10; t++) {
+            estimator.accept(timedSnapshot(++version, t, 10 + t));
+        }
+        assertTrue(estimator.isCaution(0));
+        assertEquals(80, estimator.getTimeToLimit(0));
+
+        // Seeking back to a level stretch clears the climb's caution
+        long changes = estimator.getCautionChanges();
+        for (int t = 1; t <= 10; t++) {
+            estimator.accept(timedSnapshot(++version, t, 20));
+        }
+        assertFalse(estimator.isCaution(0));
+        assertTrue(estimator.getCautionChanges() > changes);
+
+        // Out of order snapshots are still ignored
+        long limit = estimator.getTimeToLimit(0);
+        estimator.accept(timedSnapshot(version - 5, 100, 99));
+        assertEquals(limit, estimator.getTimeToLimit(0));
+    }
+
+    // Tests that the hazard panel lights a caution without affecting system safety
+    @Test
+    public void testPredictedExceedanceLight() {
+        sensorSimulator.createSensors();
+        TrendEstimator estimator = new TrendEstimator(16, 4, 100);
+        for (int t = 1; t <= 10; t++) {
+            estimator.accept(snapshot(t, 10 + t));
+        }
+        hazardPanel.setTrendEstimator(estimator);
+        hazardPanel.update();
+
+        assertTrue(hazardPanel.isPredictedExceedance());
+        assertEquals(Color.ORANGE, hazardPanel.getConditionLights().get("predictedExceedance").getBackground());
+        assertEquals(hazardPanel.isSystemSafe(), !hazardPanel.isSensorFault());
+    }
+}
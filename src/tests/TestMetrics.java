@@ -0,0 +1,130 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.ObjectName;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import avionics.Sensor;
+import avionics.SensorSimulator;
+import gui.HazardPanel;
+import monitoring.HazardCheckEvent;
+import monitoring.Histogram;
+import monitoring.MetricsRegistry;
+import monitoring.SensorTickEvent;
+import simulation.VirtualClock;
+
+/**
+ * This class contains unit tests for the metrics registry and the metrics recorded by the simulator.
+ */
+public class TestMetrics {
+
+    /**
+     * Tests that a histogram's statistics and percentiles bound the recorded values.
+     */
+    @Test
+    public void testHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000, histogram.getMax());
+        assertEquals(50_500, histogram.getMean(), 0.001);
+        assertTrue(histogram.getMedian() >= 50_000 && histogram.getMedian() < 100_000);
+        assertEquals(100_000, histogram.getPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMedian());
+    }
+
+    /**
+     * Tests that the simulator records lateness and duration once per schedule per tick.
+     */
+    @Test
+    public void testSimulatorRecordsPerSchedule() {
+        VirtualClock clock = new VirtualClock(0);
+        SensorSimulator simulator = new SensorSimulator();
+        MetricsRegistry metrics = new MetricsRegistry();
+        simulator.setClock(clock);
+        simulator.setMetrics(metrics);
+        simulator.createSensors();
+
+        clock.advanceTo(1000);
+        simulator.advanceTo(1000);
+
+        // Ticks at 0, 500 and 1000 run the 500 ms schedules; 0 and 1000 also run the one second schedule
+        assertEquals(3, metrics.histogram("sensor.tick.altitude.latenessNanos").getCount());
+        assertEquals(3, metrics.histogram("sensor.tick.attitude.durationNanos").getCount());
+        assertEquals(2, metrics.histogram("sensor.tick.airspeed.durationNanos").getCount());
+        assertEquals(1000 * 1_000_000L, metrics.histogram("sensor.tick.attitude.latenessNanos").getMax());
+        assertEquals(3, metrics.histogram("sensor.tick.publishNanos").getCount());
+        assertEquals(3, metrics.histogram("sensor.tick.allocatedBytes").getCount());
+
+        // Each schedule is timed over its own sensors, so the groups are not copies of the whole tick
+        simulator.addSensor("fuel", new Sensor("Fuel", 100, 0), 250);
+        clock.advanceTo(1250);
+        simulator.advanceTo(1250);
+        assertEquals(1, metrics.histogram("sensor.tick.fuel.durationNanos").getCount());
+        assertEquals(2, metrics.histogram("sensor.tick.airspeed.durationNanos").getCount());
+        assertEquals(3, metrics.histogram("sensor.tick.attitude.latenessNanos").getCount());
+    }
+
+    /**
+     * Tests that metrics in the default registry can be read over JMX.
+     */
+    @Test
+    public void testDefaultRegistryExposedOverJmx() throws Exception {
+        MetricsRegistry.getDefault().histogram("test.jmxNanos").record(42);
+        ObjectName name = new ObjectName(MetricsRegistry.DOMAIN + ":type=Histogram,name="
+                + ObjectName.quote("test.jmxNanos"));
+
+        assertEquals(42L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Max"));
+    }
+
+    /**
+     * Tests that sensor ticks and hazard checks are recorded as Flight Recorder events.
+     */
+    @Test
+    public void testFlightRecorderEvents() throws Exception {
+        VirtualClock clock = new VirtualClock(0);
+        SensorSimulator simulator = new SensorSimulator();
+        simulator.setClock(clock);
+        File file = File.createTempFile("avionics", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(SensorTickEvent.class);
+            recording.enable(HazardCheckEvent.class);
+            recording.start();
+            simulator.createSensors();
+            simulator.getSensors().get("altitude").setBadMinMax(0, 1);
+            simulator.advanceTo(0);
+            new HazardPanel(simulator).checkSensors();
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+        file.delete();
+        RecordedEvent tick = events.stream()
+                .filter(e -> e.getEventType().getName().equals("avionics.SensorTick")).findFirst().get();
+        RecordedEvent hazard = events.stream()
+                .filter(e -> e.getEventType().getName().equals("avionics.HazardCheck")).findFirst().get();
+
+        assertEquals(6, tick.getInt("sensorCount"));
+        assertTrue(tick.getString("sensors").contains("Altitude"));
+        assertEquals(HazardCheckEvent.ALTITUDE_FAULT, hazard.getInt("faultMask") & HazardCheckEvent.ALTITUDE_FAULT);
+    }
+}
@@ -1,8 +1,14 @@
 package tests;
 
 import flightSystem.Plane;
+import flightSystem.PlaneSpriteAtlas;
+import flightSystem.SpatialGrid;
 import flightSystem.Waypoint;
+import gui.MapViewport;
 import gui.PlaneOnMapPanel;
+import gui.TiledMap;
+import gui.TrafficLayer;
+import simulation.PhysicsLoop;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -183,6 +189,230 @@ public class TestPlaneOnMapPanel {
         assertEquals(2, planeOnMap.getWaypoints().size());
     }
 
+    // Tests that the background is only rescaled when the panel size or image changes
+    @Test
+    public void testScaledBackgroundIsCached() {
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = image.getGraphics();
+        planeOnMap.setSize(200, 100);
+
+        planeOnMap.paint(g);
+        BufferedImage scaled = planeOnMap.getScaledBackground();
+        planeOnMap.paint(g);
+        assertSame(scaled, planeOnMap.getScaledBackground());
+        assertEquals(1, planeOnMap.getBackgroundScales());
+        assertEquals(200, scaled.getWidth());
+        assertEquals(100, scaled.getHeight());
+
+        planeOnMap.setSize(150, 80);
+        planeOnMap.paint(g);
+        assertEquals(2, planeOnMap.getBackgroundScales());
+        assertEquals(150, planeOnMap.getScaledBackground().getWidth());
+
+        planeOnMap.setBackgroundImage(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+        planeOnMap.paint(g);
+        assertEquals(3, planeOnMap.getBackgroundScales());
+    }
+
+    // Tests that angles snap to the nearest pre-rendered heading and are drawn unscaled
+    @Test
+    public void testPlaneSpriteAtlas() {
+        BufferedImage source = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = source.getGraphics();
+        g.setColor(java.awt.Color.WHITE);
+        g.fillRect(3, 0, 2, 8); // A vertical bar, pointing up
+        g.dispose();
+
+        PlaneSpriteAtlas atlas = new PlaneSpriteAtlas(source, 20, 8);
+        assertEquals(8, atlas.getHeadings());
+        assertEquals(29, atlas.getCellSize());
+        assertEquals(0, atlas.indexOf(0.1));
+        assertEquals(2, atlas.indexOf(Math.PI / 2));
+        assertEquals(0, atlas.indexOf(2 * Math.PI - 0.1));
+        assertEquals(6, atlas.indexOf(-Math.PI / 2));
+        assertEquals(Math.PI, atlas.getHeading(4), 1e-9);
+
+        // Heading 0 points right, so the bar lies horizontally through the centre
+        BufferedImage target = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics tg = target.getGraphics();
+        atlas.draw(tg, 50, 50, 0);
+        tg.dispose();
+        assertTrue((target.getRGB(58, 50) >>> 24) > 0);
+        assertEquals(0, target.getRGB(50, 58) >>> 24);
+    }
+
+    // Tests that zooming keeps the point under the cursor still and panning stays within the map
+    @Test
+    public void testMapViewport() {
+        MapViewport viewport = new MapViewport();
+        viewport.setSize(400, 200);
+        assertEquals(123, viewport.toScreenX(123), 1e-9);
+        assertEquals(0, viewport.toLongitude(200), 1e-9);
+        assertEquals(90, viewport.toLatitude(0), 1e-9);
+
+        viewport.zoomAt(100, 50, 4);
+        assertEquals(4, viewport.getZoom(), 1e-9);
+        assertEquals(100, viewport.toWorldX(100), 1e-9);
+        assertEquals(50, viewport.toWorldY(50), 1e-9);
+        assertEquals(100, viewport.toScreenX(100), 1e-9);
+
+        viewport.pan(-10_000, -10_000);
+        assertEquals(300, viewport.getOffsetX(), 1e-9); // Right edge of the map at the right edge of the view
+        assertEquals(150, viewport.getOffsetY(), 1e-9);
+
+        viewport.zoomAt(0, 0, 0.001);
+        assertEquals(MapViewport.MIN_ZOOM, viewport.getZoom(), 1e-9);
+        assertEquals(0, viewport.getOffsetX(), 1e-9);
+    }
+
+    // Tests that tiles are cut into a pyramid on first use and evicted least recently used first
+    @Test
+    public void testTiledMap() throws Exception {
+        BufferedImage source = new BufferedImage(1000, 600, BufferedImage.TYPE_INT_RGB);
+        TiledMap map = new TiledMap(source, null);
+        try {
+            assertEquals(2, map.getMaxLevel()); // 256 and 512 fall short of 1000
+            assertEquals(1, map.columns(0));
+            assertEquals(4, map.columns(2));
+            assertEquals(3, map.rows(2));
+
+            // Zoomed in to the top left quarter, the four tiles in view and the ring around them are cut
+            MapViewport viewport = new MapViewport();
+            viewport.setSize(500, 300);
+            viewport.zoomAt(0, 0, 2);
+            BufferedImage screen = new BufferedImage(500, 300, BufferedImage.TYPE_INT_RGB);
+            Graphics g = screen.getGraphics();
+            map.draw(g, viewport);
+            g.dispose();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (map.getTilesCut() < 10 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(10, map.getTilesCut()); // The coarsest tile, then nine around the view
+            assertEquals(256, map.peek(2, 0, 0).getWidth());
+            assertNotNull(map.peek(2, 2, 2));
+            assertNull(map.peek(2, 3, 0));
+        } finally {
+            map.close();
+        }
+
+        // A cache of five tiles keeps the five used last
+        TiledMap small = new TiledMap(source, null, 5L * TiledMap.TILE_SIZE * TiledMap.TILE_SIZE * 4);
+        try {
+            assertEquals(5, small.getMaxTiles());
+            for (int row = 0; row < small.rows(2); row++) {
+                for (int column = 0; column < small.columns(2); column++) {
+                    small.request(2, column, row);
+                }
+            }
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (small.getTilesCut() < 13 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(13, small.getTilesCut()); // The coarsest tile, then all twelve
+            assertEquals(5, small.getCachedTiles());
+            assertNull(small.peek(2, 0, 0));
+            assertNotNull(small.peek(0, 0, 0)); // The fallback tile outlives every eviction
+            assertEquals(232, small.peek(2, 3, 2).getWidth()); // The right edge tile is 1000 - 3 * 256 wide
+        } finally {
+            small.close();
+        }
+    }
+
+    // Tests that clicking on a zoomed map places the waypoint at the world point clicked
+    @Test
+    public void testZoomedClickAddsWorldWaypoint() {
+        planeOnMap.setSize(400, 200);
+        planeOnMap.zoomAt(0, 0, 2);
+        MouseEvent click = new MouseEvent(planeOnMap, MouseEvent.MOUSE_PRESSED, 0, 0, 100, 60, 1, false);
+        planeOnMap.handleMousePress(click);
+        assertEquals(new Point(50, 30), planeOnMap.getWaypoints().get(0).getPoint());
+
+        BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        planeOnMap.paint(image.getGraphics());
+        assertEquals(0, planeOnMap.getBackgroundScales()); // Zoomed maps are drawn from tiles
+    }
+
+    // Tests that waypoints are hit within their marker, also after the list is cleared directly
+    @Test
+    public void testGetWaypointAt() {
+        planeOnMap.setSize(400, 200);
+        planeOnMap.addWaypoint(new Point(100, 100));
+        planeOnMap.addWaypoint(new Point(300, 50));
+
+        assertSame(planeOnMap.getWaypoints().get(0), planeOnMap.getWaypointAt(new Point(103, 98)));
+        assertSame(planeOnMap.getWaypoints().get(1), planeOnMap.getWaypointAt(new Point(300, 50)));
+        assertNull(planeOnMap.getWaypointAt(new Point(200, 100)));
+
+        // Zoomed in, the marker covers less of the world
+        planeOnMap.zoomAt(100, 100, 4);
+        assertNull(planeOnMap.getWaypointAt(new Point(112, 100)));
+        assertNotNull(planeOnMap.getWaypointAt(new Point(104, 100)));
+
+        planeOnMap.getWaypoints().clear();
+        assertNull(planeOnMap.getWaypointAt(new Point(100, 100)));
+    }
+
+    // Tests that dense traffic is clustered when zoomed out and drawn singly, culled to the view, when zoomed in
+    @Test
+    public void testTrafficLayer() {
+        java.util.Random random = new java.util.Random(3);
+        SpatialGrid<Integer> traffic = new SpatialGrid<>(16);
+        for (int i = 0; i < 10_000; i++) {
+            traffic.put(i, random.nextDouble() * 660, random.nextDouble() * 390);
+        }
+        MapViewport viewport = new MapViewport();
+        viewport.setSize(660, 390);
+        BufferedImage image = new BufferedImage(660, 390, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = image.getGraphics();
+        TrafficLayer layer = new TrafficLayer();
+
+        layer.drawTraffic(g, viewport, traffic);
+        assertEquals(10_000, layer.getLastAircraft());
+        assertTrue(layer.getLastClusters() > 0);
+        assertTrue(layer.getLastClusters() + layer.getLastSymbols() < 400);
+
+        // Cluster sums follow aircraft as they move
+        for (int i = 0; i < 10_000; i++) {
+            traffic.put(i, 100 + random.nextDouble(), 100 + random.nextDouble());
+        }
+        layer.drawTraffic(g, viewport, traffic);
+        assertEquals(1, layer.getLastClusters());
+        assertEquals(10_000, layer.getLastAircraft());
+
+        for (int i = 0; i < 10_000; i++) {
+            traffic.put(i, random.nextDouble() * 660, random.nextDouble() * 390);
+        }
+        viewport.zoomAt(330, 195, 8);
+        layer.drawTraffic(g, viewport, traffic);
+        assertEquals(0, layer.getLastClusters());
+        double margin = 3 / viewport.getZoom(); // Half an aircraft symbol
+        int inView = traffic.queryRect(viewport.toWorldX(0) - margin, viewport.toWorldY(0) - margin,
+                viewport.toWorldX(660) + margin, viewport.toWorldY(390) + margin).size();
+        assertTrue(inView < 10_000 / 16);
+        assertEquals(inView, layer.getLastSymbols());
+        g.dispose();
+    }
+
+    // Tests that with a physics loop attached, timer updates only repaint and the plane is drawn from the loop's state
+    @Test
+    public void testUpdateWithPhysicsLoop() {
+        planeOnMap.setSize(660, 390);
+        PhysicsLoop loop = new PhysicsLoop(planeOnMap.getPlane(), 660, 390);
+        planeOnMap.setPhysicsLoop(loop);
+        double x = planeOnMap.getPlane().getPlaneX();
+        double y = planeOnMap.getPlane().getPlaneY();
+        planeOnMap.update(new ActionEvent(this, ActionEvent.ACTION_PERFORMED, null));
+        assertEquals(x, planeOnMap.getPlane().getPlaneX(), 0);
+        assertEquals(y, planeOnMap.getPlane().getPlaneY(), 0);
+
+        loop.advance(2 * PhysicsLoop.STEP_PERIOD * 1_000_000L);
+        assertEquals(2, loop.getState().getStep());
+        BufferedImage image = new BufferedImage(660, 390, BufferedImage.TYPE_INT_ARGB);
+        planeOnMap.paint(image.getGraphics());
+        assertEquals(planeOnMap.getPlane().getPlaneX(), loop.getState().getX(), 0);
+    }
+
     @Test
     public void testGetPlane() {
         Plane plane = planeOnMap.getPlane();
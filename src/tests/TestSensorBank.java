@@ -0,0 +1,124 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import avionics.Sensor;
+import avionics.SensorBank;
+
+/**
+ * This class contains unit tests for the SensorBank class.
+ */
+public class TestSensorBank {
+
+    /**
+     * Tests that new sensors start within their range and the bank grows past its initial capacity.
+     */
+    @Test
+    public void testAddGrowsAndStartsInRange() {
+        SensorBank bank = new SensorBank(2);
+        for (int i = 0; i < 10; i++) {
+            bank.add("Sensor" + i, 1000, 100);
+        }
+
+        assertEquals(10, bank.size());
+        for (int i = 0; i < bank.size(); i++) {
+            assertTrue(bank.isWithinRange(i));
+            assertEquals("Sensor" + i, bank.getName(i));
+        }
+    }
+
+    /**
+     * Tests that an out of range sensor steps back up by one, like Sensor.updateValue().
+     */
+    @Test
+    public void testOutOfRangeStepsUp() {
+        SensorBank bank = new SensorBank(1);
+        int index = bank.add("Altitude", 5, 5); // Zero variation, so the increment is always zero
+        bank.setBadMinMax(index, 10, 20);
+        assertTrue(bank.isTooLow(index));
+
+        bank.updateAll();
+        assertEquals(6, bank.getValue(index));
+        bank.update(index);
+        assertEquals(7, bank.getValue(index));
+    }
+
+    /**
+     * Tests that repeated updates change the values, like TestSensorData.testUpdateSensor.
+     */
+    @Test
+    public void testUpdateAllChangesValues() {
+        SensorBank bank = new SensorBank(100);
+        int[] before = new int[100];
+        for (int i = 0; i < 100; i++) {
+            bank.add("Sensor" + i, 140500, 130500);
+            before[i] = bank.getValue(i);
+        }
+
+        for (int r = 0; r < 4; r++) {
+            bank.updateAll();
+        }
+
+        int changed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (bank.getValue(i) != before[i]) {
+                changed++;
+            }
+        }
+        assertTrue(changed > 0);
+    }
+
+    /**
+     * Tests that a Sensor view reads and writes the bank entry.
+     */
+    @Test
+    public void testSensorView() {
+        SensorBank bank = new SensorBank(4);
+        int index = bank.add("Pitch", 90, -90);
+        Sensor view = bank.view(index);
+
+        assertSame(view, bank.view(index));
+        assertEquals("Pitch", view.getName());
+        assertEquals(bank.getValue(index), (int) view.getValue());
+
+        view.setBadMinMax(1000, 2000);
+        assertEquals(1000, bank.getMin(index));
+        assertTrue(view.isTooLow());
+        assertFalse(view.isWithinRange());
+
+        view.updateValue();
+        assertEquals(bank.getValue(index), (int) view.getValue());
+    }
+
+    /**
+     * Tests that a Sensor view tells its listeners about range changes made
+     * through it, like Sensor.setMinMax() and Sensor.setBadMinMax().
+     */
+    @Test
+    public void testSensorViewNotifiesOnRangeChange() {
+        SensorBank bank = new SensorBank(1);
+        Sensor view = bank.view(bank.add("Altitude", 5, 5)); // Zero variation, so the value is always 5
+        List<Boolean> notifications = new ArrayList<>();
+        view.addListener((changed, statusChanged) -> notifications.add(statusChanged));
+
+        view.setBadMinMax(10, 20); // Value is now too low
+        assertEquals(1, notifications.size());
+        assertTrue(notifications.get(0));
+
+        view.setBadMinMax(11, 20); // Still too low, nothing changed
+        assertEquals(1, notifications.size());
+
+        view.setMinMax(0, 10); // Value regenerated within range
+        assertEquals(2, notifications.size());
+        assertTrue(notifications.get(1));
+        assertTrue(view.isWithinRange());
+    }
+}
@@ -1,13 +1,33 @@
 package tests;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import avionics.Sensor;
+import avionics.SensorChange;
+import avionics.SensorFrameLayout;
+import avionics.SensorFrameReader;
+import avionics.SensorFrameWriter;
+import avionics.SensorPersistence;
 import avionics.SensorSimulator;
+import avionics.SensorSnapshot;
+import avionics.SensorSubscription;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 
 /**
@@ -145,4 +165,342 @@ public class TestSensorData {
             assertTrue(sensorList.get(i).getValue() instanceof Integer);
         }
     }
+
+    /**
+     * Tests that running the SensorSimulator publishes a snapshot matching the sensors.
+     */
+    @Test
+    public void testSnapshotPublished() {
+        SensorSimulator sensorSimulator = new SensorSimulator();
+        sensorSimulator.run();
+        SensorSnapshot snapshot = sensorSimulator.publish();
+
+        assertEquals(6, snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            Sensor sensor = sensorSimulator.getSensors().get(snapshot.getKey(i));
+            assertEquals(sensor.getName(), snapshot.getName(i));
+            assertEquals((int) sensor.getMin(), snapshot.getMin(i));
+            assertEquals((int) sensor.getMax(), snapshot.getMax(i));
+        }
+    }
+
+    /**
+     * Tests that each publication increases the snapshot version and is visible on the bus.
+     */
+    @Test
+    public void testSnapshotVersionIncreases() {
+        SensorSimulator sensorSimulator = new SensorSimulator();
+        sensorSimulator.run();
+
+        SensorSnapshot first = sensorSimulator.publish();
+        SensorSnapshot second = sensorSimulator.publish();
+        assertTrue(second.getVersion() > first.getVersion());
+        assertTrue(sensorSimulator.getSensorBus().getVersion() >= second.getVersion());
+    }
+
+    /**
+     * Tests that a frame written to the memory-mapped channel reads back unchanged.
+     */
+    @Test
+    public void testFrameChannelRoundTrip() throws IOException {
+        File file = File.createTempFile("sensor_frame", ".bin");
+        file.deleteOnExit();
+        SensorSimulator sensorSimulator = new SensorSimulator();
+        sensorSimulator.run();
+
+        try (SensorFrameWriter writer = new SensorFrameWriter(file);
+                SensorFrameReader reader = new SensorFrameReader(file)) {
+            int[] values = new int[SensorFrameLayout.getSlotCount()];
+            int[] mins = new int[SensorFrameLayout.getSlotCount()];
+            int[] maxs = new int[SensorFrameLayout.getSlotCount()];
+            assertFalse(reader.read(values, mins, maxs));
+
+            SensorSnapshot snapshot = sensorSimulator.publish();
+            writer.accept(snapshot);
+            assertTrue(reader.hasNewFrame());
+            assertTrue(reader.read(values, mins, maxs));
+            assertEquals(snapshot.getVersion(), reader.getVersion());
+            for (int slot = 0; slot < SensorFrameLayout.getSlotCount(); slot++) {
+                int index = snapshot.indexOf(SensorFrameLayout.getKey(slot));
+                assertEquals(snapshot.getValue(index), values[slot]);
+                assertEquals(snapshot.getMin(index), mins[slot]);
+                assertEquals(snapshot.getMax(index), maxs[slot]);
+            }
+            assertFalse(reader.hasNewFrame());
+        }
+    }
+
+    /**
+     * Tests that a frame left part way written, as by a writer that died, makes
+     * reads give up instead of spinning, keeping the last frame read.
+     */
+    @Test(timeout = 5000)
+    public void testFrameChannelAbandonedFrame() throws IOException {
+        File file = File.createTempFile("sensor_frame", ".bin");
+        file.deleteOnExit();
+        SensorSimulator sensorSimulator = new SensorSimulator();
+        sensorSimulator.run();
+
+        try (SensorFrameWriter writer = new SensorFrameWriter(file);
+                SensorFrameReader reader = new SensorFrameReader(file);
+                FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+            int[] values = new int[SensorFrameLayout.getSlotCount()];
+            int[] mins = new int[SensorFrameLayout.getSlotCount()];
+            int[] maxs = new int[SensorFrameLayout.getSlotCount()];
+            SensorSnapshot snapshot = sensorSimulator.publish();
+            writer.accept(snapshot);
+            assertTrue(reader.read(values, mins, maxs));
+
+            // Start a frame and never finish it
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    SensorFrameLayout.getRegionSize());
+            buffer.order(ByteOrder.nativeOrder());
+            buffer.putLong(SensorFrameLayout.SEQUENCE_OFFSET, buffer.getLong(SensorFrameLayout.SEQUENCE_OFFSET) + 1);
+            buffer.putLong(SensorFrameLayout.VERSION_OFFSET, snapshot.getVersion() + 1);
+
+            assertTrue(reader.hasNewFrame());
+            assertFalse(reader.read(values, mins, maxs));
+            assertEquals(snapshot.getVersion(), reader.getVersion());
+        }
+    }
+
+    /**
+     * Tests that a reader mapped before a new writer opens the same file keeps
+     * reading frames, and that the sequence carries on instead of restarting,
+     * even after a writer died part way through a frame.
+     */
+    @Test(timeout = 5000)
+    public void testFrameChannelReopenKeepsReaders() throws IOException {
+        File file = File.createTempFile("sensor_frame", ".bin");
+        file.deleteOnExit();
+        SensorSimulator sensorSimulator = new SensorSimulator();
+        sensorSimulator.run();
+        SensorSnapshot first = sensorSimulator.publish();
+        try (SensorFrameWriter writer = new SensorFrameWriter(file)) {
+            writer.accept(first);
+        }
+
+        try (SensorFrameReader reader = new SensorFrameReader(file);
+                FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+            int[] values = new int[SensorFrameLayout.getSlotCount()];
+            int[] mins = new int[SensorFrameLayout.getSlotCount()];
+            int[] maxs = new int[SensorFrameLayout.getSlotCount()];
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    SensorFrameLayout.getRegionSize());
+            buffer.order(ByteOrder.nativeOrder());
+
+            long sequence = buffer.getLong(SensorFrameLayout.SEQUENCE_OFFSET);
+            assertTrue(reader.read(values, mins, maxs));
+
+            // A new writer keeps the last frame readable and carries the sequence on
+            try (SensorFrameWriter writer = new SensorFrameWriter(file)) {
+                assertTrue(buffer.getLong(SensorFrameLayout.SEQUENCE_OFFSET) > sequence);
+                assertFalse(reader.hasNewFrame());
+                assertTrue(reader.read(values, mins, maxs));
+                assertEquals(first.getVersion(), reader.getVersion());
+
+                SensorSnapshot second = sensorSimulator.publish();
+                writer.accept(second);
+                assertTrue(reader.read(values, mins, maxs));
+                assertEquals(second.getVersion(), reader.getVersion());
+                sequence = buffer.getLong(SensorFrameLayout.SEQUENCE_OFFSET);
+            }
+
+            // A frame torn by a writer that died stays hidden until the next writer's first frame
+            buffer.putLong(SensorFrameLayout.SEQUENCE_OFFSET, sequence + 1);
+            try (SensorFrameWriter writer = new SensorFrameWriter(file)) {
+                assertFalse(reader.read(values, mins, maxs));
+                SensorSnapshot third = sensorSimulator.publish();
+                writer.accept(third);
+                assertTrue(reader.read(values, mins, maxs));
+                assertEquals(third.getVersion(), reader.getVersion());
+                assertTrue(buffer.getLong(SensorFrameLayout.SEQUENCE_OFFSET) > sequence + 1);
+            }
+        }
+    }
+
+    /**
+     * Tests that a burst of snapshots is collapsed into one write of the latest
+     * snapshot, and that the file is complete and replaced atomically.
+     */
+    @Test
+    public void testPersistenceWritesLatestSnapshot() throws IOException {
+        File file = File.createTempFile("sensor_data", ".json");
+        file.deleteOnExit();
+        SensorSimulator sensorSimulator = new SensorSimulator();
+        sensorSimulator.run();
+
+        SensorSnapshot latest = null;
+        SensorPersistence persistence = new SensorPersistence(file.getPath(), 60_000, 1_000);
+        persistence.accept(sensorSimulator.publish());
+        for (int i = 0; i < 100; i++) {
+            latest = sensorSimulator.publish();
+            persistence.accept(latest);
+        }
+        persistence.close();
+
+        assertTrue(persistence.getWriteCount() <= 2);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        JsonObject json = JsonParser.parseString(Files.readString(file.toPath())).getAsJsonObject();
+        assertEquals(latest.size(), json.size());
+        for (int i = 0; i < latest.size(); i++) {
+            assertEquals(latest.getValue(i), json.get(latest.getName(i)).getAsInt());
+        }
+    }
+
+    /**
+     * Tests that with no minimum interval every update is written promptly, and
+     * the writer waits instead of spinning once there is nothing to write.
+     */
+    @Test
+    public void testPersistenceWithoutIntervalIdles() throws IOException, InterruptedException {
+        File file = File.createTempFile("sensor_data", ".json");
+        file.deleteOnExit();
+        SensorSimulator sensorSimulator = new SensorSimulator();
+        sensorSimulator.run();
+
+        SensorPersistence persistence = new SensorPersistence(file.getPath(), 0, 1_000);
+        try {
+            for (int write = 1; write <= 2; write++) {
+                persistence.accept(sensorSimulator.publish());
+                long deadline = System.currentTimeMillis() + 5000;
+                while (persistence.getWriteCount() < write && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(5);
+                }
+                assertEquals(write, persistence.getWriteCount());
+            }
+
+            // An idle writer parks until the next update instead of spinning
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            assumeTrue(threads.isThreadCpuTimeSupported());
+            Thread.sleep(20);
+            long before = writerCpuNanos(threads);
+            Thread.sleep(200);
+            long used = writerCpuNanos(threads) - before;
+            assertTrue("Writer CPU: " + used + " ns", used < 50_000_000L);
+        } finally {
+            persistence.close();
+        }
+    }
+
+    /**
+     * Sums the CPU time used by every live persistence writer thread.
+     *
+     * @param threads the thread management bean
+     * @return the CPU time in nanoseconds
+     */
+    private static long writerCpuNanos(ThreadMXBean threads) {
+        long total = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("SensorPersistence")) {
+                total += Math.max(0, threads.getThreadCpuTime(thread.getId()));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Tests that more sensors than a change mask holds are rejected outright
+     * rather than sharing mask bits.
+     */
+    @Test
+    public void testSubscriptionSensorLimit() {
+        SensorSimulator crowded = new SensorSimulator();
+        crowded.createSensors();
+        for (int i = crowded.getSensors().size(); i <= SensorChange.MAX_SENSORS; i++) {
+            crowded.addSensor("extra" + i, new Sensor("Extra " + i, 100, 0), 1000);
+        }
+        try {
+            crowded.subscribe(change -> { }, Runnable::run);
+            fail("Subscribing to " + (SensorChange.MAX_SENSORS + 1) + " sensors should fail");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        try {
+            SensorChange.between(null, crowded.publish());
+            fail("A change over " + (SensorChange.MAX_SENSORS + 1) + " sensors should fail");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        SensorSimulator full = new SensorSimulator();
+        full.createSensors();
+        for (int i = full.getSensors().size(); i < SensorChange.MAX_SENSORS; i++) {
+            full.addSensor("extra" + i, new Sensor("Extra " + i, 100, 0), 1000);
+        }
+        full.publish();
+        List<SensorChange> delivered = new ArrayList<>();
+        full.subscribe(delivered::add, Runnable::run);
+        assertEquals(-1L, delivered.get(0).getValueMask()); // All 64 sensors marked
+        try {
+            full.addSensor("overflow", new Sensor("Overflow", 100, 0), 1000);
+            fail("Adding a sensor past the subscription limit should fail");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        assertEquals(SensorChange.MAX_SENSORS, full.getSensors().size());
+    }
+
+    /**
+     * Tests that a sensor listener is told about value changes, and flags
+     * changes of range status.
+     */
+    @Test
+    public void testSensorListenerNotifiedOnChange() {
+        Sensor sensor = new Sensor("Test", 1000, 0);
+        List<Boolean> notifications = new ArrayList<>();
+        sensor.addListener((changed, statusChanged) -> notifications.add(statusChanged));
+
+        int value = sensor.getValue();
+        sensor.setBadMinMax(value + 1, value + 100); // Value is now too low
+        assertEquals(1, notifications.size());
+        assertTrue(notifications.get(0));
+
+        sensor.setBadMinMax(value + 2, value + 100); // Still too low, nothing changed
+        assertEquals(1, notifications.size());
+
+        for (int i = 0; i < 200; i++) {
+            sensor.updateValue();
+        }
+        assertTrue(notifications.size() > 1);
+    }
+
+    /**
+     * Tests that subscription deliveries are merged until the executor runs, and
+     * that snapshots which change nothing are not delivered at all.
+     */
+    @Test
+    public void testSubscriptionCoalescesChanges() {
+        SensorSimulator sensorSimulator = new SensorSimulator();
+        sensorSimulator.createSensors(); // Publishes once, without updating sensors in the background
+        List<Runnable> queued = new ArrayList<>();
+        List<SensorChange> delivered = new ArrayList<>();
+
+        SensorSubscription subscription = sensorSimulator.subscribe(delivered::add, queued::add);
+        assertEquals(1, queued.size()); // Primed with the latest snapshot
+
+        Map<String, Sensor> sensors = sensorSimulator.getSensors();
+        sensorSimulator.publish(); // Same values as the priming snapshot
+        int altitude = sensors.get("altitude").getValue();
+        sensors.get("altitude").setBadMinMax(altitude + 1, altitude + 100);
+        SensorSnapshot latest = sensorSimulator.publish();
+        sensorSimulator.publish(); // Same values again
+        assertEquals(1, queued.size()); // Still one delivery pending
+
+        queued.remove(0).run();
+        assertEquals(1, delivered.size());
+        SensorChange change = delivered.get(0);
+        assertEquals(latest.getVersion(), change.getSnapshot().getVersion());
+        assertTrue(change.isStatusChanged(latest.indexOf("altitude")));
+
+        sensorSimulator.publish(); // Nothing changed since the last delivery
+        assertTrue(queued.isEmpty());
+
+        subscription.cancel();
+        sensors.get("altitude").setMinMax(0, 40000);
+        sensorSimulator.publish();
+        assertTrue(queued.isEmpty());
+    }
 }
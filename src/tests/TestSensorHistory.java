@@ -0,0 +1,81 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import avionics.Sensor;
+import avionics.SensorHistory;
+
+/**
+ * This class contains unit tests for the SensorHistory class.
+ */
+public class TestSensorHistory {
+
+    /**
+     * Tests that samples are returned oldest first and that the oldest are overwritten once full.
+     */
+    @Test
+    public void testLastNWrapsAround() {
+        SensorHistory history = new SensorHistory(4);
+        for (int i = 0; i < 6; i++) {
+            history.record(i * 100, i);
+        }
+
+        long[] timestamps = new long[4];
+        int[] values = new int[4];
+        assertEquals(4, history.size());
+        assertEquals(3, history.lastN(3, timestamps, values));
+        assertEquals(3, values[0]);
+        assertEquals(5, values[2]);
+        assertEquals(500, timestamps[2]);
+        assertEquals(5, history.getValue(0));
+        assertEquals(2, history.getValue(3));
+    }
+
+    /**
+     * Tests the time-windowed queries.
+     */
+    @Test
+    public void testWindowQueries() {
+        SensorHistory history = new SensorHistory(10);
+        int[] samples = { 5, 9, 1, 7, 3 };
+        for (int i = 0; i < samples.length; i++) {
+            history.record(1000 + i * 500, samples[i]);
+        }
+
+        long[] timestamps = new long[10];
+        int[] values = new int[10];
+        assertEquals(3, history.since(2000, timestamps, values));
+        assertEquals(1, values[0]);
+        assertEquals(3, history.countSince(2000));
+        assertEquals(1, history.minSince(2000));
+        assertEquals(7, history.maxSince(2000));
+        assertEquals(11 / 3.0, history.meanSince(2000), 1e-9);
+        assertEquals(Integer.MAX_VALUE, history.minSince(5000));
+        assertTrue(Double.isNaN(history.meanSince(5000)));
+    }
+
+    /**
+     * Tests that a sensor records its updates only once history is enabled.
+     */
+    @Test
+    public void testSensorRecordsUpdates() {
+        Sensor sensor = new Sensor("Airspeed", 1000, 100);
+        assertNull(sensor.getHistory());
+
+        sensor.enableHistory(8);
+        for (int i = 0; i < 20; i++) {
+            sensor.updateValue(i);
+        }
+
+        SensorHistory history = sensor.getHistory();
+        assertNotNull(history);
+        assertEquals(8, history.size());
+        assertEquals((int) sensor.getValue(), history.getValue(0));
+        assertEquals(19, history.getTimestamp(0));
+    }
+}
@@ -0,0 +1,349 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import avionics.Sensor;
+import avionics.SensorSnapshot;
+import flightSystem.Plane;
+import flightSystem.PlaneState;
+import flightSystem.SpatialGrid;
+import simulation.Aircraft;
+import simulation.FastTimeSimulation;
+import simulation.FleetSimulation;
+import simulation.FlightTimer;
+import simulation.HeadlessRuntime;
+import simulation.PhysicsLoop;
+import simulation.SimulationListener;
+import simulation.SimulationRunner;
+import simulation.VirtualClock;
+
+/**
+ * This class contains unit tests for the virtual clock and SimulationRunner.
+ */
+public class TestSimulationRunner {
+
+    /**
+     * Tests that tasks run the right number of times and the clock ends at the requested time.
+     */
+    @Test
+    public void testRunForCountsAndClock() {
+        VirtualClock clock = new VirtualClock(1000);
+        SimulationRunner runner = new SimulationRunner(clock);
+        int[] counts = new int[2];
+        runner.schedule(1000, () -> counts[0]++);
+        runner.schedule(500, () -> counts[1]++);
+
+        runner.runFor(10_000);
+
+        assertEquals(11, counts[0]); // At 0, 1000, ..., 10000
+        assertEquals(21, counts[1]); // At 0, 500, ..., 10000
+        assertEquals(11_000, clock.currentTimeMillis());
+    }
+
+    /**
+     * Tests that tasks due at the same time run in the order they were scheduled.
+     */
+    @Test
+    public void testSameTimeOrdering() {
+        VirtualClock clock = new VirtualClock(0);
+        SimulationRunner runner = new SimulationRunner(clock);
+        List<String> order = new ArrayList<>();
+        runner.schedule(500, () -> order.add("sensors"));
+        runner.schedule(250, () -> order.add("plane"));
+
+        runner.runFor(500);
+
+        assertEquals(List.of("sensors", "plane", "plane", "sensors", "plane"), order);
+    }
+
+    /**
+     * Tests that a fast-time flight timestamps sensor snapshots with simulated time.
+     */
+    @Test
+    public void testFastTimeSnapshotsUseVirtualTime() {
+        FastTimeSimulation simulation = new FastTimeSimulation(0);
+        long hour = 3_600_000;
+        simulation.runFor(hour);
+
+        assertEquals(hour, simulation.getClock().currentTimeMillis());
+        assertEquals(hour, simulation.getSensorSimulator().getSensorBus().latest().getTimestamp());
+    }
+
+    /**
+     * Tests that a fast-time flight measures elapsed flight time on the virtual
+     * clock and keeps the final time once the plane arrives.
+     */
+    @Test
+    public void testFastTimeElapsedFlightTime() {
+        FastTimeSimulation simulation = new FastTimeSimulation(0);
+        simulation.runFor(60_000);
+        assertEquals(60_000, simulation.getElapsedFlightTime());
+
+        FastTimeSimulation flight = new FastTimeSimulation(1_000);
+        flight.getPlane().addWaypoint(new java.awt.Point((int) flight.getPlane().getPlaneX() + 20,
+                (int) flight.getPlane().getPlaneY()));
+        flight.runFor(3_600_000);
+        long arrival = flight.getElapsedFlightTime();
+        assertTrue(flight.getPlane().isAtDestination());
+        assertTrue(arrival > 0 && arrival < 3_600_000);
+        assertEquals(0, arrival % FastTimeSimulation.PLANE_STEP_PERIOD);
+        flight.runFor(60_000);
+        assertEquals(arrival, flight.getElapsedFlightTime());
+    }
+
+    /**
+     * Tests that a flight timer measures time on its clock and keeps the final time when stopped.
+     */
+    @Test
+    public void testFlightTimer() {
+        VirtualClock clock = new VirtualClock(5_000);
+        FlightTimer timer = new FlightTimer(clock);
+        assertFalse(timer.isRunning());
+        timer.start();
+        clock.advanceBy(1_500);
+        assertEquals(1_500, timer.update());
+        clock.advanceBy(500);
+        assertEquals(2_000, timer.stop());
+        clock.advanceBy(10_000);
+        assertEquals(2_000, timer.update());
+        timer.start();
+        assertEquals(0, timer.getElapsedTime());
+    }
+
+    /**
+     * Tests that every aircraft in a fleet has its own sensors.
+     */
+    @Test
+    public void testFleetAircraftAreIsolated() {
+        FleetSimulation fleet = new FleetSimulation(2, 0);
+        Sensor first = fleet.getAircraft(0).getSensorSimulator().getSensors().get("altitude");
+        Sensor second = fleet.getAircraft(1).getSensorSimulator().getSensors().get("altitude");
+        assertNotSame(first, second);
+
+        int secondMax = second.getMax();
+        first.setBadMinMax(0, secondMax + 1);
+        assertEquals(secondMax, (int) second.getMax());
+    }
+
+    /**
+     * Tests that autopilot limits submitted to one aircraft only change that
+     * aircraft's autopilot and sensors.
+     */
+    @Test
+    public void testFleetAircraftAutopilot() {
+        FleetSimulation fleet = new FleetSimulation(4, 0);
+        Aircraft target = fleet.getAircraft(2);
+        Aircraft other = fleet.getAircraft(1);
+        int otherMax = other.getSensorSimulator().getSensors().get("altitude").getMax();
+
+        assertTrue(target.submitAutopilot(200, 400, 20000, 30000));
+        assertTrue(target.getAutopilot().getEngaged());
+        fleet.runFor(1_000);
+
+        Sensor altitude = target.getSensorSimulator().getSensors().get("altitude");
+        Sensor airspeed = target.getSensorSimulator().getSensors().get("airspeed");
+        assertEquals(20000, (int) altitude.getMin());
+        assertEquals(30000, (int) altitude.getMax());
+        assertEquals(200, (int) airspeed.getMin());
+        assertEquals(400, (int) airspeed.getMax());
+        assertEquals(otherMax, (int) other.getSensorSimulator().getSensors().get("altitude").getMax());
+        assertFalse(other.getAutopilot().getEngaged());
+    }
+
+    /**
+     * Tests that a parallel fleet step brings every aircraft to the same simulated time.
+     */
+    @Test
+    public void testFleetStepsEveryAircraft() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        FleetSimulation fleet = new FleetSimulation(200, 0, pool, FastTimeSimulation.MAP_WIDTH,
+                FastTimeSimulation.MAP_HEIGHT);
+        long steps = fleet.runFor(10_000);
+        pool.shutdown();
+
+        assertEquals(200 * (10_000 / FleetSimulation.STEP_PERIOD), steps);
+        assertEquals(steps, fleet.getAircraftSteps());
+        for (int i = 0; i < fleet.size(); i++) {
+            assertEquals(10_000, fleet.getAircraft(i).getSensorSimulator().getSensorBus().latest().getTimestamp());
+        }
+    }
+
+    /**
+     * Tests that the headless runtime publishes sensors, moves the plane and
+     * applies autopilot limits without any GUI.
+     */
+    @Test
+    public void testHeadlessRuntime() throws InterruptedException {
+        AtomicLong publications = new AtomicLong();
+        AtomicLong steps = new AtomicLong();
+        HeadlessRuntime runtime = new HeadlessRuntime(new SimulationListener() {
+            public void sensorsPublished(SensorSnapshot snapshot) {
+                publications.incrementAndGet();
+            }
+
+            public void planeStepped(long timeMillis, Plane plane) {
+                steps.incrementAndGet();
+            }
+
+            public void navigationChanged(long timeMillis, Plane plane) {
+            }
+        });
+        runtime.start();
+        assertTrue(runtime.submitAutopilot(100, 400, 2000, 30000));
+        assertEquals(400, (int) runtime.getSensorSimulator().getSensors().get("airspeed").getMax());
+
+        runtime.addWaypoint(100, 100);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (steps.get() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        runtime.close();
+
+        assertTrue(publications.get() > 0);
+        assertTrue(steps.get() >= 3);
+        assertEquals(steps.get(), runtime.getPlaneSteps());
+    }
+
+    /**
+     * Tests the spatial grid's queries against a linear scan while objects move.
+     */
+    @Test
+    public void testSpatialGridMatchesLinearScan() {
+        Random random = new Random(7);
+        SpatialGrid<Integer> grid = new SpatialGrid<>(25);
+        double[] xs = new double[500];
+        double[] ys = new double[500];
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = random.nextDouble() * 1000 - 200;
+                ys[i] = random.nextDouble() * 600 - 100;
+                grid.put(i, xs[i], ys[i]);
+            }
+            assertEquals(xs.length, grid.size());
+
+            double px = random.nextDouble() * 600;
+            double py = random.nextDouble() * 400;
+            HashSet<Integer> inRect = new HashSet<>();
+            HashSet<Integer> inRadius = new HashSet<>();
+            int nearest = -1;
+            double nearestSquared = Double.MAX_VALUE;
+            for (int i = 0; i < xs.length; i++) {
+                double dx = xs[i] - px;
+                double dy = ys[i] - py;
+                if (xs[i] >= px && xs[i] <= px + 120 && ys[i] >= py && ys[i] <= py + 80) {
+                    inRect.add(i);
+                }
+                if (dx * dx + dy * dy <= 60 * 60) {
+                    inRadius.add(i);
+                }
+                if (dx * dx + dy * dy < nearestSquared) {
+                    nearest = i;
+                    nearestSquared = dx * dx + dy * dy;
+                }
+            }
+            assertEquals(inRect, new HashSet<>(grid.queryRect(px, py, px + 120, py + 80)));
+            assertEquals(inRadius, new HashSet<>(grid.queryRadius(px, py, 60)));
+            assertEquals(nearest, (int) grid.nearest(px, py, Double.POSITIVE_INFINITY));
+        }
+
+        assertTrue(grid.remove(3));
+        assertEquals(xs.length - 1, grid.size());
+        assertNull(grid.nearest(xs[3] + 10_000, ys[3], 5));
+        grid.clear();
+        assertNull(grid.nearest(0, 0, Double.POSITIVE_INFINITY));
+        assertEquals(0, grid.getOccupiedCells());
+    }
+
+    /**
+     * Tests that the fleet's spatial index follows the aircraft as they move.
+     */
+    @Test
+    public void testFleetSpatialIndex() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        FleetSimulation fleet = new FleetSimulation(100, 0, pool, FastTimeSimulation.MAP_WIDTH,
+                FastTimeSimulation.MAP_HEIGHT);
+        SpatialGrid<Aircraft> index = fleet.enableSpatialIndex(50);
+        fleet.runFor(5_000);
+        pool.shutdown();
+
+        assertEquals(fleet.size(), index.size());
+        for (int i = 0; i < fleet.size(); i++) {
+            Plane plane = fleet.getAircraft(i).getPlane();
+            assertSame(fleet.getAircraft(i), index.nearest(plane.getPlaneX(), plane.getPlaneY(), 0));
+        }
+    }
+
+    /**
+     * Tests that the physics loop takes one fixed step per period of elapsed
+     * time, carrying remainders over and dropping the backlog after a stall.
+     */
+    @Test
+    public void testPhysicsLoopFixedTimestep() {
+        Plane plane = new Plane();
+        PhysicsLoop loop = new PhysicsLoop(plane, FastTimeSimulation.MAP_WIDTH, FastTimeSimulation.MAP_HEIGHT);
+        long period = PhysicsLoop.STEP_PERIOD * 1_000_000L;
+        PlaneState initial = loop.getState();
+
+        assertEquals(3, loop.advance(3 * period + period / 2));
+        assertEquals(1, loop.advance(period / 2));     // The carried half period completes a step
+        assertEquals(0, loop.advance(period / 3));
+        assertEquals(4, loop.getState().getStep());
+        assertTrue(loop.getState().getX() != initial.getX() || loop.getState().getY() != initial.getY());
+        assertEquals(plane.getPlaneX(), loop.getState().getX(), 0);
+
+        // A long stall catches up a bounded number of steps and drops the rest
+        assertEquals(PhysicsLoop.MAX_CATCH_UP_STEPS, loop.advance(100 * period));
+        assertTrue(loop.getDroppedSteps() > 0);
+        assertEquals(4 + PhysicsLoop.MAX_CATCH_UP_STEPS, loop.getSteps());
+        assertEquals(0, loop.advance(period / 2));
+
+        // Same waypoint flight, same distance, however the elapsed time is sliced
+        Plane fine = new Plane();
+        Plane coarse = new Plane();
+        PhysicsLoop fineLoop = new PhysicsLoop(fine, 660, 390);
+        PhysicsLoop coarseLoop = new PhysicsLoop(coarse, 660, 390);
+        fine.addWaypoint(new java.awt.Point(600, 300));
+        coarse.addWaypoint(new java.awt.Point(600, 300));
+        for (int i = 0; i < 100; i++) {
+            fineLoop.advance(period / 10);
+        }
+        coarseLoop.advance(4 * period);
+        coarseLoop.advance(6 * period);
+        assertEquals(fine.getPlaneX(), coarse.getPlaneX(), 1e-9);
+        assertEquals(fine.getPlaneY(), coarse.getPlaneY(), 1e-9);
+    }
+
+    /**
+     * Tests that a started physics loop moves the plane on its own thread.
+     */
+    @Test
+    public void testPhysicsLoopThread() throws InterruptedException {
+        Plane plane = new Plane();
+        PhysicsLoop loop = new PhysicsLoop(plane, FastTimeSimulation.MAP_WIDTH, FastTimeSimulation.MAP_HEIGHT);
+        loop.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loop.getSteps() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        loop.close();
+        long steps = loop.getSteps();
+        assertTrue(steps >= 3);
+        Thread.sleep(3 * PhysicsLoop.STEP_PERIOD);
+        assertEquals(steps, loop.getSteps()); // Stopped
+        assertEquals(steps, loop.getState().getStep());
+    }
+}
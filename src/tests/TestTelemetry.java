@@ -0,0 +1,348 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Test;
+
+import avionics.SensorSimulator;
+import avionics.SensorSnapshot;
+import simulation.FastTimeSimulation;
+import telemetry.EventJournal;
+import telemetry.TelemetryFormat;
+import telemetry.TelemetryReader;
+import telemetry.TelemetryRecorder;
+import telemetry.TelemetryReplay;
+
+/**
+ * This class contains unit tests for the telemetry recorder and its on-disk format.
+ */
+public class TestTelemetry {
+
+    /**
+     * Records a fast-time flight, collecting every published snapshot alongside.
+     *
+     * @param recorder       the recorder to attach
+     * @param durationMillis the simulated flight length
+     * @return the snapshots published during the flight
+     */
+    private List<SensorSnapshot> recordFlight(TelemetryRecorder recorder, long durationMillis) {
+        FastTimeSimulation simulation = new FastTimeSimulation(0);
+        List<SensorSnapshot> published = new ArrayList<>();
+        simulation.getSensorSimulator().addSink(published::add);
+        simulation.getSensorSimulator().addSink(recorder);
+        simulation.runFor(durationMillis);
+        recorder.close();
+        return published;
+    }
+
+    /**
+     * Asserts that a replayed snapshot carries the same data as a recorded one.
+     *
+     * @param expected the recorded snapshot
+     * @param actual   the replayed snapshot
+     */
+    private void assertSameData(SensorSnapshot expected, SensorSnapshot actual) {
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getKey(i), actual.getKey(i));
+            assertEquals(expected.getValue(i), actual.getValue(i));
+            assertEquals(expected.getMin(i), actual.getMin(i));
+            assertEquals(expected.getMax(i), actual.getMax(i));
+        }
+    }
+
+    /**
+     * Asserts that a recording decodes to exactly the given snapshots.
+     *
+     * @param directory the recording directory
+     * @param expected  the snapshots that were recorded
+     */
+    private void assertRecording(File directory, List<SensorSnapshot> expected) throws IOException {
+        try (TelemetryReader reader = new TelemetryReader(directory)) {
+            for (SensorSnapshot snapshot : expected) {
+                assertTrue(reader.next());
+                assertEquals(snapshot.getVersion(), reader.getSequence());
+                assertEquals(snapshot.getTimestamp(), reader.getTimestamp());
+                assertEquals(snapshot.size(), reader.size());
+                for (int i = 0; i < snapshot.size(); i++) {
+                    assertEquals(snapshot.getKey(i), reader.getKey(i));
+                    assertEquals(snapshot.getValue(i), reader.getValue(i));
+                    assertEquals(snapshot.getMin(i), reader.getMin(i));
+                    assertEquals(snapshot.getMax(i), reader.getMax(i));
+                }
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    /**
+     * Tests that varints and zigzag varints round-trip, including the extremes.
+     */
+    @Test
+    public void testVarLongRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        long[] samples = { 0, 1, -1, 63, -64, 64, 300, -300, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE };
+        for (long sample : samples) {
+            TelemetryFormat.putSignedVarLong(buffer, sample);
+        }
+        buffer.flip();
+        for (long sample : samples) {
+            assertEquals(sample, TelemetryFormat.getSignedVarLong(buffer));
+        }
+
+        buffer.clear();
+        TelemetryFormat.putSignedVarLong(buffer, -1);
+        assertEquals(1, buffer.position()); // Small negative deltas stay one byte
+    }
+
+    /**
+     * Tests that an hour of flight decodes back to every published snapshot,
+     * at no more than a few bytes per sensor sample.
+     */
+    @Test
+    public void testRecordingRoundTrip() throws IOException {
+        File directory = Files.createTempDirectory("telemetry").toFile();
+        TelemetryRecorder recorder = new TelemetryRecorder(directory);
+        List<SensorSnapshot> published = recordFlight(recorder, 3_600_000);
+
+        assertEquals(published.size(), recorder.getFramesWritten());
+        assertEquals(1, TelemetryFormat.listSegments(directory).length);
+        double bytesPerSample = (double) recorder.getBytesWritten() / (published.size() * published.get(0).size());
+        assertTrue("Bytes per sample: " + bytesPerSample, bytesPerSample < 3);
+        assertRecording(directory, published);
+    }
+
+    /**
+     * Tests that segments roll at the size limit, each with its own index of
+     * keyframes, and that the recording still reads back across segments.
+     */
+    @Test
+    public void testSegmentsRollAtSizeLimit() throws IOException {
+        File directory = Files.createTempDirectory("telemetry").toFile();
+        TelemetryRecorder recorder = new TelemetryRecorder(directory, 4096);
+        List<SensorSnapshot> published = recordFlight(recorder, 3_600_000);
+
+        int[] segments = TelemetryFormat.listSegments(directory);
+        assertTrue(segments.length > 1);
+        for (int number : segments) {
+            File segment = TelemetryFormat.segmentFile(directory, number);
+            File index = TelemetryFormat.indexFile(segment);
+            assertTrue(segment.length() <= 4096);
+            assertTrue(index.length() >= TelemetryFormat.INDEX_ENTRY_SIZE);
+            assertEquals(0, index.length() % TelemetryFormat.INDEX_ENTRY_SIZE);
+        }
+        assertRecording(directory, published);
+    }
+
+    /**
+     * Tests that frames older than the flush interval reach the segment while
+     * the recorder stays open, so a crash does not lose them.
+     */
+    @Test
+    public void testRecorderFlushesOnIntervalWithoutClose() throws IOException, InterruptedException {
+        File directory = Files.createTempDirectory("telemetry").toFile();
+        TelemetryRecorder recorder = new TelemetryRecorder(directory, TelemetryRecorder.DEFAULT_SEGMENT_SIZE, 10);
+        FastTimeSimulation simulation = new FastTimeSimulation(0);
+        List<SensorSnapshot> published = new ArrayList<>();
+        simulation.getSensorSimulator().addSink(published::add);
+        simulation.getSensorSimulator().addSink(recorder);
+        simulation.runFor(60_000);
+        int waiting = published.size();
+        Thread.sleep(20);
+        simulation.runFor(1000); // The first frame after the wait flushes every frame before it
+
+        int onDisk = 0;
+        try (TelemetryReader reader = new TelemetryReader(directory)) {
+            while (reader.next()) {
+                assertEquals(published.get(onDisk).getVersion(), reader.getSequence());
+                onDisk++;
+            }
+        }
+        assertTrue("Frames on disk: " + onDisk, onDisk > waiting);
+        recorder.close();
+    }
+
+    /**
+     * Tests that an unthrottled replay publishes every recorded snapshot through
+     * the simulator's bus and sinks, with versions that keep increasing.
+     */
+    @Test
+    public void testReplayPublishesEveryFrame() throws IOException {
+        File directory = Files.createTempDirectory("telemetry").toFile();
+        List<SensorSnapshot> recorded = recordFlight(new TelemetryRecorder(directory), 3_600_000);
+
+        SensorSimulator target = new SensorSimulator();
+        List<SensorSnapshot> replayed = new ArrayList<>();
+        target.addSink(replayed::add);
+        try (TelemetryReplay replay = new TelemetryReplay(directory, target)) {
+            replay.setSpeedMultiplier(TelemetryReplay.UNTHROTTLED);
+            assertEquals(recorded.size(), replay.play());
+        }
+
+        assertEquals(recorded.size(), replayed.size());
+        for (int i = 0; i < recorded.size(); i++) {
+            assertSameData(recorded.get(i), replayed.get(i));
+            assertEquals(i + 1, replayed.get(i).getVersion());
+        }
+        assertSameData(recorded.get(recorded.size() - 1), target.getSensorBus().latest());
+    }
+
+    /**
+     * Tests that seeking anywhere in a long, multi-segment recording, forwards or
+     * backwards, publishes the frame in effect at that time.
+     */
+    @Test
+    public void testSeekPublishesFrameAtTime() throws IOException {
+        File directory = Files.createTempDirectory("telemetry").toFile();
+        List<SensorSnapshot> recorded = recordFlight(new TelemetryRecorder(directory, 64 * 1024), 12 * 3_600_000L);
+        assertTrue(TelemetryFormat.listSegments(directory).length > 1);
+
+        SensorSimulator target = new SensorSimulator();
+        try (TelemetryReplay replay = new TelemetryReplay(directory, target)) {
+            assertFalse(replay.seek(recorded.get(0).getTimestamp() - 1));
+
+            long[] targets = { 11 * 3_600_000L + 1234, 3_600_000L, 6 * 3_600_000L + 250, recorded.get(0).getTimestamp() };
+            for (long time : targets) {
+                assertTrue(replay.seek(time));
+                SensorSnapshot expected = null;
+                for (SensorSnapshot snapshot : recorded) {
+                    if (snapshot.getTimestamp() <= time) {
+                        expected = snapshot;
+                    }
+                }
+                assertSameData(expected, target.getSensorBus().latest());
+                assertEquals(time, replay.currentTimeMillis());
+            }
+
+            // Playback carries on from the seek position
+            replay.setSpeedMultiplier(TelemetryReplay.UNTHROTTLED);
+            replay.playFor(1000);
+            assertEquals(recorded.get(0).getTimestamp() + 1000, replay.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Tests that a throttled replay paces frames to the speed multiplier.
+     */
+    @Test
+    public void testThrottledReplayTakesWallTime() throws IOException {
+        File directory = Files.createTempDirectory("telemetry").toFile();
+        recordFlight(new TelemetryRecorder(directory), 60_000);
+
+        try (TelemetryReplay replay = new TelemetryReplay(directory, new SensorSimulator())) {
+            replay.setSpeedMultiplier(10);
+            long started = System.nanoTime();
+            replay.playFor(2000);
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            assertTrue("Elapsed: " + elapsedMillis, elapsedMillis >= 190);
+        }
+    }
+
+    /**
+     * Tests that the journal writes every event as a JSON line, rotates at its
+     * size cap and keeps only the newest files.
+     */
+    @Test
+    public void testJournalRotatesAndKeepsNewestFiles() throws IOException {
+        File directory = Files.createTempDirectory("journal").toFile();
+        EventJournal journal = new EventJournal(directory, 512, 3, 1000, EventJournal.SyncPolicy.FSYNC, 1000);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(journal.log(i, "console", "pitch", "WARNING", "event " + i));
+        }
+        journal.close();
+
+        assertEquals(100, journal.getWritten());
+        assertFalse(journal.log(100, "console", "pitch", "INFO", "after close"));
+        int[] files = EventJournal.listFiles(directory);
+        assertEquals(3, files.length);
+
+        // The newest file ends with the last event, and every file stays under the cap
+        List<String> lines = Files.readAllLines(EventJournal.journalFile(directory, files[2]).toPath());
+        assertTrue(lines.get(lines.size() - 1).contains("\"message\":\"event 99\""));
+        for (int number : files) {
+            assertTrue(EventJournal.journalFile(directory, number).length() <= 512);
+        }
+    }
+
+    /**
+     * Tests that under the interval policy, entries reach the file within the
+     * flush interval while a steady stream keeps arriving.
+     */
+    @Test
+    public void testJournalIntervalFlushUnderSteadyStream() throws IOException, InterruptedException {
+        File directory = Files.createTempDirectory("journal").toFile();
+        EventJournal journal = new EventJournal(directory, 1024 * 1024, 2, 100_000,
+                EventJournal.SyncPolicy.INTERVAL, 10);
+        File file = EventJournal.journalFile(directory, EventJournal.listFiles(directory)[0]);
+        AtomicBoolean streaming = new AtomicBoolean(true);
+        Thread producer = new Thread(() -> {
+            for (long i = 0; streaming.get(); i++) {
+                journal.log(i, "console", "pitch", "INFO", "event " + i);
+                LockSupport.parkNanos(20_000);
+            }
+        });
+        producer.start();
+
+        long length = 0;
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((length = file.length()) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        streaming.set(false);
+        producer.join();
+        journal.close();
+
+        // Flushed by the interval, well before the 64 KB write buffer filled
+        assertTrue("Length: " + length, length > 0 && length < 64 * 1024);
+    }
+
+    /**
+     * Tests that every entry accepted while the journal closes is written, and
+     * every entry that cannot be written is reported as dropped.
+     */
+    @Test
+    public void testJournalCloseRaceLosesNoAcceptedEntries() throws IOException, InterruptedException {
+        File directory = Files.createTempDirectory("journal").toFile();
+        EventJournal journal = new EventJournal(directory, 64 * 1024 * 1024, 2, 1_000_000,
+                EventJournal.SyncPolicy.BATCH, 1000);
+        AtomicLong accepted = new AtomicLong();
+        Thread[] producers = new Thread[4];
+        for (int p = 0; p < producers.length; p++) {
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    if (journal.log(i, "hazard", "sensorFault", "WARNING", "event")) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            producers[p].start();
+        }
+        Thread.sleep(5);
+        journal.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        long lines = 0;
+        for (int number : EventJournal.listFiles(directory)) {
+            lines += Files.readAllLines(EventJournal.journalFile(directory, number).toPath()).size();
+        }
+        assertEquals(accepted.get(), journal.getWritten());
+        assertEquals(accepted.get(), lines);
+        assertEquals(4 * 50_000 - accepted.get(), journal.getDropped());
+    }
+}
@@ -0,0 +1,85 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import avionics.Sensor;
+import avionics.SensorSimulator;
+import avionics.TimingWheel;
+
+/**
+ * This class contains unit tests for the TimingWheel class and its use by the SensorSimulator.
+ */
+public class TestTimingWheel {
+
+    /**
+     * Tests that tasks due on the same tick are delivered as one batch.
+     */
+    @Test
+    public void testSameTickBatched() {
+        List<Integer> batchSizes = new ArrayList<>();
+        TimingWheel wheel = new TimingWheel(50, 16, 0, (due, count, tickTime) -> batchSizes.add(count));
+        wheel.schedule(0, 500);
+        wheel.schedule(1, 500);
+        wheel.schedule(2, 1000);
+
+        wheel.advanceTo(1000);
+
+        // Ticks at 0, 500 and 1000 have work; 0 and 1000 include the one second task
+        assertEquals(List.of(3, 2, 3), batchSizes);
+    }
+
+    /**
+     * Tests that periods longer than a full rotation of the wheel still fire on time.
+     */
+    @Test
+    public void testPeriodsLongerThanWheel() {
+        List<Long> times = new ArrayList<>();
+        TimingWheel wheel = new TimingWheel(10, 8, 0, (due, count, tickTime) -> times.add(tickTime));
+        wheel.schedule(7, 250, 250); // 25 ticks on a wheel of 8 slots
+
+        wheel.advanceTo(1000);
+
+        assertEquals(List.of(250L, 500L, 750L, 1000L), times);
+    }
+
+    /**
+     * Tests that ticks processed a whole tick late are counted as overruns in their slot.
+     */
+    @Test
+    public void testOverrunAccounting() {
+        TimingWheel wheel = new TimingWheel(50, 16, 0, (due, count, tickTime) -> {});
+        wheel.schedule(0, 50);
+
+        wheel.advanceTo(0);
+        assertEquals(0, wheel.getTotalOverruns());
+
+        wheel.advanceTo(200); // Ticks 1 to 4, all but the last at least a tick late
+        assertEquals(3, wheel.getTotalOverruns());
+        assertEquals(1, wheel.getSlotOverruns(1));
+        assertEquals(150, wheel.getMaxLatenessMillis());
+    }
+
+    /**
+     * Tests that the SensorSimulator updates extra sensors at their own period.
+     */
+    @Test
+    public void testSimulatorExtraSensor() {
+        SensorSimulator sensorSimulator = new SensorSimulator();
+        sensorSimulator.setClock(() -> 0);
+        sensorSimulator.createSensors();
+        Sensor fuel = new Sensor("Fuel", 1000, 100);
+        fuel.enableHistory(16);
+        sensorSimulator.addSensor("fuel", fuel, 250);
+
+        sensorSimulator.advanceTo(1000);
+
+        assertEquals(5, fuel.getHistory().size()); // At 0, 250, 500, 750 and 1000
+        assertTrue(sensorSimulator.getSensorBus().latest().indexOf("fuel") >= 0);
+    }
+}